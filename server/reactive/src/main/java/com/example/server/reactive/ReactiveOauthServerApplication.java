@@ -0,0 +1,13 @@
+package com.example.server.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class ReactiveOauthServerApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveOauthServerApplication.class, args);
+	}
+
+}
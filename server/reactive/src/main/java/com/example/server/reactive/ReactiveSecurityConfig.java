@@ -0,0 +1,165 @@
+package com.example.server.reactive;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.RedirectServerAuthenticationSuccessHandler;
+import org.springframework.security.web.server.authentication.SessionLimit;
+import org.springframework.security.web.server.authentication.logout.DelegatingServerLogoutHandler;
+import org.springframework.security.web.server.authentication.logout.RedirectServerLogoutSuccessHandler;
+import org.springframework.security.web.server.authentication.logout.SecurityContextServerLogoutHandler;
+import org.springframework.security.web.server.authentication.logout.ServerLogoutHandler;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.csrf.CookieServerCsrfTokenRepository;
+import org.springframework.security.web.server.csrf.CsrfToken;
+import org.springframework.security.web.server.header.XFrameOptionsServerHttpHeadersWriter;
+import org.springframework.security.web.server.savedrequest.NoOpServerRequestCache;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebSession;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * ==========================================
+ * REACTIVE SECURITY CONFIGURATION
+ * WebFlux / Netty variant of the servlet SecurityConfig
+ * ==========================================
+ *
+ * Same BFF contract as the servlet app, so nginx and the SPA work
+ * unchanged against either backend:
+ *
+ * - OAuth2 login (GitHub) → session cookie JSESSIONID → /dashboard
+ * - CSRF: XSRF-TOKEN cookie (HttpOnly=false), X-XSRF-TOKEN header,
+ *   XOR-masked rendered tokens (SpaServerCsrfTokenRequestHandler)
+ * - POST /api/logout: invalidate session, delete cookies, redirect to /
+ * - One session per user: a new login invalidates the older session
+ * - Same CSP / HSTS / frame-options headers
+ * - Session-free /actuator/health probes
+ *
+ * WHY A REACTIVE VARIANT:
+ * Netty serves every connection from a few event-loop threads, so a
+ * long-polling SPA holding thousands of idle connections costs memory per
+ * connection, not a thread per connection.
+ *
+ * DIFFERENCES FROM THE SERVLET APP:
+ * - Sessions: ReactiveMapSessionRepository only (no bff.session.store)
+ * - CSRF: cookie repository only; the token cookie is issued when missing
+ * - User attributes are not projected (ProjectingOAuth2UserService is
+ *   servlet-only)
+ */
+@Configuration
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+
+    /**
+     * Minimal chain for liveness/readiness probes: no session, no CSRF
+     * cookie, no saved request.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public SecurityWebFilterChain healthFilterChain(ServerHttpSecurity http) {
+        return http
+            .securityMatcher(ServerWebExchangeMatchers.pathMatchers("/actuator/health", "/actuator/health/**"))
+            .authorizeExchange(exchange -> exchange.anyExchange().permitAll())
+            .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+            .requestCache(cache -> cache.requestCache(NoOpServerRequestCache.getInstance()))
+            .csrf(ServerHttpSecurity.CsrfSpec::disable)
+            .logout(ServerHttpSecurity.LogoutSpec::disable)
+            .build();
+    }
+
+    /**
+     * Reactive equivalent of SecurityConfig.securityFilterChain.
+     */
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        RedirectServerLogoutSuccessHandler logoutSuccess = new RedirectServerLogoutSuccessHandler();
+        logoutSuccess.setLogoutSuccessUrl(URI.create("/"));
+
+        return http
+            // ==========================================
+            // URL Authorization Rules
+            // ==========================================
+            .authorizeExchange(exchange -> exchange
+                .pathMatchers("/login/**", "/oauth2/**").permitAll()
+                .anyExchange().authenticated()
+            )
+
+            // ==========================================
+            // OAuth2 Login Configuration
+            // ==========================================
+            .oauth2Login(oauth -> oauth
+                .authenticationSuccessHandler(new RedirectServerAuthenticationSuccessHandler("/dashboard"))
+            )
+
+            // ==========================================
+            // Logout Configuration
+            // ==========================================
+            .logout(logout -> logout
+                .logoutUrl("/api/logout")
+                .logoutHandler(new DelegatingServerLogoutHandler(
+                    new SecurityContextServerLogoutHandler(), invalidateSession(), deleteCookies()))
+                .logoutSuccessHandler(logoutSuccess)
+            )
+
+            // ==========================================
+            // CSRF Protection Configuration
+            // ==========================================
+            .csrf(csrf -> csrf
+                .csrfTokenRepository(CookieServerCsrfTokenRepository.withHttpOnlyFalse())
+                .csrfTokenRequestHandler(new SpaServerCsrfTokenRequestHandler())
+            )
+            .addFilterAfter(csrfCookieWebFilter(), SecurityWebFiltersOrder.CSRF)
+
+            // ==========================================
+            // Session Management Configuration
+            // ==========================================
+            // New login invalidates the older session (see ReactiveSessionConfig)
+            .sessionManagement(sessions -> sessions
+                .concurrentSessions(concurrency -> concurrency.maximumSessions(SessionLimit.of(1)))
+            )
+
+            // ==========================================
+            // Security Headers Configuration
+            // ==========================================
+            .headers(headers -> headers
+                .contentSecurityPolicy(csp -> csp.policyDirectives("default-src 'self'; frame-ancestors 'none';"))
+                .frameOptions(frame -> frame.mode(XFrameOptionsServerHttpHeadersWriter.Mode.DENY))
+                .hsts(hsts -> hsts.includeSubdomains(true).maxAge(Duration.ofDays(365)))
+            )
+            .build();
+    }
+
+    /**
+     * Subscribes to the deferred CSRF token so CookieServerCsrfTokenRepository
+     * issues XSRF-TOKEN when the browser has none (the reactive CsrfCookieFilter).
+     */
+    static WebFilter csrfCookieWebFilter() {
+        return (exchange, chain) -> {
+            Mono<CsrfToken> token = exchange.getAttributeOrDefault(CsrfToken.class.getName(), Mono.empty());
+            return token.then(chain.filter(exchange));
+        };
+    }
+
+    private static ServerLogoutHandler invalidateSession() {
+        return (exchange, authentication) -> exchange.getExchange().getSession().flatMap(WebSession::invalidate);
+    }
+
+    private static ServerLogoutHandler deleteCookies() {
+        return (exchange, authentication) -> {
+            for (String name : new String[] {"JSESSIONID", "XSRF-TOKEN"}) {
+                exchange.getExchange().getResponse().addCookie(ResponseCookie.from(name, "").path("/").maxAge(0).build());
+            }
+            return Mono.empty();
+        };
+    }
+}
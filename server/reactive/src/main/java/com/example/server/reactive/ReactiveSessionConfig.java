@@ -0,0 +1,61 @@
+package com.example.server.reactive;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.session.ReactiveSessionRegistry;
+import org.springframework.security.web.session.WebSessionStoreReactiveSessionRegistry;
+import org.springframework.session.ReactiveMapSessionRepository;
+import org.springframework.session.config.annotation.web.server.EnableSpringWebSession;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import org.springframework.web.server.session.CookieWebSessionIdResolver;
+import org.springframework.web.server.session.DefaultWebSessionManager;
+import org.springframework.web.server.session.WebSessionIdResolver;
+import org.springframework.web.server.session.WebSessionManager;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ==========================================
+ * REACTIVE SESSION CONFIGURATION
+ * ==========================================
+ *
+ * WebSessions live in Spring Session's ReactiveMapSessionRepository
+ * (in-memory, one node - same trade-off as the servlet app's default).
+ *
+ * - Cookie: JSESSIONID, HttpOnly, SameSite=Lax (same as the servlet app,
+ *   so nginx and the SPA need no changes)
+ * - Timeout: spring.session.timeout
+ * - ReactiveSessionRegistry over the same store, so the security chain's
+ *   maximumSessions(1) can invalidate a user's older session
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableSpringWebSession
+public class ReactiveSessionConfig {
+
+    @Bean
+    public ReactiveMapSessionRepository reactiveSessionRepository(
+            @Value("${spring.session.timeout:30m}") Duration timeout) {
+        ReactiveMapSessionRepository repository = new ReactiveMapSessionRepository(new ConcurrentHashMap<>());
+        repository.setDefaultMaxInactiveInterval(timeout);
+        return repository;
+    }
+
+    @Bean
+    public WebSessionIdResolver webSessionIdResolver(
+            @Value("${server.reactive.session.cookie.secure:false}") boolean secure) {
+        CookieWebSessionIdResolver resolver = new CookieWebSessionIdResolver();
+        resolver.setCookieName("JSESSIONID");
+        resolver.addCookieInitializer(cookie -> cookie.path("/").httpOnly(true).secure(secure).sameSite("Lax"));
+        return resolver;
+    }
+
+    @Bean
+    public ReactiveSessionRegistry reactiveSessionRegistry(
+            @Qualifier(WebHttpHandlerBuilder.WEB_SESSION_MANAGER_BEAN_NAME) WebSessionManager webSessionManager) {
+        return new WebSessionStoreReactiveSessionRegistry(
+            ((DefaultWebSessionManager) webSessionManager).getSessionStore());
+    }
+}
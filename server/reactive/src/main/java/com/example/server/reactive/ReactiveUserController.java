@@ -0,0 +1,74 @@
+package com.example.server.reactive;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.WebSession;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Returns authenticated user profile (reactive variant of UserController).
+ * 
+ * Same response and caching as the servlet app: JSON serialized once per
+ * session, kept in the WebSession with a strong ETag, Cache-Control:
+ * private, no-cache. If-None-Match is checked by WebFlux against the ETag
+ * (304, no body).
+ * 
+ * The principal carries GitHub's full profile: attribute projection
+ * (bff.oauth2.user-attributes) is servlet-only.
+ */
+@RestController
+@RequestMapping("/api")
+public class ReactiveUserController {
+
+    static final String CACHED_USER_ATTRIBUTE = ReactiveUserController.class.getName() + ".CACHED_USER";
+
+    private final JsonMapper jsonMapper;
+
+    public ReactiveUserController(JsonMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+    }
+
+    @GetMapping("/user")
+    public ResponseEntity<byte[]> getUser(@AuthenticationPrincipal OAuth2User principal, WebSession session) {
+        CachedUser cached = session.getAttribute(CACHED_USER_ATTRIBUTE);
+        if (cached == null || !cached.name().equals(principal.getName())) {
+            cached = CachedUser.of(principal.getName(), this.jsonMapper.writeValueAsBytes(principal.getAttributes()));
+            session.getAttributes().put(CACHED_USER_ATTRIBUTE, cached);
+        }
+        return ResponseEntity.ok()
+            .eTag(cached.eTag())
+            .cacheControl(CacheControl.noCache().cachePrivate())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(cached.json());
+    }
+
+    /**
+     * Serialized profile of the session's user. The name guards against a
+     * different user reusing the session.
+     */
+    record CachedUser(String name, byte[] json, String eTag) {
+
+        static CachedUser of(String name, byte[] json) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+                String eTag = '"' + Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(Arrays.copyOf(digest, 16)) + '"';
+                return new CachedUser(name, json, eTag);
+            }
+            catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException("SHA-256 not available", ex);
+            }
+        }
+    }
+}
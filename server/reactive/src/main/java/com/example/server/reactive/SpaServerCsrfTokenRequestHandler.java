@@ -0,0 +1,36 @@
+package com.example.server.reactive;
+
+import org.springframework.security.web.server.csrf.CsrfToken;
+import org.springframework.security.web.server.csrf.ServerCsrfTokenRequestAttributeHandler;
+import org.springframework.security.web.server.csrf.XorServerCsrfTokenRequestAttributeHandler;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of SpaCsrfTokenRequestHandler (servlet app).
+ *
+ * - X-XSRF-TOKEN header (non-blank): the SPA sends the raw cookie value →
+ *   compared as-is
+ * - _csrf form parameter: rendered (XOR-masked) token → unmasked first
+ *
+ * Exposing the token (exchange attribute) always uses XOR masking for
+ * BREACH protection, exactly like the servlet handler.
+ */
+public final class SpaServerCsrfTokenRequestHandler extends ServerCsrfTokenRequestAttributeHandler {
+
+    private final ServerCsrfTokenRequestAttributeHandler xor = new XorServerCsrfTokenRequestAttributeHandler();
+
+    @Override
+    public void handle(ServerWebExchange exchange, Mono<CsrfToken> csrfToken) {
+        this.xor.handle(exchange, csrfToken);
+    }
+
+    @Override
+    public Mono<String> resolveCsrfTokenValue(ServerWebExchange exchange, CsrfToken csrfToken) {
+        boolean header = StringUtils.hasText(exchange.getRequest().getHeaders().getFirst(csrfToken.getHeaderName()));
+        return header
+            ? super.resolveCsrfTokenValue(exchange, csrfToken)
+            : this.xor.resolveCsrfTokenValue(exchange, csrfToken);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.server.reactive;
+
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.csrf;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockOAuth2Login;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.springSecurity;
+
+import java.time.Duration;
+
+import com.example.server.testing.StubIdentityProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(properties = { StubIdentityProvider.CLIENT_ID, StubIdentityProvider.CLIENT_SECRET })
+class ReactiveSecurityConfigTests {
+
+	@Autowired
+	ApplicationContext context;
+
+	WebTestClient client;
+
+	@BeforeEach
+	void setUp() {
+		this.client = WebTestClient.bindToApplicationContext(this.context)
+			.apply(springSecurity())
+			.configureClient()
+			.build();
+	}
+
+	@Test
+	void healthIsPublicAndSessionFree() {
+		this.client.get()
+			.uri("/actuator/health")
+			.exchange()
+			.expectStatus()
+			.isOk()
+			.expectHeader()
+			.doesNotExist(HttpHeaders.SET_COOKIE);
+	}
+
+	@Test
+	void unauthenticatedRequestRedirectsToGitHubLogin() {
+		this.client.get()
+			.uri("/api/user")
+			.exchange()
+			.expectStatus()
+			.isFound()
+			.expectHeader()
+			.location("/oauth2/authorization/github");
+	}
+
+	@Test
+	void logoutRequiresCsrfToken() {
+		this.client.mutateWith(mockOAuth2Login()).post().uri("/api/logout").exchange().expectStatus().isForbidden();
+	}
+
+	@Test
+	void logoutRedirectsHomeAndDeletesCookies() {
+		this.client.mutateWith(mockOAuth2Login())
+			.mutateWith(csrf())
+			.post()
+			.uri("/api/logout")
+			.exchange()
+			.expectStatus()
+			.isFound()
+			.expectHeader()
+			.location("/")
+			.expectCookie()
+			.maxAge("JSESSIONID", Duration.ZERO);
+	}
+
+	@Test
+	void userIsServedWithETagAndRevalidated() {
+		String eTag = this.client.mutateWith(mockOAuth2Login().attributes(attributes -> attributes.put("login", "octocat")))
+			.get()
+			.uri("/api/user")
+			.exchange()
+			.expectStatus()
+			.isOk()
+			.expectHeader()
+			.cacheControl(CacheControl.noCache().cachePrivate())
+			.expectBody()
+			.jsonPath("$.login")
+			.isEqualTo("octocat")
+			.returnResult()
+			.getResponseHeaders()
+			.getETag();
+
+		this.client.mutateWith(mockOAuth2Login().attributes(attributes -> attributes.put("login", "octocat")))
+			.get()
+			.uri("/api/user")
+			.ifNoneMatch(eTag)
+			.exchange()
+			.expectStatus()
+			.isNotModified();
+	}
+}
@@ -0,0 +1,45 @@
+package com.example.server.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.web.server.csrf.CsrfToken;
+import org.springframework.security.web.server.csrf.DefaultCsrfToken;
+import reactor.core.publisher.Mono;
+
+class SpaServerCsrfTokenRequestHandlerTests {
+
+	private final SpaServerCsrfTokenRequestHandler handler = new SpaServerCsrfTokenRequestHandler();
+
+	private final CsrfToken token = new DefaultCsrfToken("X-XSRF-TOKEN", "_csrf", UUID.randomUUID().toString());
+
+	@Test
+	void headerValueIsUsedAsIs() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/logout")
+			.header("X-XSRF-TOKEN", this.token.getToken()));
+
+		assertThat(this.handler.resolveCsrfTokenValue(exchange, this.token).block()).isEqualTo(this.token.getToken());
+	}
+
+	@Test
+	void blankHeaderFallsBackToTheMaskedFormValue() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/logout")
+			.header("X-XSRF-TOKEN", " ")
+			.contentType(MediaType.APPLICATION_FORM_URLENCODED)
+			.body("_csrf=" + render()));
+
+		assertThat(this.handler.resolveCsrfTokenValue(exchange, this.token).block()).isEqualTo(this.token.getToken());
+	}
+
+	private String render() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		this.handler.handle(exchange, Mono.just(this.token));
+		Mono<CsrfToken> exposed = exchange.getAttribute(CsrfToken.class.getName());
+		return exposed.block().getToken();
+	}
+}
@@ -0,0 +1,95 @@
+package com.example.server;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.security.web.csrf.CsrfFilter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET polling through CsrfFilter + CsrfCookieFilter, per cookie mode.
+ *
+ * READING THE RESULTS:
+ * - gc.alloc.rate.norm: bytes allocated per request (compare modes at cookie=present)
+ * - setCookieBytes / requests: Set-Cookie header bytes written per request
+ *
+ * cookie=absent is the first-visit / post-login case: both modes must issue
+ * the cookie. cookie=present is the steady-state SPA polling case.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CsrfCookieFilterBenchmark {
+
+    @Param({"ALWAYS", "WHEN_MISSING"})
+    public CsrfCookieFilter.Mode mode;
+
+    @Param({"present", "absent"})
+    public String cookie;
+
+    private CsrfFilter csrfFilter;
+
+    private FilterChain chain;
+
+    private Cookie existingCookie;
+
+    @Setup
+    public void setup() throws Exception {
+        CookieCsrfTokenRepository repository = CookieCsrfTokenRepository.withHttpOnlyFalse();
+        this.csrfFilter = new CsrfFilter(repository);
+        this.csrfFilter.setRequestHandler(new SpaCsrfTokenRequestHandler());
+
+        CsrfCookieFilter cookieFilter = new CsrfCookieFilter(this.mode);
+        FilterChain end = (request, response) -> { };
+        this.chain = (request, response) -> cookieFilter.doFilter(request, response, end);
+
+        // Capture a real cookie value as the browser would hold it
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        this.csrfFilter.doFilter(new MockHttpServletRequest("GET", "/api/user"), first, this.chain);
+        this.existingCookie = first.getCookie("XSRF-TOKEN");
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ResponseBytes {
+
+        public long setCookieBytes;
+
+        public long requests;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.setCookieBytes = 0;
+            this.requests = 0;
+        }
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getRequest(ResponseBytes counters) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user");
+        if ("present".equals(this.cookie)) {
+            request.setCookies(this.existingCookie);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        this.csrfFilter.doFilter(request, response, this.chain);
+
+        counters.requests++;
+        for (String header : response.getHeaders("Set-Cookie")) {
+            counters.setCookieBytes += "Set-Cookie: ".length() + header.length() + 2;
+        }
+        return response;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.server;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.security.web.csrf.CsrfFilter;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.CsrfTokenRepository;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CookieCsrfTokenRepository (random UUID) vs SignedCsrfTokenRepository (HMAC).
+ *
+ * - generate:   new token for a request (first visit / session change)
+ * - load:       read + validate the cookie of an existing session
+ * - postHeader: full CsrfFilter check of a POST carrying X-XSRF-TOKEN
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CsrfTokenRepositoryBenchmark {
+
+    @Param({"cookie", "signed"})
+    public String repository;
+
+    private CsrfTokenRepository tokens;
+
+    private CsrfFilter csrfFilter;
+
+    private MockHttpSession session;
+
+    private CsrfToken existing;
+
+    private final FilterChain end = (request, response) -> { };
+
+    @Setup
+    public void setup() {
+        if ("signed".equals(this.repository)) {
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            this.tokens = new SignedCsrfTokenRepository(key, Duration.ofHours(8));
+        } else {
+            this.tokens = CookieCsrfTokenRepository.withHttpOnlyFalse();
+        }
+        this.csrfFilter = new CsrfFilter(this.tokens);
+        this.csrfFilter.setRequestHandler(new SpaCsrfTokenRequestHandler());
+
+        this.session = new MockHttpSession(null, "8F3A1C2B4D5E6F708192A3B4C5D6E7F8");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(this.session);
+        this.existing = this.tokens.generateToken(request);
+    }
+
+    @Benchmark
+    public CsrfToken generate() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(this.session);
+        return this.tokens.generateToken(request);
+    }
+
+    @Benchmark
+    public CsrfToken load() {
+        return this.tokens.loadToken(withCookie(new MockHttpServletRequest("GET", "/api/user")));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse postHeader() throws Exception {
+        MockHttpServletRequest request = withCookie(new MockHttpServletRequest("POST", "/api/logout"));
+        request.addHeader("X-XSRF-TOKEN", this.existing.getToken());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        this.csrfFilter.doFilter(request, response, this.end);
+        if (response.getStatus() != 200) {
+            throw new IllegalStateException("CSRF check failed: " + response.getStatus());
+        }
+        return response;
+    }
+
+    private MockHttpServletRequest withCookie(MockHttpServletRequest request) {
+        request.setSession(this.session);
+        request.setCookies(new Cookie("XSRF-TOKEN", this.existing.getToken()));
+        return request;
+    }
+}
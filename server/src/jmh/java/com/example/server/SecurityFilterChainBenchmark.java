@@ -0,0 +1,240 @@
+package com.example.server;
+
+import com.example.server.testing.StubIdentityProvider;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.csrf.CsrfToken;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One request through the application's real security filter chain: the
+ * context is booted from OauthServerApplication (SecurityConfig and every
+ * bean it pulls in, default bff.* settings) and requests are handed to the
+ * springSecurityFilterChain FilterChainProxy directly, ending in a no-op
+ * servlet. No HTTP, no controller.
+ *
+ * SCENARIOS:
+ * - anonymous: GET /api/user without a session (401 from the entry point)
+ * - get: logged-in GET /api/user with JSESSIONID and XSRF-TOKEN cookies
+ * - header-post: logged-in POST with the raw token in X-XSRF-TOKEN (the SPA)
+ * - form-post: logged-in form POST with the masked token in _csrf
+ *
+ * READING THE RESULTS:
+ * - request: operations per microsecond
+ * - gc.alloc.rate.norm (gc profiler): bytes allocated per request
+ * - filterTiming=on vs off: what FilterTimingConfig's instrumentation adds
+ * - "per-filter cost", printed after the measurement (filterTiming=off):
+ *   mean exclusive nanoseconds per filter, from a separate timed run over
+ *   the same filters (FilterChainProxy's firewall and chain matching are
+ *   not in it). The timing wrapper adds its own cost, so read the table
+ *   for proportions and the request score for the total
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SecurityFilterChainBenchmark {
+
+    private static final int TIMED_REQUESTS = 200_000;
+
+    private static final FilterChain SERVLET = (request, response) -> { };
+
+    @Param({"anonymous", "get", "header-post", "form-post"})
+    public String scenario;
+
+    /** bff.filter-timing.enabled: the chain with FilterTimingConfig's per-filter timers. */
+    @Param({"off", "on"})
+    public String filterTiming;
+
+    private ConfigurableApplicationContext context;
+
+    private FilterChainProxy proxy;
+
+    private MockHttpSession session;
+
+    private Cookie xsrfCookie;
+
+    private String maskedToken;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.context = new SpringApplicationBuilder(OauthServerApplication.class)
+            .properties(
+                "spring.profiles.active=benchmark",
+                "server.port=0",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN",
+                "bff.filter-timing.enabled=" + "on".equals(this.filterTiming),
+                StubIdentityProvider.CLIENT_ID,
+                StubIdentityProvider.CLIENT_SECRET)
+            .run();
+        this.proxy = this.context.getBean("springSecurityFilterChain", FilterChainProxy.class);
+
+        // Logged-in session, registered as maximumSessions(1) expects
+        OAuth2AuthenticationToken login = githubLogin();
+        this.session = new MockHttpSession();
+        this.session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY,
+            new SecurityContextImpl(login));
+        this.context.getBean(SessionRegistry.class).registerNewSession(this.session.getId(), login.getPrincipal());
+
+        // The XSRF-TOKEN cookie and masked form token a first GET hands out
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/api/user");
+        first.setSession(this.session);
+        MockHttpServletResponse issued = new MockHttpServletResponse();
+        this.proxy.doFilter(first, issued, SERVLET);
+        this.xsrfCookie = issued.getCookie("XSRF-TOKEN");
+        this.maskedToken = ((CsrfToken) first.getAttribute(CsrfToken.class.getName())).getToken();
+
+        int expected = "anonymous".equals(this.scenario) ? 401 : 200;
+        int status = request().getStatus();
+        if (status != expected) {
+            throw new IllegalStateException(this.scenario + ": expected " + expected + ", got " + status);
+        }
+    }
+
+    @Benchmark
+    public MockHttpServletResponse request() throws IOException, ServletException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        this.proxy.doFilter(newRequest(), response, SERVLET);
+        return response;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, ServletException {
+        try {
+            // With filter timing on, every filter is a TimedFilter: read /actuator/filtertimings instead
+            if ("off".equals(this.filterTiming)) {
+                printPerFilterCost();
+            }
+        }
+        finally {
+            this.context.close();
+        }
+    }
+
+    private MockHttpServletRequest newRequest() {
+        MockHttpServletRequest request;
+        switch (this.scenario) {
+            case "anonymous" -> {
+                return new MockHttpServletRequest("GET", "/api/user");
+            }
+            case "get" -> request = new MockHttpServletRequest("GET", "/api/user");
+            case "header-post" -> {
+                request = new MockHttpServletRequest("POST", "/api/user");
+                request.setContentType("application/json");
+                request.addHeader("X-XSRF-TOKEN", this.xsrfCookie.getValue());
+            }
+            case "form-post" -> {
+                request = new MockHttpServletRequest("POST", "/api/user");
+                request.setContentType("application/x-www-form-urlencoded");
+                request.addParameter("_csrf", this.maskedToken);
+            }
+            default -> throw new IllegalArgumentException(this.scenario);
+        }
+        request.setSession(this.session);
+        request.setCookies(new Cookie("JSESSIONID", this.session.getId()), this.xsrfCookie);
+        return request;
+    }
+
+    private void printPerFilterCost() throws IOException, ServletException {
+        MockHttpServletRequest probe = newRequest();
+        SecurityFilterChain chain = this.proxy.getFilterChains().stream()
+            .filter(candidate -> candidate.matches(probe))
+            .findFirst()
+            .orElseThrow();
+        List<Filter> filters = chain.getFilters();
+        long[] inclusive = new long[filters.size() + 1];
+        for (int i = 0; i < TIMED_REQUESTS; i++) {
+            new TimedChain(filters, inclusive).doFilter(newRequest(), new MockHttpServletResponse());
+        }
+
+        System.out.printf("%n%s: per-filter cost (ns/request, exclusive)%n", this.scenario);
+        for (int i = 0; i < filters.size(); i++) {
+            long exclusive = inclusive[i] - inclusive[i + 1];
+            System.out.printf("  %-48s %8.1f%n", filters.get(i).getClass().getSimpleName(),
+                (double) exclusive / TIMED_REQUESTS);
+        }
+        System.out.printf("  %-48s %8.1f%n", "total", (double) inclusive[0] / TIMED_REQUESTS);
+    }
+
+    private static OAuth2AuthenticationToken githubLogin() {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("login", "octocat");
+        attributes.put("id", 583231);
+        attributes.put("name", "The Octocat");
+        attributes.put("avatar_url", "https://avatars.githubusercontent.com/u/583231?v=4");
+        attributes.put("html_url", "https://github.com/octocat");
+        DefaultOAuth2User user = new DefaultOAuth2User(
+            List.of(new OAuth2UserAuthority("OAUTH2_USER", attributes, "id"),
+                new SimpleGrantedAuthority("SCOPE_read:user")),
+            attributes, "id");
+        return new OAuth2AuthenticationToken(user, user.getAuthorities(), "github");
+    }
+
+    /**
+     * Runs the filters in order, adding each one's inclusive time (itself and
+     * everything after it) to inclusive[index]. A filter that does not call
+     * the chain leaves the slots after it untouched, so exclusive time is
+     * inclusive[i] - inclusive[i + 1] either way.
+     */
+    private static final class TimedChain implements FilterChain {
+
+        private final List<Filter> filters;
+
+        private final long[] inclusive;
+
+        private int position;
+
+        TimedChain(List<Filter> filters, long[] inclusive) {
+            this.filters = filters;
+            this.inclusive = inclusive;
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+            if (this.position == this.filters.size()) {
+                return;
+            }
+            int index = this.position++;
+            long start = System.nanoTime();
+            try {
+                this.filters.get(index).doFilter(request, response, this);
+            }
+            finally {
+                this.inclusive[index] += System.nanoTime() - start;
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * GET /api/user through Spring MVC (DispatcherServlet, argument resolution,
+ * message conversion), with the projected dashboard attributes.
+ *
+ * - serialize:   previous controller, Jackson on every request
+ * - cached:      UserController, no If-None-Match (cached bytes written)
+ * - notModified: UserController, browser revalidation (304, no body)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserControllerBenchmark {
+
+    @Param({"serialize", "cached", "notModified"})
+    public String variant;
+
+    private MockMvc mvc;
+
+    private MockHttpSession session;
+
+    private String eTag;
+
+    @Setup
+    public void setup() throws Exception {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("login", "octocat");
+        attributes.put("id", 583231);
+        attributes.put("avatar_url", "https://avatars.githubusercontent.com/u/583231?v=4");
+        attributes.put("html_url", "https://github.com/octocat");
+        attributes.put("name", "The Octocat");
+        attributes.put("company", "@github");
+        attributes.put("blog", "https://github.blog");
+        attributes.put("location", "San Francisco");
+        attributes.put("bio", "GitHub's mascot");
+        attributes.put("public_repos", 8);
+        attributes.put("followers", 17000);
+        attributes.put("following", 9);
+        DefaultOAuth2User user = new DefaultOAuth2User(List.of(new SimpleGrantedAuthority("OAUTH2_USER")),
+            attributes, "id");
+        SecurityContextHolder.getContext()
+            .setAuthentication(new OAuth2AuthenticationToken(user, user.getAuthorities(), "github"));
+
+        Object controller = "serialize".equals(this.variant)
+            ? new LegacyUserController()
+            : new UserController(JsonMapper.builder().build());
+        this.mvc = MockMvcBuilders.standaloneSetup(controller)
+            .setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
+            .build();
+        this.session = new MockHttpSession();
+        MvcResult first = this.mvc.perform(get("/api/user").session(this.session)).andReturn();
+        this.eTag = first.getResponse().getHeader("ETag");
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public int getUser() throws Exception {
+        MockHttpServletRequestBuilder request = get("/api/user").session(this.session);
+        if ("notModified".equals(this.variant)) {
+            request.header("If-None-Match", this.eTag);
+        }
+        return this.mvc.perform(request).andReturn().getResponse().getStatus();
+    }
+
+    /**
+     * UserController before pre-serialization.
+     */
+    @RestController
+    public static class LegacyUserController {
+
+        @GetMapping("/api/user")
+        public Map<String, Object> getUser(@AuthenticationPrincipal OAuth2User principal) {
+            return principal.getAttributes();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.server.session;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.session.MapSession;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JdkSessionCodec vs CompactSessionCodec on a logged-in GitHub session
+ * (SecurityContext with ~30 user attributes + the cached /api/user profile).
+ *
+ * READING THE RESULTS:
+ * - encode / decode: operations per microsecond
+ * - encodedBytes / encodes: serialized session size
+ * - gc.alloc.rate.norm (gc profiler): garbage per operation
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SessionCodecBenchmark {
+
+    @Param({"jdk", "compact"})
+    public String codec;
+
+    private SessionCodec sessions;
+
+    private MapSession session;
+
+    private byte[] encoded;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+
+        public long encodedBytes;
+
+        public long encodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.encodedBytes = 0;
+            this.encodes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        this.sessions = "compact".equals(this.codec)
+            ? new CompactSessionCodec()
+            : new JdkSessionCodec();
+        this.session = githubSession();
+        this.encoded = this.sessions.encode(this.session);
+    }
+
+    @Benchmark
+    public byte[] encode(EncodedSize counters) {
+        byte[] bytes = this.sessions.encode(this.session);
+        counters.encodedBytes += bytes.length;
+        counters.encodes++;
+        return bytes;
+    }
+
+    @Benchmark
+    public MapSession decode() {
+        return this.sessions.decode(this.encoded);
+    }
+
+    private static MapSession githubSession() {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("login", "octocat");
+        attributes.put("id", 583231);
+        attributes.put("node_id", "MDQ6VXNlcjU4MzIzMQ==");
+        attributes.put("avatar_url", "https://avatars.githubusercontent.com/u/583231?v=4");
+        attributes.put("gravatar_id", "");
+        attributes.put("url", "https://api.github.com/users/octocat");
+        attributes.put("html_url", "https://github.com/octocat");
+        attributes.put("followers_url", "https://api.github.com/users/octocat/followers");
+        attributes.put("following_url", "https://api.github.com/users/octocat/following{/other_user}");
+        attributes.put("gists_url", "https://api.github.com/users/octocat/gists{/gist_id}");
+        attributes.put("starred_url", "https://api.github.com/users/octocat/starred{/owner}{/repo}");
+        attributes.put("subscriptions_url", "https://api.github.com/users/octocat/subscriptions");
+        attributes.put("organizations_url", "https://api.github.com/users/octocat/orgs");
+        attributes.put("repos_url", "https://api.github.com/users/octocat/repos");
+        attributes.put("events_url", "https://api.github.com/users/octocat/events{/privacy}");
+        attributes.put("received_events_url", "https://api.github.com/users/octocat/received_events");
+        attributes.put("type", "User");
+        attributes.put("user_view_type", "public");
+        attributes.put("site_admin", false);
+        attributes.put("name", "The Octocat");
+        attributes.put("company", "@github");
+        attributes.put("blog", "https://github.blog");
+        attributes.put("location", "San Francisco");
+        attributes.put("email", null);
+        attributes.put("hireable", null);
+        attributes.put("bio", null);
+        attributes.put("twitter_username", null);
+        attributes.put("public_repos", 8);
+        attributes.put("public_gists", 8);
+        attributes.put("followers", 17000);
+        attributes.put("following", 9);
+        attributes.put("created_at", "2011-01-25T18:44:36Z");
+        attributes.put("updated_at", "2026-01-01T09:00:00Z");
+
+        DefaultOAuth2User user = new DefaultOAuth2User(
+            List.of(new OAuth2UserAuthority("OAUTH2_USER", attributes, "id"),
+                new SimpleGrantedAuthority("SCOPE_read:user")),
+            attributes, "id");
+        OAuth2AuthenticationToken token = new OAuth2AuthenticationToken(user, user.getAuthorities(), "github");
+        token.setDetails(new WebAuthenticationDetails("203.0.113.7", "3F2A9C"));
+
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(Duration.ofMinutes(15));
+        session.setAttribute("SPRING_SECURITY_CONTEXT", new SecurityContextImpl(token));
+        session.setAttribute("com.example.server.UserController.CACHED_USER",
+            CachedUser.of("583231", JsonMapper.builder().build().writeValueAsBytes(attributes)));
+        return session;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.server.session;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.session.MapSession;
+import org.springframework.session.events.SessionExpiredEvent;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sweep vs timing-wheel expiry in ShardedMapSessionStore at 1M sessions
+ * (30m timeout, last accesses spread over the past 30 minutes).
+ *
+ * - cleanUp: one scheduled cleanUpExpiredSessions() run. sweep scans one
+ *   of 64 shards (~15.6k sessions, a full pass takes 64 runs); wheel
+ *   advances one 1s tick, expires the ~550 sessions that came due and
+ *   logs in as many new ones to hold the population at 1M
+ * - save: one request saving a random session (the per-request cost the
+ *   wheel adds: a deadline update under the session ID's lock)
+ *
+ * READING THE RESULTS:
+ * - cleanUp in milliseconds, save in nanoseconds (lower is better)
+ * - "retained bytes/session", printed at setup: heap held per session
+ *   including the store's maps (and the wheel's entries), measured after
+ *   a full GC; approximate, compare the two modes rather than read absolutes
+ */
+@State(Scope.Benchmark)
+@Fork(jvmArgsAppend = "-Xmx4g")
+public class SessionExpiryBenchmark {
+
+    private static final int SESSIONS = 1_000_000;
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(30);
+
+    private static final Duration TICK = Duration.ofSeconds(1);
+
+    @Param({"sweep", "wheel"})
+    public String expiry;
+
+    private final SteppedClock clock = new SteppedClock();
+
+    private ShardedMapSessionStore store;
+
+    private String[] sessionIds;
+
+    private int expired;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        long before = usedHeap();
+        TimingWheel<String> wheel = "wheel".equals(this.expiry) ? new TimingWheel<>(TICK, this.clock) : null;
+        this.store = new ShardedMapSessionStore(64, TIMEOUT, event -> {
+            if (event instanceof SessionExpiredEvent) {
+                this.expired++;
+            }
+        }, wheel);
+        this.sessionIds = new String[SESSIONS];
+        Instant now = this.clock.instant();
+        for (int i = 0; i < SESSIONS; i++) {
+            MapSession session = this.store.createSession();
+            session.setLastAccessedTime(now.minusMillis(ThreadLocalRandom.current().nextLong(TIMEOUT.toMillis())));
+            this.store.save(session);
+            this.sessionIds[i] = session.getId();
+        }
+        long retained = usedHeap() - before;
+        System.out.printf("%n%s: %d sessions, retained bytes/session: %d%n", this.expiry, this.store.size(),
+            retained / SESSIONS);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int cleanUp() {
+        this.clock.step(TICK);
+        this.expired = 0;
+        this.store.cleanUpExpiredSessions();
+        Instant now = this.clock.instant();
+        for (int i = 0; i < this.expired; i++) {
+            MapSession session = this.store.createSession();
+            session.setLastAccessedTime(now);
+            this.store.save(session);
+        }
+        return this.expired;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void save() {
+        MapSession session = this.store.findById(this.sessionIds[ThreadLocalRandom.current().nextInt(SESSIONS)]);
+        if (session != null) {
+            session.setLastAccessedTime(this.clock.instant());
+            this.store.save(session);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Wall clock that cleanUp() moves forward one tick per run, so the wheel
+     * sees a second of sessions come due every invocation.
+     */
+    private static final class SteppedClock extends Clock {
+
+        private volatile Instant now = Instant.now();
+
+        void step(Duration duration) {
+            this.now = this.now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return this.now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
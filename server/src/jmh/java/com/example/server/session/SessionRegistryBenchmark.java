@@ -0,0 +1,100 @@
+package com.example.server.session;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.core.session.SessionRegistryImpl;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SessionRegistryImpl vs StripedSessionRegistry at 100k logged-in users
+ * (one session each, as maximumSessions(1) keeps it).
+ *
+ * - request / requestContended: what ConcurrentSessionFilter does on every
+ *   authenticated request (lookup, expiry check, refreshLastRequest), on a
+ *   random session; contended runs 8 threads
+ * - relogin: what a login does with maximumSessions(1): list the user's
+ *   sessions, expire the old one, register the new one, drop the old one
+ *
+ * READING THE RESULTS:
+ * - operations per microsecond (higher is better)
+ * - gc.alloc.rate.norm (gc profiler): request should be 0 B/op for striped
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SessionRegistryBenchmark {
+
+    private static final int PRINCIPALS = 100_000;
+
+    @Param({"default", "striped"})
+    public String registry;
+
+    private SessionRegistry sessions;
+
+    private String[] principals;
+
+    private String[] sessionIds;
+
+    private long nextSessionId;
+
+    @Setup
+    public void setup() {
+        this.sessions = "striped".equals(this.registry) ? new StripedSessionRegistry() : new SessionRegistryImpl();
+        this.principals = new String[PRINCIPALS];
+        this.sessionIds = new String[PRINCIPALS];
+        for (int i = 0; i < PRINCIPALS; i++) {
+            this.principals[i] = "user" + i;
+            this.sessionIds[i] = "session-" + i;
+            this.sessions.registerNewSession(this.sessionIds[i], this.principals[i]);
+        }
+        this.nextSessionId = PRINCIPALS;
+    }
+
+    @Benchmark
+    public boolean request() {
+        return checkRandomSession();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean requestContended() {
+        return checkRandomSession();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int relogin() {
+        int user = ThreadLocalRandom.current().nextInt(PRINCIPALS);
+        List<SessionInformation> existing = this.sessions.getAllSessions(this.principals[user], false);
+        for (SessionInformation session : existing) {
+            session.expireNow();
+        }
+        String sessionId = "session-" + this.nextSessionId++;
+        this.sessions.registerNewSession(sessionId, this.principals[user]);
+        this.sessions.removeSessionInformation(this.sessionIds[user]);
+        this.sessionIds[user] = sessionId;
+        return existing.size();
+    }
+
+    private boolean checkRandomSession() {
+        String sessionId = this.sessionIds[ThreadLocalRandom.current().nextInt(PRINCIPALS)];
+        SessionInformation session = this.sessions.getSessionInformation(sessionId);
+        if (session == null || session.isExpired()) {
+            return false;
+        }
+        this.sessions.refreshLastRequest(sessionId);
+        return true;
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DeferredCsrfToken;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
@@ -73,12 +74,56 @@ import java.io.IOException;
  * - Cookie overhead is minimal (~40 bytes)
  * - Worth the convenience for SPAs
  * 
+ * MODES (bff.csrf.cookie-mode):
+ * 
+ * ALWAYS (original behavior)
+ *   - Reads the request-handler token ("_csrf") on every request
+ *   - SpaCsrfTokenRequestHandler XOR-masks it: random bytes + Base64 per request,
+ *     even on GET polling where nobody renders the value
+ * 
+ * WHEN_MISSING (default)
+ *   - Loads the RAW token through the DeferredCsrfToken the CsrfFilter stored
+ *   - The repository only generates + writes Set-Cookie when the browser's
+ *     cookie is missing or no longer valid:
+ *       first visit, after logout (cookie deleted),
+ *       after login (CsrfAuthenticationStrategy clears the old token)
+ *   - A valid cookie costs one cookie lookup: no UUID, no masking, no Set-Cookie
+ *   - Cookie handling is identical to ALWAYS; only the unused masking is skipped
+ * 
+ * See CsrfCookieFilterBenchmark (src/jmh) for bytes/allocations per request.
+ * 
  * @see CookieCsrfTokenRepository
  * @see SpaCsrfTokenRequestHandler
  * @author Your Team
  */
 public final class CsrfCookieFilter extends OncePerRequestFilter {
 
+    /**
+     * When the filter materializes the CSRF token.
+     */
+    public enum Mode {
+        /** Read the (masked) token on every request. */
+        ALWAYS,
+        /** Load the raw token; the repository only issues a cookie when it is missing or invalid. */
+        WHEN_MISSING
+    }
+
+    private final Mode mode;
+
+    /**
+     * Creates a filter in the default mode, WHEN_MISSING.
+     */
+    public CsrfCookieFilter() {
+        this(Mode.WHEN_MISSING);
+    }
+
+    /**
+     * @param mode when to materialize the CSRF token
+     */
+    public CsrfCookieFilter(Mode mode) {
+        this.mode = mode;
+    }
+
     /**
      * Processes each HTTP request to ensure CSRF token is loaded.
      * 
@@ -100,6 +145,18 @@ public final class CsrfCookieFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                     FilterChain filterChain) throws ServletException, IOException {
         
+        if (this.mode == Mode.WHEN_MISSING) {
+            // CsrfFilter stores the repository-backed token under this attribute.
+            // get() reads the cookie; only a missing/invalid cookie generates a
+            // new token and makes the repository write Set-Cookie.
+            DeferredCsrfToken deferred = (DeferredCsrfToken) request.getAttribute(DeferredCsrfToken.class.getName());
+            if (deferred != null) {
+                deferred.get();
+                filterChain.doFilter(request, response);
+                return;
+            }
+        }
+
         // Get the deferred CSRF token from request attributes
         // Spring Security's CsrfFilter has already put this here
         CsrfToken csrfToken = (CsrfToken) request.getAttribute("_csrf");
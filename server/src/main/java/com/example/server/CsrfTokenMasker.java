@@ -0,0 +1,200 @@
+package com.example.server;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ==========================================
+ * CSRF TOKEN MASKER (BREACH protection)
+ * ==========================================
+ *
+ * Same wire format as Spring Security's XorCsrfTokenRequestAttributeHandler:
+ *
+ *   Base64url( random[n] || (random[n] XOR token[n]) )
+ *
+ * so tokens masked here validate there and vice versa.
+ *
+ * WHY NOT JUST USE THE SPRING HANDLER:
+ * Every mask allocates the random bytes, the XORed copy, the combined array
+ * and the Base64 buffer, and every unmask allocates three more arrays.
+ * This class reuses per-stripe buffers instead; the only allocation left
+ * is the resulting String.
+ *
+ * THREADING:
+ * - A small, fixed set of stripes (2x CPUs), picked by thread ID
+ * - Each stripe owns one SecureRandom + scratch buffers, guarded by its
+ *   ReentrantLock: on Java 21 a virtual thread waiting in a synchronized
+ *   block pins its carrier thread, a ReentrantLock waiter unmounts
+ * - No ThreadLocals: with virtual threads (one thread per request) those
+ *   would mean a freshly seeded SecureRandom per request
+ */
+final class CsrfTokenMasker {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Stripe[] stripes;
+
+    CsrfTokenMasker() {
+        int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Masks a raw token for rendering (form field, response body).
+     *
+     * @param token the raw token
+     * @return a freshly randomized, Base64url encoded token
+     */
+    String mask(String token) {
+        if (!isAscii(token)) {
+            return maskAllocating(token);
+        }
+        Stripe stripe = stripe();
+        stripe.lock.lock();
+        try {
+            stripe.size(token.length());
+            byte[] random = stripe.random;
+            byte[] combined = stripe.combined;
+            int n = random.length;
+            stripe.secureRandom.nextBytes(random);
+            for (int i = 0; i < n; i++) {
+                combined[i] = random[i];
+                combined[n + i] = (byte) (random[i] ^ token.charAt(i));
+            }
+            int length = ENCODER.encode(combined, stripe.encoded);
+            return new String(stripe.encoded, 0, length, StandardCharsets.ISO_8859_1);
+        }
+        finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Reverses {@link #mask(String)}.
+     *
+     * @param masked the value submitted by the client (e.g. _csrf parameter)
+     * @param token the raw token, used for its length
+     * @return the unmasked token, or null if the value is malformed
+     */
+    String unmask(String masked, String token) {
+        if (!isAscii(token) || !isAscii(masked)) {
+            return unmaskAllocating(masked, token);
+        }
+        Stripe stripe = stripe();
+        stripe.lock.lock();
+        try {
+            stripe.size(token.length());
+            byte[] encoded = stripe.encoded;
+            if (masked.length() != encoded.length) {
+                // Unpadded or otherwise unusual encoding: take the general path
+                return unmaskAllocating(masked, token);
+            }
+            for (int i = 0; i < encoded.length; i++) {
+                encoded[i] = (byte) masked.charAt(i);
+            }
+            byte[] combined = stripe.combined;
+            int decoded;
+            try {
+                decoded = DECODER.decode(encoded, combined);
+            }
+            catch (IllegalArgumentException ex) {
+                return null;
+            }
+            int n = stripe.random.length;
+            if (decoded != 2 * n) {
+                return null;
+            }
+            byte[] raw = stripe.random;
+            for (int i = 0; i < n; i++) {
+                raw[i] = (byte) (combined[i] ^ combined[n + i]);
+            }
+            return new String(raw, 0, n, StandardCharsets.UTF_8);
+        }
+        finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Stripe stripe() {
+        return this.stripes[(int) (Thread.currentThread().threadId() & (this.stripes.length - 1))];
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String maskAllocating(String token) {
+        byte[] tokenBytes = token.getBytes(StandardCharsets.UTF_8);
+        byte[] combined = new byte[tokenBytes.length * 2];
+        Stripe stripe = stripe();
+        byte[] random = new byte[tokenBytes.length];
+        stripe.lock.lock();
+        try {
+            stripe.secureRandom.nextBytes(random);
+        }
+        finally {
+            stripe.lock.unlock();
+        }
+        for (int i = 0; i < tokenBytes.length; i++) {
+            combined[i] = random[i];
+            combined[tokenBytes.length + i] = (byte) (random[i] ^ tokenBytes[i]);
+        }
+        return ENCODER.encodeToString(combined);
+    }
+
+    private static String unmaskAllocating(String masked, String token) {
+        byte[] combined;
+        try {
+            combined = DECODER.decode(masked);
+        }
+        catch (IllegalArgumentException ex) {
+            return null;
+        }
+        int n = token.getBytes(StandardCharsets.UTF_8).length;
+        if (combined.length != 2 * n) {
+            return null;
+        }
+        byte[] raw = new byte[n];
+        for (int i = 0; i < n; i++) {
+            raw[i] = (byte) (combined[i] ^ combined[n + i]);
+        }
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * One SecureRandom plus buffers sized for the current token length.
+     * Tokens have a fixed length per repository, so buffers are sized once.
+     */
+    private static final class Stripe {
+
+        final ReentrantLock lock = new ReentrantLock();
+
+        final SecureRandom secureRandom = new SecureRandom();
+
+        byte[] random = new byte[0];
+
+        byte[] combined = new byte[0];
+
+        byte[] encoded = new byte[0];
+
+        void size(int tokenLength) {
+            if (this.random.length != tokenLength) {
+                this.random = new byte[tokenLength];
+                this.combined = new byte[tokenLength * 2];
+                this.encoded = new byte[4 * ((tokenLength * 2 + 2) / 3)];
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.server;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+
+/**
+ * Login success handler that stores the user's /api/user JSON in the new
+ * session (CachedUser, see UserController) before the delegate redirects.
+ * The SPA's first /api/user after login then copies bytes instead of
+ * running Jackson, and no request ever writes the profile into the session.
+ *
+ * Runs after session fixation protection, so the profile lands in the
+ * session the browser keeps.
+ */
+public final class ProfileCachingSuccessHandler implements AuthenticationSuccessHandler {
+
+    private final AuthenticationSuccessHandler delegate;
+
+    private final JsonMapper jsonMapper;
+
+    public ProfileCachingSuccessHandler(AuthenticationSuccessHandler delegate, JsonMapper jsonMapper) {
+        this.delegate = delegate;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
+            Authentication authentication) throws IOException, ServletException {
+        if (authentication.getPrincipal() instanceof OAuth2User principal) {
+            UserController.cache(request.getSession(), principal, this.jsonMapper);
+        }
+        this.delegate.onAuthenticationSuccess(request, response, authentication);
+    }
+}
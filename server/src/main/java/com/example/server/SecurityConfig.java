@@ -1,13 +1,56 @@
 package com.example.server;
 
+import com.example.server.observability.CsrfRejectionCountingHandler;
+import com.example.server.observability.EvictionRecordingSessionRegistry;
+import com.example.server.observability.LoginTimingFilter;
+import com.example.server.observability.RecordingSessionAuthenticationStrategy;
+import com.example.server.observability.SecurityMetrics;
+import com.example.server.oauth2.EncryptedCookieAuthorizationRequestRepository;
+import com.example.server.oauth2.ProjectingOAuth2UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AuthorizationCodeGrantRequest;
+import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.security.oauth2.client.web.HttpSessionOAuth2AuthorizationRequestRepository;
+import org.springframework.security.oauth2.client.web.OAuth2LoginAuthenticationFilter;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.AccessDeniedHandlerImpl;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.SavedRequestAwareAuthenticationSuccessHandler;
+import org.springframework.security.web.authentication.session.SessionAuthenticationStrategy;
+import org.springframework.security.web.authentication.session.SessionFixationProtectionStrategy;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.security.web.csrf.CsrfTokenRepository;
+import org.springframework.security.web.savedrequest.HttpSessionRequestCache;
+import org.springframework.security.web.savedrequest.RequestCache;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestHeaderRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
 
 /**
  * ==========================================
@@ -59,7 +102,48 @@ import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 @EnableWebSecurity
 public class SecurityConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(SecurityConfig.class);
+
+    /**
+     * SPA XHR/fetch calls: answered with status codes, never redirects.
+     */
+    private static final RequestMatcher API = PathPatternRequestMatcher.withDefaults().matcher("/api/**");
 
+    /**
+     * Minimal chain for liveness/readiness probes (/actuator/health/**) and
+     * the Prometheus scrape (/actuator/prometheus).
+     * 
+     * WHY A SEPARATE CHAIN:
+     * The main chain below would treat a probe like a browser request:
+     * CSRF token + cookie (CsrfCookieFilter), a saved request in a new
+     * HttpSession, then a redirect to GitHub. Orchestrators probe every
+     * few seconds on every pod, so that cost adds up fast.
+     * 
+     * This chain:
+     * - Matches ONLY the health and prometheus endpoints (checked first,
+     *   highest precedence)
+     * - STATELESS: never creates or reads an HttpSession
+     * - No CSRF, no request cache, no logout, no OAuth2 filters
+     * - permitAll: probes and scrapers carry no credentials; details are
+     *   hidden anyway (management.endpoint.health.show-details: never), and
+     *   nginx does not route /actuator/** from outside
+     * 
+     * @param http HttpSecurity builder
+     * @return SecurityFilterChain for health probes and metrics scrapes
+     * @throws Exception if configuration fails
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public SecurityFilterChain healthFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher("/actuator/health", "/actuator/health/**", "/actuator/prometheus")
+            .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .csrf(AbstractHttpConfigurer::disable)
+            .requestCache(AbstractHttpConfigurer::disable)
+            .logout(AbstractHttpConfigurer::disable);
+        return http.build();
+    }
 
     /**
      * Main security configuration using Spring Security's SecurityFilterChain.
@@ -80,11 +164,26 @@ public class SecurityConfig {
      * - Protected: Everything else requires authentication
      * 
      * @param http HttpSecurity builder
+     * @param csrfTokenRepository where CSRF tokens are stored/validated (bff.csrf.repository)
+     * @param csrfCookieMode when CsrfCookieFilter materializes the token (bff.csrf.cookie-mode)
+     * @param authorizationRequestRepository where a started login waits for the callback
+     *        (bff.oauth2.authorization-request.repository)
+     * @param sessionRegistry tracks sessions per user for maximumSessions(1) (bff.session.registry)
+     * @param accessTokenResponseClient exchanges the code at the token endpoint (OAuth2ClientHttpConfig)
+     * @param oauth2UserService loads the GitHub user and trims its attributes (bff.oauth2.user-attributes)
+     * @param securityMetrics login, eviction and CSRF rejection meters (SecurityMetricsConfig)
+     * @param jsonMapper serializes the profile cached for /api/user at login
      * @return SecurityFilterChain configured security filter chain
      * @throws Exception if configuration fails
      */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, CsrfTokenRepository csrfTokenRepository,
+            @Value("${bff.csrf.cookie-mode:when-missing}") CsrfCookieFilter.Mode csrfCookieMode,
+            AuthorizationRequestRepository<OAuth2AuthorizationRequest> authorizationRequestRepository,
+            SessionRegistry sessionRegistry,
+            OAuth2AccessTokenResponseClient<OAuth2AuthorizationCodeGrantRequest> accessTokenResponseClient,
+            ProjectingOAuth2UserService oauth2UserService,
+            SecurityMetrics securityMetrics, JsonMapper jsonMapper) throws Exception {
         http
             // ==========================================
             // CORS DISABLED - BFF Pattern
@@ -111,10 +210,19 @@ public class SecurityConfig {
             // OAuth2 Login Configuration
             // ==========================================
             .oauth2Login(oauth -> oauth
-                // After successful GitHub authentication, redirect to frontend
-                // Use relative URL - works on any domain/port
-                // 'true' forces redirect even if user was on a different page
-                .defaultSuccessUrl("/dashboard", true)
+                // After successful GitHub authentication, redirect to frontend,
+                // with the /api/user JSON already cached in the new session
+                .successHandler(new ProfileCachingSuccessHandler(dashboardRedirect(), jsonMapper))
+
+                // Steps 2-5: state/PKCE of the pending login, in a cookie or the session
+                .authorizationEndpoint(authorization -> authorization
+                    .authorizationRequestRepository(authorizationRequestRepository))
+
+                // Steps 6-7 block on GitHub: bounded timeouts, virtual threads in prod
+                .tokenEndpoint(token -> token.accessTokenResponseClient(accessTokenResponseClient))
+
+                // Step 7: load the profile, keep only what the SPA renders
+                .userInfoEndpoint(userInfo -> userInfo.userService(oauth2UserService))
                 
                 // Optional: Customize login page
                 // .loginPage("/custom-login")
@@ -122,7 +230,26 @@ public class SecurityConfig {
                 // Optional: Customize authorization endpoint
                 // .authorizationEndpoint(auth -> auth.baseUri("/oauth2/authorize"))
             )
+
+            // Steps 5-8 timed per registration and outcome (bff.login)
+            .addFilterBefore(new LoginTimingFilter(securityMetrics), OAuth2LoginAuthenticationFilter.class)
             
+            // ==========================================
+            // Unauthenticated Requests
+            // ==========================================
+            // /api/**: plain 401, no saved request, so no HttpSession.
+            // Bots and expired tabs polling the API would otherwise get a
+            // throwaway session plus a redirect to GitHub on every call;
+            // the SPA handles 401 by starting the login itself.
+            // Browser navigations still redirect to the login flow.
+            // 403s answer as by default; CSRF rejections are counted by
+            // token source (bff.csrf.rejected)
+            .exceptionHandling(exceptions -> exceptions
+                .defaultAuthenticationEntryPointFor(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED), API)
+                .accessDeniedHandler(new CsrfRejectionCountingHandler(new AccessDeniedHandlerImpl(), securityMetrics))
+            )
+            .requestCache(cache -> cache.requestCache(requestCache()))
+
             // ==========================================
             // Logout Configuration
             // ==========================================
@@ -154,7 +281,8 @@ public class SecurityConfig {
                 // This is a security trade-off:
                 // - PRO: Stateless CSRF protection
                 // - CON: XSS can steal token (mitigated by CSP headers)
-                .csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
+                // See csrfTokenRepository() below: random (cookie) or HMAC-signed (signed)
+                .csrfTokenRepository(csrfTokenRepository)
                 
                 // SPA-specific CSRF handler
                 // Handles both cookie-based (SPA) and form-based (server-rendered) tokens
@@ -166,11 +294,14 @@ public class SecurityConfig {
             
             // Force CSRF token to be loaded on every request
             // This ensures the XSRF-TOKEN cookie is sent even on first request
-            .addFilterAfter(new CsrfCookieFilter(), BasicAuthenticationFilter.class)
+            // WHEN_MISSING: only (re)issue the cookie when the browser lacks a valid one
+            .addFilterAfter(new CsrfCookieFilter(csrfCookieMode), BasicAuthenticationFilter.class)
             
             // ==========================================
             // Session Management Configuration
             // ==========================================
+            // Where sessions live is chosen by bff.session.store
+            // (SessionStoreConfig); everything below applies to any store.
             .sessionManagement(session -> session
                 // Create session when needed (during authentication)
                 // Options: ALWAYS, NEVER, IF_REQUIRED, STATELESS
@@ -178,7 +309,8 @@ public class SecurityConfig {
                 
                 // Prevent session fixation attacks
                 // Creates new session after authentication
-                .sessionFixation().newSession()
+                // (sessionFixation().newSession(), recorded as a JFR event)
+                .sessionAuthenticationStrategy(newSessionOnLogin())
                 
                 // Limit to one session per user
                 // Prevents session hijacking and concurrent logins
@@ -187,6 +319,9 @@ public class SecurityConfig {
                     // false: New login kicks out old session (recommended)
                     // true: New login rejected if session exists
                     .maxSessionsPreventsLogin(false)
+                    // Checked on every request (SessionRegistryConfig);
+                    // evictions are recorded as JFR events and bff.sessions.evicted
+                    .sessionRegistry(new EvictionRecordingSessionRegistry(sessionRegistry, securityMetrics))
             )
             
             // ==========================================
@@ -217,6 +352,140 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * What defaultSuccessUrl("/dashboard", true) configures: a relative URL
+     * (works on any domain/port), used even if the user was on another page.
+     * 
+     * @return the login success handler of the main chain
+     */
+    private static AuthenticationSuccessHandler dashboardRedirect() {
+        SavedRequestAwareAuthenticationSuccessHandler handler = new SavedRequestAwareAuthenticationSuccessHandler();
+        handler.setDefaultTargetUrl("/dashboard");
+        handler.setAlwaysUseDefaultTargetUrl(true);
+        handler.setRequestCache(requestCache());
+        return handler;
+    }
+
+    /**
+     * Saves only GET navigations outside /api/** before the login redirect.
+     * For API and XHR calls (401, no redirect) a saved request would only
+     * allocate an HttpSession that is never used.
+     * 
+     * @return the request cache of the main chain
+     */
+    private static RequestCache requestCache() {
+        HttpSessionRequestCache requestCache = new HttpSessionRequestCache();
+        requestCache.setRequestMatcher(new AndRequestMatcher(
+            PathPatternRequestMatcher.withDefaults().matcher(HttpMethod.GET, "/**"),
+            new NegatedRequestMatcher(API),
+            new NegatedRequestMatcher(new RequestHeaderRequestMatcher("X-Requested-With", "XMLHttpRequest"))
+        ));
+        return requestCache;
+    }
+
+    /**
+     * What sessionFixation().newSession() configures (a fresh session at
+     * login, attributes not copied), wrapped to emit a JFR event.
+     * 
+     * @return the session fixation protection of the main chain
+     */
+    private static SessionAuthenticationStrategy newSessionOnLogin() {
+        SessionFixationProtectionStrategy newSession = new SessionFixationProtectionStrategy();
+        newSession.setMigrateSessionAttributes(false);
+        return new RecordingSessionAuthenticationStrategy(newSession);
+    }
+
+    /**
+     * Storage of the pending authorization request between
+     * /oauth2/authorization/{registrationId} and the callback, selected by
+     * bff.oauth2.authorization-request.repository.
+     * 
+     * OPTIONS:
+     * - session: HttpSessionOAuth2AuthorizationRequestRepository; every
+     *   started login creates a session, abandoned ones linger until timeout
+     * - cookie (default): EncryptedCookieAuthorizationRequestRepository,
+     *   AES-GCM cookie valid for max-age; no server state before login
+     * 
+     * @param type session or cookie
+     * @param key Base64 AES key (16 or 32 bytes) shared by all nodes (cookie only)
+     * @param maxAge how long a started login may take (cookie only)
+     * @param jsonMapper serializes the request inside the cookie
+     * @param environment active profiles (a missing key is fatal in prod, see sharedKey())
+     * @return the authorization request repository
+     */
+    @Bean
+    public AuthorizationRequestRepository<OAuth2AuthorizationRequest> authorizationRequestRepository(
+            @Value("${bff.oauth2.authorization-request.repository:cookie}") String type,
+            @Value("${bff.oauth2.authorization-request.key:}") String key,
+            @Value("${bff.oauth2.authorization-request.max-age:5m}") Duration maxAge,
+            JsonMapper jsonMapper, Environment environment) {
+        if (!"cookie".equals(type)) {
+            return new HttpSessionOAuth2AuthorizationRequestRepository();
+        }
+        // Per-process key outside prod: logins started before a restart or on another node must be retried
+        byte[] aesKey = sharedKey("bff.oauth2.authorization-request.key", key, environment);
+        return new EncryptedCookieAuthorizationRequestRepository(aesKey, maxAge, jsonMapper);
+    }
+
+    /**
+     * CSRF token repository, selected by bff.csrf.repository.
+     * 
+     * OPTIONS:
+     * - cookie (default): CookieCsrfTokenRepository, random UUID tokens
+     * - signed: SignedCsrfTokenRepository, HMAC(session ID + timestamp) tokens;
+     *   validated by MAC check, reissued only when the session changes
+     * 
+     * Both send the same XSRF-TOKEN cookie / X-XSRF-TOKEN header, so the SPA
+     * does not care which one is active.
+     * 
+     * @param type cookie or signed
+     * @param signingKey Base64 HMAC key shared by all nodes (signed only)
+     * @param maxAge how long a signed token validates (signed only)
+     * @param environment active profiles (a missing key is fatal in prod, see sharedKey())
+     * @return the CSRF token repository
+     */
+    @Bean
+    public CsrfTokenRepository csrfTokenRepository(
+            @Value("${bff.csrf.repository:cookie}") String type,
+            @Value("${bff.csrf.signing-key:}") String signingKey,
+            @Value("${bff.csrf.max-age:8h}") Duration maxAge,
+            Environment environment) {
+        if (!"signed".equals(type)) {
+            return CookieCsrfTokenRepository.withHttpOnlyFalse();
+        }
+        // Per-process key outside prod: fine for one node, breaks tokens across nodes/restarts
+        byte[] key = sharedKey("bff.csrf.signing-key", signingKey, environment);
+        return new SignedCsrfTokenRepository(key, maxAge);
+    }
+
+    /**
+     * Decodes a Base64 key that every node must share.
+     * 
+     * A blank key fails startup under the prod profile. Elsewhere (docker,
+     * tests, benchmarks) a random per-process key is generated and a WARN
+     * logged: whatever it protects is rejected after a restart and by any
+     * other node.
+     * 
+     * @param property the property the key comes from (for messages)
+     * @param value its value, Base64 or blank
+     * @param environment active profiles
+     * @return the key bytes
+     */
+    private static byte[] sharedKey(String property, String value, Environment environment) {
+        if (!value.isBlank()) {
+            return Base64.getDecoder().decode(value);
+        }
+        if (environment.acceptsProfiles(Profiles.of("prod"))) {
+            throw new IllegalStateException(property
+                + " must be set in prod: a Base64 key, identical on every node");
+        }
+        logger.warn("{} is not set: using a random per-process key, valid only on this node until it restarts",
+            property);
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
     // CORS DISABLED: BFF Pattern uses same-site (all requests appear same-origin)
     // If you need separate domains, enable CORS by:
     // 1. Uncommenting .cors(cors -> cors.configurationSource(corsConfigurationSource()))
@@ -0,0 +1,208 @@
+package com.example.server;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.CsrfTokenRepository;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.util.Assert;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * ==========================================
+ * SIGNED (HMAC) CSRF TOKEN REPOSITORY
+ * ==========================================
+ *
+ * Signed double-submit cookie: the token is an HMAC over the session ID
+ * plus an issue timestamp, instead of a random UUID.
+ *
+ * TOKEN FORMAT (Base64url, no padding, 32 chars):
+ *
+ *   [ issuedAt: 8 bytes, epoch seconds ][ HMAC-SHA256(key, sessionId || issuedAt): first 16 bytes ]
+ *
+ * HOW IT WORKS:
+ *
+ * 1. Token Storage (unchanged):
+ *    - Still sent as the XSRF-TOKEN cookie (HttpOnly=false) by a
+ *      CookieCsrfTokenRepository delegate, so cookie attributes are identical
+ *    - SPA still echoes it in X-XSRF-TOKEN
+ *
+ * 2. Token Loading (this class):
+ *    - Reads the cookie, recomputes the MAC for the CURRENT session ID
+ *    - Constant-time comparison (MessageDigest.isEqual), no storage lookup
+ *    - Wrong session, expired, or tampered → treated as missing → reissued
+ *
+ * 3. Reissue only when the session changes:
+ *    - Anonymous visitors get a token bound to "no session"
+ *    - Login creates a new session (sessionFixation().newSession()), so the
+ *      old token stops validating and a new one is issued
+ *    - A token copied from another session never validates here
+ *
+ * REQUEST HANDLING:
+ * Plugs into SpaCsrfTokenRequestHandler unchanged: header values are compared
+ * raw, form (_csrf) values are XOR-decoded first. Token values are plain
+ * Base64url strings, so both paths work as before.
+ *
+ * ANONYMOUS TOKENS (limitation):
+ * Without a session every token is signed over the same empty ID, so any
+ * anonymous token validates for every other anonymous client. Someone who
+ * can plant cookies for this host (a sibling subdomain, a MITM on plain
+ * HTTP) can fetch one and pair it with a forged request. Session binding
+ * only starts at login, when the new session makes the old token invalid.
+ * Acceptable here because nothing state-changing is open to anonymous
+ * users (/api/** needs a login; the OAuth2 endpoints are GETs guarded by
+ * state). Use bff.csrf.repository=cookie if that ever changes.
+ *
+ * KEY MANAGEMENT:
+ * - bff.csrf.signing-key: Base64 key (>= 32 bytes), SHARED by all nodes
+ * - Required under the prod profile. Elsewhere, if unset, a random
+ *   per-process key is used (with a WARN): tokens do not survive a restart
+ *   and do not validate on other nodes
+ *
+ * @see CookieCsrfTokenRepository
+ * @see SpaCsrfTokenRequestHandler
+ * @author Your Team
+ */
+public final class SignedCsrfTokenRepository implements CsrfTokenRepository {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final int TIMESTAMP_LENGTH = Long.BYTES;
+
+    private static final int MAC_LENGTH = 16;
+
+    private static final int TOKEN_LENGTH = TIMESTAMP_LENGTH + MAC_LENGTH;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /** Same names as CookieCsrfTokenRepository, so the SPA needs no changes. */
+    private static final String HEADER_NAME = "X-XSRF-TOKEN";
+
+    private static final String PARAMETER_NAME = "_csrf";
+
+    /**
+     * Writes/reads the XSRF-TOKEN cookie; we only decide WHAT goes in it.
+     */
+    private final CookieCsrfTokenRepository cookies = CookieCsrfTokenRepository.withHttpOnlyFalse();
+
+    private final Mac prototype;
+
+    private final Duration maxAge;
+
+    private final Clock clock;
+
+    /**
+     * @param key HMAC key (at least 32 bytes)
+     * @param maxAge how long a token validates before it is reissued
+     */
+    public SignedCsrfTokenRepository(byte[] key, Duration maxAge) {
+        this(key, maxAge, Clock.systemUTC());
+    }
+
+    SignedCsrfTokenRepository(byte[] key, Duration maxAge, Clock clock) {
+        Assert.isTrue(key != null && key.length >= 32, "CSRF signing key must be at least 32 bytes");
+        Assert.isTrue(maxAge != null && !maxAge.isNegative() && !maxAge.isZero(), "maxAge must be positive");
+        try {
+            this.prototype = Mac.getInstance(ALGORITHM);
+            this.prototype.init(new SecretKeySpec(key, ALGORITHM));
+        }
+        catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HmacSHA256 is not available", ex);
+        }
+        this.maxAge = maxAge;
+        this.clock = clock;
+    }
+
+    @Override
+    public CsrfToken generateToken(HttpServletRequest request) {
+        long issuedAt = this.clock.instant().getEpochSecond();
+        byte[] token = new byte[TOKEN_LENGTH];
+        ByteBuffer.wrap(token).putLong(issuedAt);
+        System.arraycopy(sign(sessionId(request), issuedAt), 0, token, TIMESTAMP_LENGTH, MAC_LENGTH);
+        return new DefaultCsrfToken(HEADER_NAME, PARAMETER_NAME, ENCODER.encodeToString(token));
+    }
+
+    @Override
+    public void saveToken(CsrfToken token, HttpServletRequest request, HttpServletResponse response) {
+        // null clears the cookie (logout, login rotation) - same as the cookie repository
+        this.cookies.saveToken(token, request, response);
+    }
+
+    @Override
+    public CsrfToken loadToken(HttpServletRequest request) {
+        CsrfToken candidate = this.cookies.loadToken(request);
+        if (candidate == null || !isValid(candidate.getToken(), sessionId(request))) {
+            // Missing, expired, tampered or bound to another session: let CsrfFilter reissue
+            return null;
+        }
+        return candidate;
+    }
+
+    private boolean isValid(String value, String sessionId) {
+        byte[] token;
+        try {
+            token = DECODER.decode(value);
+        }
+        catch (IllegalArgumentException ex) {
+            return false;
+        }
+        if (token.length != TOKEN_LENGTH) {
+            return false;
+        }
+        long issuedAt = ByteBuffer.wrap(token).getLong();
+        long now = this.clock.instant().getEpochSecond();
+        if (issuedAt > now + 60 || now - issuedAt > this.maxAge.toSeconds()) {
+            return false;
+        }
+        byte[] expected = sign(sessionId, issuedAt);
+        byte[] actual = new byte[MAC_LENGTH];
+        System.arraycopy(token, TIMESTAMP_LENGTH, actual, 0, MAC_LENGTH);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    private byte[] sign(String sessionId, long issuedAt) {
+        Mac mac = newMac();
+        mac.update(sessionId.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        mac.update(ByteBuffer.allocate(Long.BYTES).putLong(issuedAt).array());
+        byte[] full = mac.doFinal();
+        byte[] truncated = new byte[MAC_LENGTH];
+        System.arraycopy(full, 0, truncated, 0, MAC_LENGTH);
+        return truncated;
+    }
+
+    /**
+     * Mac is not thread-safe; cloning the initialized prototype is much
+     * cheaper than Mac.getInstance() + init() and safe on virtual threads.
+     */
+    private Mac newMac() {
+        try {
+            return (Mac) this.prototype.clone();
+        }
+        catch (CloneNotSupportedException ex) {
+            throw new IllegalStateException("HmacSHA256 provider does not support clone()", ex);
+        }
+    }
+
+    /**
+     * @return the session ID, or "" without a session (shared by all
+     *         anonymous clients, see ANONYMOUS TOKENS above)
+     */
+    private static String sessionId(HttpServletRequest request) {
+        HttpSession session = (request != null) ? request.getSession(false) : null;
+        return (session != null) ? session.getId() : "";
+    }
+}
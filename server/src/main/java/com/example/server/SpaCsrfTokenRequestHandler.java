@@ -1,10 +1,10 @@
 package com.example.server;
 
+import com.example.server.observability.CsrfTokenEvent;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.web.csrf.CsrfToken;
 import org.springframework.security.web.csrf.CsrfTokenRequestAttributeHandler;
-import org.springframework.security.web.csrf.CsrfTokenRequestHandler;
 import org.springframework.security.web.csrf.XorCsrfTokenRequestAttributeHandler;
 import org.springframework.util.StringUtils;
 
@@ -37,9 +37,11 @@ import java.util.function.Supplier;
  *    - This handler validates the header value
  * 
  * 3. BREACH Attack Protection:
- *    - Uses XorCsrfTokenRequestAttributeHandler for responses
+ *    - Same XOR masking as XorCsrfTokenRequestAttributeHandler (CsrfTokenMasker)
  *    - XOR cipher prevents BREACH compression attacks
  *    - Token value changes on each request but validates to same token
+ *    - LAZY: masking only happens when getToken() is read for rendering;
+ *      header names and unrendered requests cost no random bytes at all
  * 
  * FRONTEND USAGE (React):
  * 
@@ -81,20 +83,26 @@ import java.util.function.Supplier;
 public final class SpaCsrfTokenRequestHandler extends CsrfTokenRequestAttributeHandler {
     
     /**
-     * Delegate handler for XOR encoding (BREACH protection)
+     * XOR masking (BREACH protection) with reused buffers
      */
-    private final CsrfTokenRequestHandler delegate = new XorCsrfTokenRequestAttributeHandler();
+    private final CsrfTokenMasker masker = new CsrfTokenMasker();
 
     /**
      * Handles the CSRF token for a request.
-     * Always delegates to XorCsrfTokenRequestAttributeHandler to provide
-     * BREACH protection when rendering the token in responses.
+     * Exposes a lazily masked token to provide BREACH protection when
+     * rendering the token in responses.
      * 
      * BREACH Attack:
      * - Compression + HTTPS + Time = vulnerability
      * - XOR encoding prevents compression from revealing secrets
      * - Each token value is unique but validates to same underlying token
      * 
+     * LAZY MASKING:
+     * XorCsrfTokenRequestAttributeHandler masks as soon as anything reads the
+     * token (even getHeaderName()). Most requests (GET polling, header-based
+     * POSTs) never render it, so here the random bytes, XOR and Base64 only
+     * happen on the first getToken() call.
+     * 
      * @param request the HTTP request
      * @param response the HTTP response
      * @param csrfToken supplier for the CSRF token
@@ -102,11 +110,8 @@ public final class SpaCsrfTokenRequestHandler extends CsrfTokenRequestAttributeH
     @Override
     public void handle(HttpServletRequest request, HttpServletResponse response, 
                       Supplier<CsrfToken> csrfToken) {
-        /*
-         * Always use XorCsrfTokenRequestAttributeHandler to provide BREACH protection of
-         * the CsrfToken when it is rendered in the response body.
-         */
-        this.delegate.handle(request, response, csrfToken);
+        LazyMaskedCsrfToken masked = new LazyMaskedCsrfToken(csrfToken, this.masker);
+        super.handle(request, response, () -> masked);
     }
 
     /**
@@ -118,8 +123,9 @@ public final class SpaCsrfTokenRequestHandler extends CsrfTokenRequestAttributeH
      *    - Returns the raw token value from cookie
      * 
      * 2. If token is in parameter (_csrf) → Form pattern
-     *    - Use XorCsrfTokenRequestAttributeHandler
-     *    - Decodes the XOR-encoded token from form
+     *    - XOR-decode the masked token (same format as XorCsrfTokenRequestAttributeHandler)
+     * 
+     * Recorded as a CsrfTokenEvent (validate) while JFR is recording.
      * 
      * This dual approach allows:
      * - SPAs to use modern header-based approach
@@ -132,21 +138,84 @@ public final class SpaCsrfTokenRequestHandler extends CsrfTokenRequestAttributeH
      */
     @Override
     public String resolveCsrfTokenValue(HttpServletRequest request, CsrfToken csrfToken) {
-        /*
-         * If the request contains a request header, use CsrfTokenRequestAttributeHandler
-         * to resolve the CsrfToken. This applies when a single-page application includes
-         * the header value automatically, which was obtained via a cookie containing the
-         * raw CsrfToken.
-         */
-        if (StringUtils.hasText(request.getHeader(csrfToken.getHeaderName()))) {
-            return super.resolveCsrfTokenValue(request, csrfToken);
+        CsrfTokenEvent event = new CsrfTokenEvent();
+        event.begin();
+        boolean header = StringUtils.hasText(request.getHeader(csrfToken.getHeaderName()));
+        String resolved;
+        if (header) {
+            /*
+             * If the request contains a request header, use CsrfTokenRequestAttributeHandler
+             * to resolve the CsrfToken. This applies when a single-page application includes
+             * the header value automatically, which was obtained via a cookie containing the
+             * raw CsrfToken.
+             */
+            resolved = super.resolveCsrfTokenValue(request, csrfToken);
+        }
+        else {
+            /*
+             * In all other cases (e.g. if the request contains a request parameter), decode
+             * the XOR-masked value. This applies when a server-side rendered form includes
+             * the _csrf request parameter as a hidden input.
+             */
+            String masked = super.resolveCsrfTokenValue(request, csrfToken);
+            resolved = (masked != null) ? this.masker.unmask(masked, csrfToken.getToken()) : null;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.validated(header, csrfToken.getToken(), resolved);
+        }
+        return resolved;
+    }
+
+    /**
+     * CsrfToken whose value is masked on first read.
+     * Request-scoped, so the memoization needs no synchronization.
+     */
+    private static final class LazyMaskedCsrfToken implements CsrfToken {
+
+        private final transient Supplier<CsrfToken> raw;
+
+        private final transient CsrfTokenMasker masker;
+
+        private CsrfToken token;
+
+        private String masked;
+
+        LazyMaskedCsrfToken(Supplier<CsrfToken> raw, CsrfTokenMasker masker) {
+            this.raw = raw;
+            this.masker = masker;
+        }
+
+        private CsrfToken raw() {
+            if (this.token == null) {
+                this.token = this.raw.get();
+            }
+            return this.token;
+        }
+
+        @Override
+        public String getHeaderName() {
+            return raw().getHeaderName();
+        }
+
+        @Override
+        public String getParameterName() {
+            return raw().getParameterName();
+        }
+
+        @Override
+        public String getToken() {
+            if (this.masked == null) {
+                String raw = raw().getToken();
+                CsrfTokenEvent event = new CsrfTokenEvent();
+                event.begin();
+                this.masked = this.masker.mask(raw);
+                event.end();
+                if (event.shouldCommit()) {
+                    event.generated();
+                }
+            }
+            return this.masked;
         }
-        /*
-         * In all other cases (e.g. if the request contains a request parameter), use
-         * XorCsrfTokenRequestAttributeHandler to resolve the CsrfToken. This applies
-         * when a server-side rendered form includes the _csrf request parameter as a
-         * hidden input.
-         */
-        return this.delegate.resolveCsrfTokenValue(request, csrfToken);
     }
 }
@@ -1,17 +1,35 @@
 package com.example.server;
 
 import java.util.Collections;
-import java.util.Map;
 
+import com.example.server.session.CachedUser;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import tools.jackson.databind.json.JsonMapper;
 
 /**
  * Returns authenticated user profile.
  * 
+ * Only the attributes kept at login are returned (bff.oauth2.user-attributes,
+ * see ProjectingOAuth2UserService).
+ * 
+ * CACHING:
+ * The SPA calls /api/user on every page load. The profile never changes
+ * during a session, so its JSON is serialized once, at login
+ * (ProfileCachingSuccessHandler), and kept in the session with a strong
+ * ETag (CachedUser):
+ * - Browser revalidates (Cache-Control: private, no-cache) with If-None-Match
+ * - Matching ETag: 304, no body, no serialization
+ * - Otherwise: the cached bytes, written as-is (no Jackson)
+ * - No cached profile (another login path): serialized on the first call
+ * 
  * CURRENT: OAuth2User (GitHub - does not support OIDC)
  * FOR OpenID CONNECT (Keycloak, Google, etc.): Replace OAuth2User with OidcUser
  * 
@@ -27,11 +45,37 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api")
 public class UserController {
 
+    static final String CACHED_USER_ATTRIBUTE = UserController.class.getName() + ".CACHED_USER";
+
+    private final JsonMapper jsonMapper;
+
+    public UserController(JsonMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+    }
+
     @GetMapping("/user")
-    public Map<String, Object> getUser(@AuthenticationPrincipal OAuth2User principal) {
+    public ResponseEntity<?> getUser(@AuthenticationPrincipal OAuth2User principal, HttpSession session) {
         if (principal == null) {
-            return Collections.singletonMap("error", "Not authenticated");
+            return ResponseEntity.ok(Collections.singletonMap("error", "Not authenticated"));
+        }
+        CachedUser cached = (CachedUser) session.getAttribute(CACHED_USER_ATTRIBUTE);
+        if (cached == null || !cached.name().equals(principal.getName())) {
+            cached = cache(session, principal, this.jsonMapper);
         }
-        return principal.getAttributes();
+        // If-None-Match is checked by Spring MVC against the ETag: 304 skips the body
+        return ResponseEntity.ok()
+            .eTag(cached.eTag())
+            .cacheControl(CacheControl.noCache().cachePrivate())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(cached.json());
+    }
+
+    /**
+     * Serializes the principal's profile into the session, as /api/user returns it.
+     */
+    static CachedUser cache(HttpSession session, OAuth2User principal, JsonMapper jsonMapper) {
+        CachedUser cached = CachedUser.of(principal.getName(), jsonMapper.writeValueAsBytes(principal.getAttributes()));
+        session.setAttribute(CACHED_USER_ATTRIBUTE, cached);
+        return cached;
     }
-}
\ No newline at end of file
+}
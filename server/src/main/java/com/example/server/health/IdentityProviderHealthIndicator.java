@@ -0,0 +1,75 @@
+package com.example.server.health;
+
+import com.example.server.oauth2.CachingIdTokenDecoderFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Readiness signal: is the identity provider metadata loaded?
+ *
+ * A login can only succeed once every registration knows its authorization,
+ * token and user-info (or JWK set) endpoints. For GitHub these come from
+ * Spring's built-in provider defaults; for OIDC providers (issuer-uri) they
+ * come from the discovery document fetched at startup.
+ *
+ * OIDC registrations (openid scope) also need their JWK set to validate ID
+ * tokens: with the OIDC cache on (bff.oauth2.oidc-cache.enabled), such a
+ * registration counts as missing until its OidcProviderCache has loaded
+ * the set, so a pod whose IdP was unreachable at startup takes no logins.
+ *
+ * Purely in-memory: never calls the IdP, so probes stay cheap.
+ */
+@Component
+public class IdentityProviderHealthIndicator implements HealthIndicator {
+
+    private final ClientRegistrationRepository registrations;
+
+    private final CachingIdTokenDecoderFactory idTokenDecoders;
+
+    public IdentityProviderHealthIndicator(ClientRegistrationRepository registrations,
+            ObjectProvider<CachingIdTokenDecoderFactory> idTokenDecoders) {
+        this.registrations = registrations;
+        // Absent when the OIDC cache is disabled: Spring's decoders fetch keys on demand
+        this.idTokenDecoders = idTokenDecoders.getIfAvailable();
+    }
+
+    @Override
+    public Health health() {
+        if (!(this.registrations instanceof Iterable<?> iterable)) {
+            // Custom repository we cannot enumerate - assume it resolves lazily
+            return Health.unknown().build();
+        }
+        List<String> loaded = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (Object candidate : iterable) {
+            ClientRegistration registration = (ClientRegistration) candidate;
+            (isLoaded(registration) ? loaded : missing).add(registration.getRegistrationId());
+        }
+        Health.Builder builder = (missing.isEmpty() && !loaded.isEmpty()) ? Health.up() : Health.down();
+        return builder
+            .withDetail("loaded", loaded)
+            .withDetail("missing", missing)
+            .build();
+    }
+
+    private boolean isLoaded(ClientRegistration registration) {
+        return hasEndpoints(registration)
+            && (this.idTokenDecoders == null || this.idTokenDecoders.isLoaded(registration));
+    }
+
+    private static boolean hasEndpoints(ClientRegistration registration) {
+        ClientRegistration.ProviderDetails provider = registration.getProviderDetails();
+        return StringUtils.hasText(provider.getAuthorizationUri())
+            && StringUtils.hasText(provider.getTokenUri())
+            && (StringUtils.hasText(provider.getUserInfoEndpoint().getUri())
+                || StringUtils.hasText(provider.getJwkSetUri()));
+    }
+}
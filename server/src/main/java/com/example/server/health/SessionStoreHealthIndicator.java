@@ -0,0 +1,47 @@
+package com.example.server.health;
+
+import com.example.server.session.ActiveSessionCounter;
+import com.example.server.session.SessionStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Readiness signal: is the session store reachable?
+ *
+ * - container: sessions live in the servlet container's in-memory manager,
+ *   so the store is reachable whenever the JVM is
+ * - sharded-memory / segment-file: asks the SessionStore (bff.session.store)
+ *
+ * Also reports the live session count so operators can see load per pod.
+ * Exposed as "sessionStore" in the readiness group (application.yml).
+ */
+@Component
+public class SessionStoreHealthIndicator implements HealthIndicator {
+
+    private final ActiveSessionCounter sessions;
+
+    private final ObjectProvider<SessionStore> store;
+
+    public SessionStoreHealthIndicator(ActiveSessionCounter sessions, ObjectProvider<SessionStore> store) {
+        this.sessions = sessions;
+        this.store = store;
+    }
+
+    @Override
+    public Health health() {
+        SessionStore store = this.store.getIfAvailable();
+        if (store == null) {
+            return Health.up()
+                .withDetail("store", "container")
+                .withDetail("activeSessions", this.sessions.active())
+                .build();
+        }
+        Health.Builder builder = store.isAvailable() ? Health.up() : Health.down();
+        return builder
+            .withDetail("store", store.name())
+            .withDetail("activeSessions", store.size())
+            .build();
+    }
+}
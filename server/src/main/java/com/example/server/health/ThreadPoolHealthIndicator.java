@@ -0,0 +1,68 @@
+package com.example.server.health;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.tomcat.util.threads.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.boot.tomcat.TomcatConnectorCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Readiness signal: is the request thread pool saturated?
+ *
+ * When every Tomcat worker is busy, new requests queue up and latency
+ * explodes. Reporting OUT_OF_SERVICE lets the load balancer route new
+ * traffic to other pods until this one drains - without restarting it
+ * (liveness stays UP).
+ *
+ * HOW IT FINDS THE POOL:
+ * - Registered as a TomcatConnectorCustomizer, so Boot hands us the connector
+ * - The executor is created when the connector starts, so it is read lazily
+ *
+ * Threshold: bff.health.thread-pool.saturation-threshold (default 0.9)
+ */
+@Component
+public class ThreadPoolHealthIndicator implements HealthIndicator, TomcatConnectorCustomizer {
+
+    private static final Status SATURATED = Status.OUT_OF_SERVICE;
+
+    private final double saturationThreshold;
+
+    private volatile Connector connector;
+
+    public ThreadPoolHealthIndicator(
+            @Value("${bff.health.thread-pool.saturation-threshold:0.9}") double saturationThreshold) {
+        this.saturationThreshold = saturationThreshold;
+    }
+
+    @Override
+    public void customize(Connector connector) {
+        this.connector = connector;
+    }
+
+    @Override
+    public Health health() {
+        Connector connector = this.connector;
+        Executor executor = (connector != null) ? connector.getProtocolHandler().getExecutor() : null;
+        if (!(executor instanceof ThreadPoolExecutor pool)) {
+            // Not started yet, or a non-pooled executor (e.g. virtual threads): nothing to saturate
+            return Health.up()
+                .withDetail("executor", (executor != null) ? executor.getClass().getSimpleName() : "none")
+                .build();
+        }
+        int active = pool.getActiveCount();
+        int max = pool.getMaximumPoolSize();
+        double utilization = (max > 0) ? (double) active / max : 0.0;
+        Health.Builder builder = (utilization >= this.saturationThreshold) ? Health.status(SATURATED) : Health.up();
+        return builder
+            .withDetail("active", active)
+            .withDetail("max", max)
+            .withDetail("queued", pool.getQueue().size())
+            .withDetail("utilization", Math.round(utilization * 100) / 100.0)
+            .build();
+    }
+}
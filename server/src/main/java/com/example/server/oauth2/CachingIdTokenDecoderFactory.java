@@ -0,0 +1,150 @@
+package com.example.server.oauth2;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.oauth2.client.oidc.authentication.OidcIdTokenDecoderFactory;
+import org.springframework.security.oauth2.client.oidc.authentication.OidcIdTokenValidator;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.converter.ClaimTypeConverter;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtDecoderFactory;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClient;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ID-token decoders for oauth2Login whose JWK sets come from an
+ * {@link OidcProviderCache} instead of a fetch during validation.
+ *
+ * Spring Security's OidcIdTokenDecoderFactory builds a decoder per
+ * registration around Nimbus' remote JWK source: the first login, and the
+ * first login after each cache expiry, fetches the JWK set inline. Here:
+ * - {@link #refreshInBackground(Iterable)} loads every OIDC registration's
+ *   metadata and keys at startup
+ * - A timer refreshes them every ttl, so logins normally see a fresh set
+ * - A set that is nevertheless stale is served while it is refetched
+ *
+ * Validation matches OidcIdTokenDecoderFactory's defaults: RS256,
+ * JwtTimestampValidator + OidcIdTokenValidator, default claim converters.
+ * Registrations signing with client-secret MACs (HS256) are not supported.
+ */
+public class CachingIdTokenDecoderFactory implements JwtDecoderFactory<ClientRegistration>, AutoCloseable {
+
+    private static final String MISSING_SIGNATURE_VERIFIER_ERROR_CODE = "missing_signature_verifier";
+
+    private final RestClient http;
+
+    private final OidcProviderCache.Settings settings;
+
+    private final MeterRegistry meters;
+
+    private final Map<String, OidcProviderCache> providers = new ConcurrentHashMap<>();
+
+    private final Map<String, JwtDecoder> decoders = new ConcurrentHashMap<>();
+
+    private final ExecutorService refreshes = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("oidc-cache-refresh").daemon().factory());
+
+    /**
+     * @param http client for the discovery and JWK set endpoints
+     * @param settings refresh intervals and clock
+     * @param meters metrics registry
+     */
+    public CachingIdTokenDecoderFactory(RestClient http, OidcProviderCache.Settings settings, MeterRegistry meters) {
+        this.http = http;
+        this.settings = settings;
+        this.meters = meters;
+        long period = settings.ttl().toMillis();
+        this.timer.scheduleAtFixedRate(this::refreshAll, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public JwtDecoder createDecoder(ClientRegistration registration) {
+        return this.decoders.computeIfAbsent(registration.getRegistrationId(), id -> decoder(registration));
+    }
+
+    /**
+     * Starts loading metadata and keys for every registration with the
+     * openid scope; others (GitHub) are skipped.
+     */
+    public void refreshInBackground(Iterable<ClientRegistration> registrations) {
+        for (ClientRegistration registration : registrations) {
+            if (registration.getScopes().contains("openid") && hasKeySource(registration)) {
+                provider(registration).refreshInBackground();
+            }
+        }
+    }
+
+    /**
+     * Readiness of one registration's ID-token validation (see
+     * IdentityProviderHealthIndicator).
+     *
+     * @return whether its JWK set has been loaded; always true for
+     *         registrations without the openid scope, which never validate ID tokens
+     */
+    public boolean isLoaded(ClientRegistration registration) {
+        if (!registration.getScopes().contains("openid") || !hasKeySource(registration)) {
+            return true;
+        }
+        return provider(registration).fetchedAt() != null;
+    }
+
+    /**
+     * @return the cache behind the registration's decoder
+     */
+    public OidcProviderCache provider(ClientRegistration registration) {
+        return this.providers.computeIfAbsent(registration.getRegistrationId(),
+            id -> new OidcProviderCache(registration, this.http, this.settings, this.refreshes, this.meters));
+    }
+
+    @Override
+    public void close() {
+        this.timer.shutdownNow();
+        this.refreshes.shutdownNow();
+    }
+
+    private void refreshAll() {
+        this.providers.values().forEach(OidcProviderCache::refreshInBackground);
+    }
+
+    private JwtDecoder decoder(ClientRegistration registration) {
+        if (!hasKeySource(registration)) {
+            OAuth2Error error = new OAuth2Error(MISSING_SIGNATURE_VERIFIER_ERROR_CODE,
+                "Failed to find a Signature Verifier for Client Registration: '"
+                    + registration.getRegistrationId()
+                    + "'. Check to ensure you have configured the JwkSet URI.", null);
+            throw new OAuth2AuthenticationException(error, error.toString());
+        }
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, provider(registration)));
+        // Claims are validated by Spring's validators below
+        processor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+        decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(
+            new JwtTimestampValidator(), new OidcIdTokenValidator(registration)));
+        decoder.setClaimSetConverter(new ClaimTypeConverter(OidcIdTokenDecoderFactory.createDefaultClaimTypeConverters()));
+        return decoder;
+    }
+
+    private static boolean hasKeySource(ClientRegistration registration) {
+        ClientRegistration.ProviderDetails provider = registration.getProviderDetails();
+        return StringUtils.hasText(provider.getJwkSetUri()) || StringUtils.hasText(provider.getIssuerUri());
+    }
+}
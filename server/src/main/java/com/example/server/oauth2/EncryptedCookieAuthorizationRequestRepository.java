@@ -0,0 +1,237 @@
+package com.example.server.oauth2;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.util.Assert;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ==========================================
+ * ENCRYPTED COOKIE AUTHORIZATION REQUEST REPOSITORY
+ * ==========================================
+ *
+ * Keeps the pending OAuth2AuthorizationRequest (state, PKCE verifier, OIDC
+ * nonce) in a short-lived cookie instead of the HttpSession, so starting a
+ * login costs no server memory. An abandoned login leaves nothing behind;
+ * with HttpSessionOAuth2AuthorizationRequestRepository it leaves a session
+ * that lives until session timeout.
+ *
+ * COOKIE FORMAT (OAUTH2_AUTH_REQUEST, Base64url, no padding):
+ *
+ *   [ IV: 12 bytes ][ AES-GCM(key, JSON request + expiresAt) || tag: 16 bytes ]
+ *
+ * - Encrypted: the PKCE code_verifier never leaves the server in clear text
+ * - Authenticated (GCM tag, cookie name as AAD): a tampered or forged
+ *   cookie fails to decrypt and is treated as missing
+ * - Short-lived: Max-Age and an expiry inside the ciphertext (maxAge);
+ *   the browser cannot extend it
+ * - HttpOnly, SameSite=Lax (the IdP's redirect back is a top-level GET),
+ *   Secure on HTTPS requests
+ * - Like the session repository, one pending login per browser: the state
+ *   parameter of the callback must match
+ *
+ * KEY MANAGEMENT:
+ * - bff.oauth2.authorization-request.key: Base64 AES key (16 or 32 bytes),
+ *   SHARED by all nodes
+ * - If unset, a random per-process key is used: a login started before a
+ *   restart, or on another node, fails and has to be retried
+ *
+ * @see org.springframework.security.oauth2.client.web.HttpSessionOAuth2AuthorizationRequestRepository
+ */
+public final class EncryptedCookieAuthorizationRequestRepository
+        implements AuthorizationRequestRepository<OAuth2AuthorizationRequest> {
+
+    static final String COOKIE_NAME = "OAUTH2_AUTH_REQUEST";
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private static final int IV_LENGTH = 12;
+
+    private static final int TAG_BITS = 128;
+
+    private static final byte[] AAD = COOKIE_NAME.getBytes(StandardCharsets.US_ASCII);
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+
+    private final Duration maxAge;
+
+    private final JsonMapper jsonMapper;
+
+    private final Clock clock;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * @param key AES key (16 or 32 bytes)
+     * @param maxAge how long a started login may take
+     * @param jsonMapper serializes the request inside the ciphertext
+     */
+    public EncryptedCookieAuthorizationRequestRepository(byte[] key, Duration maxAge, JsonMapper jsonMapper) {
+        this(key, maxAge, jsonMapper, Clock.systemUTC());
+    }
+
+    EncryptedCookieAuthorizationRequestRepository(byte[] key, Duration maxAge, JsonMapper jsonMapper, Clock clock) {
+        Assert.isTrue(key != null && (key.length == 16 || key.length == 32),
+            "Authorization request key must be 16 or 32 bytes");
+        Assert.isTrue(maxAge != null && !maxAge.isNegative() && !maxAge.isZero(), "maxAge must be positive");
+        this.key = new SecretKeySpec(key, "AES");
+        this.maxAge = maxAge;
+        this.jsonMapper = jsonMapper;
+        this.clock = clock;
+    }
+
+    @Override
+    public OAuth2AuthorizationRequest loadAuthorizationRequest(HttpServletRequest request) {
+        String state = request.getParameter(OAuth2ParameterNames.STATE);
+        if (state == null) {
+            return null;
+        }
+        OAuth2AuthorizationRequest authorizationRequest = read(request);
+        return (authorizationRequest != null && state.equals(authorizationRequest.getState()))
+            ? authorizationRequest : null;
+    }
+
+    @Override
+    public void saveAuthorizationRequest(OAuth2AuthorizationRequest authorizationRequest, HttpServletRequest request,
+                                         HttpServletResponse response) {
+        if (authorizationRequest == null) {
+            write(request, response, "", Duration.ZERO);
+            return;
+        }
+        Assert.hasText(authorizationRequest.getState(), "authorizationRequest.state cannot be empty");
+        long expiresAt = this.clock.instant().plus(this.maxAge).getEpochSecond();
+        write(request, response, encrypt(this.jsonMapper.writeValueAsBytes(
+            StoredRequest.from(authorizationRequest, expiresAt))), this.maxAge);
+    }
+
+    @Override
+    public OAuth2AuthorizationRequest removeAuthorizationRequest(HttpServletRequest request,
+                                                                 HttpServletResponse response) {
+        OAuth2AuthorizationRequest authorizationRequest = loadAuthorizationRequest(request);
+        if (authorizationRequest != null) {
+            write(request, response, "", Duration.ZERO);
+        }
+        return authorizationRequest;
+    }
+
+    private OAuth2AuthorizationRequest read(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                return decode(cookie.getValue());
+            }
+        }
+        return null;
+    }
+
+    private OAuth2AuthorizationRequest decode(String value) {
+        try {
+            StoredRequest stored = this.jsonMapper.readValue(decrypt(DECODER.decode(value)), StoredRequest.class);
+            return (stored.expiresAt() > this.clock.instant().getEpochSecond()) ? stored.toRequest() : null;
+        }
+        catch (IllegalArgumentException | GeneralSecurityException | JacksonException ex) {
+            // Not Base64, tampered, wrong key (other node / restart), or unreadable: no pending login
+            return null;
+        }
+    }
+
+    private String encrypt(byte[] plaintext) {
+        byte[] iv = new byte[IV_LENGTH];
+        this.random.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, this.key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(AAD);
+            byte[] ciphertext = cipher.doFinal(plaintext);
+            return ENCODER.encodeToString(ByteBuffer.allocate(IV_LENGTH + ciphertext.length)
+                .put(iv)
+                .put(ciphertext)
+                .array());
+        }
+        catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("AES-GCM is not available", ex);
+        }
+    }
+
+    private byte[] decrypt(byte[] value) throws GeneralSecurityException {
+        if (value.length <= IV_LENGTH) {
+            throw new GeneralSecurityException("Cookie too short");
+        }
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, this.key, new GCMParameterSpec(TAG_BITS, value, 0, IV_LENGTH));
+        cipher.updateAAD(AAD);
+        return cipher.doFinal(value, IV_LENGTH, value.length - IV_LENGTH);
+    }
+
+    private static void write(HttpServletRequest request, HttpServletResponse response, String value,
+                              Duration maxAge) {
+        ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, value)
+            .path(cookiePath(request))
+            .maxAge(maxAge)
+            .httpOnly(true)
+            .secure(request.isSecure())
+            .sameSite("Lax")
+            .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    private static String cookiePath(HttpServletRequest request) {
+        String contextPath = request.getContextPath();
+        return contextPath.isEmpty() ? "/" : contextPath;
+    }
+
+    /**
+     * What goes inside the ciphertext: the fields needed to rebuild the
+     * authorization code request, plus its expiry.
+     */
+    record StoredRequest(String authorizationUri, String clientId, String redirectUri, Set<String> scopes,
+                         String state, Map<String, Object> additionalParameters, Map<String, Object> attributes,
+                         String authorizationRequestUri, long expiresAt) {
+
+        static StoredRequest from(OAuth2AuthorizationRequest request, long expiresAt) {
+            return new StoredRequest(request.getAuthorizationUri(), request.getClientId(), request.getRedirectUri(),
+                request.getScopes(), request.getState(), request.getAdditionalParameters(), request.getAttributes(),
+                request.getAuthorizationRequestUri(), expiresAt);
+        }
+
+        OAuth2AuthorizationRequest toRequest() {
+            return OAuth2AuthorizationRequest.authorizationCode()
+                .authorizationUri(this.authorizationUri)
+                .clientId(this.clientId)
+                .redirectUri(this.redirectUri)
+                .scopes(this.scopes)
+                .state(this.state)
+                .additionalParameters(this.additionalParameters)
+                .attributes(this.attributes)
+                .authorizationRequestUri(this.authorizationRequestUri)
+                .build();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.server.oauth2;
+
+import com.example.server.observability.RecordingOAuth2UserService;
+import com.example.server.observability.RecordingTokenResponseClient;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.converter.FormHttpMessageConverter;
+import org.springframework.security.oauth2.client.InMemoryOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientProviderBuilder;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AuthorizationCodeGrantRequest;
+import org.springframework.security.oauth2.client.endpoint.OAuth2RefreshTokenGrantRequest;
+import org.springframework.security.oauth2.client.endpoint.RestClientAuthorizationCodeTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.RestClientRefreshTokenTokenResponseClient;
+import org.springframework.security.oauth2.client.http.OAuth2ErrorResponseErrorHandler;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
+import org.springframework.security.oauth2.client.web.DefaultOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.web.OAuth2AuthorizedClientRepository;
+import org.springframework.security.oauth2.core.http.converter.OAuth2AccessTokenResponseHttpMessageConverter;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * ==========================================
+ * OAUTH2 CLIENT HTTP CONFIGURATION
+ * ==========================================
+ *
+ * HTTP plumbing for the two blocking calls made while a user logs in:
+ * - Token endpoint (authorization code → access token)
+ * - User-info endpoint (GitHub /user)
+ * and for refreshing access tokens afterwards (authorizedClientManager,
+ * authorizedClientService). OIDC providers (issuer-uri) additionally need
+ * their discovery document and JWK set, served from a background-refreshed
+ * cache (idTokenDecoderFactory).
+ *
+ * All run on the request thread and wait on the IdP. They share one JDK
+ * HttpClient (JdkClientHttpRequestFactory) with explicit timeouts, so a slow
+ * IdP costs a bounded wait instead of a hung worker.
+ *
+ * VIRTUAL THREADS (spring.threads.virtual.enabled, on in prod):
+ * Tomcat runs each request on its own virtual thread, which unmounts while
+ * blocked on the IdP, so concurrent logins are no longer capped by the
+ * worker pool (server.tomcat.threads.max). The HttpClient's internal
+ * executor then uses virtual threads too.
+ */
+@Configuration(proxyBeanMethods = false)
+public class OAuth2ClientHttpConfig {
+
+    /**
+     * @param virtualThreads spring.threads.virtual.enabled
+     * @param connectTimeout bff.oauth2.http.connect-timeout
+     * @param readTimeout bff.oauth2.http.read-timeout
+     * @return request factory for calls to the identity provider
+     */
+    @Bean
+    public ClientHttpRequestFactory oauth2ClientRequestFactory(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${bff.oauth2.http.connect-timeout:5s}") Duration connectTimeout,
+            @Value("${bff.oauth2.http.read-timeout:10s}") Duration readTimeout) {
+        HttpClient.Builder client = HttpClient.newBuilder()
+            .connectTimeout(connectTimeout)
+            .followRedirects(HttpClient.Redirect.NEVER);
+        if (virtualThreads) {
+            client.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(client.build());
+        factory.setReadTimeout(readTimeout);
+        return factory;
+    }
+
+    /**
+     * Token endpoint client for the login flow (authorization code grant),
+     * each exchange recorded as a JFR event.
+     */
+    @Bean
+    public OAuth2AccessTokenResponseClient<OAuth2AuthorizationCodeGrantRequest> authorizationCodeTokenResponseClient(
+            ClientHttpRequestFactory oauth2ClientRequestFactory) {
+        RestClientAuthorizationCodeTokenResponseClient client = new RestClientAuthorizationCodeTokenResponseClient();
+        client.setRestClient(tokenRestClient(oauth2ClientRequestFactory));
+        return new RecordingTokenResponseClient(client);
+    }
+
+    /**
+     * Token endpoint client for refreshes (refresh_token grant), used both
+     * inline (authorizedClientManager) and in the background
+     * (authorizedClientService).
+     */
+    @Bean
+    public OAuth2AccessTokenResponseClient<OAuth2RefreshTokenGrantRequest> refreshTokenResponseClient(
+            ClientHttpRequestFactory oauth2ClientRequestFactory) {
+        RestClientRefreshTokenTokenResponseClient client = new RestClientRefreshTokenTokenResponseClient();
+        client.setRestClient(tokenRestClient(oauth2ClientRequestFactory));
+        return client;
+    }
+
+    /**
+     * Hands out the session's authorized client to server-side callers
+     * (the token-relay proxy), refreshing an expired access token first when
+     * the provider issued a refresh token. With bff.oauth2.refresh enabled
+     * that inline refresh is only the fallback.
+     *
+     * @return the manager used outside the login flow
+     */
+    @Bean
+    public OAuth2AuthorizedClientManager authorizedClientManager(ClientRegistrationRepository clientRegistrations,
+            OAuth2AuthorizedClientRepository authorizedClients,
+            OAuth2AccessTokenResponseClient<OAuth2RefreshTokenGrantRequest> refreshTokenResponseClient,
+            SingleFlight<String, OAuth2AuthorizedClient> authorizedClientFlights) {
+        DefaultOAuth2AuthorizedClientManager manager =
+            new DefaultOAuth2AuthorizedClientManager(clientRegistrations, authorizedClients);
+        manager.setAuthorizedClientProvider(OAuth2AuthorizedClientProviderBuilder.builder()
+            .authorizationCode()
+            .refreshToken(refresh -> refresh.accessTokenResponseClient(refreshTokenResponseClient))
+            .build());
+        // Parallel SPA requests with an expired token share one refresh
+        return new SingleFlightAuthorizedClientManager(manager, authorizedClientFlights);
+    }
+
+    /**
+     * Authorize/refresh calls in flight per client, shared by the request
+     * path and the background refresher.
+     *
+     * Metrics: bff.oauth2.authorize.executed / .coalesced (calls that
+     * waited for another call's result: token refreshes saved).
+     */
+    @Bean
+    public SingleFlight<String, OAuth2AuthorizedClient> authorizedClientFlights(MeterRegistry meterRegistry) {
+        SingleFlight<String, OAuth2AuthorizedClient> flights = new SingleFlight<>();
+        FunctionCounter.builder("bff.oauth2.authorize.executed", flights, SingleFlight::executed)
+            .description("Authorized client lookups/refreshes that ran")
+            .register(meterRegistry);
+        FunctionCounter.builder("bff.oauth2.authorize.coalesced", flights, SingleFlight::coalesced)
+            .description("Authorized client lookups/refreshes that shared an in-flight call")
+            .register(meterRegistry);
+        return flights;
+    }
+
+    /**
+     * Stores authorized clients in memory (as Spring Boot's default does) and
+     * refreshes their access tokens ahead of expiry
+     * (RefreshSchedulingAuthorizedClientService). Memory, not the session:
+     * a restart keeps segment-file logins but drops their tokens (see
+     * SessionStoreConfig). Without it
+     * (bff.oauth2.refresh.enabled: false) Spring Boot's plain in-memory
+     * service is used.
+     *
+     * @param lead bff.oauth2.refresh.lead
+     * @param jitter bff.oauth2.refresh.jitter
+     * @param maxConcurrency bff.oauth2.refresh.max-concurrency
+     * @param tick bff.oauth2.refresh.tick
+     * @param retryInterval bff.oauth2.refresh.retry-interval
+     * @return the authorized client service behind oauth2Login and the proxy
+     */
+    @Bean
+    @ConditionalOnProperty(name = "bff.oauth2.refresh.enabled", havingValue = "true", matchIfMissing = true)
+    public RefreshSchedulingAuthorizedClientService authorizedClientService(
+            ClientRegistrationRepository clientRegistrations,
+            OAuth2AccessTokenResponseClient<OAuth2RefreshTokenGrantRequest> refreshTokenResponseClient,
+            SingleFlight<String, OAuth2AuthorizedClient> authorizedClientFlights,
+            MeterRegistry meterRegistry,
+            @Value("${bff.oauth2.refresh.lead:60s}") Duration lead,
+            @Value("${bff.oauth2.refresh.jitter:30s}") Duration jitter,
+            @Value("${bff.oauth2.refresh.max-concurrency:4}") int maxConcurrency,
+            @Value("${bff.oauth2.refresh.tick:1s}") Duration tick,
+            @Value("${bff.oauth2.refresh.retry-interval:30s}") Duration retryInterval) {
+        return new RefreshSchedulingAuthorizedClientService(
+            new InMemoryOAuth2AuthorizedClientService(clientRegistrations), clientRegistrations,
+            refreshTokenResponseClient, authorizedClientFlights, meterRegistry,
+            new RefreshSchedulingAuthorizedClientService.Settings(
+                lead, jitter, maxConcurrency, tick, retryInterval, Clock.systemUTC()));
+    }
+
+    /**
+     * ID-token decoders for OIDC logins (Keycloak) backed by cached provider
+     * metadata and JWK sets (see CachingIdTokenDecoderFactory), so a login
+     * never waits for a JWKS fetch. Registrations without the openid scope
+     * (GitHub) never reach it.
+     *
+     * Metrics: bff.oidc.cache.requests (result=hit|stale|miss),
+     * bff.oidc.cache.refreshes (outcome=success|failure).
+     *
+     * @param ttl bff.oauth2.oidc-cache.ttl
+     * @param minRefreshInterval bff.oauth2.oidc-cache.min-refresh-interval
+     * @return the decoder factory picked up by oauth2Login
+     */
+    @Bean
+    @ConditionalOnProperty(name = "bff.oauth2.oidc-cache.enabled", havingValue = "true", matchIfMissing = true)
+    public CachingIdTokenDecoderFactory idTokenDecoderFactory(ClientRegistrationRepository clientRegistrations,
+            ClientHttpRequestFactory oauth2ClientRequestFactory,
+            MeterRegistry meterRegistry,
+            @Value("${bff.oauth2.oidc-cache.ttl:5m}") Duration ttl,
+            @Value("${bff.oauth2.oidc-cache.min-refresh-interval:30s}") Duration minRefreshInterval) {
+        CachingIdTokenDecoderFactory factory = new CachingIdTokenDecoderFactory(
+            RestClient.builder().requestFactory(oauth2ClientRequestFactory).build(),
+            new OidcProviderCache.Settings(ttl, minRefreshInterval, Clock.systemUTC()), meterRegistry);
+        if (clientRegistrations instanceof InMemoryClientRegistrationRepository registrations) {
+            factory.refreshInBackground(registrations);
+        }
+        return factory;
+    }
+
+    /**
+     * Loads the OAuth2 user and keeps only the whitelisted attributes in the
+     * session (see ProjectingOAuth2UserService). Each user-info fetch is
+     * recorded as a JFR event.
+     *
+     * Metrics: bff.oauth2.users.projected (logins whose profile was
+     * projected), bff.oauth2.users.bytes.saved (estimated heap).
+     *
+     * @param attributes bff.oauth2.user-attributes; empty keeps the full profile
+     * @return the user service used by oauth2Login
+     */
+    @Bean
+    public ProjectingOAuth2UserService oauth2UserService(
+            @Value("${bff.oauth2.user-attributes:}") List<String> attributes,
+            ClientHttpRequestFactory oauth2ClientRequestFactory,
+            MeterRegistry meterRegistry) {
+        RestTemplate restTemplate = new RestTemplate(oauth2ClientRequestFactory);
+        restTemplate.setErrorHandler(new OAuth2ErrorResponseErrorHandler());
+        DefaultOAuth2UserService userInfo = new DefaultOAuth2UserService();
+        userInfo.setRestOperations(restTemplate);
+        ProjectingOAuth2UserService users =
+            new ProjectingOAuth2UserService(new RecordingOAuth2UserService(userInfo), attributes);
+        FunctionCounter.builder("bff.oauth2.users.projected", users, ProjectingOAuth2UserService::getProjectedUsers)
+            .description("Logins whose user attributes were projected")
+            .register(meterRegistry);
+        FunctionCounter.builder("bff.oauth2.users.bytes.saved", users, ProjectingOAuth2UserService::getBytesSaved)
+            .description("Estimated attribute-map heap saved by the projection")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        return users;
+    }
+
+    /**
+     * Same converters and error handling as Spring Security's default token
+     * clients, on the shared request factory.
+     */
+    private static RestClient tokenRestClient(ClientHttpRequestFactory requestFactory) {
+        return RestClient.builder()
+            .requestFactory(requestFactory)
+            .messageConverters(converters -> {
+                converters.clear();
+                converters.addAll(List.of(new FormHttpMessageConverter(),
+                    new OAuth2AccessTokenResponseHttpMessageConverter()));
+            })
+            .defaultStatusHandler(new OAuth2ErrorResponseErrorHandler())
+            .build();
+    }
+}
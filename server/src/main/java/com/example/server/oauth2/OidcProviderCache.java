@@ -0,0 +1,155 @@
+package com.example.server.oauth2;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClient;
+
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Provider metadata (discovery document) and JWK set of one OIDC client
+ * registration, each held in a {@link StaleWhileRevalidateCache}.
+ *
+ * - JWK lookups during ID-token validation are served from memory; an
+ *   expired set is served while the next one is fetched in the background
+ * - A kid missing from the cached set (key rotation at the IdP) forces one
+ *   synchronous refetch, rate-limited by minRefreshInterval
+ * - jwks_uri is taken from the cached discovery document when the
+ *   registration has an issuer-uri, so the IdP can move it without a restart;
+ *   otherwise from the registration itself
+ *
+ * Metrics carry cache=metadata|jwks and registration=registrationId.
+ */
+public class OidcProviderCache implements JWKSource<SecurityContext> {
+
+    private final ClientRegistration registration;
+
+    private final RestClient http;
+
+    private final StaleWhileRevalidateCache<Map<String, Object>> metadata;
+
+    private final StaleWhileRevalidateCache<JWKSet> jwks;
+
+    /**
+     * @param registration the OIDC client registration
+     * @param http client for the discovery and JWK set endpoints
+     * @param settings refresh intervals and clock
+     * @param executor runs background refreshes
+     * @param meters metrics registry
+     */
+    public OidcProviderCache(ClientRegistration registration, RestClient http, Settings settings,
+                             Executor executor, MeterRegistry meters) {
+        this.registration = registration;
+        this.http = http;
+        String id = registration.getRegistrationId();
+        this.metadata = StringUtils.hasText(registration.getProviderDetails().getIssuerUri())
+            ? new StaleWhileRevalidateCache<>("metadata", id, this::fetchMetadata, settings.ttl(),
+                settings.minRefreshInterval(), settings.clock(), executor, meters)
+            : null;
+        this.jwks = new StaleWhileRevalidateCache<>("jwks", id, this::fetchJwks, settings.ttl(),
+            settings.minRefreshInterval(), settings.clock(), executor, meters);
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector selector, SecurityContext context) throws KeySourceException {
+        try {
+            List<JWK> keys = selector.select(this.jwks.get());
+            if (keys.isEmpty()) {
+                // Unknown kid: the IdP may have rotated its signing key
+                keys = selector.select(this.jwks.refresh());
+            }
+            return keys;
+        }
+        catch (RuntimeException ex) {
+            throw new KeySourceException("Cannot load JWK set for " + this.registration.getRegistrationId(), ex);
+        }
+    }
+
+    /**
+     * Fetches metadata and keys in the background, so the first login does
+     * not wait for them.
+     */
+    public void refreshInBackground() {
+        // Before the first load the JWK set fetch loads the metadata itself
+        if (this.metadata != null && this.metadata.fetchedAt() != null) {
+            this.metadata.refreshInBackground();
+        }
+        this.jwks.refreshInBackground();
+    }
+
+    /**
+     * @return when the JWK set was last loaded, null until the first load
+     *         succeeds (no ID token can be validated before then)
+     */
+    public Instant fetchedAt() {
+        return this.jwks.fetchedAt();
+    }
+
+    /**
+     * @return the JWK set URI from the (cached) discovery document, else the registration's
+     */
+    String jwkSetUri() {
+        if (this.metadata != null) {
+            Object uri = this.metadata.get().get("jwks_uri");
+            if (uri instanceof String value && StringUtils.hasText(value)) {
+                return value;
+            }
+        }
+        return this.registration.getProviderDetails().getJwkSetUri();
+    }
+
+    private Map<String, Object> fetchMetadata() {
+        String issuer = this.registration.getProviderDetails().getIssuerUri();
+        String body = this.http.get()
+            .uri(issuer.replaceAll("/$", "") + "/.well-known/openid-configuration")
+            .retrieve()
+            .body(String.class);
+        try {
+            Map<String, Object> document = JSONObjectUtils.parse(body);
+            if (!issuer.equals(document.get("issuer"))) {
+                throw new IllegalStateException("Discovery document issuer " + document.get("issuer")
+                    + " does not match " + issuer);
+            }
+            return document;
+        }
+        catch (ParseException ex) {
+            throw new IllegalStateException("Invalid discovery document from " + issuer, ex);
+        }
+    }
+
+    private JWKSet fetchJwks() {
+        String uri = jwkSetUri();
+        if (!StringUtils.hasText(uri)) {
+            throw new IllegalStateException("No jwk-set-uri for " + this.registration.getRegistrationId());
+        }
+        String body = this.http.get().uri(uri).retrieve().body(String.class);
+        try {
+            return JWKSet.parse(body);
+        }
+        catch (ParseException ex) {
+            throw new IllegalStateException("Invalid JWK set from " + uri, ex);
+        }
+    }
+
+    /**
+     * @param ttl age after which metadata and keys are refreshed in the background
+     * @param minRefreshInterval minimum time between refetches forced by unknown kids
+     * @param clock time source
+     */
+    public record Settings(Duration ttl, Duration minRefreshInterval, Clock clock) {
+    }
+}
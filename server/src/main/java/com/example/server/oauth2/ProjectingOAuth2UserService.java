@@ -0,0 +1,169 @@
+package com.example.server.oauth2;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserService;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ==========================================
+ * PROJECTING OAUTH2 USER SERVICE
+ * ==========================================
+ *
+ * Loads the user from the provider's user-info endpoint (GitHub /user),
+ * then keeps only the attributes the SPA renders (bff.oauth2.user-attributes)
+ * before the OAuth2User is stored in the session.
+ *
+ * WHY:
+ * The full GitHub profile is ~30 fields, mostly URL templates, held twice per
+ * session (DefaultOAuth2User and its OAuth2UserAuthority each copy the map)
+ * for the whole session lifetime. /api/user returns the projected map.
+ *
+ * PROJECTION:
+ * - Whitelisted keys plus the registration's user-name attribute ("id" for
+ *   GitHub) so getName() keeps working
+ * - Keys are interned: every session shares one String per key
+ * - null values are dropped (the SPA treats missing and null alike)
+ * - Long values that fit are narrowed to Integer
+ *
+ * An empty whitelist disables projection. OIDC logins (OidcUserService)
+ * are not affected.
+ */
+public class ProjectingOAuth2UserService implements OAuth2UserService<OAuth2UserRequest, OAuth2User> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectingOAuth2UserService.class);
+
+    private final OAuth2UserService<OAuth2UserRequest, OAuth2User> delegate;
+
+    /** Whitelisted key → its interned instance. */
+    private final Map<String, String> keys = new HashMap<>();
+
+    private final LongAdder projectedUsers = new LongAdder();
+
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /**
+     * @param attributes attribute names to keep (empty: keep everything)
+     */
+    public ProjectingOAuth2UserService(Collection<String> attributes) {
+        this(new DefaultOAuth2UserService(), attributes);
+    }
+
+    /**
+     * @param delegate loads the full user from the user-info endpoint
+     * @param attributes attribute names to keep (empty: keep everything)
+     */
+    public ProjectingOAuth2UserService(OAuth2UserService<OAuth2UserRequest, OAuth2User> delegate,
+                                       Collection<String> attributes) {
+        this.delegate = delegate;
+        for (String attribute : attributes) {
+            String key = attribute.trim().intern();
+            if (!key.isEmpty()) {
+                this.keys.put(key, key);
+            }
+        }
+    }
+
+    @Override
+    public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
+        OAuth2User user = this.delegate.loadUser(userRequest);
+        if (this.keys.isEmpty()) {
+            return user;
+        }
+        String nameAttributeKey = userRequest.getClientRegistration().getProviderDetails()
+            .getUserInfoEndpoint().getUserNameAttributeName();
+
+        Map<String, Object> projected = project(user.getAttributes(), nameAttributeKey);
+        List<GrantedAuthority> authorities = new ArrayList<>(user.getAuthorities().size());
+        for (GrantedAuthority authority : user.getAuthorities()) {
+            authorities.add((authority.getClass() == OAuth2UserAuthority.class)
+                ? new OAuth2UserAuthority(authority.getAuthority(), projected, nameAttributeKey)
+                : authority);
+        }
+
+        long saved = estimateBytes(user.getAttributes()) - estimateBytes(projected);
+        this.projectedUsers.increment();
+        this.bytesSaved.add(saved);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Projected {} user attributes to {} (~{} bytes saved)",
+                user.getAttributes().size(), projected.size(), saved);
+        }
+        return new DefaultOAuth2User(authorities, projected, nameAttributeKey);
+    }
+
+    /**
+     * @return number of logins whose attributes were projected (bff.oauth2.users.projected)
+     */
+    public long getProjectedUsers() {
+        return this.projectedUsers.sum();
+    }
+
+    /**
+     * @return estimated attribute-map heap bytes saved across all projected logins
+     *         (bff.oauth2.users.bytes.saved)
+     */
+    public long getBytesSaved() {
+        return this.bytesSaved.sum();
+    }
+
+    private Map<String, Object> project(Map<String, Object> attributes, String nameAttributeKey) {
+        Map<String, Object> projected = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            String key = this.keys.get(attribute.getKey());
+            if (key == null && attribute.getKey().equals(nameAttributeKey)) {
+                key = nameAttributeKey.intern();
+            }
+            Object value = compact(attribute.getValue());
+            if (key != null && value != null) {
+                projected.put(key, value);
+            }
+        }
+        return projected;
+    }
+
+    private static Object compact(Object value) {
+        if (value instanceof Long number && number == number.intValue()) {
+            return number.intValue();
+        }
+        return value;
+    }
+
+    /**
+     * Rough retained size of an attribute map: one map entry per attribute
+     * plus the value (keys are counted too, although interned keys are shared).
+     */
+    static long estimateBytes(Map<String, Object> attributes) {
+        long bytes = 0;
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            bytes += 40 + estimateBytes(attribute.getKey()) + estimateBytes(attribute.getValue());
+        }
+        return bytes;
+    }
+
+    private static long estimateBytes(Object value) {
+        if (value instanceof String string) {
+            return 40 + string.length();
+        }
+        if (value instanceof Integer) {
+            return 16;
+        }
+        if (value instanceof Long || value instanceof Double) {
+            return 24;
+        }
+        return (value == null || value instanceof Boolean) ? 0 : 64;
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.server.oauth2;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.client.AuthorizedClientServiceOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.RefreshTokenOAuth2AuthorizedClientProvider;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.OAuth2RefreshTokenGrantRequest;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ==========================================
+ * PROACTIVE TOKEN REFRESH
+ * ==========================================
+ *
+ * OAuth2AuthorizedClientService that refreshes access tokens in the
+ * background, shortly BEFORE they expire, so no user request waits on the
+ * IdP's token endpoint (an inline refresh adds a full round-trip to the
+ * first request after expiry).
+ *
+ * TRACKING:
+ * - Every saved client with a refresh token and an expiry is scheduled at
+ *   expiresAt - lead - random(0, jitter). Jitter spreads the refreshes of
+ *   users who logged in together (e.g. after a deploy)
+ * - Due times live in a PriorityQueue (earliest first); rescheduling and
+ *   removal are lazy: the map holds each client's current entry, and
+ *   stale queue entries are skipped when they reach the head
+ * - A tick (bff.oauth2.refresh.tick) starts every due refresh, at most
+ *   max-concurrency at a time; the rest wait for the next tick
+ * - A client is dropped when its login's session ends (logout, timeout)
+ *   or the refresh token is rejected
+ *
+ * FAILURES:
+ * invalid_grant and friends remove the client (Spring's default failure
+ * handler); the user logs in again on the next request. Other errors retry
+ * after bff.oauth2.refresh.retry-interval while the token is still valid.
+ *
+ * METRICS:
+ * - bff.oauth2.token.refresh (timer; registration, outcome=success|failure)
+ * - bff.oauth2.token.refresh.lag (timer): refresh start minus due time
+ * - bff.oauth2.token.refresh.failures (counter; registration, error)
+ * - bff.oauth2.token.refresh.tracked (gauge): clients scheduled
+ *
+ * Tokens without a refresh token (GitHub OAuth apps) are stored but never
+ * scheduled.
+ */
+public class RefreshSchedulingAuthorizedClientService implements OAuth2AuthorizedClientService,
+        HttpSessionListener, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshSchedulingAuthorizedClientService.class);
+
+    private final OAuth2AuthorizedClientService delegate;
+
+    private final OAuth2AuthorizedClientManager refresher;
+
+    private final Duration lead;
+
+    private final Duration jitter;
+
+    private final Duration retryInterval;
+
+    private final Clock clock;
+
+    private final Semaphore permits;
+
+    /** Client → its current schedule entry. */
+    private final Map<Key, Entry> tracked = new ConcurrentHashMap<>();
+
+    /** Client → authentication of the login that stored it (see sessionDestroyed). */
+    private final Map<Key, Authentication> logins = new ConcurrentHashMap<>();
+
+    /** Guarded by itself. */
+    private final PriorityQueue<Entry> due = new PriorityQueue<>();
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("token-refresh-timer").daemon().factory());
+
+    private final ExecutorService workers = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("token-refresh-", 0).factory());
+
+    private final MeterRegistry meters;
+
+    private final Timer lag;
+
+    /**
+     * @param delegate stores the clients
+     * @param clientRegistrations registrations the clients belong to
+     * @param tokenResponseClient calls the token endpoint (refresh_token grant)
+     * @param flights refreshes in flight, shared with the request path (SingleFlightAuthorizedClientManager)
+     * @param meters metrics registry
+     * @param settings scheduling settings
+     */
+    public RefreshSchedulingAuthorizedClientService(OAuth2AuthorizedClientService delegate,
+            ClientRegistrationRepository clientRegistrations,
+            OAuth2AccessTokenResponseClient<OAuth2RefreshTokenGrantRequest> tokenResponseClient,
+            SingleFlight<String, OAuth2AuthorizedClient> flights, MeterRegistry meters, Settings settings) {
+        this.delegate = delegate;
+        this.lead = settings.lead();
+        this.jitter = settings.jitter();
+        this.retryInterval = settings.retryInterval();
+        this.clock = settings.clock();
+        this.permits = new Semaphore(settings.maxConcurrency());
+        this.meters = meters;
+
+        // Refresh whenever we ask: the provider only refreshes tokens expiring within its skew
+        RefreshTokenOAuth2AuthorizedClientProvider provider = new RefreshTokenOAuth2AuthorizedClientProvider();
+        provider.setAccessTokenResponseClient(tokenResponseClient);
+        provider.setClockSkew(this.lead.plus(this.jitter).plus(settings.tick()).plus(Duration.ofSeconds(1)));
+        provider.setClock(this.clock);
+        AuthorizedClientServiceOAuth2AuthorizedClientManager refresher =
+            new AuthorizedClientServiceOAuth2AuthorizedClientManager(clientRegistrations, this);
+        refresher.setAuthorizedClientProvider(provider);
+        this.refresher = new SingleFlightAuthorizedClientManager(refresher, flights);
+
+        this.lag = Timer.builder("bff.oauth2.token.refresh.lag")
+            .description("Time between a token's planned refresh and the refresh starting")
+            .register(meters);
+        meters.gauge("bff.oauth2.token.refresh.tracked", this.tracked, Map::size);
+        long tick = settings.tick().toMillis();
+        this.timer.scheduleWithFixedDelay(this::tick, tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public <T extends OAuth2AuthorizedClient> T loadAuthorizedClient(String clientRegistrationId,
+                                                                      String principalName) {
+        return this.delegate.loadAuthorizedClient(clientRegistrationId, principalName);
+    }
+
+    @Override
+    public void saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
+        this.delegate.saveAuthorizedClient(authorizedClient, principal);
+        Key key = new Key(authorizedClient.getClientRegistration().getRegistrationId(), principal.getName());
+        if (principal instanceof OAuth2AuthenticationToken) {
+            this.logins.put(key, principal);
+        }
+        schedule(key, authorizedClient);
+    }
+
+    @Override
+    public void removeAuthorizedClient(String clientRegistrationId, String principalName) {
+        Key key = new Key(clientRegistrationId, principalName);
+        this.tracked.remove(key);
+        this.logins.remove(key);
+        this.delegate.removeAuthorizedClient(clientRegistrationId, principalName);
+    }
+
+    /**
+     * Drops the client stored by this session's login. A later login of the
+     * same user (maximumSessions(1) expires the older session) has its own
+     * authentication, so the older session ending does not touch it.
+     */
+    @Override
+    public void sessionDestroyed(HttpSessionEvent event) {
+        Object context = event.getSession()
+            .getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        if (context instanceof SecurityContext securityContext
+                && securityContext.getAuthentication() instanceof OAuth2AuthenticationToken authentication) {
+            Key key = new Key(authentication.getAuthorizedClientRegistrationId(), authentication.getName());
+            if (authentication.equals(this.logins.get(key))) {
+                removeAuthorizedClient(key.registrationId(), key.principalName());
+            }
+        }
+    }
+
+    /**
+     * @return clients currently scheduled for refresh
+     */
+    public int trackedClients() {
+        return this.tracked.size();
+    }
+
+    @Override
+    public void close() {
+        this.timer.shutdownNow();
+        this.workers.shutdownNow();
+    }
+
+    private void schedule(Key key, OAuth2AuthorizedClient client) {
+        OAuth2AccessToken token = client.getAccessToken();
+        if (client.getRefreshToken() == null || token.getExpiresAt() == null) {
+            this.tracked.remove(key);
+            return;
+        }
+        long jitterMillis = this.jitter.isZero() ? 0 : ThreadLocalRandom.current().nextLong(this.jitter.toMillis() + 1);
+        Instant dueAt = token.getExpiresAt().minus(this.lead).minusMillis(jitterMillis);
+        // Short-lived tokens (lifetime < 2 x lead): refresh halfway, not back-to-back
+        Instant now = this.clock.instant();
+        Instant halfway = now.plus(Duration.between(now, token.getExpiresAt()).dividedBy(2));
+        if (dueAt.isBefore(halfway)) {
+            dueAt = halfway;
+        }
+        enqueue(new Entry(key, dueAt, token.getExpiresAt()));
+    }
+
+    private void enqueue(Entry entry) {
+        this.tracked.put(entry.key(), entry);
+        synchronized (this.due) {
+            this.due.add(entry);
+        }
+    }
+
+    /**
+     * Starts every due refresh there is a permit for.
+     */
+    void tick() {
+        Instant now = this.clock.instant();
+        while (true) {
+            Entry next;
+            synchronized (this.due) {
+                next = this.due.peek();
+                if (next == null || next.dueAt().isAfter(now)) {
+                    return;
+                }
+                if (this.tracked.get(next.key()) != next) {
+                    this.due.poll();  // rescheduled or removed since
+                    continue;
+                }
+                if (!this.permits.tryAcquire()) {
+                    return;  // at max-concurrency; the lag timer shows the backlog
+                }
+                this.due.poll();
+            }
+            Entry entry = next;
+            try {
+                this.workers.execute(() -> refresh(entry));
+            }
+            catch (RuntimeException ex) {
+                this.permits.release();  // shutting down
+                return;
+            }
+        }
+    }
+
+    private void refresh(Entry entry) {
+        Key key = entry.key();
+        Timer.Sample sample = Timer.start(this.meters);
+        String outcome = "success";
+        try {
+            this.lag.record(Duration.between(entry.dueAt(), this.clock.instant()));
+            // Saves the refreshed client through this service, which schedules its next refresh
+            this.refresher.authorize(OAuth2AuthorizeRequest.withClientRegistrationId(key.registrationId())
+                .principal(key.principalName())
+                .build());
+            this.tracked.remove(key, entry);  // not refreshed (removed, or no longer refreshable)
+        }
+        catch (OAuth2AuthorizationException ex) {
+            outcome = "failure";
+            failed(entry, ex.getError().getErrorCode(), ex);
+        }
+        catch (RuntimeException ex) {
+            outcome = "failure";
+            failed(entry, "unexpected", ex);
+        }
+        finally {
+            this.permits.release();
+            sample.stop(Timer.builder("bff.oauth2.token.refresh")
+                .description("Background access token refreshes")
+                .tag("registration", key.registrationId())
+                .tag("outcome", outcome)
+                .register(this.meters));
+        }
+    }
+
+    private void failed(Entry entry, String error, RuntimeException ex) {
+        Counter.builder("bff.oauth2.token.refresh.failures")
+            .tag("registration", entry.key().registrationId())
+            .tag("error", error)
+            .register(this.meters)
+            .increment();
+        Instant retryAt = this.clock.instant().plus(this.retryInterval);
+        if (this.tracked.get(entry.key()) == entry && retryAt.isBefore(entry.expiresAt())) {
+            logger.warn("Token refresh for {} failed ({}), retrying at {}", entry.key().registrationId(), error, retryAt);
+            enqueue(new Entry(entry.key(), retryAt, entry.expiresAt()));
+        }
+        else {
+            // Removed by the failure handler, or out of time: the next request refreshes (or re-logs in) inline
+            logger.warn("Token refresh for {} failed ({}): {}", entry.key().registrationId(), error, ex.getMessage());
+            this.tracked.remove(entry.key(), entry);
+        }
+    }
+
+    /**
+     * @param lead refresh this long before expiry (bff.oauth2.refresh.lead)
+     * @param jitter plus up to this much earlier, at random (bff.oauth2.refresh.jitter)
+     * @param maxConcurrency refreshes in flight at once (bff.oauth2.refresh.max-concurrency)
+     * @param tick how often due refreshes are started (bff.oauth2.refresh.tick)
+     * @param retryInterval wait after a failed refresh (bff.oauth2.refresh.retry-interval)
+     * @param clock time source
+     */
+    public record Settings(Duration lead, Duration jitter, int maxConcurrency, Duration tick,
+                           Duration retryInterval, Clock clock) {
+    }
+
+    private record Key(String registrationId, String principalName) {
+    }
+
+    private record Entry(Key key, Instant dueAt, Instant expiresAt) implements Comparable<Entry> {
+
+        @Override
+        public int compareTo(Entry other) {
+            return this.dueAt.compareTo(other.dueAt);
+        }
+    }
+}
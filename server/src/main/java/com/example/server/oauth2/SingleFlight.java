@@ -0,0 +1,98 @@
+package com.example.server.oauth2;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one call per key at a time: callers arriving while a call
+ * for their key is in flight wait for it and share its result (or its
+ * exception) instead of starting their own.
+ *
+ * Lock-free: the in-flight calls are futures in a ConcurrentHashMap.
+ * The first caller's putIfAbsent wins and runs the work on its own thread;
+ * the entry is removed as soon as the work finishes, so the next call for
+ * that key starts fresh (results are not cached).
+ *
+ * @param <K> key (e.g. registration ID + principal name)
+ * @param <V> result
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executed = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param key calls with equal keys are coalesced
+     * @param work runs on the calling thread if no call for {@code key} is in flight
+     * @return the result of this or the in-flight call
+     */
+    public V execute(K key, Supplier<V> work) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = this.inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            this.coalesced.increment();
+            return await(existing);
+        }
+        this.executed.increment();
+        try {
+            V result = work.get();
+            flight.complete(result);
+            return result;
+        }
+        catch (RuntimeException | Error ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        }
+        finally {
+            this.inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return calls that ran their work
+     */
+    public long executed() {
+        return this.executed.sum();
+    }
+
+    /**
+     * @return calls that shared an in-flight call's result instead
+     */
+    public long coalesced() {
+        return this.coalesced.sum();
+    }
+
+    /**
+     * @return keys with a call in flight right now
+     */
+    public int inFlight() {
+        return this.inFlight.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        }
+        catch (CompletionException ex) {
+            // Rethrow the leader's exception as-is (e.g. ClientAuthorizationException)
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+        catch (CancellationException ex) {
+            throw new IllegalStateException("In-flight call was cancelled", ex);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.server.oauth2;
+
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+
+/**
+ * ==========================================
+ * SINGLE-FLIGHT TOKEN REFRESH
+ * ==========================================
+ *
+ * OAuth2AuthorizedClientManager that lets one authorize() per client
+ * (registration ID + principal name) run at a time.
+ *
+ * WHY:
+ * On page load the SPA fires several /api calls in parallel. Once the
+ * access token has expired, each of them would load the stale client,
+ * call the token endpoint and save its own new token: N refreshes instead
+ * of one, and with rotating refresh tokens all but the first fail with
+ * invalid_grant.
+ *
+ * Here the first request loads, refreshes and saves; the others wait for
+ * it and get the refreshed client. Load and save happen inside the flight,
+ * so a request arriving after it sees the new token and does not refresh.
+ * The background refresher (RefreshSchedulingAuthorizedClientService)
+ * shares the same SingleFlight, so it never races a user's request either.
+ *
+ * Unexpired tokens take the same path; sharing a concurrent load costs one
+ * map lookup.
+ */
+public class SingleFlightAuthorizedClientManager implements OAuth2AuthorizedClientManager {
+
+    private final OAuth2AuthorizedClientManager delegate;
+
+    private final SingleFlight<String, OAuth2AuthorizedClient> flights;
+
+    /**
+     * @param delegate loads, refreshes and saves the client
+     * @param flights in-flight calls, shared by every manager of the same clients
+     */
+    public SingleFlightAuthorizedClientManager(OAuth2AuthorizedClientManager delegate,
+                                               SingleFlight<String, OAuth2AuthorizedClient> flights) {
+        this.delegate = delegate;
+        this.flights = flights;
+    }
+
+    @Override
+    public OAuth2AuthorizedClient authorize(OAuth2AuthorizeRequest authorizeRequest) {
+        return this.flights.execute(key(authorizeRequest), () -> this.delegate.authorize(authorizeRequest));
+    }
+
+    static String key(OAuth2AuthorizeRequest authorizeRequest) {
+        return authorizeRequest.getClientRegistrationId() + '\n' + authorizeRequest.getPrincipal().getName();
+    }
+}
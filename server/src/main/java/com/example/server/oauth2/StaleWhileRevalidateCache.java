@@ -0,0 +1,207 @@
+package com.example.server.oauth2;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Single cached value (a discovery document, a JWK set) that is served
+ * stale while a background refresh fetches the next one.
+ *
+ * - Fresh (younger than ttl): returned as-is ("hit")
+ * - Stale: returned as-is, one background refresh is started ("stale")
+ * - Missing (never loaded): loaded on the calling thread; concurrent callers
+ *   share that one load ("miss")
+ * - Failed refresh: the previous value stays in use
+ *
+ * {@link #refresh()} forces a synchronous reload (e.g. unknown JWK kid) but
+ * at most once per minRefreshInterval since the last attempt, successful
+ * or not, so a flood of tokens signed with a bogus kid cannot turn into a
+ * flood of fetches, not even while the issuer is down.
+ *
+ * Metrics (tags cache, registration): bff.oidc.cache.requests
+ * (result=hit|stale|miss), bff.oidc.cache.refreshes (outcome=success|failure).
+ *
+ * @param <T> cached value
+ */
+public class StaleWhileRevalidateCache<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaleWhileRevalidateCache.class);
+
+    private final String name;
+
+    private final String registration;
+
+    private final Supplier<T> loader;
+
+    private final Duration ttl;
+
+    private final Duration minRefreshInterval;
+
+    private final Clock clock;
+
+    private final Executor executor;
+
+    private final SingleFlight<String, Entry<T>> loads = new SingleFlight<>();
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private final MeterRegistry meters;
+
+    private final Counter hits;
+
+    private final Counter stale;
+
+    private final Counter misses;
+
+    private volatile Entry<T> entry;
+
+    private volatile Instant attemptedAt;
+
+    /**
+     * @param name what is cached (metrics tag)
+     * @param registration client registration it belongs to (metrics tag)
+     * @param loader fetches the value (blocking); exceptions mean "keep the old value"
+     * @param ttl age after which the value is refreshed in the background
+     * @param minRefreshInterval minimum time between forced refreshes
+     * @param clock time source
+     * @param executor runs background refreshes
+     * @param meters metrics registry
+     */
+    public StaleWhileRevalidateCache(String name, String registration, Supplier<T> loader, Duration ttl,
+                                     Duration minRefreshInterval, Clock clock, Executor executor,
+                                     MeterRegistry meters) {
+        this.name = name;
+        this.registration = registration;
+        this.loader = loader;
+        this.ttl = ttl;
+        this.minRefreshInterval = minRefreshInterval;
+        this.clock = clock;
+        this.executor = executor;
+        this.meters = meters;
+        this.hits = requests("hit");
+        this.stale = requests("stale");
+        this.misses = requests("miss");
+    }
+
+    /**
+     * @return the cached value, loading it first only if there is none yet
+     */
+    public T get() {
+        Entry<T> current = this.entry;
+        if (current == null) {
+            this.misses.increment();
+            return load().value();
+        }
+        if (Duration.between(current.fetchedAt(), this.clock.instant()).compareTo(this.ttl) > 0) {
+            this.stale.increment();
+            refreshInBackground();
+        }
+        else {
+            this.hits.increment();
+        }
+        return current.value();
+    }
+
+    /**
+     * Reloads now, unless the last load was attempted less than
+     * minRefreshInterval ago (then the current value is returned).
+     *
+     * @return the (possibly) reloaded value
+     */
+    public T refresh() {
+        Entry<T> current = this.entry;
+        Instant attempted = this.attemptedAt;
+        if (current != null && attempted != null
+                && Duration.between(attempted, this.clock.instant()).compareTo(this.minRefreshInterval) < 0) {
+            return current.value();
+        }
+        try {
+            return load().value();
+        }
+        catch (RuntimeException ex) {
+            if (current == null) {
+                throw ex;
+            }
+            return current.value();
+        }
+    }
+
+    /**
+     * Starts a background reload unless one is already running.
+     */
+    public void refreshInBackground() {
+        if (!this.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            this.executor.execute(() -> {
+                try {
+                    load();
+                }
+                catch (RuntimeException ex) {
+                    // Logged and counted by load(); keep serving the previous value
+                }
+                finally {
+                    this.refreshing.set(false);
+                }
+            });
+        }
+        catch (RejectedExecutionException ex) {
+            this.refreshing.set(false);
+        }
+    }
+
+    /**
+     * @return when the current value was fetched, null if never
+     */
+    public Instant fetchedAt() {
+        Entry<T> current = this.entry;
+        return (current != null) ? current.fetchedAt() : null;
+    }
+
+    private Entry<T> load() {
+        return this.loads.execute(this.name, () -> {
+            this.attemptedAt = this.clock.instant();
+            try {
+                Entry<T> loaded = new Entry<>(this.loader.get(), this.clock.instant());
+                this.entry = loaded;
+                refreshes("success").increment();
+                return loaded;
+            }
+            catch (RuntimeException ex) {
+                refreshes("failure").increment();
+                logger.warn("Refreshing {} of {} failed: {}", this.name, this.registration, ex.getMessage());
+                throw ex;
+            }
+        });
+    }
+
+    private Counter requests(String result) {
+        return Counter.builder("bff.oidc.cache.requests")
+            .tag("cache", this.name)
+            .tag("registration", this.registration)
+            .tag("result", result)
+            .register(this.meters);
+    }
+
+    private Counter refreshes(String outcome) {
+        return Counter.builder("bff.oidc.cache.refreshes")
+            .tag("cache", this.name)
+            .tag("registration", this.registration)
+            .tag("outcome", outcome)
+            .register(this.meters);
+    }
+
+    private record Entry<T>(T value, Instant fetchedAt) {
+    }
+}
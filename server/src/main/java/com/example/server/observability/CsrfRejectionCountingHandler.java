@@ -0,0 +1,57 @@
+package com.example.server.observability;
+
+import com.example.server.observability.SecurityMetrics.CsrfSource;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.web.access.AccessDeniedHandler;
+import org.springframework.security.web.csrf.CsrfException;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+
+/**
+ * AccessDeniedHandler that counts CSRF rejections (bff.csrf.rejected) by
+ * where the token was sent, then answers as the delegate does.
+ *
+ * The source is decided as SpaCsrfTokenRequestHandler resolves the token:
+ * the header when it has a value, otherwise the form parameter. Other
+ * access denials pass through uncounted.
+ */
+public final class CsrfRejectionCountingHandler implements AccessDeniedHandler {
+
+    private final AccessDeniedHandler delegate;
+
+    private final SecurityMetrics metrics;
+
+    public CsrfRejectionCountingHandler(AccessDeniedHandler delegate, SecurityMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void handle(HttpServletRequest request, HttpServletResponse response,
+            AccessDeniedException accessDeniedException) throws IOException, ServletException {
+        if (accessDeniedException instanceof CsrfException) {
+            this.metrics.csrfRejected(source(request));
+        }
+        this.delegate.handle(request, response, accessDeniedException);
+    }
+
+    private static CsrfSource source(HttpServletRequest request) {
+        // Set by CsrfFilter before it compares tokens
+        CsrfToken token = (CsrfToken) request.getAttribute(CsrfToken.class.getName());
+        if (token == null) {
+            return CsrfSource.MISSING;
+        }
+        if (StringUtils.hasText(request.getHeader(token.getHeaderName()))) {
+            return CsrfSource.HEADER;
+        }
+        if (StringUtils.hasText(request.getParameter(token.getParameterName()))) {
+            return CsrfSource.PARAMETER;
+        }
+        return CsrfSource.MISSING;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.server.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * JFR event for the CSRF work of SpaCsrfTokenRequestHandler.
+ *
+ * - generate: the XOR-masked token value handed to a page (the raw token
+ *   itself comes from the CsrfTokenRepository)
+ * - validate: the submitted token resolved from the header or _csrf
+ *   parameter and compared with the expected one. The comparison is only
+ *   made while the event is being recorded, after its duration is taken
+ *
+ * Usage: begin(), the work, end(), then generated() or validated() when
+ * shouldCommit().
+ */
+@Name("com.example.server.CsrfToken")
+@Label("CSRF Token")
+@Category({"BFF", "CSRF"})
+@Description("CSRF token masking and validation in SpaCsrfTokenRequestHandler")
+@StackTrace(false)
+public final class CsrfTokenEvent extends jdk.jfr.Event {
+
+    @Label("Action")
+    @Description("generate or validate")
+    String action;
+
+    @Label("Source")
+    @Description("header, parameter or none (validate only)")
+    String source;
+
+    @Label("Outcome")
+    @Description("masked, valid, invalid or missing")
+    String outcome;
+
+    public void generated() {
+        this.action = "generate";
+        this.outcome = "masked";
+        commit();
+    }
+
+    /**
+     * @param header whether the token came from the header (else the parameter)
+     * @param expected the token the repository holds
+     * @param actual the resolved submitted token, null if none
+     */
+    public void validated(boolean header, String expected, String actual) {
+        this.action = "validate";
+        if (actual == null) {
+            this.source = "none";
+            this.outcome = "missing";
+        }
+        else {
+            this.source = header ? "header" : "parameter";
+            this.outcome = (expected != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                actual.getBytes(StandardCharsets.UTF_8))) ? "valid" : "invalid";
+        }
+        commit();
+    }
+}
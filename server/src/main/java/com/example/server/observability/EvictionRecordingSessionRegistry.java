@@ -0,0 +1,112 @@
+package com.example.server.observability;
+
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SessionRegistry view for maximumSessions(1) that emits a SessionEvent
+ * (evicted) and counts bff.sessions.evicted (SecurityMetrics) when an older
+ * session of the user is expired at login.
+ *
+ * ConcurrentSessionControlAuthenticationStrategy evicts by calling
+ * expireNow() on what getAllSessions() returned, so only that method wraps
+ * its results; the per-request calls (getSessionInformation,
+ * refreshLastRequest) go straight to the registry.
+ */
+public final class EvictionRecordingSessionRegistry implements SessionRegistry {
+
+    private final SessionRegistry delegate;
+
+    private final SecurityMetrics metrics;
+
+    public EvictionRecordingSessionRegistry(SessionRegistry delegate, SecurityMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public List<Object> getAllPrincipals() {
+        return this.delegate.getAllPrincipals();
+    }
+
+    @Override
+    public List<SessionInformation> getAllSessions(Object principal, boolean includeExpiredSessions) {
+        List<SessionInformation> sessions = this.delegate.getAllSessions(principal, includeExpiredSessions);
+        List<SessionInformation> recorded = new ArrayList<>(sessions.size());
+        for (SessionInformation session : sessions) {
+            recorded.add(new Recorded(session, this.metrics));
+        }
+        return recorded;
+    }
+
+    @Override
+    public SessionInformation getSessionInformation(String sessionId) {
+        return this.delegate.getSessionInformation(sessionId);
+    }
+
+    @Override
+    public void refreshLastRequest(String sessionId) {
+        this.delegate.refreshLastRequest(sessionId);
+    }
+
+    @Override
+    public void registerNewSession(String sessionId, Object principal) {
+        this.delegate.registerNewSession(sessionId, principal);
+    }
+
+    @Override
+    public void removeSessionInformation(String sessionId) {
+        this.delegate.removeSessionInformation(sessionId);
+    }
+
+    /**
+     * The registry's SessionInformation, with expireNow() recorded.
+     */
+    private static final class Recorded extends SessionInformation {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final SessionInformation session;
+
+        private final transient SecurityMetrics metrics;
+
+        Recorded(SessionInformation session, SecurityMetrics metrics) {
+            super(session.getPrincipal(), session.getSessionId(), session.getLastRequest());
+            this.session = session;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return this.session.isExpired();
+        }
+
+        @Override
+        public void refreshLastRequest() {
+            this.session.refreshLastRequest();
+        }
+
+        @Override
+        public void expireNow() {
+            SessionEvent event = new SessionEvent();
+            event.begin();
+            String outcome = "expired";
+            try {
+                this.session.expireNow();
+                this.metrics.sessionEvicted();
+            }
+            catch (RuntimeException ex) {
+                outcome = ex.getClass().getSimpleName();
+                throw ex;
+            }
+            finally {
+                SessionEvent.record(event, SessionEvent.EVICTED, outcome);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.server.observability;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bff.security.filter timers of one filter, one per outcome, registered
+ * up front so recording is an array lookup.
+ */
+final class FilterTimers {
+
+    static final String METER = "bff.security.filter";
+
+    /**
+     * How an invocation ended.
+     */
+    enum Outcome {
+
+        /** Called the rest of the chain. */
+        CONTINUED("continued"),
+
+        /** Answered the request itself (redirect, 401, 403, logout...). */
+        HANDLED("handled"),
+
+        /** Threw. */
+        ERROR("error");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+
+        String tag() {
+            return this.tag;
+        }
+    }
+
+    private final String filter;
+
+    private final Timer[] timers;
+
+    FilterTimers(String filter, MeterRegistry meters) {
+        this.filter = filter;
+        Outcome[] outcomes = Outcome.values();
+        this.timers = new Timer[outcomes.length];
+        for (Outcome outcome : outcomes) {
+            this.timers[outcome.ordinal()] = Timer.builder(METER)
+                .description("Time spent in a security filter itself, excluding the filters after it")
+                .tag("filter", filter)
+                .tag("outcome", outcome.tag())
+                .publishPercentiles(0.5, 0.99)
+                .register(meters);
+        }
+    }
+
+    String filter() {
+        return this.filter;
+    }
+
+    void record(Outcome outcome, long nanos) {
+        this.timers[outcome.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return count, mean, max and percentiles in milliseconds, by outcome
+     * (outcomes never seen left out)
+     */
+    Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> byOutcome = new LinkedHashMap<>();
+        for (Outcome outcome : Outcome.values()) {
+            HistogramSnapshot snapshot = this.timers[outcome.ordinal()].takeSnapshot();
+            if (snapshot.count() == 0) {
+                continue;
+            }
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("count", snapshot.count());
+            values.put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+            values.put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                values.put("p" + Math.round(percentile.percentile() * 100) + "Ms",
+                    percentile.value(TimeUnit.MILLISECONDS));
+            }
+            byOutcome.put(outcome.tag(), values);
+        }
+        return byOutcome;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.server.observability;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * ==========================================
+ * SECURITY FILTER TIMING
+ * ==========================================
+ *
+ * Times every filter of SecurityConfig.securityFilterChain on its own, so
+ * a p99 regression can be pinned on CsrfCookieFilter,
+ * ConcurrentSessionFilter, the OAuth2 login filters or the controller.
+ *
+ * WHAT IS RECORDED (per filter, per request):
+ * - bff.security.filter{filter, outcome}: Micrometer timer of the filter's
+ *   own time, the filters after it excluded. outcome is continued (called
+ *   the chain), handled (answered itself: redirect, 401, 403) or error.
+ *   filter="servlet" is everything after the chain (the controller).
+ *   p50/p99 come from Micrometer's HdrHistogram-backed rolling window
+ * - JFR: com.example.server.SecurityFilter events (1 ms threshold)
+ *
+ * WHERE TO READ IT:
+ * - /actuator/filtertimings: the timers in chain order (expose it in
+ *   management.endpoints.web.exposure.include; see application.yml)
+ * - /actuator/metrics/bff.security.filter?tag=filter:CsrfFilter
+ * - JDK Mission Control / jfr print --events com.example.server.SecurityFilter
+ *
+ * OVERHEAD:
+ * Budget: a few hundred nanoseconds per filter, checked with
+ * TimedFilterBenchmark. bff.filter-timing.enabled=false removes the
+ * wrappers entirely.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bff.filter-timing.enabled", havingValue = "true", matchIfMissing = true)
+public class FilterTimingConfig {
+
+    @Bean
+    public static FilterTimingPostProcessor filterTimingPostProcessor(ObjectProvider<MeterRegistry> meters) {
+        return new FilterTimingPostProcessor(meters);
+    }
+
+    @Bean
+    public FilterTimingEndpoint filterTimingEndpoint(FilterTimingPostProcessor filterTimingPostProcessor) {
+        return new FilterTimingEndpoint(filterTimingPostProcessor);
+    }
+}
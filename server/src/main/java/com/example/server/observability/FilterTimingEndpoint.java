@@ -0,0 +1,31 @@
+package com.example.server.observability;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/filtertimings: the bff.security.filter timers in chain order,
+ * by outcome (count, mean, max, p50, p99 in milliseconds, over Micrometer's
+ * rolling window).
+ */
+@Endpoint(id = "filtertimings")
+public class FilterTimingEndpoint {
+
+    private final FilterTimingPostProcessor timing;
+
+    public FilterTimingEndpoint(FilterTimingPostProcessor timing) {
+        this.timing = timing;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Map<String, Object>>> filterTimings() {
+        Map<String, Map<String, Map<String, Object>>> chain = new LinkedHashMap<>();
+        for (FilterTimers timers : this.timing.timers()) {
+            chain.put(timers.filter(), timers.snapshot());
+        }
+        return chain;
+    }
+}
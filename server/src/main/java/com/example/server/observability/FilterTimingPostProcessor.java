@@ -0,0 +1,65 @@
+package com.example.server.observability;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.Filter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.security.web.DefaultSecurityFilterChain;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Replaces the SecurityFilterChain bean named {@value #CHAIN} with one whose
+ * filters are each wrapped in a TimedFilter. The health probe chain is left
+ * alone.
+ */
+public class FilterTimingPostProcessor implements BeanPostProcessor {
+
+    static final String CHAIN = "securityFilterChain";
+
+    private final ObjectProvider<MeterRegistry> meters;
+
+    /** Chain order, "servlet" last. */
+    private final List<FilterTimers> timers = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param meters resolved when the chain is built, not when this
+     * post-processor is
+     */
+    public FilterTimingPostProcessor(ObjectProvider<MeterRegistry> meters) {
+        this.meters = meters;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!CHAIN.equals(beanName) || !(bean instanceof DefaultSecurityFilterChain chain)) {
+            return bean;
+        }
+        MeterRegistry registry = this.meters.getObject();
+        List<Filter> filters = chain.getFilters();
+        FilterTimers servlet = new FilterTimers("servlet", registry);
+        List<Filter> timed = new ArrayList<>(filters.size());
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < filters.size(); i++) {
+            Filter filter = filters.get(i);
+            String name = filter.getClass().getSimpleName();
+            // Two filters of one class get their own timers
+            for (int n = 2; !names.add(name); n++) {
+                name = filter.getClass().getSimpleName() + "#" + n;
+            }
+            FilterTimers own = new FilterTimers(name, registry);
+            this.timers.add(own);
+            timed.add(new TimedFilter(filter, own, (i == filters.size() - 1) ? servlet : null));
+        }
+        this.timers.add(servlet);
+        return new DefaultSecurityFilterChain(chain.getRequestMatcher(), timed);
+    }
+
+    List<FilterTimers> timers() {
+        return this.timers;
+    }
+}
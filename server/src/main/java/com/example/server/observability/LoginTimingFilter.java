@@ -0,0 +1,59 @@
+package com.example.server.observability;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Times the OAuth2 callback (/login/oauth2/code/{registrationId}) into
+ * SecurityMetrics' bff.login timers. Sits right before
+ * OAuth2LoginAuthenticationFilter, which answers the callback itself.
+ *
+ * OUTCOME:
+ * A successful login leaves an OAuth2AuthenticationToken for the
+ * registration in the SecurityContextHolder; a failed one clears it. So
+ * the holder is read once the chain returns, no handler is replaced.
+ */
+public final class LoginTimingFilter extends OncePerRequestFilter {
+
+    private static final PathPatternRequestMatcher CALLBACK =
+        PathPatternRequestMatcher.withDefaults().matcher("/login/oauth2/code/{registrationId}");
+
+    private final SecurityMetrics metrics;
+
+    public LoginTimingFilter(SecurityMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !CALLBACK.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestMatcher.MatchResult match = CALLBACK.matcher(request);
+        String registrationId = match.getVariables().get("registrationId");
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            chain.doFilter(request, response);
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            success = authentication instanceof OAuth2AuthenticationToken login
+                && login.getAuthorizedClientRegistrationId().equals(registrationId);
+        }
+        finally {
+            this.metrics.login(registrationId, success, System.nanoTime() - start);
+        }
+    }
+}
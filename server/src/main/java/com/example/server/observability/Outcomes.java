@@ -0,0 +1,29 @@
+package com.example.server.observability;
+
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
+
+/**
+ * Outcome values of the login JFR events.
+ */
+final class Outcomes {
+
+    static final String SUCCESS = "success";
+
+    private Outcomes() {
+    }
+
+    /**
+     * @return the OAuth2 error code (invalid_grant, invalid_user_info_response...)
+     * or the exception's simple class name
+     */
+    static String of(RuntimeException ex) {
+        if (ex instanceof OAuth2AuthorizationException authorization) {
+            return authorization.getError().getErrorCode();
+        }
+        if (ex instanceof OAuth2AuthenticationException authentication) {
+            return authentication.getError().getErrorCode();
+        }
+        return ex.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.server.observability;
+
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserService;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+
+/**
+ * Emits a UserInfoEvent around each user-info fetch.
+ */
+public final class RecordingOAuth2UserService implements OAuth2UserService<OAuth2UserRequest, OAuth2User> {
+
+    private final OAuth2UserService<OAuth2UserRequest, OAuth2User> delegate;
+
+    public RecordingOAuth2UserService(OAuth2UserService<OAuth2UserRequest, OAuth2User> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
+        UserInfoEvent event = new UserInfoEvent();
+        event.begin();
+        String outcome = Outcomes.SUCCESS;
+        try {
+            return this.delegate.loadUser(userRequest);
+        }
+        catch (RuntimeException ex) {
+            outcome = Outcomes.of(ex);
+            throw ex;
+        }
+        finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.registration = userRequest.getClientRegistration().getRegistrationId();
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.server.observability;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.session.SessionAuthenticationStrategy;
+
+/**
+ * Emits a SessionEvent (fixation) around the session fixation protection
+ * strategy at login. Outcome: new-session (the session ID changed),
+ * no-session (there was none to protect, e.g. with the cookie authorization
+ * request repository), unchanged, or the exception type.
+ */
+public final class RecordingSessionAuthenticationStrategy implements SessionAuthenticationStrategy {
+
+    private final SessionAuthenticationStrategy delegate;
+
+    public RecordingSessionAuthenticationStrategy(SessionAuthenticationStrategy delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void onAuthentication(Authentication authentication, HttpServletRequest request,
+                                 HttpServletResponse response) {
+        HttpSession before = request.getSession(false);
+        String beforeId = (before != null) ? before.getId() : null;
+        SessionEvent event = new SessionEvent();
+        event.begin();
+        String outcome = "unchanged";
+        try {
+            this.delegate.onAuthentication(authentication, request, response);
+            HttpSession after = request.getSession(false);
+            if (beforeId == null) {
+                outcome = "no-session";
+            }
+            else if (after != null && !beforeId.equals(after.getId())) {
+                outcome = "new-session";
+            }
+        }
+        catch (RuntimeException ex) {
+            outcome = ex.getClass().getSimpleName();
+            throw ex;
+        }
+        finally {
+            SessionEvent.record(event, SessionEvent.FIXATION, outcome);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.server.observability;
+
+import org.springframework.security.oauth2.client.endpoint.OAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AuthorizationCodeGrantRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AccessTokenResponse;
+
+/**
+ * Emits a TokenExchangeEvent around each authorization code exchange.
+ */
+public final class RecordingTokenResponseClient
+        implements OAuth2AccessTokenResponseClient<OAuth2AuthorizationCodeGrantRequest> {
+
+    private final OAuth2AccessTokenResponseClient<OAuth2AuthorizationCodeGrantRequest> delegate;
+
+    public RecordingTokenResponseClient(OAuth2AccessTokenResponseClient<OAuth2AuthorizationCodeGrantRequest> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public OAuth2AccessTokenResponse getTokenResponse(OAuth2AuthorizationCodeGrantRequest request) {
+        TokenExchangeEvent event = new TokenExchangeEvent();
+        event.begin();
+        String outcome = Outcomes.SUCCESS;
+        try {
+            return this.delegate.getTokenResponse(request);
+        }
+        catch (RuntimeException ex) {
+            outcome = Outcomes.of(ex);
+            throw ex;
+        }
+        finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.registration = request.getClientRegistration().getRegistrationId();
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+}
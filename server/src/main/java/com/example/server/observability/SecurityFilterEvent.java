@@ -0,0 +1,37 @@
+package com.example.server.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one security filter invocation (TimedFilter).
+ *
+ * The event's duration is the filter including the rest of the chain, as
+ * JFR measures begin() to end(); selfTime is the filter's own share. Only
+ * invocations of at least 1 ms are recorded by default; lower the
+ * threshold in a .jfc file to see every one.
+ */
+@Name("com.example.server.SecurityFilter")
+@Label("Security Filter")
+@Category({"BFF", "Security"})
+@Description("One filter of the security filter chain")
+@Threshold("1 ms")
+@StackTrace(false)
+class SecurityFilterEvent extends jdk.jfr.Event {
+
+    @Label("Filter")
+    String filter;
+
+    @Label("Outcome")
+    @Description("continued, handled (answered without calling the chain) or error")
+    String outcome;
+
+    @Label("Self Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long selfTime;
+}
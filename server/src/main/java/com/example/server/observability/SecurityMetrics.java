@@ -0,0 +1,120 @@
+package com.example.server.observability;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The login, eviction and CSRF meters of SecurityConfig's main chain,
+ * registered up front (one per tag value) so recording never builds an id
+ * or looks a meter up in the registry.
+ *
+ * Counters are LongAdders read by FunctionCounters: an increment is a
+ * striped add, the registry only sums them when scraped.
+ */
+public final class SecurityMetrics {
+
+    /** registration tag of callbacks for an id that is not configured. */
+    static final String UNKNOWN_REGISTRATION = "unknown";
+
+    /**
+     * Where a rejected request carried its CSRF token.
+     */
+    public enum CsrfSource {
+
+        /** X-XSRF-TOKEN header (the SPA). */
+        HEADER("header"),
+
+        /** _csrf form parameter. */
+        PARAMETER("parameter"),
+
+        /** Neither. */
+        MISSING("missing");
+
+        private final String tag;
+
+        CsrfSource(String tag) {
+            this.tag = tag;
+        }
+
+        String tag() {
+            return this.tag;
+        }
+    }
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder[] csrfRejections = new LongAdder[CsrfSource.values().length];
+
+    /** registration id -> {success, failure} */
+    private final Map<String, Timer[]> logins = new HashMap<>();
+
+    private final Timer[] unknownLogins;
+
+    /**
+     * @param meters registry to register with
+     * @param registrationIds configured client registrations (the registration tag values)
+     */
+    public SecurityMetrics(MeterRegistry meters, Iterable<String> registrationIds) {
+        FunctionCounter.builder("bff.sessions.evicted", this.evictions, LongAdder::sum)
+            .description("Older sessions expired by maximumSessions(1) when the user logged in again")
+            .register(meters);
+        for (CsrfSource source : CsrfSource.values()) {
+            LongAdder rejections = new LongAdder();
+            this.csrfRejections[source.ordinal()] = rejections;
+            FunctionCounter.builder("bff.csrf.rejected", rejections, LongAdder::sum)
+                .description("Requests refused by CsrfFilter, by where the token was sent")
+                .tag("source", source.tag())
+                .register(meters);
+        }
+        for (String registrationId : registrationIds) {
+            this.logins.put(registrationId, loginTimers(meters, registrationId));
+        }
+        this.unknownLogins = loginTimers(meters, UNKNOWN_REGISTRATION);
+    }
+
+    private static Timer[] loginTimers(MeterRegistry meters, String registrationId) {
+        Timer[] timers = new Timer[2];
+        timers[0] = loginTimer(meters, registrationId, "success");
+        timers[1] = loginTimer(meters, registrationId, "failure");
+        return timers;
+    }
+
+    private static Timer loginTimer(MeterRegistry meters, String registrationId, String outcome) {
+        return Timer.builder("bff.login")
+            .description("OAuth2 callback handling: code exchange, user info and session setup")
+            .tag("registration", registrationId)
+            .tag("outcome", outcome)
+            .publishPercentiles(0.5, 0.99)
+            .register(meters);
+    }
+
+    /**
+     * An older session of the user was expired by maximumSessions(1).
+     */
+    public void sessionEvicted() {
+        this.evictions.increment();
+    }
+
+    /**
+     * @param source where the rejected request carried its token
+     */
+    public void csrfRejected(CsrfSource source) {
+        this.csrfRejections[source.ordinal()].increment();
+    }
+
+    /**
+     * @param registrationId registration id from the callback path
+     * @param success whether the callback authenticated the user
+     * @param nanos time spent handling the callback
+     */
+    public void login(String registrationId, boolean success, long nanos) {
+        Timer[] timers = this.logins.getOrDefault(registrationId, this.unknownLogins);
+        timers[success ? 0 : 1].record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.server.observability;
+
+import com.example.server.session.ActiveSessionCounter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ==========================================
+ * SESSION, LOGIN AND CSRF METRICS
+ * ==========================================
+ *
+ * Micrometer meters for what the BFF does per user, scraped in Prometheus
+ * format from /actuator/prometheus (see application.yml).
+ *
+ * WHAT IS RECORDED:
+ * - bff.sessions.active: sessions alive now (ActiveSessionCounter, any store)
+ * - bff.sessions.created / bff.sessions.destroyed: counters, rate() them
+ * - bff.sessions.evicted: older sessions expired by maximumSessions(1)
+ *   (EvictionRecordingSessionRegistry)
+ * - bff.login{registration, outcome=success|failure}: callback latency
+ *   (LoginTimingFilter); registration is a configured id or "unknown"
+ * - bff.csrf.rejected{source=header|parameter|missing}
+ *   (CsrfRejectionCountingHandler)
+ * - bff.session.bytes: encoded size per session write (MeteredSessionCodec,
+ *   segment-file store only)
+ *
+ * OVERHEAD:
+ * Every meter and tag combination is registered here, at startup. Counters
+ * are LongAdders (FunctionCounters read them on scrape); timers are looked
+ * up by registration id in a map built once.
+ */
+@Configuration(proxyBeanMethods = false)
+public class SecurityMetricsConfig {
+
+    @Bean
+    public SecurityMetrics securityMetrics(MeterRegistry meters, ActiveSessionCounter sessions,
+            ClientRegistrationRepository clientRegistrations) {
+        Gauge.builder("bff.sessions.active", sessions, ActiveSessionCounter::active)
+            .description("HttpSessions currently alive")
+            .register(meters);
+        FunctionCounter.builder("bff.sessions.created", sessions, ActiveSessionCounter::created)
+            .description("HttpSessions created")
+            .register(meters);
+        FunctionCounter.builder("bff.sessions.destroyed", sessions, ActiveSessionCounter::destroyed)
+            .description("HttpSessions destroyed (logout, timeout, fixation, eviction)")
+            .register(meters);
+        return new SecurityMetrics(meters, registrationIds(clientRegistrations));
+    }
+
+    private static List<String> registrationIds(ClientRegistrationRepository clientRegistrations) {
+        List<String> ids = new ArrayList<>();
+        // InMemoryClientRegistrationRepository (Spring Boot's) is iterable; others tag as "unknown"
+        if (clientRegistrations instanceof Iterable<?> registrations) {
+            for (Object registration : registrations) {
+                ids.add(((ClientRegistration) registration).getRegistrationId());
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.server.observability;
+
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Emits a SessionEvent (created) for each HttpSession the container creates
+ * (Spring Boot registers HttpSessionListener beans with it).
+ */
+@Component
+public class SessionCreationRecorder implements HttpSessionListener {
+
+    @Override
+    public void sessionCreated(HttpSessionEvent event) {
+        SessionEvent created = new SessionEvent();
+        created.begin();
+        SessionEvent.record(created, SessionEvent.CREATED, SessionEvent.CREATED);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.server.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for HttpSession lifecycle steps around login.
+ *
+ * - created: the container created a session (SessionCreationRecorder);
+ *   an instant, zero duration
+ * - fixation: session fixation protection at login
+ *   (RecordingSessionAuthenticationStrategy)
+ * - evicted: maximumSessions(1) expired an older session of the user
+ *   (EvictionRecordingSessionRegistry)
+ */
+@Name("com.example.server.Session")
+@Label("Session")
+@Category({"BFF", "Session"})
+@Description("HttpSession creation, fixation protection at login, concurrent-session eviction")
+@StackTrace(false)
+class SessionEvent extends jdk.jfr.Event {
+
+    static final String CREATED = "created";
+
+    static final String FIXATION = "fixation";
+
+    static final String EVICTED = "evicted";
+
+    @Label("Action")
+    @Description("created, fixation or evicted")
+    String action;
+
+    @Label("Outcome")
+    @Description("created, new-session, no-session, expired, or the exception type")
+    String outcome;
+
+    static void record(SessionEvent event, String action, String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.action = action;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.server.observability;
+
+import com.example.server.observability.FilterTimers.Outcome;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Wraps one security filter: times the filter's own work (the rest of the
+ * chain is subtracted), records it under its outcome and emits a
+ * SecurityFilterEvent.
+ *
+ * The last filter of the chain also times what comes after it (the
+ * dispatcher servlet and controller) as filter "servlet".
+ *
+ * Per invocation: two nanoTime() calls, one small chain object, one timer
+ * record and a JFR event that is dropped unless recording and over its
+ * threshold.
+ */
+final class TimedFilter implements Filter {
+
+    private final Filter delegate;
+
+    private final FilterTimers timers;
+
+    private final FilterTimers servlet;
+
+    /**
+     * @param delegate the filter to time
+     * @param timers its timers
+     * @param servlet timers for what follows the chain, or null if another
+     * filter follows
+     */
+    TimedFilter(Filter delegate, FilterTimers timers, FilterTimers servlet) {
+        this.delegate = delegate;
+        this.timers = timers;
+        this.servlet = servlet;
+    }
+
+    Filter delegate() {
+        return this.delegate;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        Downstream downstream = new Downstream(chain, this.servlet);
+        SecurityFilterEvent event = new SecurityFilterEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Outcome outcome = Outcome.ERROR;
+        try {
+            this.delegate.doFilter(request, response, downstream);
+            outcome = downstream.called ? Outcome.CONTINUED : Outcome.HANDLED;
+        }
+        finally {
+            long self = System.nanoTime() - start - downstream.nanos;
+            this.timers.record(outcome, self);
+            event.end();
+            if (event.shouldCommit()) {
+                event.filter = this.timers.filter();
+                event.outcome = outcome.tag();
+                event.selfTime = self;
+                event.commit();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Timed" + this.delegate;
+    }
+
+    /**
+     * The chain as the wrapped filter sees it: measures the time spent
+     * further down.
+     */
+    private static final class Downstream implements FilterChain {
+
+        private final FilterChain chain;
+
+        private final FilterTimers servlet;
+
+        boolean called;
+
+        long nanos;
+
+        Downstream(FilterChain chain, FilterTimers servlet) {
+            this.chain = chain;
+            this.servlet = servlet;
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+            this.called = true;
+            long start = System.nanoTime();
+            Outcome outcome = Outcome.ERROR;
+            try {
+                this.chain.doFilter(request, response);
+                outcome = Outcome.HANDLED;
+            }
+            finally {
+                long elapsed = System.nanoTime() - start;
+                this.nanos += elapsed;
+                if (this.servlet != null) {
+                    this.servlet.record(outcome, elapsed);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.server.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one authorization code exchange at the token endpoint
+ * (RecordingTokenResponseClient).
+ */
+@Name("com.example.server.TokenExchange")
+@Label("OAuth2 Token Exchange")
+@Category({"BFF", "Login"})
+@Description("Authorization code exchanged for tokens at the provider's token endpoint")
+@StackTrace(false)
+class TokenExchangeEvent extends jdk.jfr.Event {
+
+    @Label("Registration")
+    String registration;
+
+    @Label("Outcome")
+    @Description("success, the OAuth2 error code, or the exception type")
+    String outcome;
+}
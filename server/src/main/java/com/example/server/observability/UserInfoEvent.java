@@ -0,0 +1,25 @@
+package com.example.server.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one user-info fetch at login (RecordingOAuth2UserService).
+ */
+@Name("com.example.server.UserInfo")
+@Label("OAuth2 User Info")
+@Category({"BFF", "Login"})
+@Description("User profile fetched from the provider's user-info endpoint")
+@StackTrace(false)
+class UserInfoEvent extends jdk.jfr.Event {
+
+    @Label("Registration")
+    String registration;
+
+    @Label("Outcome")
+    @Description("success, the OAuth2 error code, or the exception type")
+    String outcome;
+}
@@ -0,0 +1,79 @@
+package com.example.server.proxy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * ==========================================
+ * TOKEN-RELAY PROXY CONFIGURATION
+ * ==========================================
+ *
+ * Upstreams are listed in bff.proxy.upstreams as name=registration@base-uri:
+ *
+ *   bff.proxy.upstreams: github=github@https://api.github.com,orders=keycloak@http://orders:8080/api
+ *
+ * /api/proxy/{name}/** is forwarded to that base URI with the access token
+ * of the named client registration. Sessions logged in with another
+ * registration are refused (403): a GitHub token never goes to "orders".
+ * Unknown names are 404. An empty list leaves the endpoint in place but
+ * every request is 404.
+ */
+@Configuration(proxyBeanMethods = false)
+public class ProxyConfig {
+
+    /**
+     * @param upstreams bff.proxy.upstreams (name=registration@base-uri)
+     * @param connectTimeout bff.proxy.connect-timeout
+     * @param responseTimeout bff.proxy.response-timeout: wait for the upstream's status and headers
+     *                        (the body then streams for as long as it takes)
+     * @param virtualThreads spring.threads.virtual.enabled
+     * @return the proxy used by ProxyController
+     */
+    @Bean
+    public TokenRelayProxy tokenRelayProxy(
+            @Value("${bff.proxy.upstreams:}") List<String> upstreams,
+            @Value("${bff.proxy.connect-timeout:5s}") Duration connectTimeout,
+            @Value("${bff.proxy.response-timeout:30s}") Duration responseTimeout,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        // HTTP/1.1: pooled keep-alive connections per upstream, no h2c upgrade attempts
+        HttpClient.Builder client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(connectTimeout)
+            .followRedirects(HttpClient.Redirect.NEVER);
+        if (virtualThreads) {
+            client.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        return new TokenRelayProxy(client.build(), parseUpstreams(upstreams), responseTimeout);
+    }
+
+    static Map<String, TokenRelayProxy.Upstream> parseUpstreams(List<String> upstreams) {
+        Map<String, TokenRelayProxy.Upstream> parsed = new LinkedHashMap<>();
+        for (String upstream : upstreams) {
+            if (upstream.isBlank()) {
+                continue;
+            }
+            int eq = upstream.indexOf('=');
+            int at = upstream.indexOf('@', eq + 1);
+            String registrationId = (eq > 0 && at > eq) ? upstream.substring(eq + 1, at).trim() : "";
+            if (registrationId.isEmpty() || registrationId.contains(":") || registrationId.contains("/")) {
+                throw new IllegalArgumentException(
+                    "bff.proxy.upstreams entry must be name=registration@uri: " + upstream);
+            }
+            URI uri = URI.create(upstream.substring(at + 1).trim());
+            if (uri.getScheme() == null || uri.getHost() == null) {
+                throw new IllegalArgumentException("bff.proxy.upstreams needs an absolute URI: " + upstream);
+            }
+            parsed.put(upstream.substring(0, eq).trim(), new TokenRelayProxy.Upstream(registrationId, uri));
+        }
+        return parsed;
+    }
+}
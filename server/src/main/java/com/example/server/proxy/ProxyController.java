@@ -0,0 +1,79 @@
+package com.example.server.proxy;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+
+/**
+ * Token relay for the SPA: /api/proxy/{upstream}/** is forwarded to the
+ * upstream with the logged-in user's access token (see TokenRelayProxy).
+ * 
+ * Example (bff.proxy.upstreams: github=github@https://api.github.com):
+ *   GET /api/proxy/github/user/repos?per_page=5
+ *   → GET https://api.github.com/user/repos?per_page=5
+ *     Authorization: Bearer <session's GitHub token>
+ * 
+ * Authentication and CSRF are enforced by the main security chain like any
+ * other /api endpoint. The session must have logged in with the
+ * registration the upstream is bound to, otherwise 403. The access token is refreshed first if it expired
+ * and the provider issued a refresh token (authorizedClientManager). A
+ * session without a token, or whose refresh failed, gets 401.
+ */
+@RestController
+public class ProxyController {
+
+    static final String PREFIX = "/api/proxy/";
+
+    private final TokenRelayProxy proxy;
+
+    private final OAuth2AuthorizedClientManager authorizedClients;
+
+    public ProxyController(TokenRelayProxy proxy, OAuth2AuthorizedClientManager authorizedClients) {
+        this.proxy = proxy;
+        this.authorizedClients = authorizedClients;
+    }
+
+    @RequestMapping(PREFIX + "{upstream}/**")
+    public void proxy(@PathVariable String upstream, OAuth2AuthenticationToken authentication,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (authentication == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        String registrationId = this.proxy.registrationId(upstream);
+        if (!registrationId.equals(authentication.getAuthorizedClientRegistrationId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Upstream is bound to another login");
+        }
+        OAuth2AuthorizedClient client;
+        try {
+            client = this.authorizedClients.authorize(OAuth2AuthorizeRequest
+                .withClientRegistrationId(registrationId)
+                .principal(authentication)
+                .attribute(HttpServletRequest.class.getName(), request)
+                .attribute(HttpServletResponse.class.getName(), response)
+                .build());
+        }
+        catch (OAuth2AuthorizationException ex) {
+            // No token in this session (ClientAuthorizationRequiredException) or a failed refresh:
+            // a 401 the SPA handles, not the login redirect the authorization_code provider asks for
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "No access token for this session", ex);
+        }
+        if (client == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "No access token for this session");
+        }
+        // Raw (still encoded) remainder, so the upstream sees the path exactly as sent
+        String path = request.getRequestURI().substring(request.getContextPath().length() + PREFIX.length()
+            + upstream.length());
+        this.proxy.forward(upstream, path, request, response, client.getAccessToken().getTokenValue());
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.server.proxy;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ==========================================
+ * TOKEN-RELAY PROXY
+ * ==========================================
+ *
+ * Forwards /api/proxy/{upstream}/** to a configured upstream
+ * (bff.proxy.upstreams) with the session's access token as
+ * "Authorization: Bearer". The token stays on the server side of the BFF;
+ * the browser only ever sends its session cookie. Each upstream is bound
+ * to one client registration: only that login's token is ever sent to it.
+ *
+ * STREAMING (matches nginx's proxy_buffering off):
+ * - Request body: piped from the servlet input stream to the upstream
+ *   (fixed length when the browser sent Content-Length, chunked otherwise)
+ * - Response body: copied as it arrives, flushed whenever the upstream has
+ *   nothing more buffered, so server-sent events and large downloads are
+ *   never held in memory
+ *
+ * CONNECTIONS:
+ * One shared JDK HttpClient (HTTP/1.1) keeps idle connections to each
+ * upstream alive and reuses them across requests and users.
+ *
+ * HEADERS:
+ * - Dropped both ways: hop-by-hop headers (Connection, Transfer-Encoding...)
+ *   and any header the message's Connection header names (RFC 9110 7.6.1)
+ * - Dropped upstream-bound: Cookie, Authorization, X-XSRF-TOKEN (the
+ *   session and CSRF token belong to the BFF, not the upstream)
+ * - Dropped browser-bound: Set-Cookie (the upstream cannot set cookies on
+ *   the BFF's origin), and the caching, framing, CSP and CORS headers the
+ *   BFF's own security headers cover. Spring Security's header writers skip
+ *   a header that is already set, so an upstream's Cache-Control: public or
+ *   X-Frame-Options would otherwise replace the BFF's on an authenticated
+ *   response
+ *
+ * ERRORS: unknown upstream 404, bad path 400, upstream unreachable 502,
+ * no response headers within the timeout 504.
+ */
+public class TokenRelayProxy {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRelayProxy.class);
+
+    /**
+     * Hop-by-hop headers, plus host, content-length and expect, which the JDK
+     * HttpClient sets itself (and refuses from callers).
+     */
+    private static final Set<String> HOP_BY_HOP = Set.of("connection", "keep-alive", "proxy-authenticate",
+        "proxy-authorization", "proxy-connection", "te", "trailer", "transfer-encoding", "upgrade", "host",
+        "content-length", "expect");
+
+    private static final Set<String> BFF_ONLY_REQUEST_HEADERS = Set.of("cookie", "authorization", "x-xsrf-token");
+
+    /**
+     * Response headers the BFF decides for its own origin; Access-Control-*
+     * and Cross-Origin-* are matched by prefix.
+     */
+    private static final Set<String> BFF_ONLY_RESPONSE_HEADERS = Set.of("set-cookie", "cache-control", "pragma",
+        "expires", "strict-transport-security", "x-frame-options", "x-content-type-options", "x-xss-protection",
+        "content-security-policy", "content-security-policy-report-only", "referrer-policy", "permissions-policy");
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final HttpClient client;
+
+    private final Map<String, Upstream> upstreams;
+
+    private final Duration responseTimeout;
+
+    /**
+     * A configured upstream.
+     *
+     * @param registrationId the client registration whose access token it receives
+     * @param baseUri what /api/proxy/{name} maps to
+     */
+    public record Upstream(String registrationId, URI baseUri) {
+    }
+
+    /**
+     * @param client shared, keep-alive client for all upstreams
+     * @param upstreams upstream name → registration and base URI
+     * @param responseTimeout how long to wait for the upstream's response headers
+     */
+    public TokenRelayProxy(HttpClient client, Map<String, Upstream> upstreams, Duration responseTimeout) {
+        this.client = client;
+        this.upstreams = Map.copyOf(upstreams);
+        this.responseTimeout = responseTimeout;
+    }
+
+    /**
+     * @return configured upstream names
+     */
+    public Set<String> upstreams() {
+        return this.upstreams.keySet();
+    }
+
+    /**
+     * @param upstream upstream name
+     * @return the client registration whose token the upstream may receive
+     * @throws ResponseStatusException 404 if no such upstream is configured
+     */
+    public String registrationId(String upstream) {
+        return upstream(upstream).registrationId();
+    }
+
+    /**
+     * Streams the request to the upstream and its response back.
+     *
+     * @param upstream upstream name (first path segment after /api/proxy/)
+     * @param path remaining raw (still encoded) path, "" or starting with "/"
+     * @param accessToken relayed as the bearer token; must belong to the
+     *        upstream's registration (see registrationId())
+     */
+    public void forward(String upstream, String path, HttpServletRequest request, HttpServletResponse response,
+                        String accessToken) throws IOException {
+        URI base = upstream(upstream).baseUri();
+        HttpRequest.Builder outbound = HttpRequest.newBuilder(target(base, path, request.getQueryString()))
+            .timeout(this.responseTimeout)
+            .method(request.getMethod(), requestBody(request));
+        Set<String> requestConnectionOptions = connectionOptions(Collections.list(request.getHeaders("Connection")));
+        for (String name : Collections.list(request.getHeaderNames())) {
+            String lowerCase = name.toLowerCase(Locale.ROOT);
+            if (!HOP_BY_HOP.contains(lowerCase) && !BFF_ONLY_REQUEST_HEADERS.contains(lowerCase)
+                    && !requestConnectionOptions.contains(lowerCase)) {
+                for (String value : Collections.list(request.getHeaders(name))) {
+                    outbound.header(name, value);
+                }
+            }
+        }
+        outbound.header("Authorization", "Bearer " + accessToken);
+
+        HttpResponse<InputStream> inbound = send(outbound.build());
+        try (InputStream body = inbound.body()) {
+            response.setStatus(inbound.statusCode());
+            Set<String> responseConnectionOptions = connectionOptions(inbound.headers().allValues("Connection"));
+            for (Map.Entry<String, List<String>> header : inbound.headers().map().entrySet()) {
+                String lowerCase = header.getKey().toLowerCase(Locale.ROOT);
+                if (!HOP_BY_HOP.contains(lowerCase) && !isBffOnlyResponseHeader(lowerCase)
+                        && !lowerCase.startsWith(":") && !responseConnectionOptions.contains(lowerCase)) {
+                    for (String value : header.getValue()) {
+                        response.addHeader(header.getKey(), value);
+                    }
+                }
+            }
+            inbound.headers().firstValueAsLong("Content-Length").ifPresent(response::setContentLengthLong);
+            copy(body, response.getOutputStream());
+        }
+        catch (IOException ex) {
+            // Browser went away or upstream broke mid-body: the response is committed, nothing to report
+            logger.debug("Proxy stream to {} aborted: {}", upstream, ex.getMessage());
+        }
+    }
+
+    private Upstream upstream(String name) {
+        Upstream upstream = this.upstreams.get(name);
+        if (upstream == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown upstream");
+        }
+        return upstream;
+    }
+
+    private static boolean isBffOnlyResponseHeader(String lowerCase) {
+        return BFF_ONLY_RESPONSE_HEADERS.contains(lowerCase)
+            || lowerCase.startsWith("access-control-") || lowerCase.startsWith("cross-origin-");
+    }
+
+    /**
+     * @param values the Connection header values of a message
+     * @return the (lower-case) header names they list, hop-by-hop for that message
+     */
+    static Set<String> connectionOptions(List<String> values) {
+        if (values.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> options = new HashSet<>();
+        for (String value : values) {
+            for (String option : value.split(",")) {
+                String name = option.trim().toLowerCase(Locale.ROOT);
+                if (!name.isEmpty()) {
+                    options.add(name);
+                }
+            }
+        }
+        return options;
+    }
+
+    private HttpResponse<InputStream> send(HttpRequest request) {
+        try {
+            return this.client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        }
+        catch (HttpTimeoutException ex) {
+            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Upstream timed out", ex);
+        }
+        catch (IOException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Upstream unavailable", ex);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted", ex);
+        }
+    }
+
+    /**
+     * Appends the raw path and query to the upstream base URI. Dot segments
+     * are rejected so a request cannot climb above the base path.
+     */
+    static URI target(URI base, String path, String query) {
+        if (!path.isEmpty() && !path.startsWith("/")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid proxy path");
+        }
+        for (String segment : path.split("/")) {
+            String decoded = segment.replace("%2e", ".").replace("%2E", ".");
+            if (decoded.equals(".") || decoded.equals("..")) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid proxy path");
+            }
+        }
+        String baseUri = base.toString();
+        if (baseUri.endsWith("/")) {
+            baseUri = baseUri.substring(0, baseUri.length() - 1);
+        }
+        try {
+            return URI.create(baseUri + path + ((query != null) ? "?" + query : ""));
+        }
+        catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid proxy path", ex);
+        }
+    }
+
+    private static HttpRequest.BodyPublisher requestBody(HttpServletRequest request) {
+        long length = request.getContentLengthLong();
+        if (length == 0 || (length < 0 && request.getHeader("Transfer-Encoding") == null)) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        HttpRequest.BodyPublisher stream = HttpRequest.BodyPublishers.ofInputStream(() -> {
+            try {
+                return request.getInputStream();
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        return (length > 0) ? HttpRequest.BodyPublishers.fromPublisher(stream, length) : stream;
+    }
+
+    /**
+     * Copies without buffering the whole body: flushes to the browser as soon
+     * as the upstream has nothing more immediately available.
+     */
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            if (in.available() == 0) {
+                out.flush();
+            }
+        }
+        out.flush();
+    }
+}
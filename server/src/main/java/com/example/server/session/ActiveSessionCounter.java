@@ -0,0 +1,61 @@
+package com.example.server.session;
+
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ==========================================
+ * ACTIVE SESSION COUNTER
+ * ==========================================
+ *
+ * Counts HttpSession creation and destruction so health checks (and later
+ * metrics) can report how many sessions are alive without touching the
+ * session store itself.
+ *
+ * WHY A LISTENER:
+ * - Spring Boot registers HttpSessionListener beans with the servlet container
+ * - Container-managed sessions expose no public "count" API
+ * - LongAdder keeps the increment contention-free on login bursts
+ *
+ * @author Your Team
+ */
+@Component
+public class ActiveSessionCounter implements HttpSessionListener {
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder destroyed = new LongAdder();
+
+    @Override
+    public void sessionCreated(HttpSessionEvent event) {
+        this.created.increment();
+    }
+
+    @Override
+    public void sessionDestroyed(HttpSessionEvent event) {
+        this.destroyed.increment();
+    }
+
+    /**
+     * @return sessions created since startup
+     */
+    public long created() {
+        return this.created.sum();
+    }
+
+    /**
+     * @return sessions destroyed (logout, timeout, fixation) since startup
+     */
+    public long destroyed() {
+        return this.destroyed.sum();
+    }
+
+    /**
+     * @return sessions currently alive (approximate under concurrent updates)
+     */
+    public long active() {
+        return Math.max(0, created() - destroyed());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.server.session;
+
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Serialized profile of the session's user, as /api/user returns it
+ * (UserController), with its strong ETag. Stored at login, so requests only
+ * copy the bytes out. The name guards against a different user reusing
+ * the session.
+ *
+ * CompactSessionCodec writes it under its own tag (the JSON bytes as-is);
+ * Serializable is for the container and JDK-encoded stores.
+ */
+public record CachedUser(String name, byte[] json, String eTag) implements Serializable {
+
+    /**
+     * @param name the principal's name
+     * @param json the profile JSON
+     * @return the profile with its ETag (first 128 bits of SHA-256, Base64url)
+     */
+    public static CachedUser of(String name, byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            String eTag = '"' + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Arrays.copyOf(digest, 16)) + '"';
+            return new CachedUser(name, json, eTag);
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
@@ -0,0 +1,620 @@
+package com.example.server.session;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.session.MapSession;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * ==========================================
+ * COMPACT SESSION CODEC
+ * ==========================================
+ *
+ * Versioned binary encoding for what an authenticated BFF session holds:
+ *
+ * - SPRING_SECURITY_CONTEXT: SecurityContext → OAuth2AuthenticationToken →
+ *   DefaultOAuth2User with ~30 GitHub attributes
+ * - CachedUser: the /api/user JSON stored at login
+ *
+ * JDK serialization writes class descriptors, every attribute key in full
+ * (twice: the user and its OAuth2UserAuthority both carry the map). This
+ * codec writes:
+ *
+ * - Keys from a fixed DICTIONARY as one varint (unknown keys as strings)
+ * - Numbers as varints, Instants as seconds + nanos
+ * - The authority's attributes as a back-reference when they equal the user's
+ * - A CachedUser's JSON as raw bytes
+ *
+ * Anything else (saved requests, OIDC users, custom attributes) falls back
+ * to JDK serialization for that one value, so every session round-trips.
+ *
+ * FORMAT (version 2; version 1 is JdkSessionCodec and still decodes):
+ *   version(1) id(str) creationMillis(varlong) lastAccessedMillis(varlong)
+ *   maxInactiveSeconds(zigzag) count(varint) { key value }*
+ *   key   = varint: 0 → str follows, n → DICTIONARY[n - 1]
+ *   value = tag(1) payload (see the T_* constants)
+ *
+ * COMPATIBILITY:
+ * DICTIONARY and the tags are part of the on-disk format: only append to
+ * them. Anything else needs a new version byte.
+ */
+public final class CompactSessionCodec implements SessionCodec {
+
+    private static final byte VERSION = 2;
+
+    private static final byte JDK_VERSION = 1;
+
+    /**
+     * Append-only. Session attribute names first, then GitHub user and
+     * common OIDC claim names.
+     */
+    private static final String[] DICTIONARY = {
+        "SPRING_SECURITY_CONTEXT",
+        // Retired slot (authorized clients are not session-held), kept so later indices stay put
+        "",
+        "SPRING_SECURITY_SAVED_REQUEST",
+        "org.springframework.security.oauth2.client.web.HttpSessionOAuth2AuthorizationRequestRepository.AUTHORIZATION_REQUEST",
+        "login", "id", "node_id", "avatar_url", "gravatar_id", "url", "html_url",
+        "followers_url", "following_url", "gists_url", "starred_url", "subscriptions_url",
+        "organizations_url", "repos_url", "events_url", "received_events_url", "type",
+        "user_view_type", "site_admin", "name", "company", "blog", "location", "email",
+        "hireable", "bio", "twitter_username", "notification_email", "public_repos",
+        "public_gists", "followers", "following", "created_at", "updated_at",
+        "private_gists", "total_private_repos", "owned_private_repos", "disk_usage",
+        "collaborators", "two_factor_authentication", "plan",
+        "sub", "iss", "aud", "exp", "iat", "auth_time", "nonce", "azp", "sid",
+        "preferred_username", "given_name", "family_name", "email_verified", "picture", "locale",
+        "com.example.server.UserController.CACHED_USER",
+    };
+
+    private static final Map<String, Integer> DICTIONARY_INDEX = new HashMap<>();
+
+    static {
+        for (int i = 0; i < DICTIONARY.length; i++) {
+            DICTIONARY_INDEX.put(DICTIONARY[i], i + 1);
+        }
+    }
+
+    // Value tags
+    private static final byte T_NULL = 0;
+    private static final byte T_STRING = 1;
+    private static final byte T_INT = 2;
+    private static final byte T_LONG = 3;
+    private static final byte T_TRUE = 4;
+    private static final byte T_FALSE = 5;
+    private static final byte T_DOUBLE = 6;
+    private static final byte T_MAP = 7;
+    private static final byte T_LIST = 8;
+    private static final byte T_INSTANT = 9;
+    private static final byte T_JDK = 10;
+    private static final byte T_SECURITY_CONTEXT = 11;
+    // 12: retired (authorized clients)
+    private static final byte T_CACHED_USER = 13;
+
+    // Authority tags
+    private static final byte A_SIMPLE = 1;
+    private static final byte A_OAUTH2_USER_SAME_ATTRIBUTES = 2;
+    private static final byte A_OAUTH2_USER = 3;
+    private static final byte A_JDK = 4;
+
+    // Details / principal tags
+    private static final byte D_NONE = 0;
+    private static final byte D_WEB = 1;
+    private static final byte D_JDK = 2;
+    private static final byte P_OAUTH2_USER = 1;
+    private static final byte P_JDK = 2;
+
+    private final JdkSessionCodec legacy = new JdkSessionCodec();
+
+    @Override
+    public byte[] encode(MapSession session) {
+        Output out = new Output(512);
+        out.writeByte(VERSION);
+        out.writeString(session.getId());
+        out.writeVarLong(session.getCreationTime().toEpochMilli());
+        out.writeVarLong(session.getLastAccessedTime().toEpochMilli());
+        out.writeZigZag(session.getMaxInactiveInterval().getSeconds());
+        Set<String> names = session.getAttributeNames();
+        out.writeVarInt(names.size());
+        for (String name : names) {
+            writeKey(out, name);
+            writeValue(out, session.getAttribute(name));
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public MapSession decode(byte[] bytes) {
+        if (bytes.length > 0 && bytes[0] == JDK_VERSION) {
+            return this.legacy.decode(bytes);
+        }
+        try {
+            Input in = new Input(bytes);
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported session encoding version " + version);
+            }
+            MapSession session = new MapSession(in.readString());
+            session.setCreationTime(Instant.ofEpochMilli(in.readVarLong()));
+            session.setLastAccessedTime(Instant.ofEpochMilli(in.readVarLong()));
+            session.setMaxInactiveInterval(Duration.ofSeconds(in.readZigZag()));
+            int count = in.readVarInt();
+            for (int i = 0; i < count; i++) {
+                String name = readKey(in);
+                Object value = readValue(in);
+                if (value != null) {
+                    session.setAttribute(name, value);
+                }
+            }
+            return session;
+        }
+        catch (IndexOutOfBoundsException | ClassNotFoundException | IOException ex) {
+            throw new IllegalArgumentException("Corrupt session encoding", ex);
+        }
+    }
+
+    // ==========================================
+    // Values
+    // ==========================================
+
+    private void writeValue(Output out, Object value) {
+        if (value == null) {
+            out.writeByte(T_NULL);
+        } else if (value instanceof String string) {
+            out.writeByte(T_STRING);
+            out.writeString(string);
+        } else if (value instanceof Integer number) {
+            out.writeByte(T_INT);
+            out.writeZigZag(number);
+        } else if (value instanceof Long number) {
+            out.writeByte(T_LONG);
+            out.writeZigZag(number);
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(bool ? T_TRUE : T_FALSE);
+        } else if (value instanceof Double number) {
+            out.writeByte(T_DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits(number));
+        } else if (value instanceof Instant instant) {
+            out.writeByte(T_INSTANT);
+            writeInstant(out, instant);
+        } else if (value instanceof Map<?, ?> map && hasStringKeys(map)) {
+            out.writeByte(T_MAP);
+            writeMap(out, map);
+        } else if (value instanceof List<?> list) {
+            out.writeByte(T_LIST);
+            out.writeVarInt(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof SecurityContext context && isCompact(context)) {
+            out.writeByte(T_SECURITY_CONTEXT);
+            writeAuthentication(out, (OAuth2AuthenticationToken) context.getAuthentication());
+        } else if (value instanceof CachedUser user) {
+            out.writeByte(T_CACHED_USER);
+            out.writeString(user.name());
+            out.writeBytes(user.json());
+            out.writeString(user.eTag());
+        } else {
+            out.writeByte(T_JDK);
+            out.writeJdk(value);
+        }
+    }
+
+    private Object readValue(Input in) throws IOException, ClassNotFoundException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case T_NULL -> null;
+            case T_STRING -> in.readString();
+            case T_INT -> (int) in.readZigZag();
+            case T_LONG -> in.readZigZag();
+            case T_TRUE -> Boolean.TRUE;
+            case T_FALSE -> Boolean.FALSE;
+            case T_DOUBLE -> Double.longBitsToDouble(in.readLong());
+            case T_INSTANT -> readInstant(in);
+            case T_MAP -> readMap(in);
+            case T_LIST -> {
+                int size = in.readVarInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                yield list;
+            }
+            case T_SECURITY_CONTEXT -> new SecurityContextImpl(readAuthentication(in));
+            case T_CACHED_USER -> new CachedUser(in.readString(), in.readBytes(), in.readString());
+            case T_JDK -> in.readJdk();
+            default -> throw new IllegalArgumentException("Unknown value tag " + tag);
+        };
+    }
+
+    private void writeMap(Output out, Map<?, ?> map) {
+        out.writeVarInt(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            writeKey(out, (String) entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    /**
+     * Mutable, insertion-ordered, as callers may update maps in place.
+     */
+    private Map<String, Object> readMap(Input in) throws IOException, ClassNotFoundException {
+        int size = in.readVarInt();
+        Map<String, Object> map = new LinkedHashMap<>(Math.max(4, size * 4 / 3 + 1));
+        for (int i = 0; i < size; i++) {
+            String key = readKey(in);
+            map.put(key, readValue(in));
+        }
+        return map;
+    }
+
+    private static void writeKey(Output out, String key) {
+        Integer index = DICTIONARY_INDEX.get(key);
+        if (index != null) {
+            out.writeVarInt(index);
+        } else {
+            out.writeVarInt(0);
+            out.writeString(key);
+        }
+    }
+
+    private static String readKey(Input in) {
+        int index = in.readVarInt();
+        return (index == 0) ? in.readString() : DICTIONARY[index - 1];
+    }
+
+    private static boolean hasStringKeys(Map<?, ?> map) {
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ==========================================
+    // SecurityContext
+    // ==========================================
+
+    private static boolean isCompact(SecurityContext context) {
+        return context.getClass() == SecurityContextImpl.class
+            && context.getAuthentication() != null
+            && context.getAuthentication().getClass() == OAuth2AuthenticationToken.class;
+    }
+
+    private void writeAuthentication(Output out, OAuth2AuthenticationToken token) {
+        out.writeString(token.getAuthorizedClientRegistrationId());
+        OAuth2User user = token.getPrincipal();
+        String nameAttributeKey = nameAttributeKey(user);
+        Map<String, Object> attributes = (nameAttributeKey != null) ? user.getAttributes() : null;
+        writeAuthorities(out, token.getAuthorities(), attributes);
+
+        if (nameAttributeKey == null) {
+            out.writeByte(P_JDK);
+            out.writeJdk(user);
+        } else {
+            out.writeByte(P_OAUTH2_USER);
+            writeKey(out, nameAttributeKey);
+            writeMap(out, attributes);
+            if (user.getAuthorities().equals(token.getAuthorities())) {
+                out.writeByte(1);
+            } else {
+                out.writeByte(0);
+                writeAuthorities(out, user.getAuthorities(), attributes);
+            }
+        }
+
+        Object details = token.getDetails();
+        if (details == null) {
+            out.writeByte(D_NONE);
+        } else if (details.getClass() == WebAuthenticationDetails.class) {
+            WebAuthenticationDetails web = (WebAuthenticationDetails) details;
+            out.writeByte(D_WEB);
+            out.writeNullableString(web.getRemoteAddress());
+            out.writeNullableString(web.getSessionId());
+        } else {
+            out.writeByte(D_JDK);
+            out.writeJdk(details);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Authentication readAuthentication(Input in) throws IOException, ClassNotFoundException {
+        String registrationId = in.readString();
+        // Authorities reference the user's attributes, which come later: resolve afterwards
+        List<Object> authorities = readAuthorities(in);
+
+        OAuth2User user;
+        Map<String, Object> attributes = null;
+        byte principal = in.readByte();
+        if (principal == P_OAUTH2_USER) {
+            String nameAttributeKey = readKey(in);
+            attributes = readMap(in);
+            List<GrantedAuthority> userAuthorities = (in.readByte() == 1)
+                ? resolve(authorities, attributes)
+                : resolve(readAuthorities(in), attributes);
+            user = new DefaultOAuth2User(userAuthorities, attributes, nameAttributeKey);
+        } else {
+            user = (OAuth2User) in.readJdk();
+        }
+        OAuth2AuthenticationToken token =
+            new OAuth2AuthenticationToken(user, resolve(authorities, attributes), registrationId);
+
+        byte details = in.readByte();
+        if (details == D_WEB) {
+            token.setDetails(new WebAuthenticationDetails(in.readNullableString(), in.readNullableString()));
+        } else if (details == D_JDK) {
+            token.setDetails(in.readJdk());
+        }
+        return token;
+    }
+
+    /**
+     * @param userAttributes the principal's attributes, or null if the
+     *                       principal is JDK-encoded
+     */
+    private void writeAuthorities(Output out, Collection<? extends GrantedAuthority> authorities,
+                                         Map<String, Object> userAttributes) {
+        out.writeVarInt(authorities.size());
+        for (GrantedAuthority authority : authorities) {
+            if (authority.getClass() == SimpleGrantedAuthority.class) {
+                out.writeByte(A_SIMPLE);
+                out.writeString(authority.getAuthority());
+            } else if (authority.getClass() == OAuth2UserAuthority.class) {
+                OAuth2UserAuthority userAuthority = (OAuth2UserAuthority) authority;
+                boolean same = userAttributes != null && userAuthority.getAttributes().equals(userAttributes);
+                out.writeByte(same ? A_OAUTH2_USER_SAME_ATTRIBUTES : A_OAUTH2_USER);
+                out.writeString(userAuthority.getAuthority());
+                out.writeNullableString(userAuthority.getUserNameAttributeName());
+                if (!same) {
+                    writeMap(out, userAuthority.getAttributes());
+                }
+            } else {
+                out.writeByte(A_JDK);
+                out.writeJdk(authority);
+            }
+        }
+    }
+
+    /**
+     * Authorities as decoded: GrantedAuthority, or a SharedAttributesAuthority
+     * placeholder for an OAuth2UserAuthority that shares the user's attributes.
+     */
+    private List<Object> readAuthorities(Input in) throws IOException, ClassNotFoundException {
+        int size = in.readVarInt();
+        List<Object> authorities = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            byte tag = in.readByte();
+            switch (tag) {
+                case A_SIMPLE -> authorities.add(new SimpleGrantedAuthority(in.readString()));
+                case A_OAUTH2_USER_SAME_ATTRIBUTES ->
+                    authorities.add(new SharedAttributesAuthority(in.readString(), in.readNullableString()));
+                case A_OAUTH2_USER -> {
+                    String authority = in.readString();
+                    String userNameAttributeName = in.readNullableString();
+                    authorities.add(new OAuth2UserAuthority(authority, readMap(in), userNameAttributeName));
+                }
+                case A_JDK -> authorities.add(in.readJdk());
+                default -> throw new IllegalArgumentException("Unknown authority tag " + tag);
+            }
+        }
+        return authorities;
+    }
+
+    private static List<GrantedAuthority> resolve(List<Object> authorities, Map<String, Object> attributes) {
+        List<GrantedAuthority> resolved = new ArrayList<>(authorities.size());
+        for (Object authority : authorities) {
+            resolved.add((authority instanceof SharedAttributesAuthority shared)
+                ? new OAuth2UserAuthority(shared.authority(), attributes, shared.userNameAttributeName())
+                : (GrantedAuthority) authority);
+        }
+        return resolved;
+    }
+
+    private record SharedAttributesAuthority(String authority, String userNameAttributeName) {
+    }
+
+    /**
+     * DefaultOAuth2User does not expose its name attribute key: any key whose
+     * value prints as getName() behaves identically. Null if the user is not
+     * a plain DefaultOAuth2User (e.g. DefaultOidcUser) or no key matches.
+     */
+    private static String nameAttributeKey(OAuth2User user) {
+        if (user.getClass() != DefaultOAuth2User.class) {
+            return null;
+        }
+        String name = user.getName();
+        for (Map.Entry<String, Object> attribute : user.getAttributes().entrySet()) {
+            if (attribute.getValue() != null && name.equals(attribute.getValue().toString())) {
+                return attribute.getKey();
+            }
+        }
+        return null;
+    }
+
+    // ==========================================
+    // Primitives
+    // ==========================================
+
+    private static void writeInstant(Output out, Instant instant) {
+        out.writeZigZag(instant.getEpochSecond());
+        out.writeVarInt(instant.getNano());
+    }
+
+    private static Instant readInstant(Input in) {
+        return Instant.ofEpochSecond(in.readZigZag(), in.readVarInt());
+    }
+
+    private static final class Output {
+
+        private byte[] buffer;
+
+        private int position;
+
+        Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            this.buffer[this.position++] = (byte) value;
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                this.buffer[this.position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.buffer[this.position++] = (byte) value;
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                this.buffer[this.position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+            this.position += bytes.length;
+        }
+
+        void writeNullableString(String value) {
+            if (value == null) {
+                writeByte(0);
+            } else {
+                writeByte(1);
+                writeString(value);
+            }
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeVarInt(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+            this.position += bytes.length;
+        }
+
+        void writeJdk(Object value) {
+            try {
+                writeBytes(JdkSessionCodec.serialize(value));
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException("Cannot serialize " + value.getClass().getName(), ex);
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(this.buffer, this.position);
+        }
+
+        private void ensure(int extra) {
+            if (this.position + extra > this.buffer.length) {
+                this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.position + extra));
+            }
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] buffer;
+
+        private int position;
+
+        Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        byte readByte() {
+            return this.buffer[this.position++];
+        }
+
+        int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = this.buffer[this.position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        long readZigZag() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (this.buffer[this.position++] & 0xFF);
+            }
+            return value;
+        }
+
+        String readString() {
+            int length = readVarInt();
+            Objects.checkFromIndexSize(this.position, length, this.buffer.length);
+            String value = new String(this.buffer, this.position, length, StandardCharsets.UTF_8);
+            this.position += length;
+            return value;
+        }
+
+        String readNullableString() {
+            return (readByte() == 0) ? null : readString();
+        }
+
+        byte[] readBytes() {
+            int length = readVarInt();
+            Objects.checkFromIndexSize(this.position, length, this.buffer.length);
+            byte[] bytes = Arrays.copyOfRange(this.buffer, this.position, this.position + length);
+            this.position += length;
+            return bytes;
+        }
+
+        Object readJdk() throws IOException, ClassNotFoundException {
+            return JdkSessionCodec.deserialize(readBytes());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.server.session;
+
+import org.springframework.session.MapSession;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Session metadata as fixed fields, attribute values via JDK serialization.
+ *
+ * Reference format for benchmarks and tests; stores use CompactSessionCodec,
+ * which still decodes this format (version 1).
+ *
+ * FORMAT:
+ *   version(1) id(UTF) creationTime(8) lastAccessedTime(8)
+ *   maxInactiveSeconds(8) count(4) { name(UTF) length(4) javaSerializedValue }*
+ */
+public final class JdkSessionCodec implements SessionCodec {
+
+    private static final byte VERSION = 1;
+
+    @Override
+    public byte[] encode(MapSession session) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(VERSION);
+            out.writeUTF(session.getId());
+            out.writeLong(session.getCreationTime().toEpochMilli());
+            out.writeLong(session.getLastAccessedTime().toEpochMilli());
+            out.writeLong(session.getMaxInactiveInterval().getSeconds());
+            out.writeInt(session.getAttributeNames().size());
+            for (String name : session.getAttributeNames()) {
+                byte[] value = serialize(session.getAttribute(name));
+                out.writeUTF(name);
+                out.writeInt(value.length);
+                out.write(value);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException("Failed to encode session " + session.getId(), ex);
+        }
+    }
+
+    @Override
+    public MapSession decode(byte[] bytes) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported session encoding version " + version);
+            }
+            MapSession session = new MapSession(in.readUTF());
+            session.setCreationTime(Instant.ofEpochMilli(in.readLong()));
+            session.setLastAccessedTime(Instant.ofEpochMilli(in.readLong()));
+            session.setMaxInactiveInterval(Duration.ofSeconds(in.readLong()));
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                byte[] value = new byte[in.readInt()];
+                in.readFully(value);
+                session.setAttribute(name, deserialize(value));
+            }
+            return session;
+        }
+        catch (IOException | ClassNotFoundException ex) {
+            throw new IllegalArgumentException("Corrupt session encoding", ex);
+        }
+    }
+
+    static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Object deserialize(byte[] value) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(value))) {
+            return in.readObject();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.server.session;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.session.MapSession;
+
+/**
+ * SessionCodec decorator that records the size of every encoded session in
+ * bff.session.bytes, so the bytes per session (mean, p50, p99, max) are
+ * visible without reading the store.
+ *
+ * Only stores that encode sessions report it (segment-file); container and
+ * sharded-memory keep live objects and have no byte size to record.
+ */
+public final class MeteredSessionCodec implements SessionCodec {
+
+    private final SessionCodec delegate;
+
+    private final DistributionSummary bytes;
+
+    public MeteredSessionCodec(SessionCodec delegate, MeterRegistry meters) {
+        this.delegate = delegate;
+        this.bytes = DistributionSummary.builder("bff.session.bytes")
+            .description("Encoded size of a session each time the store writes it")
+            .baseUnit("bytes")
+            .publishPercentiles(0.5, 0.99)
+            .register(meters);
+    }
+
+    @Override
+    public byte[] encode(MapSession session) {
+        byte[] encoded = this.delegate.encode(session);
+        this.bytes.record(encoded.length);
+        return encoded;
+    }
+
+    @Override
+    public MapSession decode(byte[] bytes) {
+        return this.delegate.decode(bytes);
+    }
+}
@@ -0,0 +1,586 @@
+package com.example.server.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.session.MapSession;
+import org.springframework.session.events.SessionCreatedEvent;
+import org.springframework.session.events.SessionDeletedEvent;
+import org.springframework.session.events.SessionExpiredEvent;
+import org.springframework.util.Assert;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * ==========================================
+ * SEGMENT FILE SESSION STORE
+ * ==========================================
+ *
+ * Persistent session store: an append-only log split into fixed-size,
+ * memory-mapped segment files, plus an in-memory index (session ID →
+ * record location). Sessions survive restarts of the JVM.
+ *
+ * ON DISK (directory of NNNNNNNNNNNNNNNNNNNN.seg files):
+ *
+ *   record = length(4) crc32c(4) type(1) payload(length - 1)
+ *   type   = PUT    → payload is the SessionCodec encoding
+ *            DELETE → payload is the UTF-8 session ID
+ *
+ * - Writes append to the active segment under one lock (one memory copy,
+ *   no syscall); readers never lock: they slice the mapped buffer
+ * - A full segment is sealed and a new one started
+ * - Startup replays every segment in order to rebuild the index; a torn
+ *   record (crash mid-write) fails its CRC and ends that segment's replay
+ * - Compaction: sealed segments with less than half live data, fewest live
+ *   records first, have their live records copied forward, then the file
+ *   is deleted
+ *
+ * DURABILITY:
+ * Writes land in the page cache, so they survive a JVM crash or restart
+ * but not a kernel crash/power loss. Segments are force()d when sealed.
+ *
+ * HORIZONTAL SCALING:
+ * The files are local to a node: put the directory on a persistent volume
+ * and route each session to the same node (sticky sessions in nginx).
+ */
+public final class SegmentFileSessionStore implements SessionStore, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentFileSessionStore.class);
+
+    private static final String SUFFIX = ".seg";
+
+    private static final int HEADER_LENGTH = Integer.BYTES + Integer.BYTES + 1;
+
+    private static final byte PUT = 1;
+
+    private static final byte DELETE = 2;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final SessionCodec codec;
+
+    private final Duration defaultMaxInactiveInterval;
+
+    private final ApplicationEventPublisher events;
+
+    private final ConcurrentHashMap<String, Entry> index = new ConcurrentHashMap<>();
+
+    /** Guards appends, segment rolling and compaction. */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /** All open segments by number; guarded by writeLock. */
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    private volatile Segment active;
+
+    private volatile boolean closed;
+
+    /**
+     * Opens (or creates) the store and replays existing segments.
+     *
+     * @param directory where segment files live
+     * @param segmentSize bytes per segment file (max encoded session size)
+     * @param codec session encoding
+     * @param defaultMaxInactiveInterval idle timeout for new sessions
+     * @param events receives SessionCreated/Deleted/ExpiredEvents
+     * @throws IOException if the directory or segments cannot be opened
+     */
+    public SegmentFileSessionStore(Path directory, int segmentSize, SessionCodec codec,
+                                   Duration defaultMaxInactiveInterval,
+                                   ApplicationEventPublisher events) throws IOException {
+        Assert.isTrue(segmentSize > HEADER_LENGTH, "segmentSize too small");
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.codec = codec;
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.events = events;
+        recover();
+    }
+
+    @Override
+    public MapSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(this.defaultMaxInactiveInterval);
+        return session;
+    }
+
+    @Override
+    public void save(MapSession session) {
+        byte[] payload = this.codec.encode(session);
+        boolean created;
+        this.writeLock.lock();
+        try {
+            created = saveLocked(session, payload);
+        }
+        finally {
+            this.writeLock.unlock();
+        }
+        if (created) {
+            this.events.publishEvent(new SessionCreatedEvent(this, session));
+        }
+    }
+
+    /**
+     * Encodes outside the lock, then appends every record under one
+     * acquisition of it.
+     */
+    @Override
+    public void saveAll(List<MapSession> sessions) {
+        byte[][] payloads = new byte[sessions.size()][];
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = this.codec.encode(sessions.get(i));
+        }
+        boolean[] created = new boolean[payloads.length];
+        this.writeLock.lock();
+        try {
+            for (int i = 0; i < payloads.length; i++) {
+                created[i] = saveLocked(sessions.get(i), payloads[i]);
+            }
+        }
+        finally {
+            this.writeLock.unlock();
+        }
+        for (int i = 0; i < created.length; i++) {
+            if (created[i]) {
+                this.events.publishEvent(new SessionCreatedEvent(this, sessions.get(i)));
+            }
+        }
+    }
+
+    @Override
+    public MapSession findById(String id) {
+        Entry entry = this.index.get(id);
+        if (entry == null) {
+            return null;
+        }
+        MapSession session = read(entry);
+        if (session.isExpired()) {
+            expire(id, entry, session);
+            return null;
+        }
+        return session;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        Entry removed;
+        this.writeLock.lock();
+        try {
+            removed = removeLocked(id);
+        }
+        finally {
+            this.writeLock.unlock();
+        }
+        if (removed != null) {
+            this.events.publishEvent(new SessionDeletedEvent(this, read(removed)));
+        }
+    }
+
+    @Override
+    public String name() {
+        return "segment-file";
+    }
+
+    @Override
+    public int size() {
+        return this.index.size();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        Segment segment = this.active;
+        return !this.closed && segment != null && segment.channel.isOpen() && Files.isWritable(this.directory);
+    }
+
+    /**
+     * Expires idle sessions using the expiry time kept in the index (no
+     * decoding), then compacts sealed segments that are mostly garbage.
+     */
+    @Override
+    public void cleanUpExpiredSessions() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Entry> candidate : this.index.entrySet()) {
+            Entry entry = candidate.getValue();
+            if (entry.expiresAt <= now) {
+                expire(candidate.getKey(), entry, null);
+            }
+        }
+        compact();
+    }
+
+    /**
+     * Compacts every sealed segment that is less than half live, the one
+     * with the fewest live records (the cheapest to copy) first: its live
+     * records are copied forward, then the segment file is deleted.
+     *
+     * A DELETE record may shadow a PUT in an older segment. Dropping the
+     * DELETE while that PUT still exists would resurrect a logged-out
+     * session on the next restart, so while older segments remain, the
+     * DELETEs of sessions that did not come back are copied forward too.
+     * Only segments sealed before the run are compacted, so records copied
+     * forward are never copied again in the same run.
+     */
+    void compact() {
+        long active = this.active.number;
+        Segment segment;
+        while ((segment = nextToCompact(active)) != null) {
+            compact(segment);
+        }
+    }
+
+    /**
+     * @param active number of the segment that was active when the run started
+     * @return the older, less than half live segment with the fewest live
+     *         records, or null if there is none
+     */
+    private Segment nextToCompact(long active) {
+        this.writeLock.lock();
+        try {
+            Segment next = null;
+            for (Segment segment : this.segments.headMap(active).values()) {
+                if (segment.liveBytes.get() * 2 < segment.writePosition
+                        && (next == null || segment.liveRecords.get() < next.liveRecords.get())) {
+                    next = segment;
+                }
+            }
+            return next;
+        }
+        finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    private void compact(Segment segment) {
+        // A sealed segment gains no records, so both lists are complete without the lock
+        List<Map.Entry<String, Entry>> live = new ArrayList<>();
+        for (Map.Entry<String, Entry> candidate : this.index.entrySet()) {
+            if (candidate.getValue().segment == segment) {
+                live.add(Map.entry(candidate.getKey(), candidate.getValue()));
+            }
+        }
+        List<String> deleted = deletedIds(segment);
+
+        this.writeLock.lock();
+        try {
+            if (this.segments.get(segment.number) != segment) {
+                return;
+            }
+            for (Map.Entry<String, Entry> record : live) {
+                Entry entry = record.getValue();
+                // Saved or removed since the scan: a newer record supersedes this one
+                if (this.index.get(record.getKey()) == entry) {
+                    byte[] payload = new byte[entry.length - HEADER_LENGTH];
+                    segment.buffer.get(entry.offset + HEADER_LENGTH, payload);
+                    this.index.put(record.getKey(), append(PUT, payload, record.getKey(), entry.expiresAt));
+                }
+            }
+            if (this.segments.firstKey() < segment.number) {
+                for (String id : deleted) {
+                    if (!this.index.containsKey(id)) {
+                        append(DELETE, id.getBytes(StandardCharsets.UTF_8), id, 0);
+                    }
+                }
+            }
+            this.segments.remove(segment.number);
+            // Readers holding an old Entry keep working: the mapping outlives the channel
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+            logger.debug("Compacted session segment {} ({} live records)", segment.path.getFileName(), live.size());
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException("Session segment compaction failed", ex);
+        }
+        finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return the session IDs of the DELETE records in a sealed segment
+     */
+    private static List<String> deletedIds(Segment segment) {
+        List<String> ids = new ArrayList<>();
+        int position = 0;
+        while (position < segment.writePosition) {
+            int bodyLength = segment.buffer.getInt(position);
+            if (segment.buffer.get(position + 2 * Integer.BYTES) == DELETE) {
+                byte[] id = new byte[bodyLength - 1];
+                segment.buffer.get(position + HEADER_LENGTH, id);
+                ids.add(new String(id, StandardCharsets.UTF_8));
+            }
+            position += Integer.BYTES * 2 + bodyLength;
+        }
+        return ids;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writeLock.lock();
+        try {
+            this.closed = true;
+            for (Segment segment : this.segments.values()) {
+                segment.buffer.force();
+                segment.channel.close();
+            }
+        }
+        finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    // ==========================================
+    // Internals
+    // ==========================================
+
+    private void expire(String id, Entry entry, MapSession decoded) {
+        boolean removed;
+        this.writeLock.lock();
+        try {
+            // Only if nobody saved a newer version in the meantime
+            removed = this.index.get(id) == entry && removeLocked(id) != null;
+        }
+        finally {
+            this.writeLock.unlock();
+        }
+        if (removed) {
+            this.events.publishEvent(new SessionExpiredEvent(this, (decoded != null) ? decoded : read(entry)));
+        }
+    }
+
+    /**
+     * @return true if the session is new
+     */
+    private boolean saveLocked(MapSession session, byte[] payload) {
+        boolean created = true;
+        if (!session.getId().equals(session.getOriginalId())) {
+            created = removeLocked(session.getOriginalId()) == null;
+        }
+        Entry entry = append(PUT, payload, session.getId(), expiresAt(session));
+        Entry previous = this.index.put(session.getId(), entry);
+        if (previous != null) {
+            previous.segment.release(previous.length);
+            created = false;
+        }
+        return created;
+    }
+
+    private Entry removeLocked(String id) {
+        Entry removed = this.index.remove(id);
+        if (removed != null) {
+            removed.segment.release(removed.length);
+            append(DELETE, id.getBytes(StandardCharsets.UTF_8), id, 0);
+        }
+        return removed;
+    }
+
+    private MapSession read(Entry entry) {
+        byte[] payload = new byte[entry.length - HEADER_LENGTH];
+        entry.segment.buffer.get(entry.offset + HEADER_LENGTH, payload);
+        return this.codec.decode(payload);
+    }
+
+    /**
+     * Appends one record; caller holds writeLock. DELETE records count as
+     * garbage right away, PUT records as live until replaced or removed.
+     */
+    private Entry append(byte type, byte[] payload, String id, long expiresAt) {
+        if (this.closed) {
+            throw new IllegalStateException("Session store is closed");
+        }
+        int length = HEADER_LENGTH + payload.length;
+        if (length > this.segmentSize) {
+            throw new IllegalArgumentException("Session " + id + " encodes to " + length
+                + " bytes, larger than the segment size " + this.segmentSize);
+        }
+        if (this.active.writePosition + length > this.segmentSize) {
+            roll();
+        }
+        Segment segment = this.active;
+        int offset = segment.writePosition;
+        CRC32C crc = new CRC32C();
+        crc.update(type);
+        crc.update(payload);
+        // Body first, length last: a torn write leaves length 0 or a CRC mismatch
+        segment.buffer.putInt(offset + Integer.BYTES, (int) crc.getValue());
+        segment.buffer.put(offset + 2 * Integer.BYTES, type);
+        segment.buffer.put(offset + HEADER_LENGTH, payload);
+        segment.buffer.putInt(offset, 1 + payload.length);
+        segment.writePosition = offset + length;
+        if (type == PUT) {
+            segment.liveBytes.addAndGet(length);
+            segment.liveRecords.incrementAndGet();
+        }
+        return new Entry(segment, offset, length, expiresAt);
+    }
+
+    private void roll() {
+        try {
+            if (this.active != null) {
+                this.active.buffer.force();
+            }
+            long number = this.segments.isEmpty() ? 0 : this.segments.lastKey() + 1;
+            this.active = openSegment(number);
+            this.segments.put(number, this.active);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException("Cannot create session segment", ex);
+        }
+    }
+
+    private Segment openSegment(long number) throws IOException {
+        Path path = this.directory.resolve(String.format("%020d%s", number, SUFFIX));
+        FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentSize);
+        return new Segment(number, path, channel, buffer);
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(this.directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+        this.writeLock.lock();
+        try {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long number = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+                if (Files.size(file) > this.segmentSize) {
+                    throw new IllegalStateException("Segment " + file + " is larger than the configured segment size");
+                }
+                Segment segment = openSegment(number);
+                this.segments.put(number, segment);
+                replay(segment);
+                this.active = segment;
+            }
+            if (this.active == null) {
+                roll();
+            }
+        }
+        finally {
+            this.writeLock.unlock();
+        }
+        long now = System.currentTimeMillis();
+        this.index.values().removeIf(entry -> {
+            boolean expired = entry.expiresAt <= now;
+            if (expired) {
+                entry.segment.release(entry.length);
+            }
+            return expired;
+        });
+        logger.info("Session store recovered {} sessions from {} segment(s) in {}",
+            this.index.size(), this.segments.size(), this.directory);
+    }
+
+    private void replay(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        boolean torn = false;
+        while (position + HEADER_LENGTH <= this.segmentSize) {
+            int bodyLength = buffer.getInt(position);
+            if (bodyLength <= 0 || position + Integer.BYTES * 2 + bodyLength > this.segmentSize) {
+                break;
+            }
+            byte type = buffer.get(position + 2 * Integer.BYTES);
+            byte[] payload = new byte[bodyLength - 1];
+            buffer.get(position + HEADER_LENGTH, payload);
+            CRC32C crc = new CRC32C();
+            crc.update(type);
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) {
+                logger.warn("Torn record at {}:{}; ignoring the rest of the segment", segment.path, position);
+                torn = true;
+                break;
+            }
+            int length = Integer.BYTES * 2 + bodyLength;
+            if (type == PUT) {
+                MapSession session = this.codec.decode(payload);
+                Entry previous = this.index.put(session.getId(),
+                    new Entry(segment, position, length, expiresAt(session)));
+                if (previous != null) {
+                    previous.segment.release(previous.length);
+                }
+                segment.liveBytes.addAndGet(length);
+                segment.liveRecords.incrementAndGet();
+            } else if (type == DELETE) {
+                Entry previous = this.index.remove(new String(payload, StandardCharsets.UTF_8));
+                if (previous != null) {
+                    previous.segment.release(previous.length);
+                }
+            }
+            position += length;
+        }
+        if (torn) {
+            // Zero the tail so leftovers of the partial record can never be replayed later
+            for (int i = position; i < this.segmentSize; i++) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+        segment.writePosition = position;
+    }
+
+    private static long expiresAt(MapSession session) {
+        Duration maxInactive = session.getMaxInactiveInterval();
+        if (maxInactive.isNegative()) {
+            return Long.MAX_VALUE;
+        }
+        return session.getLastAccessedTime().plus(maxInactive).toEpochMilli();
+    }
+
+    /**
+     * Where the latest record of a session lives, plus its expiry time so
+     * sweeps never need to decode.
+     */
+    private record Entry(Segment segment, int offset, int length, long expiresAt) {
+    }
+
+    private static final class Segment {
+
+        final long number;
+
+        final Path path;
+
+        final FileChannel channel;
+
+        final MappedByteBuffer buffer;
+
+        final AtomicInteger liveBytes = new AtomicInteger();
+
+        final AtomicInteger liveRecords = new AtomicInteger();
+
+        /** Guarded by writeLock. */
+        int writePosition;
+
+        Segment(long number, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.number = number;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        void release(int length) {
+            this.liveBytes.addAndGet(-length);
+            this.liveRecords.decrementAndGet();
+        }
+    }
+}
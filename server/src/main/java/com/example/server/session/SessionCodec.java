@@ -0,0 +1,23 @@
+package com.example.server.session;
+
+import org.springframework.session.MapSession;
+
+/**
+ * Turns a session into bytes and back, for stores that keep sessions
+ * outside the heap (see SegmentFileSessionStore).
+ */
+public interface SessionCodec {
+
+    /**
+     * @param session the session to encode
+     * @return the encoded session
+     */
+    byte[] encode(MapSession session);
+
+    /**
+     * @param bytes bytes produced by {@link #encode(MapSession)}
+     * @return the decoded session
+     * @throws IllegalArgumentException if the bytes are not a valid encoding
+     */
+    MapSession decode(byte[] bytes);
+}
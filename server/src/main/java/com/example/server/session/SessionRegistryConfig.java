@@ -0,0 +1,73 @@
+package com.example.server.session;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.core.session.SessionRegistryImpl;
+import org.springframework.security.web.session.HttpSessionEventPublisher;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.Session;
+import org.springframework.session.security.SpringSessionBackedSessionRegistry;
+
+/**
+ * ==========================================
+ * SESSION REGISTRY CONFIGURATION
+ * ==========================================
+ *
+ * The SessionRegistry behind SecurityConfig's maximumSessions(1), selected
+ * by bff.session.registry:
+ *
+ * - striped (default): StripedSessionRegistry, in-JVM, allocation-free
+ *   per-request checks
+ * - default:           Spring Security's SessionRegistryImpl (baseline)
+ * - indexed:           cluster-aware; SpringSessionBackedSessionRegistry
+ *                      over a FindByIndexNameSessionRepository shared by
+ *                      all nodes (e.g. Spring Session Redis or JDBC), so a
+ *                      login on one node expires the older session on any
+ *                      node. Every per-request check is then a store read.
+ *
+ * The in-JVM registries only learn about ended sessions through
+ * HttpSessionEventPublisher: it turns HttpSessionListener callbacks (from
+ * the container, or from the Spring Session stores via
+ * SessionEventHttpSessionListenerAdapter) into the events they listen to.
+ * Without it, every logged-out or timed-out session stays registered.
+ */
+@Configuration(proxyBeanMethods = false)
+public class SessionRegistryConfig {
+
+    /**
+     * @param type striped, default or indexed
+     * @param indexedSessions shared session repository (indexed only)
+     * @return the session registry used by maximumSessions(1)
+     */
+    @Bean
+    public SessionRegistry sessionRegistry(
+            @Value("${bff.session.registry:striped}") String type,
+            ObjectProvider<FindByIndexNameSessionRepository<? extends Session>> indexedSessions) {
+        return switch (type) {
+            case "striped" -> new StripedSessionRegistry();
+            case "default" -> new SessionRegistryImpl();
+            case "indexed" -> indexed(indexedSessions.getIfAvailable(() -> {
+                throw new IllegalStateException("bff.session.registry=indexed needs a "
+                    + "FindByIndexNameSessionRepository (e.g. spring-session-data-redis)");
+            }));
+            default -> throw new IllegalArgumentException("Unknown bff.session.registry: " + type
+                + " (expected striped, default or indexed)");
+        };
+    }
+
+    /**
+     * Publishes HttpSessionDestroyedEvent / HttpSessionIdChangedEvent to the
+     * in-JVM session registries.
+     */
+    @Bean
+    public HttpSessionEventPublisher httpSessionEventPublisher() {
+        return new HttpSessionEventPublisher();
+    }
+
+    private static <S extends Session> SessionRegistry indexed(FindByIndexNameSessionRepository<S> sessions) {
+        return new SpringSessionBackedSessionRegistry<>(sessions);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.server.session;
+
+import org.springframework.session.MapSession;
+import org.springframework.session.SessionRepository;
+
+import java.util.List;
+
+/**
+ * Session repository selected by bff.session.store (see SessionStoreConfig).
+ *
+ * Extends Spring Session's SessionRepository with what operations need:
+ * a size for health/metrics, an availability probe for readiness, and an
+ * explicit expiry sweep driven by SessionStoreConfig.
+ *
+ * Every implementation must pass SessionStoreContractTests.
+ */
+public interface SessionStore extends SessionRepository<MapSession> {
+
+    /**
+     * Saves several sessions in one go, as save() would one by one. Stores
+     * that can amortize a write (one lock, one append) override this.
+     *
+     * @param sessions sessions to save
+     */
+    default void saveAll(List<MapSession> sessions) {
+        for (MapSession session : sessions) {
+            save(session);
+        }
+    }
+
+    /**
+     * @return short name reported by health checks (e.g. "sharded-memory")
+     */
+    String name();
+
+    /**
+     * @return number of sessions currently held (including not-yet-swept expired ones)
+     */
+    int size();
+
+    /**
+     * @return true if the store can currently serve reads and writes
+     */
+    boolean isAvailable();
+
+    /**
+     * Removes sessions whose max inactive interval has elapsed and publishes
+     * a SessionExpiredEvent for each.
+     */
+    void cleanUpExpiredSessions();
+}
@@ -0,0 +1,180 @@
+package com.example.server.session;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpSessionListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.session.web.http.CookieSerializer;
+import org.springframework.session.web.http.DefaultCookieSerializer;
+import org.springframework.session.web.http.SessionEventHttpSessionListenerAdapter;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * ==========================================
+ * SESSION STORE CONFIGURATION
+ * ==========================================
+ *
+ * Selects where HttpSessions live (bff.session.store):
+ *
+ * - container (default): Tomcat's in-memory manager. This class is inactive.
+ * - sharded-memory:      ShardedMapSessionStore (in-JVM; expires through a
+ *                        TimingWheel, or with bff.session.expiry=sweep
+ *                        through bounded full sweeps)
+ * - segment-file:        SegmentFileSessionStore (memory-mapped append-only
+ *                        files, survives restarts), encoded with
+ *                        CompactSessionCodec (sizes in bff.session.bytes)
+ *
+ * For the non-container stores, Spring Session's SessionRepositoryFilter
+ * wraps every request BEFORE Spring Security, so SecurityConfig's session
+ * management (fixation protection, maximumSessions(1), 15m timeout) works
+ * unchanged on top of the selected store.
+ *
+ * bff.session.write-behind wraps the segment-file store in a
+ * WriteBehindSessionStore, which persists requests that only move the last
+ * access time in coalesced batches instead of one write per request.
+ * sharded-memory ignores it: its save is a map put, cheaper than the
+ * snapshot write-behind takes on every read.
+ *
+ * The session cookie keeps the container's name and attributes
+ * (JSESSIONID, HttpOnly, SameSite=Lax, Secure in prod), so logout's
+ * deleteCookies("JSESSIONID", ...) and the SPA need no changes.
+ *
+ * SEVERAL NODES / RESTARTS:
+ * Both stores are node-local. nginx.conf routes each browser to one node
+ * (consistent hash of its BFF_ROUTE cookie), and docker-compose.yml puts
+ * the segment-file directory on a named volume, so a replaced container
+ * comes back with its sessions. Removing a node still logs out its users.
+ *
+ * WHAT A RESTART KEEPS:
+ * segment-file keeps the LOGIN (security context, CSRF, cached profile),
+ * not the OAuth2 tokens: authorized clients stay in memory
+ * (RefreshSchedulingAuthorizedClientService, which refreshes them in the
+ * background and cannot reach into sessions). After a restart the user is
+ * still logged in, but /api/proxy/** answers 401 until the SPA runs the
+ * login again, which at the IdP is usually a redirect without a prompt.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnExpression("'${bff.session.store:container}' != 'container'")
+@EnableSpringHttpSession
+@EnableScheduling
+public class SessionStoreConfig {
+
+    @Bean
+    public SessionStore sessionRepository(
+            @Value("${bff.session.store}") String type,
+            @Value("${spring.session.timeout:30m}") Duration timeout,
+            @Value("${bff.session.shards:64}") int shards,
+            @Value("${bff.session.expiry:wheel}") String expiry,
+            @Value("${bff.session.expiry-tick:1s}") Duration expiryTick,
+            @Value("${bff.session.segment.directory:${java.io.tmpdir}/bff-sessions}") Path directory,
+            @Value("${bff.session.segment.size:67108864}") int segmentSize,
+            @Value("${bff.session.write-behind.enabled:false}") boolean writeBehind,
+            @Value("${bff.session.write-behind.min-interval:60s}") Duration minInterval,
+            @Value("${bff.session.write-behind.remaining-ttl:5m}") Duration remainingTtl,
+            @Value("${bff.session.write-behind.flush-interval:1s}") Duration flushInterval,
+            ApplicationEventPublisher events,
+            MeterRegistry meters) throws IOException {
+        SessionStore store = switch (type) {
+            case "sharded-memory" -> new ShardedMapSessionStore(shards, timeout, events,
+                wheel(expiry, expiryTick));
+            case "segment-file" -> new SegmentFileSessionStore(directory, segmentSize,
+                new MeteredSessionCodec(new CompactSessionCodec(), meters), timeout, events);
+            default -> throw new IllegalArgumentException("Unknown bff.session.store: " + type
+                + " (expected container, sharded-memory or segment-file)");
+        };
+        if (!writeBehind || !(store instanceof SegmentFileSessionStore)) {
+            return store;
+        }
+        // A touch must reach the store before it would expire the session
+        Assert.isTrue(remainingTtl.compareTo(flushInterval) > 0,
+            "bff.session.write-behind.remaining-ttl must be longer than flush-interval");
+        return new WriteBehindSessionStore(store, minInterval, remainingTtl, Clock.systemUTC(), meters);
+    }
+
+    private static TimingWheel<String> wheel(String expiry, Duration tick) {
+        return switch (expiry) {
+            case "sweep" -> null;
+            case "wheel" -> new TimingWheel<>(tick, Clock.systemUTC());
+            default -> throw new IllegalArgumentException("Unknown bff.session.expiry: " + expiry
+                + " (expected sweep or wheel)");
+        };
+    }
+
+    /**
+     * Same cookie as the servlet container would send.
+     *
+     * @param secure server.servlet.session.cookie.secure
+     * @param sameSite server.servlet.session.cookie.same-site (lax, strict,
+     *        none, or omitted for no attribute)
+     */
+    @Bean
+    public CookieSerializer cookieSerializer(
+            @Value("${server.servlet.session.cookie.secure:false}") boolean secure,
+            @Value("${server.servlet.session.cookie.same-site:lax}") String sameSite) {
+        DefaultCookieSerializer serializer = new DefaultCookieSerializer();
+        serializer.setCookieName("JSESSIONID");
+        serializer.setCookiePath("/");
+        serializer.setUseHttpOnlyCookie(true);
+        serializer.setUseSecureCookie(secure);
+        // Written as given: Lax, Strict, None
+        serializer.setSameSite("omitted".equalsIgnoreCase(sameSite)
+            ? null : StringUtils.capitalize(sameSite.toLowerCase(Locale.ROOT)));
+        return serializer;
+    }
+
+    /**
+     * Turns the store's SessionCreated/Deleted/ExpiredEvents into
+     * HttpSessionListener callbacks (ActiveSessionCounter, ...), exactly as
+     * container sessions would.
+     */
+    @Bean
+    public SessionEventHttpSessionListenerAdapter sessionEventHttpSessionListenerAdapter(
+            List<HttpSessionListener> listeners) {
+        return new SessionEventHttpSessionListenerAdapter(listeners);
+    }
+
+    @Bean
+    public SessionStoreSweeper sessionStoreSweeper(SessionStore store) {
+        return new SessionStoreSweeper(store);
+    }
+
+    /**
+     * Periodic expiry sweep of the selected store (bff.session.cleanup-interval),
+     * and flush of deferred touches (bff.session.write-behind.flush-interval).
+     * Closing the store on shutdown is left to Spring's inferred close().
+     */
+    public static class SessionStoreSweeper {
+
+        private final SessionStore store;
+
+        SessionStoreSweeper(SessionStore store) {
+            this.store = store;
+        }
+
+        @Scheduled(fixedDelayString = "${bff.session.cleanup-interval:60s}")
+        public void cleanUpExpiredSessions() {
+            this.store.cleanUpExpiredSessions();
+        }
+
+        @Scheduled(fixedDelayString = "${bff.session.write-behind.flush-interval:1s}")
+        public void flushTouches() {
+            if (this.store instanceof WriteBehindSessionStore writeBehind) {
+                writeBehind.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.server.session;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.session.MapSession;
+import org.springframework.session.events.SessionCreatedEvent;
+import org.springframework.session.events.SessionDeletedEvent;
+import org.springframework.session.events.SessionExpiredEvent;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ==========================================
+ * SHARDED IN-MEMORY SESSION STORE
+ * ==========================================
+ *
+ * Like Spring Session's MapSessionRepository, but split into N independent
+ * maps (shards) selected by session ID hash.
+ *
+ * WHY SHARDS:
+ * - Expiry sweeps walk the shards one after another, each walk over its
+ *   own map, so no single iteration spans every session
+ * - Each shard resizes independently: no single huge rehash at 100k+ sessions
+ *
+ * EXPIRY (bff.session.expiry, default wheel):
+ * - sweep: each cleanUpExpiredSessions() scans every shard, so a session
+ *   expires at most one cleanup-interval after its idle timeout
+ * - wheel: sessions are filed in a TimingWheel by idle deadline, and
+ *   cleanUpExpiredSessions() only visits the ones that came due. save()
+ *   just moves the deadline (lock-free in the wheel), which re-files a
+ *   session about once per timeout however often it is used. Due sessions
+ *   are re-checked, then expired as one batch, one SessionExpiredEvent
+ *   each, on the sweeper thread. Map and wheel changes for a session ID
+ *   happen under that ID's lock in the expiry index, so they never diverge
+ *
+ * SEMANTICS (same as MapSessionRepository):
+ * - findById returns a copy; changes are only visible after save()
+ * - Saving a session whose ID changed removes the original entry
+ *
+ * Horizontal scaling: sessions live in this JVM, so nginx must route a
+ * session to the same node (sticky sessions) and a restart logs users out.
+ * Use bff.session.store=segment-file to survive restarts.
+ */
+public final class ShardedMapSessionStore implements SessionStore {
+
+    private final ConcurrentHashMap<String, MapSession>[] shards;
+
+    private final Duration defaultMaxInactiveInterval;
+
+    private final ApplicationEventPublisher events;
+
+    /** Null in sweep mode. */
+    private final TimingWheel<String> wheel;
+
+    /** Wheel entry per session ID (wheel mode only). */
+    private final ConcurrentHashMap<String, TimingWheel.Entry<String>> expiries = new ConcurrentHashMap<>();
+
+    /**
+     * Sweep mode: every run scans all shards.
+     *
+     * @param shardCount number of shards (rounded up to a power of two)
+     * @param defaultMaxInactiveInterval idle timeout for new sessions
+     * @param events receives SessionCreated/Deleted/ExpiredEvents
+     */
+    public ShardedMapSessionStore(int shardCount, Duration defaultMaxInactiveInterval,
+                                  ApplicationEventPublisher events) {
+        this(shardCount, defaultMaxInactiveInterval, events, null);
+    }
+
+    /**
+     * @param shardCount number of shards (rounded up to a power of two)
+     * @param defaultMaxInactiveInterval idle timeout for new sessions
+     * @param events receives SessionCreated/Deleted/ExpiredEvents
+     * @param wheel expiry wheel, or null to sweep shards
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedMapSessionStore(int shardCount, Duration defaultMaxInactiveInterval,
+                                  ApplicationEventPublisher events, TimingWheel<String> wheel) {
+        Assert.isTrue(shardCount > 0, "shardCount must be positive");
+        int size = 1;
+        while (size < shardCount) {
+            size <<= 1;
+        }
+        this.shards = new ConcurrentHashMap[size];
+        for (int i = 0; i < size; i++) {
+            this.shards[i] = new ConcurrentHashMap<>();
+        }
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.events = events;
+        this.wheel = wheel;
+    }
+
+    @Override
+    public MapSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(this.defaultMaxInactiveInterval);
+        return session;
+    }
+
+    @Override
+    public void save(MapSession session) {
+        boolean created = true;
+        if (!session.getId().equals(session.getOriginalId())) {
+            created = remove(session.getOriginalId()) == null;
+        }
+        MapSession previous = put(new MapSession(session));
+        if (created && previous == null) {
+            this.events.publishEvent(new SessionCreatedEvent(this, session));
+        }
+    }
+
+    @Override
+    public MapSession findById(String id) {
+        MapSession saved = shard(id).get(id);
+        if (saved == null) {
+            return null;
+        }
+        if (saved.isExpired()) {
+            expire(id, saved);
+            return null;
+        }
+        return new MapSession(saved);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        MapSession removed = remove(id);
+        if (removed != null) {
+            this.events.publishEvent(new SessionDeletedEvent(this, removed));
+        }
+    }
+
+    @Override
+    public String name() {
+        return "sharded-memory";
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, MapSession> shard : this.shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * Sweep mode: sweeps every shard, one at a time. Visiting one shard per
+     * run would leave a shard unswept for {@code shards} cleanup intervals
+     * (an hour at 64 x 60s), far past the idle timeout.
+     * Wheel mode: expires the sessions that came due since the last run.
+     */
+    @Override
+    public void cleanUpExpiredSessions() {
+        if (this.wheel != null) {
+            this.wheel.advance(this::expireDue);
+            return;
+        }
+        for (ConcurrentHashMap<String, MapSession> shard : this.shards) {
+            sweep(shard, Instant.now());
+        }
+    }
+
+    private void sweep(ConcurrentHashMap<String, MapSession> shard, Instant now) {
+        Iterator<MapSession> sessions = shard.values().iterator();
+        while (sessions.hasNext()) {
+            MapSession session = sessions.next();
+            if (isExpired(session, now)) {
+                expire(session.getId(), session);
+            }
+        }
+    }
+
+    /**
+     * Expires a batch reported by the wheel. A session used since its entry
+     * was last filed is filed again instead.
+     */
+    private void expireDue(List<String> ids) {
+        Instant now = this.wheel.clock().instant();
+        for (String id : ids) {
+            MapSession[] expired = new MapSession[1];
+            this.expiries.compute(id, (key, entry) -> {
+                if (entry != null) {
+                    // Already reported, unless a save re-filed it meanwhile
+                    this.wheel.cancel(entry);
+                }
+                MapSession session = shard(id).get(id);
+                if (session != null && isExpired(session, now)) {
+                    shard(id).remove(id);
+                    expired[0] = session;
+                    return null;
+                }
+                return schedule(session);
+            });
+            if (expired[0] != null) {
+                this.events.publishEvent(new SessionExpiredEvent(this, expired[0]));
+            }
+        }
+    }
+
+    private MapSession put(MapSession session) {
+        if (this.wheel == null) {
+            return shard(session.getId()).put(session.getId(), session);
+        }
+        MapSession[] previous = new MapSession[1];
+        this.expiries.compute(session.getId(), (id, entry) -> {
+            previous[0] = shard(id).put(id, session);
+            if (entry == null || session.getMaxInactiveInterval().isNegative()) {
+                if (entry != null) {
+                    this.wheel.cancel(entry);
+                }
+                return schedule(session);
+            }
+            entry.touch(deadline(session));
+            return entry;
+        });
+        return previous[0];
+    }
+
+    private MapSession remove(String id) {
+        if (this.wheel == null) {
+            return shard(id).remove(id);
+        }
+        MapSession[] removed = new MapSession[1];
+        this.expiries.compute(id, (key, entry) -> {
+            if (entry != null) {
+                this.wheel.cancel(entry);
+            }
+            removed[0] = shard(id).remove(id);
+            return null;
+        });
+        return removed[0];
+    }
+
+    private TimingWheel.Entry<String> schedule(MapSession session) {
+        if (session == null || session.getMaxInactiveInterval().isNegative()) {
+            return null;
+        }
+        return this.wheel.schedule(session.getId(), deadline(session));
+    }
+
+    private void expire(String id, MapSession session) {
+        // Identity check: MapSession.equals() compares IDs only, and a request
+        // may have just saved a fresh copy of this session
+        boolean[] removed = new boolean[1];
+        if (this.wheel == null) {
+            removed[0] = removeIfSame(id, session);
+        }
+        else {
+            this.expiries.compute(id, (key, entry) -> {
+                removed[0] = removeIfSame(id, session);
+                if (removed[0] && entry != null) {
+                    this.wheel.cancel(entry);
+                    return null;
+                }
+                return entry;
+            });
+        }
+        if (removed[0]) {
+            this.events.publishEvent(new SessionExpiredEvent(this, session));
+        }
+    }
+
+    private boolean removeIfSame(String id, MapSession session) {
+        boolean[] removed = new boolean[1];
+        shard(id).computeIfPresent(id, (key, current) -> {
+            removed[0] = (current == session);
+            return removed[0] ? null : current;
+        });
+        return removed[0];
+    }
+
+    private static long deadline(MapSession session) {
+        return session.getLastAccessedTime().plus(session.getMaxInactiveInterval()).toEpochMilli();
+    }
+
+    private static boolean isExpired(MapSession session, Instant now) {
+        Duration maxInactive = session.getMaxInactiveInterval();
+        return !maxInactive.isNegative()
+            && now.minus(maxInactive).compareTo(session.getLastAccessedTime()) >= 0;
+    }
+
+    private ConcurrentHashMap<String, MapSession> shard(String id) {
+        int hash = id.hashCode();
+        return this.shards[(hash ^ (hash >>> 16)) & (this.shards.length - 1)];
+    }
+}
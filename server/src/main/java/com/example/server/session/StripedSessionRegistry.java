@@ -0,0 +1,191 @@
+package com.example.server.session;
+
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.core.session.AbstractSessionEvent;
+import org.springframework.security.core.session.SessionDestroyedEvent;
+import org.springframework.security.core.session.SessionIdChangedEvent;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.util.Assert;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ==========================================
+ * STRIPED SESSION REGISTRY
+ * ==========================================
+ *
+ * Drop-in SessionRegistry for maximumSessions(1), built for the per-request
+ * path. ConcurrentSessionFilter calls getSessionInformation() and
+ * refreshLastRequest() on EVERY authenticated request; logins call
+ * getAllSessions() and registerNewSession().
+ *
+ * DIFFERENCES FROM SessionRegistryImpl:
+ * - Per request: one ConcurrentHashMap lookup, no lock, no allocation.
+ *   SessionRegistryImpl allocates a new Date per refreshLastRequest()
+ * - lastRequest is a volatile long written at most once per second per
+ *   session, so a chatty SPA does not bounce the cache line between cores
+ *   (ordering "least recently used" at login only needs coarse times)
+ * - Principal → session IDs: small immutable arrays replaced under the map's
+ *   per-bin lock (lock striping comes from ConcurrentHashMap), instead of
+ *   synchronized CopyOnWriteArraySets. The session map is updated under
+ *   the same lock, so both maps always change together
+ *
+ * Session destruction and ID changes arrive as Spring Security events
+ * (HttpSessionEventPublisher, see SessionRegistryConfig), exactly as for
+ * SessionRegistryImpl.
+ *
+ * @see org.springframework.security.core.session.SessionRegistryImpl
+ */
+public class StripedSessionRegistry implements SessionRegistry, ApplicationListener<AbstractSessionEvent> {
+
+    private static final String[] NO_SESSIONS = new String[0];
+
+    private final ConcurrentHashMap<String, TrackedSession> sessions = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Object, String[]> principals = new ConcurrentHashMap<>();
+
+    @Override
+    public List<Object> getAllPrincipals() {
+        return new ArrayList<>(this.principals.keySet());
+    }
+
+    @Override
+    public List<SessionInformation> getAllSessions(Object principal, boolean includeExpiredSessions) {
+        String[] sessionIds = this.principals.getOrDefault(principal, NO_SESSIONS);
+        List<SessionInformation> result = new ArrayList<>(sessionIds.length);
+        for (String sessionId : sessionIds) {
+            SessionInformation session = this.sessions.get(sessionId);
+            if (session != null && (includeExpiredSessions || !session.isExpired())) {
+                result.add(session);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public SessionInformation getSessionInformation(String sessionId) {
+        Assert.hasText(sessionId, "SessionId required as per interface contract");
+        return this.sessions.get(sessionId);
+    }
+
+    @Override
+    public void refreshLastRequest(String sessionId) {
+        Assert.hasText(sessionId, "SessionId required as per interface contract");
+        TrackedSession session = this.sessions.get(sessionId);
+        if (session != null) {
+            session.refreshLastRequest();
+        }
+    }
+
+    @Override
+    public void registerNewSession(String sessionId, Object principal) {
+        Assert.hasText(sessionId, "SessionId required as per interface contract");
+        Assert.notNull(principal, "Principal required as per interface contract");
+        if (this.sessions.containsKey(sessionId)) {
+            removeSessionInformation(sessionId);
+        }
+        TrackedSession session = new TrackedSession(principal, sessionId, System.currentTimeMillis());
+        // Both maps change under the principal's bin lock, so concurrent logins and
+        // logouts of one user cannot interleave between them
+        this.principals.compute(principal, (key, sessionIds) -> {
+            this.sessions.put(sessionId, session);
+            return append(sessionIds, sessionId);
+        });
+    }
+
+    @Override
+    public void removeSessionInformation(String sessionId) {
+        Assert.hasText(sessionId, "SessionId required as per interface contract");
+        TrackedSession session = this.sessions.get(sessionId);
+        if (session != null) {
+            // Returning null drops the principal once its last session is gone
+            this.principals.compute(session.getPrincipal(), (key, sessionIds) -> {
+                this.sessions.remove(sessionId, session);
+                return (sessionIds != null) ? remove(sessionIds, sessionId) : null;
+            });
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(AbstractSessionEvent event) {
+        if (event instanceof SessionDestroyedEvent destroyed) {
+            removeSessionInformation(destroyed.getId());
+        }
+        else if (event instanceof SessionIdChangedEvent changed) {
+            TrackedSession session = this.sessions.get(changed.getOldSessionId());
+            if (session != null) {
+                removeSessionInformation(changed.getOldSessionId());
+                registerNewSession(changed.getNewSessionId(), session.getPrincipal());
+            }
+        }
+    }
+
+    /**
+     * @return sessions currently registered
+     */
+    public int size() {
+        return this.sessions.size();
+    }
+
+    private static String[] append(String[] sessionIds, String sessionId) {
+        if (sessionIds == null) {
+            return new String[] {sessionId};
+        }
+        String[] result = Arrays.copyOf(sessionIds, sessionIds.length + 1);
+        result[sessionIds.length] = sessionId;
+        return result;
+    }
+
+    private static String[] remove(String[] sessionIds, String sessionId) {
+        int index = Arrays.asList(sessionIds).indexOf(sessionId);
+        if (index < 0) {
+            return sessionIds;
+        }
+        if (sessionIds.length == 1) {
+            return null;
+        }
+        String[] result = new String[sessionIds.length - 1];
+        System.arraycopy(sessionIds, 0, result, 0, index);
+        System.arraycopy(sessionIds, index + 1, result, index, result.length - index);
+        return result;
+    }
+
+    /**
+     * SessionInformation whose last request time is a coarse volatile long
+     * instead of a Date replaced on every request.
+     */
+    static final class TrackedSession extends SessionInformation {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /** Minimum change before lastRequest is written again. */
+        private static final long GRANULARITY_MILLIS = 1000;
+
+        private volatile long lastRequestMillis;
+
+        TrackedSession(Object principal, String sessionId, long now) {
+            super(principal, sessionId, new Date(now));
+            this.lastRequestMillis = now;
+        }
+
+        @Override
+        public Date getLastRequest() {
+            return new Date(this.lastRequestMillis);
+        }
+
+        @Override
+        public void refreshLastRequest() {
+            long now = System.currentTimeMillis();
+            if (now - this.lastRequestMillis >= GRANULARITY_MILLIS) {
+                this.lastRequestMillis = now;
+            }
+        }
+    }
+}
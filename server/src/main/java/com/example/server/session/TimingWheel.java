@@ -0,0 +1,295 @@
+package com.example.server.session;
+
+import org.springframework.util.Assert;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * ==========================================
+ * HIERARCHICAL TIMING WHEEL
+ * ==========================================
+ *
+ * Expiry engine for idle timeouts: finds due keys without scanning the
+ * ones that are not due.
+ *
+ * LAYOUT:
+ * 4 levels × 64 slots. Level 0 slots are one tick wide (64 ticks), level 1
+ * slots 64 ticks (4096 ticks), and so on; deadlines beyond the last level
+ * are parked in its farthest slot and re-filed when it comes round. With
+ * a 1s tick, level 1 covers 68 minutes, enough for any session timeout.
+ *
+ * COST:
+ * - schedule / cancel: O(1) under one lock (once per session, not per request)
+ * - touch: one volatile write, no lock, no relinking. Touches are coalesced:
+ *   an entry stays in the slot it was filed in, and when that slot comes
+ *   due, an entry whose deadline moved is re-filed instead of expired. A
+ *   session touched on every request is re-filed about once per timeout.
+ * - advance: O(ticks elapsed + entries in due slots), never O(all entries);
+ *   the entries of a higher-level slot cascade down once per 64 slots
+ *
+ * Never early: a key is reported once the clock has passed its deadline
+ * (rounded up to the next tick). Due keys are delivered in one batch per
+ * advance(), outside the lock.
+ *
+ * @param <K> key type (session ID)
+ */
+public final class TimingWheel<K> {
+
+    private static final int BITS = 6;
+
+    private static final int SLOTS = 1 << BITS;
+
+    private static final int MASK = SLOTS - 1;
+
+    private static final int LEVELS = 4;
+
+    /** Farthest deadline a single filing can reach, in ticks. */
+    private static final long SPAN = 1L << (BITS * LEVELS);
+
+    private final long tickMillis;
+
+    private final Clock clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @SuppressWarnings("unchecked")
+    private final Entry<K>[] slots = new Entry[LEVELS * SLOTS];
+
+    /** Last tick processed; guarded by lock. */
+    private long currentTick;
+
+    /** Entries filed; guarded by lock. */
+    private int size;
+
+    /**
+     * @param tick slot width of level 0, i.e. expiry resolution
+     * @param clock time source
+     */
+    public TimingWheel(Duration tick, Clock clock) {
+        Assert.isTrue(tick.toMillis() > 0, "tick must be at least 1ms");
+        this.tickMillis = tick.toMillis();
+        this.clock = clock;
+        this.currentTick = clock.millis() / this.tickMillis;
+    }
+
+    /**
+     * @param key reported when the deadline passes
+     * @param deadlineMillis epoch millis
+     * @return handle for {@link Entry#touch(long)} and {@link #cancel(Entry)}
+     */
+    public Entry<K> schedule(K key, long deadlineMillis) {
+        Entry<K> entry = new Entry<>(key, ticks(deadlineMillis), this.tickMillis);
+        this.lock.lock();
+        try {
+            file(entry, this.currentTick + 1);
+            this.size++;
+        }
+        finally {
+            this.lock.unlock();
+        }
+        return entry;
+    }
+
+    /**
+     * Removes an entry before it is due (session deleted). No-op if it was
+     * already reported or cancelled.
+     */
+    public void cancel(Entry<K> entry) {
+        this.lock.lock();
+        try {
+            if (entry.slot >= 0) {
+                unlink(entry);
+                this.size--;
+            }
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Processes every tick up to now.
+     *
+     * @param expired receives the keys that came due (not called if none)
+     * @return number of keys reported
+     */
+    public int advance(Consumer<List<K>> expired) {
+        long target = this.clock.millis() / this.tickMillis;
+        List<K> due = new ArrayList<>();
+        this.lock.lock();
+        try {
+            while (this.currentTick < target) {
+                this.currentTick++;
+                cascade();
+                Entry<K> entry = detach(this.currentTick & MASK);
+                while (entry != null) {
+                    Entry<K> next = entry.next;
+                    if (entry.deadlineTick <= this.currentTick) {
+                        entry.next = null;
+                        due.add(entry.key);
+                        this.size--;
+                    }
+                    else {
+                        // Touched since it was filed
+                        file(entry, this.currentTick + 1);
+                    }
+                    entry = next;
+                }
+            }
+        }
+        finally {
+            this.lock.unlock();
+        }
+        if (!due.isEmpty()) {
+            expired.accept(due);
+        }
+        return due.size();
+    }
+
+    /**
+     * @return the time source advance() runs on
+     */
+    public Clock clock() {
+        return this.clock;
+    }
+
+    /**
+     * @return entries scheduled and not yet reported or cancelled
+     */
+    public int size() {
+        this.lock.lock();
+        try {
+            return this.size;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the higher-level slots that start at the current tick one level
+     * (or more) down.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((this.currentTick & ((1L << (BITS * level)) - 1)) != 0) {
+                return;
+            }
+            Entry<K> entry = detach(level * SLOTS + (int) ((this.currentTick >>> (BITS * level)) & MASK));
+            while (entry != null) {
+                Entry<K> next = entry.next;
+                // May land in the level 0 slot about to be processed
+                file(entry, this.currentTick);
+                entry = next;
+            }
+        }
+    }
+
+    /**
+     * @param earliest first tick the entry may be filed at; a slot already
+     *        processed would only come round again a full rotation later
+     */
+    private void file(Entry<K> entry, long earliest) {
+        long tick = Math.max(entry.deadlineTick, earliest);
+        long delta = tick - this.currentTick;
+        if (delta >= SPAN) {
+            tick = this.currentTick + SPAN - 1;
+            delta = SPAN - 1;
+        }
+        int level = 0;
+        while (delta >= (1L << (BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = level * SLOTS + (int) ((tick >>> (BITS * level)) & MASK);
+        Entry<K> head = this.slots[slot];
+        entry.slot = slot;
+        entry.previous = null;
+        entry.next = head;
+        if (head != null) {
+            head.previous = entry;
+        }
+        this.slots[slot] = entry;
+    }
+
+    private Entry<K> detach(long slot) {
+        int index = (int) slot;
+        Entry<K> head = this.slots[index];
+        this.slots[index] = null;
+        for (Entry<K> entry = head; entry != null; entry = entry.next) {
+            entry.slot = -1;
+            entry.previous = null;
+        }
+        return head;
+    }
+
+    private void unlink(Entry<K> entry) {
+        if (entry.previous != null) {
+            entry.previous.next = entry.next;
+        }
+        else {
+            this.slots[entry.slot] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.previous = entry.previous;
+        }
+        entry.slot = -1;
+        entry.previous = null;
+        entry.next = null;
+    }
+
+    private long ticks(long millis) {
+        // Round up: never report a key before its deadline
+        return Math.floorDiv(millis + this.tickMillis - 1, this.tickMillis);
+    }
+
+    /**
+     * A scheduled key. Links are guarded by the wheel's lock; the deadline is
+     * written without it.
+     *
+     * @param <K> key type
+     */
+    public static final class Entry<K> {
+
+        private final K key;
+
+        private volatile long deadlineTick;
+
+        private int slot = -1;
+
+        private Entry<K> previous;
+
+        private Entry<K> next;
+
+        private final long tickMillis;
+
+        private Entry(K key, long deadlineTick, long tickMillis) {
+            this.key = key;
+            this.deadlineTick = deadlineTick;
+            this.tickMillis = tickMillis;
+        }
+
+        public K key() {
+            return this.key;
+        }
+
+        /**
+         * Moves the deadline (session accessed). Lock-free; the entry is
+         * re-filed lazily when its current slot comes due, so a deadline
+         * moved earlier is only honoured from that point.
+         *
+         * @param deadlineMillis new deadline, epoch millis
+         */
+        public void touch(long deadlineMillis) {
+            long tick = Math.floorDiv(deadlineMillis + this.tickMillis - 1, this.tickMillis);
+            // Coalesce: most touches within a tick change nothing
+            if (tick != this.deadlineTick) {
+                this.deadlineTick = tick;
+            }
+        }
+    }
+}
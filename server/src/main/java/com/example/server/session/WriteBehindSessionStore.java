@@ -0,0 +1,324 @@
+package com.example.server.session;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.session.MapSession;
+import org.springframework.util.Assert;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ==========================================
+ * WRITE-BEHIND SESSION STORE
+ * ==========================================
+ *
+ * Decorates a SessionStore so that requests which only touch a session
+ * (lastAccessedTime moves, nothing else) do not write it.
+ *
+ * WHY:
+ * SessionRepositoryFilter saves the session at the end of EVERY request,
+ * if only to record the new access time. For the SPA's chatty GETs that is
+ * one full session write per request: a re-encoded record appended to
+ * segment-file. (sharded-memory is not wrapped: its save is a map put,
+ * cheaper than the snapshot taken here on every findById().)
+ *
+ * POLICY (bff.session.write-behind):
+ * - A save with no attribute or timeout change since findById() is a
+ *   touch. Attributes are compared by reference, as Spring Session's own
+ *   stores treat setAttribute() as the only change signal
+ * - Touches are kept in memory, one per session (the latest wins), and
+ *   read back by findById()
+ * - flush() persists a session's touch once min-interval has passed since
+ *   the access time the store holds, or less than remaining-ttl is left
+ *   before the store would expire it. Due touches go out as ONE saveAll()
+ * - Any other save, deleteById() and close() write through immediately
+ *
+ * A flush re-reads each session and only moves its access time, so a touch
+ * never reverts attributes another request saved in the meantime. Flushes
+ * exclude writes (read/write lock) for that reason.
+ *
+ * If the JVM dies, up to min-interval of access times are lost: sessions
+ * may expire that much early, never late.
+ *
+ * METRICS:
+ * - bff.session.store.operations{operation=read|write|bulk-write}: calls
+ *   made to the wrapped store
+ * - bff.session.touches{outcome=deferred|written}
+ */
+public final class WriteBehindSessionStore implements SessionStore, Closeable {
+
+    /** A snapshot not consumed by save() within this time is dropped. */
+    private static final Duration LOADED_RETENTION = Duration.ofMinutes(1);
+
+    private final SessionStore delegate;
+
+    private final Duration minInterval;
+
+    private final Duration remainingTtl;
+
+    private final Clock clock;
+
+    /** What findById() handed out, by session ID, until save() consumes it. */
+    private final ConcurrentHashMap<String, Loaded> loaded = new ConcurrentHashMap<>();
+
+    /** Deferred touches by session ID. */
+    private final ConcurrentHashMap<String, Touch> pending = new ConcurrentHashMap<>();
+
+    /** Read side: write-through saves and deletes. Write side: flush(). */
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    private final Counter reads;
+
+    private final Counter writes;
+
+    private final Counter bulkWrites;
+
+    private final Counter deferred;
+
+    private final Counter written;
+
+    /**
+     * @param delegate store to write to
+     * @param minInterval persist an access time at most this often per session
+     * @param remainingTtl persist sooner if the stored session has less than this left
+     * @param clock time source for the policy
+     * @param meters registry for store operation counters
+     */
+    public WriteBehindSessionStore(SessionStore delegate, Duration minInterval, Duration remainingTtl,
+                                   Clock clock, MeterRegistry meters) {
+        Assert.isTrue(remainingTtl.isPositive(), "remainingTtl must be positive");
+        this.delegate = delegate;
+        this.minInterval = minInterval;
+        this.remainingTtl = remainingTtl;
+        this.clock = clock;
+        this.reads = operations("read", meters);
+        this.writes = operations("write", meters);
+        this.bulkWrites = operations("bulk-write", meters);
+        this.deferred = touches("deferred", meters);
+        this.written = touches("written", meters);
+    }
+
+    @Override
+    public MapSession createSession() {
+        return this.delegate.createSession();
+    }
+
+    @Override
+    public MapSession findById(String id) {
+        MapSession session = this.delegate.findById(id);
+        this.reads.increment();
+        if (session == null) {
+            this.loaded.remove(id);
+            this.pending.remove(id);
+            return null;
+        }
+        this.loaded.put(id, Loaded.of(session, this.clock.millis()));
+        Touch touch = this.pending.get(id);
+        if (touch != null && touch.lastAccessed().isAfter(session.getLastAccessedTime())) {
+            session.setLastAccessedTime(touch.lastAccessed());
+        }
+        return session;
+    }
+
+    @Override
+    public void save(MapSession session) {
+        String id = session.getId();
+        Loaded before = this.loaded.remove(id);
+        if (id.equals(session.getOriginalId()) && before != null && before.isTouchOnly(session)) {
+            this.pending.merge(id, new Touch(before.persistedAccess(), session.getMaxInactiveInterval(),
+                session.getLastAccessedTime()), Touch::latest);
+            this.deferred.increment();
+            return;
+        }
+        this.flushLock.readLock().lock();
+        try {
+            this.pending.remove(id);
+            this.pending.remove(session.getOriginalId());
+            this.delegate.save(session);
+            this.writes.increment();
+        }
+        finally {
+            this.flushLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        this.flushLock.readLock().lock();
+        try {
+            this.loaded.remove(id);
+            this.pending.remove(id);
+            this.delegate.deleteById(id);
+            this.writes.increment();
+        }
+        finally {
+            this.flushLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String name() {
+        return this.delegate.name();
+    }
+
+    @Override
+    public int size() {
+        return this.delegate.size();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return this.delegate.isAvailable();
+    }
+
+    /**
+     * Persists due touches first, so the wrapped store never expires a
+     * session that is still in use.
+     */
+    @Override
+    public void cleanUpExpiredSessions() {
+        flush();
+        long stale = this.clock.millis() - LOADED_RETENTION.toMillis();
+        this.loaded.values().removeIf(loaded -> loaded.loadedAt() < stale);
+        this.delegate.cleanUpExpiredSessions();
+    }
+
+    /**
+     * Persists the touches that are due under the policy, in one bulk write.
+     *
+     * @return sessions written
+     */
+    public int flush() {
+        return flush(false);
+    }
+
+    /**
+     * Persists every pending touch, then closes the wrapped store if it is
+     * closeable.
+     */
+    @Override
+    public void close() throws IOException {
+        flush(true);
+        if (this.delegate instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * @return sessions with a deferred touch
+     */
+    public int pendingTouches() {
+        return this.pending.size();
+    }
+
+    private int flush(boolean all) {
+        if (this.pending.isEmpty()) {
+            return 0;
+        }
+        Instant now = this.clock.instant();
+        List<MapSession> batch = new ArrayList<>();
+        this.flushLock.writeLock().lock();
+        try {
+            for (Map.Entry<String, Touch> candidate : this.pending.entrySet()) {
+                Touch touch = candidate.getValue();
+                if ((!all && !touch.isDue(now, this.minInterval, this.remainingTtl))
+                        || !this.pending.remove(candidate.getKey(), touch)) {
+                    continue;
+                }
+                MapSession current = this.delegate.findById(candidate.getKey());
+                this.reads.increment();
+                if (current != null && touch.lastAccessed().isAfter(current.getLastAccessedTime())) {
+                    current.setLastAccessedTime(touch.lastAccessed());
+                    batch.add(current);
+                }
+            }
+            if (!batch.isEmpty()) {
+                this.delegate.saveAll(batch);
+                this.bulkWrites.increment();
+                this.written.increment(batch.size());
+            }
+        }
+        finally {
+            this.flushLock.writeLock().unlock();
+        }
+        return batch.size();
+    }
+
+    private static Counter operations(String operation, MeterRegistry meters) {
+        return Counter.builder("bff.session.store.operations")
+            .tag("operation", operation)
+            .register(meters);
+    }
+
+    private static Counter touches(String outcome, MeterRegistry meters) {
+        return Counter.builder("bff.session.touches")
+            .tag("outcome", outcome)
+            .register(meters);
+    }
+
+    /**
+     * A session as findById() returned it: attribute references, timeout and
+     * the access time the store holds. Names and values sit in two arrays
+     * (two allocations per read, not a map entry per attribute).
+     */
+    private record Loaded(String[] names, Object[] values, Duration maxInactiveInterval,
+                          Instant persistedAccess, long loadedAt) {
+
+        static Loaded of(MapSession session, long now) {
+            Set<String> attributeNames = session.getAttributeNames();
+            String[] names = attributeNames.toArray(new String[0]);
+            Object[] values = new Object[names.length];
+            for (int i = 0; i < names.length; i++) {
+                values[i] = session.getAttribute(names[i]);
+            }
+            return new Loaded(names, values, session.getMaxInactiveInterval(), session.getLastAccessedTime(), now);
+        }
+
+        boolean isTouchOnly(MapSession session) {
+            if (!session.getMaxInactiveInterval().equals(this.maxInactiveInterval)
+                    || session.getAttributeNames().size() != this.names.length) {
+                return false;
+            }
+            // Same names (MapSession holds no null values) and the same objects:
+            // setAttribute() with a new value is a change
+            for (int i = 0; i < this.names.length; i++) {
+                if (session.getAttribute(this.names[i]) != this.values[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A deferred access time, and the one the store holds.
+     */
+    private record Touch(Instant persistedAccess, Duration maxInactiveInterval, Instant lastAccessed) {
+
+        static Touch latest(Touch older, Touch newer) {
+            Instant persisted = older.persistedAccess().isBefore(newer.persistedAccess())
+                ? older.persistedAccess() : newer.persistedAccess();
+            Instant accessed = older.lastAccessed().isAfter(newer.lastAccessed())
+                ? older.lastAccessed() : newer.lastAccessed();
+            return new Touch(persisted, newer.maxInactiveInterval(), accessed);
+        }
+
+        boolean isDue(Instant now, Duration minInterval, Duration remainingTtl) {
+            if (Duration.between(this.persistedAccess, now).compareTo(minInterval) >= 0) {
+                return true;
+            }
+            return !this.maxInactiveInterval.isNegative()
+                && Duration.between(now, this.persistedAccess.plus(this.maxInactiveInterval)).compareTo(remainingTtl) < 0;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import com.example.server.testing.BffLoadClient;
+import com.example.server.testing.StubIdentityProvider;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Anonymous traffic against the API (bots, tabs whose session expired):
+ * every request must get a 401 without creating an HttpSession, so session
+ * count stays flat however long it runs.
+ *
+ * Sessions are counted both server-side (HttpSessionListener) and
+ * client-side (responses setting JSESSIONID).
+ *
+ * Run: ./gradlew loadTest --tests '*AnonymousApiLoadTest'
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = { "spring.profiles.active=loadtest",
+				StubIdentityProvider.CLIENT_ID, StubIdentityProvider.CLIENT_SECRET,
+				"logging.level.org.springframework.security=WARN" })
+@Import(SessionCounter.class)
+class AnonymousApiLoadTest {
+
+	@LocalServerPort
+	int port;
+
+	@Autowired
+	SessionCounter sessions;
+
+	@Test
+	void anonymousApiRequestsCreateNoSessions() throws Exception {
+		BffLoadClient client = new BffLoadClient("http://127.0.0.1:" + this.port);
+		long before = this.sessions.created();
+
+		BffLoadClient.Result result = client.anonymous("/api/user");
+
+		long created = this.sessions.created() - before;
+		System.out.println(result.format("anonymous") + ", sessions created server-side=" + created);
+		assertThat(result.requests()).isPositive();
+		assertThat(result.newSessions()).isZero();
+		assertThat(created).isZero();
+	}
+
+	@Test
+	void browserNavigationStillStartsLogin() throws Exception {
+		HttpClient http = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER).build();
+		long before = this.sessions.created();
+
+		HttpResponse<Void> response = http.send(
+				HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + this.port + "/dashboard")).build(),
+				HttpResponse.BodyHandlers.discarding());
+
+		assertThat(response.statusCode()).isEqualTo(302);
+		assertThat(response.headers().firstValue("Location")).hasValueSatisfying(
+				location -> assertThat(location).endsWith("/oauth2/authorization/github"));
+		// The saved request (replayed after login) lives in the session
+		assertThat(this.sessions.created() - before).isEqualTo(1);
+	}
+}
@@ -0,0 +1,50 @@
+package com.example.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.server.testing.StubIdentityProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Probes through the full filter chain: SecurityConfig.healthFilterChain
+ * must answer them without a session, a CSRF cookie or a login redirect,
+ * or every probe would leave a session behind.
+ */
+@SpringBootTest(properties = { StubIdentityProvider.CLIENT_ID, StubIdentityProvider.CLIENT_SECRET })
+class HealthFilterChainTests {
+
+	@Autowired
+	WebApplicationContext context;
+
+	MockMvc mvc;
+
+	@BeforeEach
+	void setUp() {
+		this.mvc = MockMvcBuilders.webAppContextSetup(this.context).apply(springSecurity()).build();
+	}
+
+	@Test
+	void readinessIsPublicAndSessionFree() throws Exception {
+		MvcResult result = this.mvc.perform(get("/actuator/health/readiness"))
+			.andExpect(status().isOk())
+			.andExpect(header().doesNotExist(HttpHeaders.SET_COOKIE))
+			.andExpect(header().doesNotExist(HttpHeaders.LOCATION))
+			.andReturn();
+
+		assertThat(result.getRequest().getSession(false)).isNull();
+		assertThat(result.getResponse().getCookies()).isEmpty();
+	}
+
+}
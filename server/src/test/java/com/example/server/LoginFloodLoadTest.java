@@ -0,0 +1,113 @@
+package com.example.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.server.testing.StubIdentityProvider;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Login initiations that are never completed (bots, users who close the
+ * GitHub consent page): with the cookie authorization request repository
+ * they must leave no sessions and no heap growth behind.
+ *
+ * The server runs in this JVM, so heap is measured directly (used heap
+ * after GC, before and after the flood).
+ *
+ * Run: ./gradlew loadTest --tests '*LoginFloodLoadTest'
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = { "spring.profiles.active=loadtest",
+				StubIdentityProvider.CLIENT_ID, StubIdentityProvider.CLIENT_SECRET,
+				"bff.oauth2.authorization-request.repository=cookie",
+				"logging.level.org.springframework.security=WARN" })
+@Import(SessionCounter.class)
+class LoginFloodLoadTest {
+
+	private static final int LOGINS = 100_000;
+
+	private static final int CONCURRENCY = 200;
+
+	/** Generous bound: 100k sessions would be hundreds of MB. */
+	private static final long MAX_HEAP_GROWTH = 32L * 1024 * 1024;
+
+	@LocalServerPort
+	int port;
+
+	@Autowired
+	SessionCounter sessions;
+
+	@Test
+	void abandonedLoginsLeaveNoServerState() throws Exception {
+		HttpClient http = HttpClient.newBuilder()
+			.followRedirects(HttpClient.Redirect.NEVER)
+			.executor(Executors.newVirtualThreadPerTaskExecutor())
+			.build();
+		HttpRequest authorize = HttpRequest
+			.newBuilder(URI.create("http://127.0.0.1:" + this.port + "/oauth2/authorization/github"))
+			.build();
+		// Warm up (class loading, JIT, connection pool) before the baseline
+		initiate(http, authorize, 1_000);
+		long sessionsBefore = this.sessions.created();
+		long heapBefore = usedHeapAfterGc();
+
+		long start = System.nanoTime();
+		initiate(http, authorize, LOGINS);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		long heapGrowth = usedHeapAfterGc() - heapBefore;
+		long created = this.sessions.created() - sessionsBefore;
+		System.out.printf("cookie authorization requests: %d logins in %.1f s (%.0f/s), sessions created=%d, "
+				+ "heap growth=%.1f MB%n", LOGINS, seconds, LOGINS / seconds, created, heapGrowth / 1e6);
+		assertThat(created).isZero();
+		assertThat(heapGrowth).isLessThan(MAX_HEAP_GROWTH);
+	}
+
+	private static void initiate(HttpClient http, HttpRequest authorize, int count) throws Exception {
+		AtomicLong remaining = new AtomicLong(count);
+		List<Future<?>> browsers = new ArrayList<>(CONCURRENCY);
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < CONCURRENCY; i++) {
+				browsers.add(executor.submit(() -> {
+					while (remaining.getAndDecrement() > 0) {
+						HttpResponse<Void> response = http.send(authorize, HttpResponse.BodyHandlers.discarding());
+						assertThat(response.statusCode()).isEqualTo(302);
+						assertThat(response.headers().allValues("Set-Cookie"))
+							.anyMatch(cookie -> cookie.startsWith("OAUTH2_AUTH_REQUEST="));
+					}
+					return null;
+				}));
+			}
+		}
+		for (Future<?> browser : browsers) {
+			browser.get();
+		}
+	}
+
+	private static long usedHeapAfterGc() throws InterruptedException {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(200);
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+}
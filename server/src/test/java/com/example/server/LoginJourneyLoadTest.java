@@ -0,0 +1,213 @@
+package com.example.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.example.server.testing.BffLoadClient;
+import com.example.server.testing.LatencyHistogram;
+import com.example.server.testing.StubIdentityProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * ==========================================
+ * END-TO-END LOGIN JOURNEY LOAD TEST
+ * ==========================================
+ *
+ * CONCURRENCY browsers each run complete visits back to back until JOURNEYS
+ * are done: /oauth2/authorization/github, the callback, /dashboard and the
+ * SPA's first /api/user (BffLoadClient.journey()). GitHub is replaced by a
+ * StubIdentityProvider on localhost with IDP_LATENCY and IDP_ERROR_RATE, so
+ * the run needs no network.
+ *
+ * Prints: journeys/s, a latency summary per step and the distribution of
+ * whole journeys, failures per step, sessions created and still active,
+ * and heap (used after GC before and after, peak sampled during the run).
+ *
+ * SETTINGS (system properties, passed through by the loadTest task):
+ * - load.concurrency       browsers at once (50)
+ * - load.journeys          visits in total (2000)
+ * - load.idp.latency-ms    delay of each token and user-info call (50)
+ * - load.idp.error-rate    share of those calls failing with 500 (0)
+ *
+ * Run: ./gradlew loadTest --tests '*LoginJourneyLoadTest' -Dload.concurrency=200 -Dload.idp.error-rate=0.01
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "spring.profiles.active=loadtest")
+@Import(SessionCounter.class)
+class LoginJourneyLoadTest {
+
+	static final int CONCURRENCY = Integer.getInteger("load.concurrency", 50);
+
+	static final int JOURNEYS = Integer.getInteger("load.journeys", 2000);
+
+	static final Duration IDP_LATENCY = Duration.ofMillis(Long.getLong("load.idp.latency-ms", 50));
+
+	static final double IDP_ERROR_RATE = Double.parseDouble(System.getProperty("load.idp.error-rate", "0"));
+
+	static final int WARMUP_JOURNEYS = 100;
+
+	static final StubIdentityProvider idp = StubIdentityProvider.start(IDP_LATENCY);
+
+	@LocalServerPort
+	int port;
+
+	@Autowired
+	SessionCounter sessions;
+
+	@DynamicPropertySource
+	static void identityProvider(DynamicPropertyRegistry registry) {
+		idp.registerGithub(registry);
+		registry.add("logging.level.org.springframework.web", () -> "ERROR");
+	}
+
+	@AfterAll
+	static void stopIdentityProvider() {
+		idp.close();
+	}
+
+	@Test
+	void loginJourneys() throws Exception {
+		BffLoadClient client = new BffLoadClient("http://127.0.0.1:" + this.port);
+		// Warm up (class loading, JIT, connection pool) before the baseline
+		run(client, WARMUP_JOURNEYS, new Steps());
+		idp.reset();
+		idp.setErrorRate(IDP_ERROR_RATE);
+		long sessionsBefore = this.sessions.created();
+		long activeBefore = this.sessions.active();
+		long heapBefore = usedHeapAfterGc();
+
+		Steps steps = new Steps();
+		LongAccumulator peakHeap = new LongAccumulator(Math::max, 0);
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		long start = System.nanoTime();
+		try (ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor()) {
+			sampler.scheduleAtFixedRate(() -> peakHeap.accumulate(memory.getHeapMemoryUsage().getUsed()), 0, 100,
+					TimeUnit.MILLISECONDS);
+			run(client, JOURNEYS, steps);
+			sampler.shutdown();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long heapAfter = usedHeapAfterGc();
+
+		long completed = steps.journey.count();
+		System.out.printf("%nlogin journeys: %d browsers, IdP latency %d ms, IdP error rate %.2f%%%n", CONCURRENCY,
+				IDP_LATENCY.toMillis(), IDP_ERROR_RATE * 100);
+		System.out.printf("  completed %d of %d in %.1f s: %.1f journeys/s%n", completed, JOURNEYS, seconds,
+				completed / seconds);
+		System.out.printf("  authorize  %s%n", steps.authorize.summary());
+		System.out.printf("  callback   %s%n", steps.callback.summary());
+		System.out.printf("  dashboard  %s%n", steps.dashboard.summary());
+		System.out.printf("  api/user   %s%n", steps.user.summary());
+		System.out.printf("  journey    %s%n", steps.journey.summary());
+		System.out.print(steps.journey.distribution());
+		System.out.printf("  failures by step: %s (IdP errors injected: %d)%n", steps.failures(),
+				idp.injectedErrors());
+		System.out.printf("  sessions: created=%d, active=%d%n", this.sessions.created() - sessionsBefore,
+				this.sessions.active() - activeBefore);
+		System.out.printf("  heap: %.1f MB -> %.1f MB after GC (%.1f KB per completed journey), peak %.1f MB%n",
+				heapBefore / 1e6, heapAfter / 1e6, (heapAfter - heapBefore) / 1e3 / Math.max(1, completed),
+				peakHeap.get() / 1e6);
+
+		assertThat(completed + steps.failed()).isEqualTo(JOURNEYS);
+		if (IDP_ERROR_RATE == 0) {
+			assertThat(steps.failed()).isZero();
+		}
+	}
+
+	private static void run(BffLoadClient client, int journeys, Steps steps) throws Exception {
+		AtomicLong remaining = new AtomicLong(journeys);
+		List<Future<?>> browsers = new ArrayList<>(CONCURRENCY);
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < CONCURRENCY; i++) {
+				browsers.add(executor.submit(() -> {
+					while (remaining.getAndDecrement() > 0) {
+						try {
+							steps.record(client.journey());
+						}
+						catch (BffLoadClient.JourneyException ex) {
+							steps.failed(ex.step());
+						}
+					}
+					return null;
+				}));
+			}
+		}
+		for (Future<?> browser : browsers) {
+			browser.get();
+		}
+	}
+
+	private static long usedHeapAfterGc() throws InterruptedException {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(200);
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+	/**
+	 * Latencies of completed journeys, and failures by step.
+	 */
+	static final class Steps {
+
+		final LatencyHistogram authorize = new LatencyHistogram();
+
+		final LatencyHistogram callback = new LatencyHistogram();
+
+		final LatencyHistogram dashboard = new LatencyHistogram();
+
+		final LatencyHistogram user = new LatencyHistogram();
+
+		final LatencyHistogram journey = new LatencyHistogram();
+
+		private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+		void record(BffLoadClient.Journey completed) {
+			this.authorize.record(completed.authorizeNanos());
+			this.callback.record(completed.callbackNanos());
+			this.dashboard.record(completed.dashboardNanos());
+			this.user.record(completed.userNanos());
+			this.journey.record(completed.totalNanos());
+		}
+
+		void failed(String step) {
+			this.failures.computeIfAbsent(step, key -> new LongAdder()).increment();
+		}
+
+		long failed() {
+			return this.failures.values().stream().mapToLong(LongAdder::sum).sum();
+		}
+
+		Map<String, Long> failures() {
+			Map<String, Long> byStep = new TreeMap<>();
+			this.failures.forEach((step, count) -> byStep.put(step, count.sum()));
+			return byStep;
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.example.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.example.server.testing.BffLoadClient;
+import com.example.server.testing.StubIdentityProvider;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * ==========================================
+ * LOGIN LOAD TEST: PLATFORM VS VIRTUAL THREADS
+ * ==========================================
+ *
+ * CONCURRENT_LOGINS browsers complete the OAuth2 callback at once
+ * (/login/oauth2/code/github) against a StubIdentityProvider that answers
+ * token and user-info calls after IDP_LATENCY. Tomcat is capped at
+ * TOMCAT_THREADS workers in both runs.
+ *
+ * Prints per mode: callback latency p50/p99, logins/second and the most
+ * logins the application had waiting on the IdP at once.
+ *
+ * Run: ./gradlew loadTest --tests '*LoginLoadTest*'
+ */
+@Tag("load")
+abstract class LoginLoadTest {
+
+	static final Duration IDP_LATENCY = Duration.ofMillis(300);
+
+	static final int TOMCAT_THREADS = 50;
+
+	static final int CONCURRENT_LOGINS = 500;
+
+	static final StubIdentityProvider idp = StubIdentityProvider.start(IDP_LATENCY);
+
+	static final String NO_PROFILE = "spring.profiles.active=loadtest";
+
+	@LocalServerPort
+	int port;
+
+	@DynamicPropertySource
+	static void identityProvider(DynamicPropertyRegistry registry) {
+		idp.registerGithub(registry);
+		registry.add("server.tomcat.threads.max", () -> TOMCAT_THREADS);
+	}
+
+	abstract String mode();
+
+	@Test
+	void concurrentLoginsAgainstSlowIdentityProvider() throws Exception {
+		BffLoadClient client = new BffLoadClient("http://127.0.0.1:" + this.port);
+
+		// Warm up the whole login path once
+		client.login();
+		idp.reset();
+
+		long start = System.nanoTime();
+		List<Future<BffLoadClient.Login>> logins = new ArrayList<>();
+		try (ExecutorService browsers = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < CONCURRENT_LOGINS; i++) {
+				logins.add(browsers.submit(client::login));
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		long[] latencies = new long[logins.size()];
+		for (int i = 0; i < latencies.length; i++) {
+			latencies[i] = logins.get(i).get().callbackNanos();
+		}
+		Arrays.sort(latencies);
+		System.out.printf("%s threads: %d logins, IdP %d ms, Tomcat max %d: callback p50=%d ms p99=%d ms, "
+				+ "%.0f logins/s, max concurrent logins at IdP=%d%n", mode(), latencies.length,
+				IDP_LATENCY.toMillis(), TOMCAT_THREADS, latencies[latencies.length / 2] / 1_000_000,
+				latencies[(int) (latencies.length * 0.99)] / 1_000_000, latencies.length / seconds,
+				idp.maxConcurrentRequests());
+		assertThat(idp.userRequests()).isEqualTo(CONCURRENT_LOGINS);
+	}
+
+	@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+			properties = { NO_PROFILE, "spring.threads.virtual.enabled=false" })
+	static class PlatformThreads extends LoginLoadTest {
+
+		@Override
+		String mode() {
+			return "platform";
+		}
+	}
+
+	@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+			properties = { NO_PROFILE, "spring.threads.virtual.enabled=true" })
+	static class VirtualThreads extends LoginLoadTest {
+
+		@Override
+		String mode() {
+			return "virtual";
+		}
+	}
+}
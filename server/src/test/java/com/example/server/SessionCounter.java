@@ -0,0 +1,36 @@
+package com.example.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+
+/**
+ * Counts HttpSessions created and destroyed by the server under test;
+ * load tests {@code @Import} it (Spring Boot registers listener beans with
+ * the servlet container).
+ */
+class SessionCounter implements HttpSessionListener {
+
+	private final AtomicLong created = new AtomicLong();
+
+	private final AtomicLong destroyed = new AtomicLong();
+
+	@Override
+	public void sessionCreated(HttpSessionEvent event) {
+		this.created.incrementAndGet();
+	}
+
+	@Override
+	public void sessionDestroyed(HttpSessionEvent event) {
+		this.destroyed.incrementAndGet();
+	}
+
+	long created() {
+		return this.created.get();
+	}
+
+	long active() {
+		return this.created.get() - this.destroyed.get();
+	}
+}
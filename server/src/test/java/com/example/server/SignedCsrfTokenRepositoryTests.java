@@ -0,0 +1,99 @@
+package com.example.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.web.csrf.CsrfToken;
+
+class SignedCsrfTokenRepositoryTests {
+
+	private static final byte[] KEY = "0123456789abcdef0123456789abcdef".getBytes();
+
+	private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+	private final SignedCsrfTokenRepository repository =
+			new SignedCsrfTokenRepository(KEY, Duration.ofHours(1), Clock.fixed(NOW, ZoneOffset.UTC));
+
+	@Test
+	void tokenIssuedForSessionValidatesForSameSession() {
+		MockHttpSession session = new MockHttpSession(null, "session-a");
+		CsrfToken token = issue(session);
+
+		CsrfToken loaded = this.repository.loadToken(requestWith(session, token));
+
+		assertThat(loaded).isNotNull();
+		assertThat(loaded.getToken()).isEqualTo(token.getToken());
+		assertThat(loaded.getHeaderName()).isEqualTo("X-XSRF-TOKEN");
+		assertThat(loaded.getParameterName()).isEqualTo("_csrf");
+	}
+
+	@Test
+	void tokenFromAnotherSessionIsTreatedAsMissing() {
+		CsrfToken token = issue(new MockHttpSession(null, "session-a"));
+
+		assertThat(this.repository.loadToken(requestWith(new MockHttpSession(null, "session-b"), token))).isNull();
+	}
+
+	@Test
+	void anonymousTokenStopsValidatingOnceSessionExists() {
+		CsrfToken token = issue(null);
+
+		assertThat(this.repository.loadToken(requestWith(null, token))).isNotNull();
+		assertThat(this.repository.loadToken(requestWith(new MockHttpSession(), token))).isNull();
+	}
+
+	@Test
+	void expiredTokenIsTreatedAsMissing() {
+		MockHttpSession session = new MockHttpSession(null, "session-a");
+		CsrfToken token = issue(session);
+		SignedCsrfTokenRepository later = new SignedCsrfTokenRepository(KEY, Duration.ofHours(1),
+				Clock.fixed(NOW.plus(Duration.ofHours(2)), ZoneOffset.UTC));
+
+		assertThat(later.loadToken(requestWith(session, token))).isNull();
+	}
+
+	@Test
+	void tamperedTokenIsTreatedAsMissing() {
+		MockHttpSession session = new MockHttpSession(null, "session-a");
+		String value = issue(session).getToken();
+		char last = value.charAt(value.length() - 1);
+		String tampered = value.substring(0, value.length() - 1) + (last == 'A' ? 'B' : 'A');
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setSession(session);
+		request.setCookies(new Cookie("XSRF-TOKEN", tampered));
+
+		assertThat(this.repository.loadToken(request)).isNull();
+	}
+
+	private CsrfToken issue(MockHttpSession session) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		if (session != null) {
+			request.setSession(session);
+		}
+		CsrfToken token = this.repository.generateToken(request);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.repository.saveToken(token, request, response);
+		assertThat(response.getCookie("XSRF-TOKEN")).isNotNull();
+		return token;
+	}
+
+	private static MockHttpServletRequest requestWith(MockHttpSession session, CsrfToken token) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		if (session != null) {
+			request.setSession(session);
+		}
+		request.setCookies(new Cookie("XSRF-TOKEN", token.getToken()));
+		return request;
+	}
+
+}
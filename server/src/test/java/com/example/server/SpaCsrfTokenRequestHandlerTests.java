@@ -0,0 +1,83 @@
+package com.example.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.CsrfTokenRequestHandler;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.security.web.csrf.XorCsrfTokenRequestAttributeHandler;
+
+class SpaCsrfTokenRequestHandlerTests {
+
+	private final SpaCsrfTokenRequestHandler handler = new SpaCsrfTokenRequestHandler();
+
+	private final CsrfToken token = new DefaultCsrfToken("X-XSRF-TOKEN", "_csrf", UUID.randomUUID().toString());
+
+	@Test
+	void tokenIsOnlyLoadedAndMaskedWhenRendered() {
+		AtomicInteger loads = new AtomicInteger();
+		Supplier<CsrfToken> deferred = () -> {
+			loads.incrementAndGet();
+			return this.token;
+		};
+		MockHttpServletRequest request = new MockHttpServletRequest();
+
+		this.handler.handle(request, new MockHttpServletResponse(), deferred);
+		assertThat(loads).hasValue(0);
+
+		CsrfToken exposed = (CsrfToken) request.getAttribute("_csrf");
+		assertThat(exposed.getHeaderName()).isEqualTo("X-XSRF-TOKEN");
+		String masked = exposed.getToken();
+		assertThat(masked).isNotEqualTo(this.token.getToken()).isEqualTo(exposed.getToken());
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void headerValueIsUsedAsIs() {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/logout");
+		request.addHeader("X-XSRF-TOKEN", this.token.getToken());
+
+		assertThat(this.handler.resolveCsrfTokenValue(request, this.token)).isEqualTo(this.token.getToken());
+	}
+
+	@Test
+	void formValueMaskedHereResolvesInSpringXorHandler() {
+		String masked = render(this.handler);
+
+		assertThat(new XorCsrfTokenRequestAttributeHandler().resolveCsrfTokenValue(formPost(masked), this.token))
+			.isEqualTo(this.token.getToken());
+	}
+
+	@Test
+	void formValueMaskedBySpringXorHandlerResolvesHere() {
+		String masked = render(new XorCsrfTokenRequestAttributeHandler());
+
+		assertThat(this.handler.resolveCsrfTokenValue(formPost(masked), this.token)).isEqualTo(this.token.getToken());
+	}
+
+	@Test
+	void malformedFormValueResolvesToNull() {
+		assertThat(this.handler.resolveCsrfTokenValue(formPost("not-base64!"), this.token)).isNull();
+		assertThat(this.handler.resolveCsrfTokenValue(formPost(this.token.getToken()), this.token)).isNull();
+	}
+
+	private String render(CsrfTokenRequestHandler requestHandler) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		requestHandler.handle(request, new MockHttpServletResponse(), () -> this.token);
+		return ((CsrfToken) request.getAttribute("_csrf")).getToken();
+	}
+
+	private static MockHttpServletRequest formPost(String value) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/logout");
+		request.addParameter("_csrf", value);
+		return request;
+	}
+
+}
@@ -0,0 +1,139 @@
+package com.example.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Concurrent GET /api/user through Spring MVC: per-request Jackson (the
+ * previous controller) vs cached bytes vs If-None-Match revalidation.
+ * Prints requests/second. Run with ./gradlew loadTest.
+ */
+@Tag("load")
+class UserControllerLoadTest {
+
+	private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+	private static final long WARMUP_MILLIS = 2_000;
+
+	private static final long MEASURE_MILLIS = 5_000;
+
+	@Test
+	void userEndpointThroughput() throws Exception {
+		double serialize = run(new LegacyUserController(), false);
+		double cached = run(new UserController(JsonMapper.builder().build()), false);
+		double notModified = run(new UserController(JsonMapper.builder().build()), true);
+
+		System.out.printf("/api/user, %d threads: serialize=%.0f req/s, cached=%.0f req/s (%.2fx), "
+				+ "notModified=%.0f req/s (%.2fx)%n", THREADS, serialize, cached, cached / serialize, notModified,
+				notModified / serialize);
+		assertThat(notModified).isGreaterThan(serialize);
+	}
+
+	private static double run(Object controller, boolean revalidate) throws Exception {
+		MockMvc mvc = MockMvcBuilders.standaloneSetup(controller)
+			.setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
+			.build();
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Callable<Long>> clients = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				int user = i;
+				clients.add(() -> client(mvc, user, revalidate));
+			}
+			long total = 0;
+			for (Future<Long> result : executor.invokeAll(clients)) {
+				total += result.get();
+			}
+			return total * 1000.0 / MEASURE_MILLIS;
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * One browser: its own session and user; returns requests completed
+	 * during the measurement window.
+	 */
+	private static long client(MockMvc mvc, int user, boolean revalidate) throws Exception {
+		authenticate(user);
+		try {
+			MockHttpSession session = new MockHttpSession();
+			String eTag = mvc.perform(get("/api/user").session(session)).andReturn().getResponse().getHeader("ETag");
+			long start = System.currentTimeMillis();
+			long measureFrom = start + WARMUP_MILLIS;
+			long end = measureFrom + MEASURE_MILLIS;
+			long requests = 0;
+			long now;
+			while ((now = System.currentTimeMillis()) < end) {
+				MockHttpServletRequestBuilder request = get("/api/user").session(session);
+				if (revalidate) {
+					request.header("If-None-Match", eTag);
+				}
+				mvc.perform(request);
+				if (now >= measureFrom) {
+					requests++;
+				}
+			}
+			return requests;
+		}
+		finally {
+			SecurityContextHolder.clearContext();
+		}
+	}
+
+	private static void authenticate(int id) {
+		Map<String, Object> attributes = new LinkedHashMap<>();
+		attributes.put("login", "user" + id);
+		attributes.put("id", id);
+		attributes.put("avatar_url", "https://avatars.githubusercontent.com/u/" + id + "?v=4");
+		attributes.put("html_url", "https://github.com/user" + id);
+		attributes.put("name", "User " + id);
+		attributes.put("company", "@github");
+		attributes.put("blog", "https://github.blog");
+		attributes.put("location", "San Francisco");
+		attributes.put("bio", "Load test user");
+		attributes.put("public_repos", 8);
+		attributes.put("followers", 17000);
+		attributes.put("following", 9);
+		DefaultOAuth2User principal = new DefaultOAuth2User(List.of(new SimpleGrantedAuthority("OAUTH2_USER")),
+				attributes, "id");
+		SecurityContextHolder.getContext()
+			.setAuthentication(new OAuth2AuthenticationToken(principal, principal.getAuthorities(), "github"));
+	}
+
+	@RestController
+	public static class LegacyUserController {
+
+		@GetMapping("/api/user")
+		public Map<String, Object> getUser(@AuthenticationPrincipal OAuth2User principal) {
+			return principal.getAttributes();
+		}
+	}
+}
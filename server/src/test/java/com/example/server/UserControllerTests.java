@@ -0,0 +1,114 @@
+package com.example.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
+
+class UserControllerTests {
+
+	private final MockMvc mvc = MockMvcBuilders.standaloneSetup(new UserController(JsonMapper.builder().build()))
+		.setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
+		.build();
+
+	private final MockHttpSession session = new MockHttpSession();
+
+	@BeforeEach
+	void authenticate() {
+		authenticateAs("octocat", 583231);
+	}
+
+	@AfterEach
+	void clear() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void returnsProfileWithStrongETag() throws Exception {
+		this.mvc.perform(get("/api/user").session(this.session))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.login").value("octocat"))
+			.andExpect(header().string("ETag", matchesPattern("\"[A-Za-z0-9_-]{22}\"")))
+			.andExpect(header().string("Cache-Control", "no-cache, private"));
+	}
+
+	@Test
+	void matchingIfNoneMatchIsNotModifiedWithoutBody() throws Exception {
+		String eTag = this.mvc.perform(get("/api/user").session(this.session))
+			.andReturn()
+			.getResponse()
+			.getHeader("ETag");
+
+		this.mvc.perform(get("/api/user").session(this.session).header("If-None-Match", eTag))
+			.andExpect(status().isNotModified())
+			.andExpect(content().bytes(new byte[0]));
+	}
+
+	@Test
+	void serializesOncePerSession() throws Exception {
+		this.mvc.perform(get("/api/user").session(this.session));
+		Object cached = this.session.getAttribute(UserController.CACHED_USER_ATTRIBUTE);
+
+		this.mvc.perform(get("/api/user").session(this.session));
+
+		assertThat(this.session.getAttribute(UserController.CACHED_USER_ATTRIBUTE)).isSameAs(cached);
+	}
+
+	@Test
+	void differentUserInSameSessionIsReserialized() throws Exception {
+		String first = this.mvc.perform(get("/api/user").session(this.session))
+			.andReturn()
+			.getResponse()
+			.getHeader("ETag");
+		authenticateAs("hubot", 1);
+
+		this.mvc.perform(get("/api/user").session(this.session).header("If-None-Match", first))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.login").value("hubot"));
+	}
+
+	@Test
+	void profileCachedAtLoginIsServedAsIs() throws Exception {
+		MockHttpServletRequest callback = new MockHttpServletRequest("GET", "/login/oauth2/code/github");
+		callback.setSession(this.session);
+		new ProfileCachingSuccessHandler((request, response, authentication) -> {
+		}, JsonMapper.builder().build()).onAuthenticationSuccess(callback, new MockHttpServletResponse(),
+				SecurityContextHolder.getContext().getAuthentication());
+		Object cached = this.session.getAttribute(UserController.CACHED_USER_ATTRIBUTE);
+
+		this.mvc.perform(get("/api/user").session(this.session))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.login").value("octocat"));
+
+		assertThat(cached).isNotNull();
+		assertThat(this.session.getAttribute(UserController.CACHED_USER_ATTRIBUTE)).isSameAs(cached);
+	}
+
+	private static void authenticateAs(String login, int id) {
+		DefaultOAuth2User user = new DefaultOAuth2User(List.of(new SimpleGrantedAuthority("OAUTH2_USER")),
+				Map.of("login", login, "id", id), "id");
+		SecurityContextHolder.getContext()
+			.setAuthentication(new OAuth2AuthenticationToken(user, user.getAuthorities(), "github"));
+	}
+}
@@ -0,0 +1,56 @@
+package com.example.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+
+import com.example.server.testing.BffLoadClient;
+import com.example.server.testing.StubIdentityProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Servlet (Tomcat) half of the servlet vs reactive comparison: the
+ * BffLoadClient scenario over real HTTP, through the full security chain.
+ * The reactive module runs the same scenario (ReactiveUserEndpointLoadTest).
+ *
+ * Run: ./gradlew loadTest --tests '*UserEndpointLoadTest' and
+ *      ./gradlew :reactive:loadTest
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "spring.profiles.active=loadtest")
+class UserEndpointLoadTest {
+
+	static final StubIdentityProvider idp = StubIdentityProvider.start(Duration.ZERO);
+
+	@LocalServerPort
+	int port;
+
+	@DynamicPropertySource
+	static void identityProvider(DynamicPropertyRegistry registry) {
+		idp.registerGithub(registry);
+	}
+
+	@AfterAll
+	static void stopIdentityProvider() {
+		idp.close();
+	}
+
+	@Test
+	void userEndpoint() throws Exception {
+		BffLoadClient client = new BffLoadClient("http://127.0.0.1:" + this.port);
+		List<String> sessions = client.loginSessions(BffLoadClient.SESSIONS);
+
+		BffLoadClient.Result result = client.userEndpoint(sessions);
+
+		System.out.println(result.format("servlet"));
+		assertThat(result.requests()).isPositive();
+	}
+}
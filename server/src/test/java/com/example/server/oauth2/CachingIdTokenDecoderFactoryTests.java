@@ -0,0 +1,193 @@
+package com.example.server.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import com.example.server.testing.MutableClock;
+import com.example.server.testing.StubIssuer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.web.client.RestClient;
+
+/**
+ * ID-token validation against a local stub issuer (discovery document and
+ * JWK set), with the cache's clock under test control.
+ */
+class CachingIdTokenDecoderFactoryTests {
+
+	private static final Duration TTL = Duration.ofMinutes(5);
+
+	private static final Duration MIN_REFRESH_INTERVAL = Duration.ofSeconds(30);
+
+	private final StubIssuer issuer = StubIssuer.start();
+
+	private final ClientRegistration registration = ClientRegistration.withRegistrationId("keycloak")
+		.clientId("bff")
+		.clientSecret("secret")
+		.authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+		.redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+		.scope("openid", "profile")
+		.authorizationUri(this.issuer.issuer() + "/authorize")
+		.tokenUri(this.issuer.issuer() + "/token")
+		.issuerUri(this.issuer.issuer())
+		.userNameAttributeName("sub")
+		.build();
+
+	private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+
+	private final MutableClock clock = new MutableClock();
+
+	private final CachingIdTokenDecoderFactory factory = new CachingIdTokenDecoderFactory(RestClient.create(),
+			new OidcProviderCache.Settings(TTL, MIN_REFRESH_INTERVAL, this.clock), this.meters);
+
+	@BeforeEach
+	void warm() {
+		this.factory.refreshInBackground(List.of(this.registration));
+		await(() -> refreshes("jwks", "success") == 1);
+	}
+
+	@AfterEach
+	void stop() {
+		this.factory.close();
+		this.issuer.close();
+	}
+
+	@Test
+	void loginsAreServedFromTheWarmCache() {
+		JwtDecoder decoder = this.factory.createDecoder(this.registration);
+
+		for (int i = 0; i < 20; i++) {
+			Jwt idToken = decoder.decode(this.issuer.idToken("user" + i, "bff"));
+			assertThat(idToken.getSubject()).isEqualTo("user" + i);
+		}
+
+		assertThat(this.issuer.discoveryRequests()).isEqualTo(1);
+		assertThat(this.issuer.jwksRequests()).isEqualTo(1);
+		assertThat(requests("jwks", "hit")).isEqualTo(20);
+		assertThat(requests("jwks", "miss")).isZero();
+	}
+
+	@Test
+	void registrationIsLoadedOnlyOnceItsKeySetIsFetched() {
+		this.issuer.setAvailable(false);
+		ClientRegistration unreachable = ClientRegistration.withClientRegistration(this.registration)
+			.registrationId("unreachable")
+			.build();
+		ClientRegistration github = ClientRegistration.withClientRegistration(this.registration)
+			.registrationId("github")
+			.scope("read:user")
+			.build();
+
+		this.factory.refreshInBackground(List.of(unreachable));
+		await(() -> refreshes("jwks", "failure") >= 1);
+
+		assertThat(this.factory.isLoaded(this.registration)).isTrue();
+		assertThat(this.factory.isLoaded(unreachable)).isFalse();
+		assertThat(this.factory.isLoaded(github)).as("no ID tokens to validate").isTrue();
+	}
+
+	@Test
+	void unknownKidFetchesTheRotatedKeySet() {
+		JwtDecoder decoder = this.factory.createDecoder(this.registration);
+		decoder.decode(this.issuer.idToken("alice", "bff"));
+		this.clock.advance(MIN_REFRESH_INTERVAL.plusSeconds(1));
+
+		this.issuer.rotateKey();
+		Jwt idToken = decoder.decode(this.issuer.idToken("alice", "bff"));
+
+		assertThat(idToken.getSubject()).isEqualTo("alice");
+		assertThat(this.issuer.jwksRequests()).isEqualTo(2);
+	}
+
+	@Test
+	void unknownKidRefetchesAreRateLimited() {
+		JwtDecoder decoder = this.factory.createDecoder(this.registration);
+		String forged = this.issuer.idToken("mallory", "bff", "no-such-key");
+
+		assertThatExceptionOfType(JwtException.class).isThrownBy(() -> decoder.decode(forged));
+		assertThat(this.issuer.jwksRequests()).as("set fetched moments ago").isEqualTo(1);
+
+		this.clock.advance(MIN_REFRESH_INTERVAL.plusSeconds(1));
+		for (int i = 0; i < 10; i++) {
+			assertThatExceptionOfType(JwtException.class).isThrownBy(() -> decoder.decode(forged));
+		}
+		assertThat(this.issuer.jwksRequests()).isEqualTo(2);
+	}
+
+	@Test
+	void unknownKidRefetchesAreRateLimitedWhileTheIssuerIsDown() {
+		JwtDecoder decoder = this.factory.createDecoder(this.registration);
+		this.issuer.setAvailable(false);
+
+		for (int interval = 1; interval <= 3; interval++) {
+			this.clock.advance(MIN_REFRESH_INTERVAL.plusSeconds(1));
+			for (int i = 0; i < 10; i++) {
+				String forged = this.issuer.idToken("mallory", "bff", "no-such-key-" + i);
+				assertThatExceptionOfType(JwtException.class).isThrownBy(() -> decoder.decode(forged));
+			}
+			assertThat(this.issuer.jwksRequests()).as("one failed fetch per interval").isEqualTo(1 + interval);
+		}
+	}
+
+	@Test
+	void staleKeysAreServedWhileRevalidating() {
+		JwtDecoder decoder = this.factory.createDecoder(this.registration);
+		this.issuer.setLatency(Duration.ofMillis(500));
+		this.clock.advance(TTL.plusSeconds(1));
+
+		long start = System.nanoTime();
+		decoder.decode(this.issuer.idToken("alice", "bff"));
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+		assertThat(elapsed).isLessThan(Duration.ofMillis(500));
+		assertThat(requests("jwks", "stale")).isEqualTo(1);
+		await(() -> this.issuer.jwksRequests() == 2);
+	}
+
+	@Test
+	void issuerOutageKeepsTheCachedKeys() {
+		JwtDecoder decoder = this.factory.createDecoder(this.registration);
+		this.issuer.setAvailable(false);
+		this.clock.advance(TTL.plusSeconds(1));
+
+		decoder.decode(this.issuer.idToken("alice", "bff"));
+		await(() -> refreshes("jwks", "failure") >= 1);
+		Jwt idToken = decoder.decode(this.issuer.idToken("bob", "bff"));
+
+		assertThat(idToken.getSubject()).isEqualTo("bob");
+	}
+
+	private double requests(String cache, String result) {
+		return this.meters.get("bff.oidc.cache.requests").tag("cache", cache).tag("result", result).counter().count();
+	}
+
+	private double refreshes(String cache, String outcome) {
+		return this.meters.find("bff.oidc.cache.refreshes").tag("cache", cache).tag("outcome", outcome)
+			.counters().stream().mapToDouble(counter -> counter.count()).sum();
+	}
+
+	private static void await(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("condition not met within 10s").isLessThan(deadline);
+			try {
+				Thread.sleep(20);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(ex);
+			}
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package com.example.server.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.endpoint.PkceParameterNames;
+import tools.jackson.databind.json.JsonMapper;
+
+class EncryptedCookieAuthorizationRequestRepositoryTests {
+
+	private static final byte[] KEY = "0123456789abcdef0123456789abcdef".getBytes();
+
+	private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+	private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+	private final EncryptedCookieAuthorizationRequestRepository repository = repository(KEY, NOW);
+
+	private final OAuth2AuthorizationRequest authorizationRequest = OAuth2AuthorizationRequest.authorizationCode()
+		.authorizationUri("https://github.com/login/oauth/authorize")
+		.clientId("bff")
+		.redirectUri("http://localhost:8080/login/oauth2/code/github")
+		.scopes(Set.of("read:user"))
+		.state("state-1")
+		.additionalParameters(Map.of(PkceParameterNames.CODE_CHALLENGE, "challenge",
+				PkceParameterNames.CODE_CHALLENGE_METHOD, "S256"))
+		.attributes(Map.of(OAuth2ParameterNames.REGISTRATION_ID, "github", PkceParameterNames.CODE_VERIFIER,
+				"verifier"))
+		.build();
+
+	@Test
+	void savedRequestIsLoadedBackOnCallback() {
+		Cookie cookie = save(this.repository);
+
+		OAuth2AuthorizationRequest loaded = this.repository.loadAuthorizationRequest(callback("state-1", cookie));
+
+		assertThat(loaded).isNotNull();
+		assertThat(loaded.getState()).isEqualTo("state-1");
+		assertThat(loaded.getClientId()).isEqualTo("bff");
+		assertThat(loaded.getRedirectUri()).isEqualTo(this.authorizationRequest.getRedirectUri());
+		assertThat(loaded.getScopes()).containsExactly("read:user");
+		assertThat(loaded.getAdditionalParameters()).isEqualTo(this.authorizationRequest.getAdditionalParameters());
+		assertThat(loaded.<String>getAttribute(PkceParameterNames.CODE_VERIFIER)).isEqualTo("verifier");
+		assertThat(loaded.getAuthorizationRequestUri()).isEqualTo(this.authorizationRequest.getAuthorizationRequestUri());
+	}
+
+	@Test
+	void cookieIsEncryptedHttpOnlyAndShortLived() {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.repository.saveAuthorizationRequest(this.authorizationRequest, new MockHttpServletRequest(), response);
+
+		String header = response.getHeader("Set-Cookie");
+		assertThat(header).startsWith("OAUTH2_AUTH_REQUEST=")
+			.contains("Max-Age=300", "HttpOnly", "SameSite=Lax")
+			.doesNotContain("verifier", "state-1");
+	}
+
+	@Test
+	void noSessionIsCreated() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		this.repository.saveAuthorizationRequest(this.authorizationRequest, request, new MockHttpServletResponse());
+
+		assertThat(request.getSession(false)).isNull();
+	}
+
+	@Test
+	void stateMismatchIsTreatedAsMissing() {
+		Cookie cookie = save(this.repository);
+
+		assertThat(this.repository.loadAuthorizationRequest(callback("state-2", cookie))).isNull();
+	}
+
+	@Test
+	void tamperedCookieIsTreatedAsMissing() {
+		Cookie cookie = save(this.repository);
+		char[] value = cookie.getValue().toCharArray();
+		value[value.length / 2] = (value[value.length / 2] == 'A') ? 'B' : 'A';
+
+		Cookie tampered = new Cookie(cookie.getName(), new String(value));
+
+		assertThat(this.repository.loadAuthorizationRequest(callback("state-1", tampered))).isNull();
+	}
+
+	@Test
+	void cookieFromAnotherKeyIsTreatedAsMissing() {
+		Cookie cookie = save(repository("fedcba9876543210fedcba9876543210".getBytes(), NOW));
+
+		assertThat(this.repository.loadAuthorizationRequest(callback("state-1", cookie))).isNull();
+	}
+
+	@Test
+	void expiredCookieIsTreatedAsMissing() {
+		Cookie cookie = save(this.repository);
+		EncryptedCookieAuthorizationRequestRepository later = repository(KEY, NOW.plus(Duration.ofMinutes(6)));
+
+		assertThat(later.loadAuthorizationRequest(callback("state-1", cookie))).isNull();
+	}
+
+	@Test
+	void removeDeletesTheCookie() {
+		Cookie cookie = save(this.repository);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		OAuth2AuthorizationRequest removed = this.repository.removeAuthorizationRequest(callback("state-1", cookie),
+				response);
+
+		assertThat(removed).isNotNull();
+		assertThat(response.getHeader("Set-Cookie")).startsWith("OAUTH2_AUTH_REQUEST=;").contains("Max-Age=0");
+	}
+
+	private Cookie save(EncryptedCookieAuthorizationRequestRepository repository) {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		repository.saveAuthorizationRequest(this.authorizationRequest, new MockHttpServletRequest(), response);
+		String value = response.getHeader("Set-Cookie").split(";", 2)[0].substring(
+				EncryptedCookieAuthorizationRequestRepository.COOKIE_NAME.length() + 1);
+		return new Cookie(EncryptedCookieAuthorizationRequestRepository.COOKIE_NAME, value);
+	}
+
+	private EncryptedCookieAuthorizationRequestRepository repository(byte[] key, Instant now) {
+		return new EncryptedCookieAuthorizationRequestRepository(key, Duration.ofMinutes(5), this.jsonMapper,
+				Clock.fixed(now, ZoneOffset.UTC));
+	}
+
+	private static MockHttpServletRequest callback(String state, Cookie cookie) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/login/oauth2/code/github");
+		request.setParameter(OAuth2ParameterNames.CODE, "code");
+		request.setParameter(OAuth2ParameterNames.STATE, state);
+		request.setCookies(cookie);
+		return request;
+	}
+}
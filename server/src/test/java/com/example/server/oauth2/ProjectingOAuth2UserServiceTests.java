@@ -0,0 +1,105 @@
+package com.example.server.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+
+class ProjectingOAuth2UserServiceTests {
+
+	private static final List<String> DASHBOARD = List.of("login", "name", "avatar_url", "email", "public_repos");
+
+	private final OAuth2UserRequest request = new OAuth2UserRequest(
+			ClientRegistration.withRegistrationId("github")
+				.clientId("client-id")
+				.authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+				.redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+				.authorizationUri("https://github.com/login/oauth/authorize")
+				.tokenUri("https://github.com/login/oauth/access_token")
+				.userInfoUri("https://api.github.com/user")
+				.userNameAttributeName("id")
+				.build(),
+			new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "gho_token", Instant.now(), null));
+
+	@Test
+	void keepsWhitelistedAttributesAndNameAttribute() {
+		ProjectingOAuth2UserService service = new ProjectingOAuth2UserService(request -> githubUser(), DASHBOARD);
+
+		OAuth2User user = service.loadUser(this.request);
+
+		assertThat(user.getAttributes()).containsOnlyKeys("login", "id", "name", "avatar_url", "public_repos");
+		assertThat(user.getName()).isEqualTo("583231");
+		assertThat(user.<Object>getAttribute("public_repos")).isEqualTo(8);
+	}
+
+	@Test
+	void authorityCarriesProjectedAttributes() {
+		ProjectingOAuth2UserService service = new ProjectingOAuth2UserService(request -> githubUser(), DASHBOARD);
+
+		OAuth2User user = service.loadUser(this.request);
+
+		assertThat(user.getAuthorities()).contains(new SimpleGrantedAuthority("SCOPE_read:user"));
+		OAuth2UserAuthority authority = (OAuth2UserAuthority) user.getAuthorities().iterator().next();
+		assertThat(authority.getAttributes()).isEqualTo(user.getAttributes());
+	}
+
+	@Test
+	void keysAreShared() {
+		ProjectingOAuth2UserService service = new ProjectingOAuth2UserService(request -> githubUser(), DASHBOARD);
+
+		String first = service.loadUser(this.request).getAttributes().keySet().iterator().next();
+		String second = service.loadUser(this.request).getAttributes().keySet().iterator().next();
+
+		assertThat(first).isSameAs(second);
+	}
+
+	@Test
+	void countsBytesSaved() {
+		ProjectingOAuth2UserService service = new ProjectingOAuth2UserService(request -> githubUser(), DASHBOARD);
+
+		service.loadUser(this.request);
+		service.loadUser(this.request);
+
+		assertThat(service.getProjectedUsers()).isEqualTo(2);
+		assertThat(service.getBytesSaved()).isPositive();
+	}
+
+	@Test
+	void emptyWhitelistKeepsEverything() {
+		OAuth2User original = githubUser();
+		ProjectingOAuth2UserService service = new ProjectingOAuth2UserService(request -> original, List.of());
+
+		assertThat(service.loadUser(this.request)).isSameAs(original);
+	}
+
+	private static OAuth2User githubUser() {
+		Map<String, Object> attributes = new LinkedHashMap<>();
+		// Fresh key instance per response, as when parsed from JSON
+		attributes.put(new String("login"), "octocat");
+		attributes.put("id", 583231L);
+		attributes.put("node_id", "MDQ6VXNlcjU4MzIzMQ==");
+		attributes.put("avatar_url", "https://avatars.githubusercontent.com/u/583231?v=4");
+		attributes.put("followers_url", "https://api.github.com/users/octocat/followers");
+		attributes.put("gists_url", "https://api.github.com/users/octocat/gists{/gist_id}");
+		attributes.put("site_admin", false);
+		attributes.put("name", "The Octocat");
+		attributes.put("email", null);
+		attributes.put("public_repos", 8);
+		List<GrantedAuthority> authorities = List.of(new OAuth2UserAuthority("OAUTH2_USER", attributes, "id"),
+				new SimpleGrantedAuthority("SCOPE_read:user"));
+		return new DefaultOAuth2User(authorities, attributes, "id");
+	}
+}
@@ -0,0 +1,178 @@
+package com.example.server.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import com.example.server.testing.StubIdentityProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpSessionEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.InMemoryOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.endpoint.RestClientRefreshTokenTokenResponseClient;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+
+class RefreshSchedulingAuthorizedClientServiceTests {
+
+	private final StubIdentityProvider idp = StubIdentityProvider.start(Duration.ZERO);
+
+	private final ClientRegistration registration = ClientRegistration.withRegistrationId("keycloak")
+		.clientId("bff")
+		.clientSecret("secret")
+		.authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+		.redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+		.authorizationUri(this.idp.authorizationUri())
+		.tokenUri(this.idp.tokenUri())
+		.build();
+
+	private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+
+	private RefreshSchedulingAuthorizedClientService service;
+
+	@AfterEach
+	void stop() {
+		if (this.service != null) {
+			this.service.close();
+		}
+		this.idp.close();
+	}
+
+	@Test
+	void refreshesAheadOfExpiry() {
+		this.service = service(4);
+		this.idp.setTokenLifetime(Duration.ofMinutes(5));
+		this.service.saveAuthorizedClient(client("alice", Duration.ofSeconds(3), true), login("alice", "s1"));
+		assertThat(this.service.trackedClients()).isEqualTo(1);
+
+		await(() -> !accessToken("alice").getTokenValue().equals("initial"));
+
+		assertThat(accessToken("alice").getExpiresAt()).isAfter(Instant.now().plus(Duration.ofMinutes(4)));
+		assertThat(this.idp.refreshRequests()).isEqualTo(1);
+		assertThat(this.meters.get("bff.oauth2.token.refresh").tag("outcome", "success").timer().count()).isEqualTo(1);
+		assertThat(this.meters.get("bff.oauth2.token.refresh.lag").timer().count()).isEqualTo(1);
+		// Rescheduled for the new token
+		assertThat(this.service.trackedClients()).isEqualTo(1);
+	}
+
+	@Test
+	void boundsConcurrentRefreshes() {
+		this.service = service(2);
+		this.idp.setTokenLifetime(Duration.ofMinutes(5));
+		this.idp.setLatency(Duration.ofMillis(200));
+		List<String> users = List.of("u0", "u1", "u2", "u3", "u4", "u5", "u6", "u7", "u8", "u9");
+		for (String user : users) {
+			this.service.saveAuthorizedClient(client(user, Duration.ofSeconds(2), true), login(user, user));
+		}
+
+		await(() -> this.idp.refreshRequests() == users.size()
+				&& users.stream().noneMatch(user -> accessToken(user).getTokenValue().equals("initial")));
+
+		assertThat(this.idp.maxConcurrentRequests()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void rejectedRefreshTokenDropsClient() {
+		this.service = service(4);
+		this.idp.setTokenStatus(400);
+		this.service.saveAuthorizedClient(client("alice", Duration.ofSeconds(2), true), login("alice", "s1"));
+
+		await(() -> this.service.loadAuthorizedClient("keycloak", "alice") == null);
+
+		assertThat(this.service.trackedClients()).isZero();
+		assertThat(this.meters.get("bff.oauth2.token.refresh.failures").tag("error", "invalid_grant").counter().count())
+			.isEqualTo(1);
+	}
+
+	@Test
+	void clientsWithoutRefreshTokenAreNotScheduled() {
+		this.service = service(4);
+		this.service.saveAuthorizedClient(client("alice", Duration.ofHours(8), false), login("alice", "s1"));
+
+		assertThat(this.service.trackedClients()).isZero();
+		assertThat(this.service.<OAuth2AuthorizedClient>loadAuthorizedClient("keycloak", "alice")).isNotNull();
+	}
+
+	@Test
+	void endOfOlderSessionKeepsNewerLogin() {
+		this.service = service(4);
+		OAuth2AuthenticationToken first = login("alice", "s1");
+		OAuth2AuthenticationToken second = login("alice", "s2");
+		this.service.saveAuthorizedClient(client("alice", Duration.ofHours(1), true), first);
+		this.service.saveAuthorizedClient(client("alice", Duration.ofHours(1), true), second);
+
+		this.service.sessionDestroyed(new HttpSessionEvent(session(first)));
+		assertThat(this.service.<OAuth2AuthorizedClient>loadAuthorizedClient("keycloak", "alice")).isNotNull();
+		assertThat(this.service.trackedClients()).isEqualTo(1);
+
+		this.service.sessionDestroyed(new HttpSessionEvent(session(second)));
+		assertThat(this.service.<OAuth2AuthorizedClient>loadAuthorizedClient("keycloak", "alice")).isNull();
+		assertThat(this.service.trackedClients()).isZero();
+	}
+
+	private RefreshSchedulingAuthorizedClientService service(int maxConcurrency) {
+		return new RefreshSchedulingAuthorizedClientService(
+				new InMemoryOAuth2AuthorizedClientService(new InMemoryClientRegistrationRepository(this.registration)),
+				new InMemoryClientRegistrationRepository(this.registration),
+				new RestClientRefreshTokenTokenResponseClient(), new SingleFlight<>(), this.meters,
+				new RefreshSchedulingAuthorizedClientService.Settings(Duration.ofSeconds(1), Duration.ZERO,
+						maxConcurrency, Duration.ofMillis(50), Duration.ofSeconds(1), Clock.systemUTC()));
+	}
+
+	private OAuth2AuthorizedClient client(String user, Duration lifetime, boolean refreshable) {
+		Instant now = Instant.now();
+		return new OAuth2AuthorizedClient(this.registration, user,
+				new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "initial", now, now.plus(lifetime)),
+				refreshable ? new OAuth2RefreshToken("refresh-" + user, now) : null);
+	}
+
+	private OAuth2AccessToken accessToken(String user) {
+		OAuth2AuthorizedClient client = this.service.loadAuthorizedClient("keycloak", user);
+		return client.getAccessToken();
+	}
+
+	private static OAuth2AuthenticationToken login(String user, String sessionId) {
+		OAuth2AuthenticationToken login = new OAuth2AuthenticationToken(
+				new DefaultOAuth2User(AuthorityUtils.createAuthorityList("OAUTH2_USER"), Map.of("sub", user), "sub"),
+				AuthorityUtils.createAuthorityList("OAUTH2_USER"), "keycloak");
+		login.setDetails(sessionId);
+		return login;
+	}
+
+	private static MockHttpSession session(OAuth2AuthenticationToken login) {
+		MockHttpSession session = new MockHttpSession();
+		session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY,
+				new SecurityContextImpl(login));
+		return session;
+	}
+
+	private static void await(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("condition not met within 10s").isLessThan(deadline);
+			try {
+				Thread.sleep(20);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(ex);
+			}
+		}
+	}
+}
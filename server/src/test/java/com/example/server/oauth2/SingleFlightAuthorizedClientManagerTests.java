@@ -0,0 +1,181 @@
+package com.example.server.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.example.server.testing.StubIdentityProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.oauth2.client.AuthorizedClientServiceOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.ClientAuthorizationException;
+import org.springframework.security.oauth2.client.InMemoryOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientProviderBuilder;
+import org.springframework.security.oauth2.client.endpoint.RestClientRefreshTokenTokenResponseClient;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+
+/**
+ * Parallel requests for a client whose access token has expired, as an SPA
+ * page load produces them, against the stub IdP's token endpoint.
+ */
+class SingleFlightAuthorizedClientManagerTests {
+
+	private static final int PARALLEL_REQUESTS = 64;
+
+	private final StubIdentityProvider idp = StubIdentityProvider.start(Duration.ofMillis(100));
+
+	private final ClientRegistration registration = ClientRegistration.withRegistrationId("keycloak")
+		.clientId("bff")
+		.clientSecret("secret")
+		.authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+		.redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+		.authorizationUri(this.idp.authorizationUri())
+		.tokenUri(this.idp.tokenUri())
+		.build();
+
+	private final InMemoryOAuth2AuthorizedClientService clients = new InMemoryOAuth2AuthorizedClientService(
+			new InMemoryClientRegistrationRepository(this.registration));
+
+	private final SingleFlight<String, OAuth2AuthorizedClient> flights = new SingleFlight<>();
+
+	@AfterEach
+	void stop() {
+		this.idp.close();
+	}
+
+	@Test
+	void parallelRequestsShareOneRefresh() throws Exception {
+		expiredClient("alice");
+
+		List<OAuth2AuthorizedClient> results = authorizeInParallel(singleFlight(), List.of("alice"));
+
+		assertThat(this.idp.refreshRequests()).isEqualTo(1);
+		assertThat(results).extracting(client -> client.getAccessToken().getTokenValue()).containsOnly("gho_stub_1");
+		assertThat(this.flights.executed() + this.flights.coalesced()).isEqualTo(PARALLEL_REQUESTS);
+		assertThat(this.flights.coalesced()).isPositive();
+		assertThat(this.flights.inFlight()).isZero();
+	}
+
+	@Test
+	void withoutSingleFlightEveryRequestRefreshes() throws Exception {
+		expiredClient("alice");
+
+		authorizeInParallel(manager(), List.of("alice"));
+
+		// The baseline the gate saves: (almost) one token call per request
+		assertThat(this.idp.refreshRequests()).isGreaterThan(1);
+	}
+
+	@Test
+	void differentUsersRefreshIndependently() throws Exception {
+		expiredClient("alice");
+		expiredClient("bob");
+
+		List<OAuth2AuthorizedClient> results = authorizeInParallel(singleFlight(), List.of("alice", "bob"));
+
+		assertThat(this.idp.refreshRequests()).isEqualTo(2);
+		Set<String> tokens = new HashSet<>();
+		results.forEach(client -> tokens.add(client.getAccessToken().getTokenValue()));
+		assertThat(tokens).hasSize(2);
+	}
+
+	@Test
+	void waitersSeeTheRefreshFailure() throws Exception {
+		expiredClient("alice");
+		this.idp.setTokenStatus(400);
+		SingleFlightAuthorizedClientManager manager = singleFlight();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<OAuth2AuthorizedClient>> requests = new ArrayList<>();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < PARALLEL_REQUESTS; i++) {
+				requests.add(executor.submit(() -> {
+					start.await();
+					return manager.authorize(request("alice"));
+				}));
+			}
+			start.countDown();
+		}
+
+		int failed = 0;
+		for (Future<OAuth2AuthorizedClient> request : requests) {
+			try {
+				// Arrived after the failed flight: the client is gone, nothing to refresh
+				assertThat(request.get()).isNull();
+			}
+			catch (ExecutionException ex) {
+				assertThat(ex).hasCauseInstanceOf(ClientAuthorizationException.class);
+				failed++;
+			}
+		}
+		assertThat(failed).isPositive();
+		// invalid_grant removed the client, so late arrivals had nothing to refresh
+		assertThat(this.idp.refreshRequests()).isEqualTo(1);
+	}
+
+	private List<OAuth2AuthorizedClient> authorizeInParallel(
+			OAuth2AuthorizedClientManager manager, List<String> users) throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<OAuth2AuthorizedClient>> requests = new ArrayList<>();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < PARALLEL_REQUESTS; i++) {
+				String user = users.get(i % users.size());
+				requests.add(executor.submit(() -> {
+					start.await();
+					return manager.authorize(request(user));
+				}));
+			}
+			start.countDown();
+		}
+		List<OAuth2AuthorizedClient> results = new ArrayList<>();
+		for (Future<OAuth2AuthorizedClient> request : requests) {
+			results.add(request.get());
+		}
+		return results;
+	}
+
+	private SingleFlightAuthorizedClientManager singleFlight() {
+		return new SingleFlightAuthorizedClientManager(manager(), this.flights);
+	}
+
+	private AuthorizedClientServiceOAuth2AuthorizedClientManager manager() {
+		AuthorizedClientServiceOAuth2AuthorizedClientManager manager =
+				new AuthorizedClientServiceOAuth2AuthorizedClientManager(
+						new InMemoryClientRegistrationRepository(this.registration), this.clients);
+		manager.setAuthorizedClientProvider(OAuth2AuthorizedClientProviderBuilder.builder()
+			.refreshToken(refresh -> refresh.accessTokenResponseClient(new RestClientRefreshTokenTokenResponseClient()))
+			.build());
+		return manager;
+	}
+
+	private void expiredClient(String user) {
+		Instant issuedAt = Instant.now().minus(Duration.ofHours(1));
+		this.clients.saveAuthorizedClient(new OAuth2AuthorizedClient(this.registration, user,
+				new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "expired", issuedAt,
+						issuedAt.plus(Duration.ofMinutes(5))),
+				new OAuth2RefreshToken("refresh-" + user, issuedAt)), new TestingAuthenticationToken(user, null));
+	}
+
+	private static OAuth2AuthorizeRequest request(String user) {
+		return OAuth2AuthorizeRequest.withClientRegistrationId("keycloak")
+			.principal(new TestingAuthenticationToken(user, null))
+			.build();
+	}
+}
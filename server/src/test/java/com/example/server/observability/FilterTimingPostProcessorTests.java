@@ -0,0 +1,155 @@
+package com.example.server.observability;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.DefaultSecurityFilterChain;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+
+class FilterTimingPostProcessorTests {
+
+	private static final long SLOW_MILLIS = 20;
+
+	private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+
+	private final FilterTimingPostProcessor postProcessor = new FilterTimingPostProcessor(
+			new StaticListableBeanFactory(Map.of("meters", this.meters)).getBeanProvider(MeterRegistry.class));
+
+	@Test
+	void recordsEachFilterOwnTimeByOutcome() throws Exception {
+		run(new Continue(), new Slow(), new Unauthorized());
+
+		assertThat(timer("Continue", "continued").count()).isEqualTo(1);
+		assertThat(timer("Continue", "continued").totalTime(TimeUnit.MILLISECONDS)).isLessThan(SLOW_MILLIS);
+		assertThat(timer("Slow", "continued").totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(SLOW_MILLIS);
+		assertThat(timer("Unauthorized", "handled").count()).isEqualTo(1);
+		assertThat(timer("servlet", "handled").count()).isZero();
+	}
+
+	@Test
+	void lastFilterTimesTheServlet() throws Exception {
+		run(new Continue());
+
+		assertThat(timer("Continue", "continued").totalTime(TimeUnit.MILLISECONDS)).isLessThan(SLOW_MILLIS);
+		assertThat(timer("servlet", "handled").count()).isEqualTo(1);
+		assertThat(timer("servlet", "handled").totalTime(TimeUnit.MILLISECONDS))
+			.isGreaterThanOrEqualTo(SLOW_MILLIS);
+	}
+
+	@Test
+	void exceptionsAreRecordedAsErrorsAndRethrown() {
+		assertThatExceptionOfType(ServletException.class).isThrownBy(() -> run(new Continue(), new Failing()));
+
+		assertThat(timer("Failing", "error").count()).isEqualTo(1);
+		assertThat(timer("Continue", "error").count()).isEqualTo(1);
+	}
+
+	@Test
+	void filtersOfOneClassGetTheirOwnTimers() throws Exception {
+		run(new Continue(), new Continue());
+
+		assertThat(timer("Continue", "continued").count()).isEqualTo(1);
+		assertThat(timer("Continue#2", "continued").count()).isEqualTo(1);
+	}
+
+	@Test
+	void otherChainsAreLeftAlone() {
+		SecurityFilterChain health = new DefaultSecurityFilterChain(AnyRequestMatcher.INSTANCE, new Continue());
+
+		assertThat(this.postProcessor.postProcessAfterInitialization(health, "healthFilterChain")).isSameAs(health);
+		assertThat(this.meters.getMeters()).isEmpty();
+	}
+
+	private void run(Filter... filters) throws Exception {
+		SecurityFilterChain chain = (SecurityFilterChain) this.postProcessor.postProcessAfterInitialization(
+				new DefaultSecurityFilterChain(AnyRequestMatcher.INSTANCE, List.of(filters)),
+				FilterTimingPostProcessor.CHAIN);
+		new MockFilterChain(new SlowServlet(), chain.getFilters().toArray(Filter[]::new))
+			.doFilter(new MockHttpServletRequest("GET", "/api/user"), new MockHttpServletResponse());
+	}
+
+	private Timer timer(String filter, String outcome) {
+		return this.meters.get(FilterTimers.METER).tag("filter", filter).tag("outcome", outcome).timer();
+	}
+
+	private static void sleep() {
+		try {
+			Thread.sleep(SLOW_MILLIS);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	static final class Continue implements Filter {
+
+		@Override
+		public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+				throws IOException, ServletException {
+			chain.doFilter(request, response);
+		}
+
+	}
+
+	static final class Slow implements Filter {
+
+		@Override
+		public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+				throws IOException, ServletException {
+			sleep();
+			chain.doFilter(request, response);
+		}
+
+	}
+
+	static final class Unauthorized implements Filter {
+
+		@Override
+		public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) {
+			((HttpServletResponse) response).setStatus(401);
+		}
+
+	}
+
+	static final class Failing implements Filter {
+
+		@Override
+		public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+				throws ServletException {
+			throw new ServletException("boom");
+		}
+
+	}
+
+	static final class SlowServlet extends HttpServlet {
+
+		@Override
+		protected void service(HttpServletRequest request, HttpServletResponse response) {
+			sleep();
+		}
+
+	}
+
+}
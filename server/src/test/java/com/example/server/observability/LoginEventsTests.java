@@ -0,0 +1,153 @@
+package com.example.server.observability;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.example.server.SpaCsrfTokenRequestHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.session.SessionRegistryImpl;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AuthorizationCodeGrantRequest;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationExchange;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationResponse;
+import org.springframework.security.web.authentication.session.ConcurrentSessionControlAuthenticationStrategy;
+import org.springframework.security.web.authentication.session.SessionFixationProtectionStrategy;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+
+class LoginEventsTests {
+
+	private static final String REDIRECT_URI = "https://bff.example.com/login/oauth2/code/github";
+
+	@Test
+	void sessionFixationRecordsNewSession() throws Exception {
+		SessionFixationProtectionStrategy newSession = new SessionFixationProtectionStrategy();
+		newSession.setMigrateSessionAttributes(false);
+		RecordingSessionAuthenticationStrategy strategy = new RecordingSessionAuthenticationStrategy(newSession);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setSession(new MockHttpSession());
+
+		List<RecordedEvent> events = record("com.example.server.Session",
+				() -> strategy.onAuthentication(alice(), request, new MockHttpServletResponse()));
+
+		assertThat(events).singleElement().satisfies(event -> {
+			assertThat(event.getString("action")).isEqualTo("fixation");
+			assertThat(event.getString("outcome")).isEqualTo("new-session");
+		});
+	}
+
+	@Test
+	void concurrentSessionEvictionIsRecorded() throws Exception {
+		SessionRegistryImpl registry = new SessionRegistryImpl();
+		registry.registerNewSession("older", "alice");
+		ConcurrentSessionControlAuthenticationStrategy concurrency = new ConcurrentSessionControlAuthenticationStrategy(
+				new EvictionRecordingSessionRegistry(registry, new SecurityMetrics(new SimpleMeterRegistry(), List.of())));
+		concurrency.setMaximumSessions(1);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setSession(new MockHttpSession(null, "newer"));
+
+		List<RecordedEvent> events = record("com.example.server.Session",
+				() -> concurrency.onAuthentication(alice(), request, new MockHttpServletResponse()));
+
+		assertThat(registry.getSessionInformation("older").isExpired()).isTrue();
+		assertThat(events).singleElement().satisfies(event -> {
+			assertThat(event.getString("action")).isEqualTo("evicted");
+			assertThat(event.getString("outcome")).isEqualTo("expired");
+		});
+	}
+
+	@Test
+	void csrfValidationIsRecordedBySource() throws Exception {
+		SpaCsrfTokenRequestHandler handler = new SpaCsrfTokenRequestHandler();
+		CsrfToken token = new DefaultCsrfToken("X-XSRF-TOKEN", "_csrf", "expected-token");
+		MockHttpServletRequest valid = new MockHttpServletRequest("POST", "/api/user");
+		valid.addHeader("X-XSRF-TOKEN", "expected-token");
+		MockHttpServletRequest invalid = new MockHttpServletRequest("POST", "/api/user");
+		invalid.addHeader("X-XSRF-TOKEN", "forged-token");
+		MockHttpServletRequest missing = new MockHttpServletRequest("POST", "/api/user");
+
+		List<RecordedEvent> events = record("com.example.server.CsrfToken", () -> {
+			handler.resolveCsrfTokenValue(valid, token);
+			handler.resolveCsrfTokenValue(invalid, token);
+			handler.resolveCsrfTokenValue(missing, token);
+		});
+
+		assertThat(events).extracting(event -> event.getString("source") + "/" + event.getString("outcome"))
+			.containsExactly("header/valid", "header/invalid", "none/missing");
+	}
+
+	@Test
+	void failedTokenExchangeRecordsErrorCode() throws Exception {
+		RecordingTokenResponseClient client = new RecordingTokenResponseClient(request -> {
+			throw new OAuth2AuthorizationException(new OAuth2Error("invalid_grant"));
+		});
+
+		List<RecordedEvent> events = record("com.example.server.TokenExchange",
+				() -> assertThatExceptionOfType(OAuth2AuthorizationException.class)
+					.isThrownBy(() -> client.getTokenResponse(codeGrant())));
+
+		assertThat(events).singleElement().satisfies(event -> {
+			assertThat(event.getString("registration")).isEqualTo("github");
+			assertThat(event.getString("outcome")).isEqualTo("invalid_grant");
+		});
+	}
+
+	private static List<RecordedEvent> record(String eventName, Runnable action) throws IOException {
+		Path file = Files.createTempFile("login-events", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(eventName).withoutThreshold();
+			recording.start();
+			action.run();
+			recording.stop();
+			recording.dump(file);
+			return RecordingFile.readAllEvents(file);
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	private static TestingAuthenticationToken alice() {
+		return new TestingAuthenticationToken("alice", "password", "ROLE_USER");
+	}
+
+	private static OAuth2AuthorizationCodeGrantRequest codeGrant() {
+		ClientRegistration github = ClientRegistration.withRegistrationId("github")
+			.clientId("client")
+			.authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+			.redirectUri(REDIRECT_URI)
+			.authorizationUri("https://github.example.com/login/oauth/authorize")
+			.tokenUri("https://github.example.com/login/oauth/access_token")
+			.build();
+		OAuth2AuthorizationRequest authorization = OAuth2AuthorizationRequest.authorizationCode()
+			.authorizationUri(github.getProviderDetails().getAuthorizationUri())
+			.clientId("client")
+			.redirectUri(REDIRECT_URI)
+			.state("state")
+			.build();
+		OAuth2AuthorizationResponse response = OAuth2AuthorizationResponse.success("code")
+			.redirectUri(REDIRECT_URI)
+			.state("state")
+			.build();
+		return new OAuth2AuthorizationCodeGrantRequest(github,
+				new OAuth2AuthorizationExchange(authorization, response));
+	}
+
+}
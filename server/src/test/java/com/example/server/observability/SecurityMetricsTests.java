@@ -0,0 +1,124 @@
+package com.example.server.observability;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.web.access.AccessDeniedHandlerImpl;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.security.web.csrf.InvalidCsrfTokenException;
+import org.springframework.security.web.csrf.MissingCsrfTokenException;
+
+class SecurityMetricsTests {
+
+	private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+
+	private final SecurityMetrics metrics = new SecurityMetrics(this.meters, List.of("github"));
+
+	@AfterEach
+	void clearContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void everyTagIsRegisteredUpFront() {
+		assertThat(this.meters.get("bff.login").timers()).hasSize(4);
+		assertThat(this.meters.get("bff.csrf.rejected").functionCounters()).hasSize(3);
+		assertThat(this.meters.get("bff.sessions.evicted").functionCounter().count()).isZero();
+	}
+
+	@Test
+	void callbackIsTimedByRegistrationAndOutcome() throws Exception {
+		LoginTimingFilter filter = new LoginTimingFilter(this.metrics);
+
+		filter.doFilter(callback("github"), new MockHttpServletResponse(), login("github"));
+		filter.doFilter(callback("github"), new MockHttpServletResponse(), failure());
+		filter.doFilter(callback("gitlab"), new MockHttpServletResponse(), failure());
+		filter.doFilter(new MockHttpServletRequest("GET", "/api/user"), new MockHttpServletResponse(),
+				login("github"));
+
+		assertThat(loginCount("github", "success")).isEqualTo(1);
+		assertThat(loginCount("github", "failure")).isEqualTo(1);
+		assertThat(loginCount("unknown", "failure")).isEqualTo(1);
+	}
+
+	@Test
+	void csrfRejectionsAreCountedByTokenSource() throws Exception {
+		CsrfRejectionCountingHandler handler = new CsrfRejectionCountingHandler(new AccessDeniedHandlerImpl(),
+				this.metrics);
+		MockHttpServletRequest header = post();
+		header.addHeader("X-XSRF-TOKEN", "forged");
+		MockHttpServletRequest parameter = post();
+		parameter.addParameter("_csrf", "forged");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		handler.handle(header, response, new InvalidCsrfTokenException(token(), "forged"));
+		handler.handle(parameter, new MockHttpServletResponse(), new InvalidCsrfTokenException(token(), "forged"));
+		handler.handle(post(), new MockHttpServletResponse(), new MissingCsrfTokenException("token"));
+		handler.handle(post(), new MockHttpServletResponse(), new AccessDeniedException("not a CSRF failure"));
+
+		assertThat(response.getStatus()).isEqualTo(403);
+		assertThat(csrfRejections("header")).isEqualTo(1);
+		assertThat(csrfRejections("parameter")).isEqualTo(1);
+		assertThat(csrfRejections("missing")).isEqualTo(1);
+	}
+
+	private long loginCount(String registration, String outcome) {
+		return this.meters.get("bff.login").tag("registration", registration).tag("outcome", outcome).timer().count();
+	}
+
+	private double csrfRejections(String source) {
+		return this.meters.get("bff.csrf.rejected").tag("source", source).functionCounter().count();
+	}
+
+	private static MockHttpServletRequest callback(String registrationId) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/login/oauth2/code/" + registrationId);
+		request.setParameter("code", "code");
+		request.setParameter("state", "state");
+		return request;
+	}
+
+	/**
+	 * What OAuth2LoginAuthenticationFilter leaves behind on success.
+	 */
+	private static FilterChain login(String registrationId) {
+		return (request, response) -> {
+			DefaultOAuth2User user = new DefaultOAuth2User(AuthorityUtils.createAuthorityList("OAUTH2_USER"),
+					Map.of("id", 1), "id");
+			SecurityContextHolder.setContext(new SecurityContextImpl(
+					new OAuth2AuthenticationToken(user, user.getAuthorities(), registrationId)));
+		};
+	}
+
+	/**
+	 * What it leaves behind on failure.
+	 */
+	private static FilterChain failure() {
+		return (request, response) -> SecurityContextHolder.clearContext();
+	}
+
+	private static MockHttpServletRequest post() {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/user");
+		request.setAttribute(CsrfToken.class.getName(), token());
+		return request;
+	}
+
+	private static CsrfToken token() {
+		return new DefaultCsrfToken("X-XSRF-TOKEN", "_csrf", "expected-token");
+	}
+
+}
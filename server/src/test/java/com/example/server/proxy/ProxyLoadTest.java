@@ -0,0 +1,66 @@
+package com.example.server.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+
+import com.example.server.testing.BffLoadClient;
+import com.example.server.testing.StubIdentityProvider;
+import com.example.server.testing.StubUpstream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Token-relay proxy throughput over real HTTP: logged-in sessions GET
+ * /api/proxy/stub/bytes/{n} through the full security chain, compared with
+ * the same GET sent straight to the StubUpstream (the proxy's overhead).
+ * Small responses measure per-request cost, 1 MB responses streaming.
+ *
+ * Run: ./gradlew loadTest --tests '*ProxyLoadTest'
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "spring.profiles.active=loadtest")
+class ProxyLoadTest {
+
+	static final StubIdentityProvider idp = StubIdentityProvider.start(Duration.ZERO);
+
+	static final StubUpstream upstream = StubUpstream.start();
+
+	@LocalServerPort
+	int port;
+
+	@DynamicPropertySource
+	static void stubs(DynamicPropertyRegistry registry) {
+		idp.registerGithub(registry);
+		registry.add("bff.proxy.upstreams", () -> "stub=github@" + upstream.baseUrl());
+	}
+
+	@AfterAll
+	static void stopStubs() {
+		idp.close();
+		upstream.close();
+	}
+
+	@Test
+	void proxyThroughput() throws Exception {
+		BffLoadClient bff = new BffLoadClient("http://127.0.0.1:" + this.port);
+		BffLoadClient direct = new BffLoadClient(upstream.baseUrl());
+		List<String> sessions = bff.loginSessions(BffLoadClient.SESSIONS);
+
+		for (int size : new int[] { 1024, 1024 * 1024 }) {
+			BffLoadClient.Result baseline = direct.throughput("/bytes/" + size, List.of(""));
+			BffLoadClient.Result proxied = bff.throughput("/api/proxy/stub/bytes/" + size, sessions);
+			System.out.println(baseline.format("direct"));
+			System.out.println(proxied.format("proxied"));
+			assertThat(proxied.bytesPerSecond()).isPositive();
+		}
+		assertThat(upstream.lastRequest().header("Authorization")).startsWith("Bearer gho_stub_");
+	}
+}
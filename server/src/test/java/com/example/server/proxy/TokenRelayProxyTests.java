@@ -0,0 +1,208 @@
+package com.example.server.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import com.example.server.testing.StubUpstream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.client.ClientAuthorizationRequiredException;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.web.server.ResponseStatusException;
+
+class TokenRelayProxyTests {
+
+	static final StubUpstream upstream = StubUpstream.start();
+
+	final TokenRelayProxy proxy = new TokenRelayProxy(HttpClient.newHttpClient(),
+			ProxyConfig.parseUpstreams(
+					List.of("stub=github@" + upstream.baseUrl() + "/v1", "down=github@http://127.0.0.1:1")),
+			Duration.ofSeconds(5));
+
+	@AfterAll
+	static void stopUpstream() {
+		upstream.close();
+	}
+
+	@Test
+	void relaysAccessTokenInsteadOfBrowserCredentials() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/proxy/stub/user/repos");
+		request.setQueryString("per_page=5&q=a%20b");
+		request.addHeader("Accept", "application/json");
+		request.addHeader("Cookie", "JSESSIONID=abc; XSRF-TOKEN=def");
+		request.addHeader("X-XSRF-TOKEN", "def");
+		request.addHeader("Authorization", "Basic Zm9vOmJhcg==");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		this.proxy.forward("stub", "/user/repos", request, response, "gho_token");
+
+		StubUpstream.Recorded received = upstream.lastRequest();
+		assertThat(received.uri()).hasToString("/v1/user/repos?per_page=5&q=a%20b");
+		assertThat(received.header("Authorization")).isEqualTo("Bearer gho_token");
+		assertThat(received.header("Accept")).isEqualTo("application/json");
+		assertThat(received.header("Cookie")).isNull();
+		assertThat(received.header("X-xsrf-token")).isNull();
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getHeader("Set-Cookie")).isNull();
+	}
+
+	@Test
+	void leavesCachingFramingAndCorsHeadersToTheBff() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		this.proxy.forward("stub", "/user", new MockHttpServletRequest("GET", "/api/proxy/stub/user"), response,
+				"gho_token");
+
+		assertThat(response.getHeader("Cache-Control")).isNull();
+		assertThat(response.getHeader("Access-Control-Allow-Origin")).isNull();
+		assertThat(response.getHeader("X-Frame-Options")).isNull();
+		assertThat(response.getHeader("ETag")).isEqualTo("\"stub\"");
+	}
+
+	@Test
+	void dropsHeadersNamedInConnectionButKeepsEndToEndOnes() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/proxy/stub/user");
+		request.addHeader("Connection", "keep-alive, X-Hop");
+		request.addHeader("X-Hop", "for the BFF only");
+		request.addHeader("Referer", "https://bff.example.com/dashboard");
+		request.addHeader("Via", "1.1 nginx");
+
+		this.proxy.forward("stub", "/user", request, new MockHttpServletResponse(), "gho_token");
+
+		StubUpstream.Recorded received = upstream.lastRequest();
+		assertThat(received.header("X-Hop")).isNull();
+		assertThat(received.header("Referer")).isEqualTo("https://bff.example.com/dashboard");
+		assertThat(received.header("Via")).isEqualTo("1.1 nginx");
+	}
+
+	@Test
+	void connectionOptionsAreCaseInsensitiveAndCommaSeparated() {
+		assertThat(TokenRelayProxy.connectionOptions(List.of("Keep-Alive, X-Hop", "x-other")))
+			.containsExactlyInAnyOrder("keep-alive", "x-hop", "x-other");
+		assertThat(TokenRelayProxy.connectionOptions(List.of())).isEmpty();
+	}
+
+	@Test
+	void upstreamBoundToAnotherLoginIsForbidden() {
+		ProxyController controller = new ProxyController(this.proxy, (authorize) -> {
+			throw new AssertionError("no token may be looked up");
+		});
+		DefaultOAuth2User user = new DefaultOAuth2User(AuthorityUtils.createAuthorityList("OAUTH2_USER"),
+				Map.of("sub", "alice"), "sub");
+		OAuth2AuthenticationToken keycloak = new OAuth2AuthenticationToken(user, user.getAuthorities(), "keycloak");
+
+		assertThatExceptionOfType(ResponseStatusException.class)
+			.isThrownBy(() -> controller.proxy("stub", keycloak, new MockHttpServletRequest("GET", "/api/proxy/stub/"),
+					new MockHttpServletResponse()))
+			.satisfies(ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN));
+	}
+
+	@Test
+	void sessionWithoutAuthorizedClientIsUnauthorized() {
+		ProxyController controller = new ProxyController(this.proxy, (authorize) -> {
+			// What the authorization_code provider does when the session holds no token
+			throw new ClientAuthorizationRequiredException("github");
+		});
+		long requests = upstream.requests();
+
+		assertThatExceptionOfType(ResponseStatusException.class)
+			.isThrownBy(() -> controller.proxy("stub", githubLogin(),
+					new MockHttpServletRequest("GET", "/api/proxy/stub/user"), new MockHttpServletResponse()))
+			.satisfies(ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED));
+		assertThat(upstream.requests()).isEqualTo(requests);
+	}
+
+	@Test
+	void failedTokenRefreshIsUnauthorized() {
+		ProxyController controller = new ProxyController(this.proxy, (authorize) -> {
+			throw new OAuth2AuthorizationException(new OAuth2Error("invalid_grant"));
+		});
+
+		assertThatExceptionOfType(ResponseStatusException.class)
+			.isThrownBy(() -> controller.proxy("stub", githubLogin(),
+					new MockHttpServletRequest("GET", "/api/proxy/stub/user"), new MockHttpServletResponse()))
+			.satisfies(ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED));
+	}
+
+	private static OAuth2AuthenticationToken githubLogin() {
+		DefaultOAuth2User user = new DefaultOAuth2User(AuthorityUtils.createAuthorityList("OAUTH2_USER"),
+				Map.of("id", 583231), "id");
+		return new OAuth2AuthenticationToken(user, user.getAuthorities(), "github");
+	}
+
+	@Test
+	void streamsRequestAndResponseBodies() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/proxy/stub/echo");
+		request.setContentType("application/json");
+		request.setContent("{\"name\":\"demo\"}".getBytes(StandardCharsets.UTF_8));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		this.proxy.forward("stub", "/echo", request, response, "gho_token");
+
+		assertThat(upstream.lastRequest().method()).isEqualTo("POST");
+		assertThat(response.getContentType()).isEqualTo("application/json");
+		assertThat(response.getContentAsString()).isEqualTo("{\"name\":\"demo\"}");
+	}
+
+	@Test
+	void copiesLargeResponses() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		this.proxy.forward("stub", "/bytes/1000000", new MockHttpServletRequest("GET", "/"), response, "t");
+
+		assertThat(response.getContentAsByteArray()).hasSize(1_000_000);
+		assertThat(response.getContentLengthLong()).isEqualTo(1_000_000);
+	}
+
+	@Test
+	void unknownUpstreamIsNotFound() {
+		assertThatExceptionOfType(ResponseStatusException.class)
+			.isThrownBy(() -> this.proxy.forward("other", "/", new MockHttpServletRequest(),
+					new MockHttpServletResponse(), "t"))
+			.satisfies(ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+	}
+
+	@Test
+	void unreachableUpstreamIsBadGateway() {
+		assertThatExceptionOfType(ResponseStatusException.class)
+			.isThrownBy(() -> this.proxy.forward("down", "/", new MockHttpServletRequest("GET", "/"),
+					new MockHttpServletResponse(), "t"))
+			.satisfies(ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.BAD_GATEWAY));
+	}
+
+	@Test
+	void dotSegmentsCannotLeaveTheBasePath() {
+		URI base = URI.create("http://upstream/v1");
+		assertThat(TokenRelayProxy.target(base, "/a/b", null)).hasToString("http://upstream/v1/a/b");
+		assertThat(TokenRelayProxy.target(base, "", "x=1")).hasToString("http://upstream/v1?x=1");
+		for (String path : List.of("/../admin", "/a/%2e%2e/admin", "/./a", "relative")) {
+			assertThatExceptionOfType(ResponseStatusException.class)
+				.isThrownBy(() -> TokenRelayProxy.target(base, path, null));
+		}
+	}
+
+	@Test
+	void upstreamsAreBoundToARegistration() {
+		assertThat(ProxyConfig.parseUpstreams(List.of("github=github@https://api.github.com", " "))).isEqualTo(
+				Map.of("github", new TokenRelayProxy.Upstream("github", URI.create("https://api.github.com"))));
+		for (String entry : List.of("https://api.github.com", "github=https://api.github.com",
+				"github=@https://api.github.com")) {
+			assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> ProxyConfig.parseUpstreams(List.of(entry)));
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package com.example.server.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.session.MapSession;
+
+class CompactSessionCodecTests {
+
+	private final CompactSessionCodec codec = new CompactSessionCodec();
+
+	@Test
+	void authenticatedSessionRoundTrips() {
+		MapSession session = authenticatedSession();
+
+		MapSession decoded = this.codec.decode(this.codec.encode(session));
+
+		assertThat(decoded.getId()).isEqualTo(session.getId());
+		assertThat(decoded.getCreationTime()).isEqualTo(session.getCreationTime());
+		assertThat(decoded.getLastAccessedTime()).isEqualTo(session.getLastAccessedTime());
+		assertThat(decoded.getMaxInactiveInterval()).isEqualTo(session.getMaxInactiveInterval());
+
+		SecurityContext context = decoded.getAttribute("SPRING_SECURITY_CONTEXT");
+		OAuth2AuthenticationToken token = (OAuth2AuthenticationToken) context.getAuthentication();
+		OAuth2AuthenticationToken original =
+				(OAuth2AuthenticationToken) session.<SecurityContext>getAttribute("SPRING_SECURITY_CONTEXT")
+					.getAuthentication();
+		assertThat(token).isEqualTo(original);
+		assertThat(token.getName()).isEqualTo("583231");
+		assertThat(token.getPrincipal().getAttributes()).isEqualTo(original.getPrincipal().getAttributes());
+		assertThat(token.getDetails()).isEqualTo(original.getDetails());
+		assertThat(token.isAuthenticated()).isTrue();
+	}
+
+	@Test
+	void otherValuesFallBackToJdkSerialization() {
+		MapSession session = new MapSession("plain");
+		session.setAttribute("custom", Duration.ofMinutes(5));
+		session.setAttribute("nested", Map.of("list", List.of(1, 2L, 3.5, true, "x")));
+		session.setAttribute("anonymous", new SecurityContextImpl());
+
+		MapSession decoded = this.codec.decode(this.codec.encode(session));
+
+		assertThat(decoded.<Duration>getAttribute("custom")).isEqualTo(Duration.ofMinutes(5));
+		assertThat(decoded.<Map<String, Object>>getAttribute("nested"))
+			.isEqualTo(Map.of("list", List.of(1, 2L, 3.5, true, "x")));
+		assertThat(decoded.<SecurityContext>getAttribute("anonymous").getAuthentication()).isNull();
+	}
+
+	@Test
+	void cachedUserKeepsItsJsonBytes() {
+		MapSession session = new MapSession("profile");
+		byte[] json = "{\"login\":\"octocat\",\"id\":583231}".getBytes();
+		session.setAttribute("com.example.server.UserController.CACHED_USER", CachedUser.of("583231", json));
+
+		byte[] encoded = this.codec.encode(session);
+		CachedUser decoded = this.codec.decode(encoded).getAttribute("com.example.server.UserController.CACHED_USER");
+
+		assertThat(decoded.name()).isEqualTo("583231");
+		assertThat(decoded.json()).isEqualTo(json);
+		assertThat(decoded.eTag()).isEqualTo(CachedUser.of("583231", json).eTag());
+		assertThat(encoded.length).as("no class descriptors").isLessThan(json.length + 64);
+	}
+
+	@Test
+	void decodesJdkCodecFormat() {
+		MapSession session = authenticatedSession();
+
+		MapSession decoded = this.codec.decode(new JdkSessionCodec().encode(session));
+
+		assertThat(decoded.<SecurityContext>getAttribute("SPRING_SECURITY_CONTEXT"))
+			.isEqualTo(session.getAttribute("SPRING_SECURITY_CONTEXT"));
+	}
+
+	@Test
+	void encodingIsLessThanHalfOfJdkSerialization() {
+		MapSession session = authenticatedSession();
+
+		int compact = this.codec.encode(session).length;
+		int jdk = new JdkSessionCodec().encode(session).length;
+
+		assertThat(compact).isLessThan(jdk / 2);
+	}
+
+	@Test
+	void corruptInputIsRejected() {
+		byte[] encoded = this.codec.encode(authenticatedSession());
+
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> this.codec.decode(Arrays.copyOf(encoded, encoded.length / 2)));
+	}
+
+	private MapSession authenticatedSession() {
+		Map<String, Object> attributes = githubUser();
+		DefaultOAuth2User user = new DefaultOAuth2User(
+				List.of(new OAuth2UserAuthority("OAUTH2_USER", attributes, "id"),
+						new SimpleGrantedAuthority("SCOPE_read:user")),
+				attributes, "id");
+		OAuth2AuthenticationToken token = new OAuth2AuthenticationToken(user, user.getAuthorities(), "github");
+		token.setDetails(new WebAuthenticationDetails("203.0.113.7", "3F2A9C"));
+
+		MapSession session = new MapSession("7d9f0c9e-2f4b-4c4e-9a57-3b3f1c1e7a10");
+		session.setCreationTime(Instant.parse("2026-01-01T10:00:00Z"));
+		session.setLastAccessedTime(Instant.parse("2026-01-01T10:05:00Z"));
+		session.setMaxInactiveInterval(Duration.ofMinutes(15));
+		session.setAttribute("SPRING_SECURITY_CONTEXT", new SecurityContextImpl(token));
+		return session;
+	}
+
+	static Map<String, Object> githubUser() {
+		Map<String, Object> user = new LinkedHashMap<>();
+		user.put("login", "octocat");
+		user.put("id", 583231);
+		user.put("node_id", "MDQ6VXNlcjU4MzIzMQ==");
+		user.put("avatar_url", "https://avatars.githubusercontent.com/u/583231?v=4");
+		user.put("gravatar_id", "");
+		user.put("url", "https://api.github.com/users/octocat");
+		user.put("html_url", "https://github.com/octocat");
+		user.put("followers_url", "https://api.github.com/users/octocat/followers");
+		user.put("following_url", "https://api.github.com/users/octocat/following{/other_user}");
+		user.put("gists_url", "https://api.github.com/users/octocat/gists{/gist_id}");
+		user.put("starred_url", "https://api.github.com/users/octocat/starred{/owner}{/repo}");
+		user.put("subscriptions_url", "https://api.github.com/users/octocat/subscriptions");
+		user.put("organizations_url", "https://api.github.com/users/octocat/orgs");
+		user.put("repos_url", "https://api.github.com/users/octocat/repos");
+		user.put("events_url", "https://api.github.com/users/octocat/events{/privacy}");
+		user.put("received_events_url", "https://api.github.com/users/octocat/received_events");
+		user.put("type", "User");
+		user.put("user_view_type", "public");
+		user.put("site_admin", false);
+		user.put("name", "The Octocat");
+		user.put("company", "@github");
+		user.put("blog", "https://github.blog");
+		user.put("location", "San Francisco");
+		user.put("email", null);
+		user.put("hireable", null);
+		user.put("bio", null);
+		user.put("twitter_username", null);
+		user.put("public_repos", 8);
+		user.put("public_gists", 8);
+		user.put("followers", 17000);
+		user.put("following", 9);
+		user.put("created_at", "2011-01-25T18:44:36Z");
+		user.put("updated_at", "2026-01-01T09:00:00Z");
+		return user;
+	}
+}
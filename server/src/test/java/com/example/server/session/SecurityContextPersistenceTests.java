@@ -0,0 +1,105 @@
+package com.example.server.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextHolderFilter;
+
+/**
+ * What the main chain gets from Spring Security's default context
+ * persistence: SecurityContextHolderFilter loads the context lazily, at
+ * most once per request, and never saves it. Only login and logout call
+ * saveContext(), so no wrapper repository is needed.
+ */
+class SecurityContextPersistenceTests {
+
+	private static final String CONTEXT = HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY;
+
+	private final CountingSession session = new CountingSession();
+
+	@BeforeEach
+	void login() {
+		this.session.setAttribute(CONTEXT, new SecurityContextImpl(UsernamePasswordAuthenticationToken
+			.authenticated("octocat", null, AuthorityUtils.createAuthorityList("OAUTH2_USER"))));
+		this.session.contextReads = 0;
+		this.session.contextWrites = 0;
+	}
+
+	@AfterEach
+	void clear() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void contextIsReadFromTheSessionOncePerRequest() throws Exception {
+		List<String> names = new ArrayList<>();
+
+		request((request, response) -> {
+			for (int i = 0; i < 3; i++) {
+				names.add(SecurityContextHolder.getContext().getAuthentication().getName());
+			}
+		});
+
+		assertThat(names).containsExactly("octocat", "octocat", "octocat");
+		assertThat(this.session.contextReads).isEqualTo(1);
+	}
+
+	@Test
+	void requestThatNeverAsksForTheContextDoesNotReadIt() throws Exception {
+		request((request, response) -> {
+		});
+
+		assertThat(this.session.contextReads).isZero();
+	}
+
+	@Test
+	void ordinaryRequestDoesNotSaveTheContext() throws Exception {
+		request((request, response) -> SecurityContextHolder.getContext().getAuthentication());
+
+		assertThat(this.session.contextWrites).isZero();
+	}
+
+	private void request(FilterChain application) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user");
+		request.setSession(this.session);
+		new SecurityContextHolderFilter(new HttpSessionSecurityContextRepository())
+			.doFilter(request, new MockHttpServletResponse(), application);
+	}
+
+	static final class CountingSession extends MockHttpSession {
+
+		int contextReads;
+
+		int contextWrites;
+
+		@Override
+		public Object getAttribute(String name) {
+			if (CONTEXT.equals(name)) {
+				this.contextReads++;
+			}
+			return super.getAttribute(name);
+		}
+
+		@Override
+		public void setAttribute(String name, Object value) {
+			if (CONTEXT.equals(name)) {
+				this.contextWrites++;
+			}
+			super.setAttribute(name, value);
+		}
+	}
+}
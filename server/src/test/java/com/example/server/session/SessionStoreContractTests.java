@@ -0,0 +1,137 @@
+package com.example.server.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.session.MapSession;
+import org.springframework.session.events.AbstractSessionEvent;
+import org.springframework.session.events.SessionCreatedEvent;
+import org.springframework.session.events.SessionDeletedEvent;
+import org.springframework.session.events.SessionExpiredEvent;
+
+/**
+ * Behaviour every {@link SessionStore} must share with Spring Session's
+ * MapSessionRepository.
+ */
+abstract class SessionStoreContractTests {
+
+	protected final List<AbstractSessionEvent> events = new ArrayList<>();
+
+	protected SessionStore store;
+
+	protected abstract SessionStore createStore() throws Exception;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		this.store = createStore();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		if (this.store instanceof AutoCloseable closeable) {
+			closeable.close();
+		}
+	}
+
+	@Test
+	void savedSessionIsFoundWithItsAttributes() {
+		MapSession session = this.store.createSession();
+		session.setAttribute("user", "octocat");
+		this.store.save(session);
+
+		MapSession found = this.store.findById(session.getId());
+
+		assertThat(found).isNotNull();
+		assertThat(found.<String>getAttribute("user")).isEqualTo("octocat");
+		assertThat(this.store.size()).isEqualTo(1);
+		assertThat(this.events).singleElement().isInstanceOf(SessionCreatedEvent.class);
+	}
+
+	@Test
+	void changesAreNotVisibleUntilSaved() {
+		MapSession session = this.store.createSession();
+		this.store.save(session);
+
+		this.store.findById(session.getId()).setAttribute("user", "octocat");
+
+		assertThat(this.store.findById(session.getId()).<String>getAttribute("user")).isNull();
+	}
+
+	@Test
+	void changedSessionIdReplacesTheOriginal() {
+		MapSession session = this.store.createSession();
+		this.store.save(session);
+		String originalId = session.getId();
+
+		MapSession found = this.store.findById(originalId);
+		found.changeSessionId();
+		this.store.save(found);
+
+		assertThat(this.store.findById(originalId)).isNull();
+		assertThat(this.store.findById(found.getId())).isNotNull();
+		assertThat(this.store.size()).isEqualTo(1);
+		assertThat(this.events).hasSize(1);
+	}
+
+	@Test
+	void deletedSessionIsGone() {
+		MapSession session = this.store.createSession();
+		this.store.save(session);
+
+		this.store.deleteById(session.getId());
+
+		assertThat(this.store.findById(session.getId())).isNull();
+		assertThat(this.store.size()).isZero();
+		assertThat(this.events).last().isInstanceOf(SessionDeletedEvent.class);
+	}
+
+	@Test
+	void expiredSessionIsNotReturned() {
+		MapSession session = expiredSession();
+		this.store.save(session);
+
+		assertThat(this.store.findById(session.getId())).isNull();
+		assertThat(this.events).last().isInstanceOf(SessionExpiredEvent.class);
+	}
+
+	@Test
+	void cleanUpRemovesExpiredSessionsOnly() {
+		MapSession live = this.store.createSession();
+		this.store.save(live);
+		MapSession expired = expiredSession();
+		this.store.save(expired);
+
+		cleanUpFully();
+
+		assertThat(this.store.size()).isEqualTo(1);
+		assertThat(this.store.findById(live.getId())).isNotNull();
+		assertThat(this.events).filteredOn(SessionExpiredEvent.class::isInstance).hasSize(1);
+	}
+
+	@Test
+	void storeIsAvailable() {
+		assertThat(this.store.isAvailable()).isTrue();
+	}
+
+	/**
+	 * Stores may sweep incrementally; call cleanUpExpiredSessions() until a
+	 * full pass has been made.
+	 */
+	protected void cleanUpFully() {
+		this.store.cleanUpExpiredSessions();
+	}
+
+	protected MapSession expiredSession() {
+		MapSession session = this.store.createSession();
+		session.setMaxInactiveInterval(Duration.ofMinutes(1));
+		session.setLastAccessedTime(Instant.now().minus(Duration.ofMinutes(2)));
+		return session;
+	}
+}
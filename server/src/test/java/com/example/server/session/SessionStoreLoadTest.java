@@ -0,0 +1,72 @@
+package com.example.server.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.session.MapSession;
+
+/**
+ * 100k sessions per store, then random findById calls; prints latency
+ * percentiles. Run with ./gradlew loadTest (excluded from ./gradlew test).
+ */
+@Tag("load")
+class SessionStoreLoadTest {
+
+	private static final int SESSIONS = 100_000;
+
+	private static final int LOOKUPS = 200_000;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void shardedMemory() {
+		run(new ShardedMapSessionStore(64, Duration.ofMinutes(30), event -> {
+		}));
+	}
+
+	@Test
+	void segmentFile() throws Exception {
+		try (SegmentFileSessionStore store = new SegmentFileSessionStore(this.directory, 64 * 1024 * 1024,
+				new JdkSessionCodec(), Duration.ofMinutes(30), event -> {
+				})) {
+			run(store);
+		}
+	}
+
+	private static void run(SessionStore store) {
+		String[] ids = new String[SESSIONS];
+		long start = System.nanoTime();
+		for (int i = 0; i < SESSIONS; i++) {
+			MapSession session = store.createSession();
+			session.setAttribute("user", "user-" + i);
+			session.setAttribute("SPRING_SECURITY_SAVED_REQUEST", "/dashboard");
+			store.save(session);
+			ids[i] = session.getId();
+		}
+		long populate = System.nanoTime() - start;
+
+		long[] latencies = new long[LOOKUPS];
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int i = 0; i < LOOKUPS; i++) {
+			String id = ids[random.nextInt(SESSIONS)];
+			long t0 = System.nanoTime();
+			MapSession found = store.findById(id);
+			latencies[i] = System.nanoTime() - t0;
+			assertThat(found).isNotNull();
+		}
+		Arrays.sort(latencies);
+
+		System.out.printf("%s: %d sessions saved in %d ms; findById p50=%dns p99=%dns p99.9=%dns max=%dns%n",
+				store.name(), SESSIONS, populate / 1_000_000, latencies[LOOKUPS / 2],
+				latencies[(int) (LOOKUPS * 0.99)], latencies[(int) (LOOKUPS * 0.999)], latencies[LOOKUPS - 1]);
+		assertThat(store.size()).isEqualTo(SESSIONS);
+	}
+}
@@ -0,0 +1,53 @@
+package com.example.server.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.session.MapSession;
+import org.springframework.session.events.AbstractSessionEvent;
+import org.springframework.session.events.SessionExpiredEvent;
+
+class ShardedMapSessionStoreTests extends SessionStoreContractTests {
+
+	private static final int SHARDS = 4;
+
+	@Override
+	protected SessionStore createStore() {
+		return new ShardedMapSessionStore(SHARDS, Duration.ofMinutes(30),
+				event -> this.events.add((AbstractSessionEvent) event));
+	}
+
+	@Test
+	void shardCountIsRoundedUpToPowerOfTwo() {
+		ShardedMapSessionStore store = new ShardedMapSessionStore(5, Duration.ofMinutes(30), event -> {
+		});
+		for (int i = 0; i < 100; i++) {
+			store.save(store.createSession());
+		}
+
+		assertThat(store.size()).isEqualTo(100);
+	}
+
+	@Test
+	void idleSessionsExpireOnTheFirstCleanupAfterTheirTimeout() {
+		Duration timeout = Duration.ofMinutes(15);
+		ShardedMapSessionStore store = new ShardedMapSessionStore(64, timeout,
+				event -> this.events.add((AbstractSessionEvent) event));
+		// Enough sessions to land in every shard, each idle for exactly one timeout
+		for (int i = 0; i < 1000; i++) {
+			MapSession session = store.createSession();
+			session.setLastAccessedTime(Instant.now().minus(timeout));
+			store.save(session);
+		}
+		this.events.clear();
+
+		// One cleanup interval later
+		store.cleanUpExpiredSessions();
+
+		assertThat(store.size()).isZero();
+		assertThat(this.events).hasSize(1000).allMatch(SessionExpiredEvent.class::isInstance);
+	}
+}
@@ -0,0 +1,78 @@
+package com.example.server.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import com.example.server.testing.MutableClock;
+import org.junit.jupiter.api.Test;
+import org.springframework.session.MapSession;
+import org.springframework.session.events.AbstractSessionEvent;
+import org.springframework.session.events.SessionExpiredEvent;
+
+/**
+ * ShardedMapSessionStore with bff.session.expiry=wheel.
+ */
+class ShardedMapSessionStoreWheelTests extends SessionStoreContractTests {
+
+	private static final Duration TICK = Duration.ofSeconds(1);
+
+	private final MutableClock clock = new MutableClock();
+
+	@Override
+	protected SessionStore createStore() {
+		return new ShardedMapSessionStore(4, Duration.ofMinutes(30),
+				event -> this.events.add((AbstractSessionEvent) event), new TimingWheel<>(TICK, this.clock));
+	}
+
+	@Override
+	protected void cleanUpFully() {
+		// Sessions saved in the current tick come due on the next one
+		this.clock.advance(TICK);
+		this.store.cleanUpExpiredSessions();
+	}
+
+	@Test
+	void sessionUsedAfterItWasFiledIsNotExpired() {
+		MapSession session = this.store.createSession();
+		session.setMaxInactiveInterval(Duration.ofMinutes(1));
+		session.setLastAccessedTime(Instant.now().minus(Duration.ofMinutes(2)));
+		this.store.save(session);
+
+		// Filed as already due, then used again before the sweeper ran
+		session.setLastAccessedTime(Instant.now());
+		this.store.save(session);
+		cleanUpFully();
+
+		assertThat(this.store.findById(session.getId())).isNotNull();
+		assertThat(this.events).noneMatch(SessionExpiredEvent.class::isInstance);
+	}
+
+	@Test
+	void deletedAndLazilyExpiredSessionsLeaveTheWheel() {
+		MapSession deleted = this.store.createSession();
+		this.store.save(deleted);
+		MapSession expired = expiredSession();
+		this.store.save(expired);
+
+		this.store.deleteById(deleted.getId());
+		this.store.findById(expired.getId());
+		cleanUpFully();
+
+		assertThat(this.store.size()).isZero();
+		assertThat(this.events).filteredOn(SessionExpiredEvent.class::isInstance).hasSize(1);
+	}
+
+	@Test
+	void sessionWithoutTimeoutIsNeverExpired() {
+		MapSession session = this.store.createSession();
+		session.setMaxInactiveInterval(Duration.ofSeconds(-1));
+		session.setLastAccessedTime(Instant.now().minus(Duration.ofDays(365)));
+		this.store.save(session);
+
+		cleanUpFully();
+
+		assertThat(this.store.findById(session.getId())).isNotNull();
+	}
+}
@@ -0,0 +1,123 @@
+package com.example.server.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.web.session.HttpSessionDestroyedEvent;
+import org.springframework.security.web.session.HttpSessionIdChangedEvent;
+
+class StripedSessionRegistryTests {
+
+	private final StripedSessionRegistry registry = new StripedSessionRegistry();
+
+	@Test
+	void registeredSessionIsFoundByIdAndPrincipal() {
+		this.registry.registerNewSession("s1", "alice");
+
+		SessionInformation session = this.registry.getSessionInformation("s1");
+
+		assertThat(session.getPrincipal()).isEqualTo("alice");
+		assertThat(session.getSessionId()).isEqualTo("s1");
+		assertThat(this.registry.getAllSessions("alice", false)).containsExactly(session);
+		assertThat(this.registry.getAllPrincipals()).containsExactly("alice");
+	}
+
+	@Test
+	void expiredSessionsAreListedOnlyOnRequest() {
+		this.registry.registerNewSession("s1", "alice");
+		this.registry.registerNewSession("s2", "alice");
+		this.registry.getSessionInformation("s1").expireNow();
+
+		assertThat(this.registry.getAllSessions("alice", false)).extracting(SessionInformation::getSessionId)
+			.containsExactly("s2");
+		assertThat(this.registry.getAllSessions("alice", true)).extracting(SessionInformation::getSessionId)
+			.containsExactly("s1", "s2");
+	}
+
+	@Test
+	void lastSessionRemovedDropsThePrincipal() {
+		this.registry.registerNewSession("s1", "alice");
+		this.registry.registerNewSession("s2", "alice");
+
+		this.registry.removeSessionInformation("s1");
+		assertThat(this.registry.getAllPrincipals()).containsExactly("alice");
+
+		this.registry.removeSessionInformation("s2");
+		assertThat(this.registry.getAllPrincipals()).isEmpty();
+		assertThat(this.registry.getAllSessions("alice", true)).isEmpty();
+		assertThat(this.registry.size()).isZero();
+	}
+
+	@Test
+	void destroyedSessionEventUnregisters() {
+		this.registry.registerNewSession("s1", "alice");
+
+		this.registry.onApplicationEvent(new HttpSessionDestroyedEvent(new MockHttpSession(null, "s1")));
+
+		assertThat(this.registry.getSessionInformation("s1")).isNull();
+		assertThat(this.registry.getAllPrincipals()).isEmpty();
+	}
+
+	@Test
+	void sessionIdChangeKeepsThePrincipal() {
+		this.registry.registerNewSession("s1", "alice");
+
+		this.registry.onApplicationEvent(new HttpSessionIdChangedEvent(new MockHttpSession(null, "s2"), "s1"));
+
+		assertThat(this.registry.getSessionInformation("s1")).isNull();
+		assertThat(this.registry.getSessionInformation("s2").getPrincipal()).isEqualTo("alice");
+		assertThat(this.registry.getAllSessions("alice", false)).hasSize(1);
+	}
+
+	@Test
+	void refreshLastRequestNeverMovesBackwards() {
+		this.registry.registerNewSession("s1", "alice");
+		SessionInformation session = this.registry.getSessionInformation("s1");
+		long registered = session.getLastRequest().getTime();
+
+		this.registry.refreshLastRequest("s1");
+
+		assertThat(session.getLastRequest().getTime()).isGreaterThanOrEqualTo(registered);
+	}
+
+	@Test
+	void concurrentLoginsAndLogoutsLeaveNoStaleEntries() throws Exception {
+		int threads = 16;
+		int perThread = 2_000;
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> workers = new ArrayList<>();
+		try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+			for (int t = 0; t < threads; t++) {
+				int thread = t;
+				workers.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < perThread; i++) {
+						// Few principals, so threads contend on the same entries
+						String principal = "user" + (i % 8);
+						String sessionId = thread + "-" + i;
+						this.registry.registerNewSession(sessionId, principal);
+						this.registry.refreshLastRequest(sessionId);
+						this.registry.removeSessionInformation(sessionId);
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+		}
+		for (Future<?> worker : workers) {
+			worker.get();
+		}
+
+		assertThat(this.registry.size()).isZero();
+		assertThat(this.registry.getAllPrincipals()).isEmpty();
+	}
+}
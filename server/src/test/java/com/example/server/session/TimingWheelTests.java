@@ -0,0 +1,110 @@
+package com.example.server.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.server.testing.MutableClock;
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTests {
+
+	private static final Duration TICK = Duration.ofSeconds(1);
+
+	private final MutableClock clock = new MutableClock();
+
+	private final TimingWheel<String> wheel = new TimingWheel<>(TICK, this.clock);
+
+	private final List<String> expired = new ArrayList<>();
+
+	@Test
+	void keyIsReportedOnceItsDeadlinePasses() {
+		this.wheel.schedule("s1", inSeconds(10));
+
+		advance(Duration.ofSeconds(9));
+		assertThat(this.expired).isEmpty();
+
+		advance(Duration.ofSeconds(2));
+		assertThat(this.expired).containsExactly("s1");
+		assertThat(this.wheel.size()).isZero();
+	}
+
+	@Test
+	void deadlinesBeyondLevelZeroCascadeDown() {
+		// Level 1 (minutes), level 2 (hours) and past the last level (~6 months)
+		this.wheel.schedule("minutes", inSeconds(1_800));
+		this.wheel.schedule("hours", inSeconds(10_000));
+		this.wheel.schedule("far", inSeconds(20_000_000));
+
+		advance(Duration.ofSeconds(1_799));
+		assertThat(this.expired).isEmpty();
+		advance(Duration.ofSeconds(2));
+		assertThat(this.expired).containsExactly("minutes");
+
+		advance(Duration.ofSeconds(10_000 - 1_801 - 1));
+		assertThat(this.expired).containsExactly("minutes");
+		advance(Duration.ofSeconds(2));
+		assertThat(this.expired).containsExactly("minutes", "hours");
+		assertThat(this.wheel.size()).isEqualTo(1);
+	}
+
+	@Test
+	void touchedKeyIsRefiledInsteadOfReported() {
+		TimingWheel.Entry<String> entry = this.wheel.schedule("s1", inSeconds(10));
+
+		advance(Duration.ofSeconds(5));
+		entry.touch(inSeconds(10));
+		advance(Duration.ofSeconds(6));
+		assertThat(this.expired).isEmpty();
+
+		advance(Duration.ofSeconds(5));
+		assertThat(this.expired).containsExactly("s1");
+	}
+
+	@Test
+	void cancelledKeyIsNeverReported() {
+		TimingWheel.Entry<String> entry = this.wheel.schedule("s1", inSeconds(10));
+		this.wheel.schedule("s2", inSeconds(10));
+
+		this.wheel.cancel(entry);
+		this.wheel.cancel(entry);
+		advance(Duration.ofSeconds(11));
+
+		assertThat(this.expired).containsExactly("s2");
+	}
+
+	@Test
+	void pastDeadlineIsReportedOnTheNextTick() {
+		this.wheel.schedule("s1", inSeconds(-60));
+
+		advance(Duration.ofSeconds(1));
+
+		assertThat(this.expired).containsExactly("s1");
+	}
+
+	@Test
+	void dueKeysAreDeliveredAsOneBatch() {
+		for (int i = 0; i < 1_000; i++) {
+			this.wheel.schedule("s" + i, inSeconds(1 + i % 30));
+		}
+		List<List<String>> batches = new ArrayList<>();
+
+		this.clock.advance(Duration.ofMinutes(1));
+		int reported = this.wheel.advance(batches::add);
+
+		assertThat(reported).isEqualTo(1_000);
+		assertThat(batches).hasSize(1);
+		assertThat(batches.get(0)).hasSize(1_000);
+	}
+
+	private long inSeconds(long seconds) {
+		return this.clock.millis() + seconds * 1000;
+	}
+
+	private void advance(Duration duration) {
+		this.clock.advance(duration);
+		this.wheel.advance(this.expired::addAll);
+	}
+}
@@ -0,0 +1,183 @@
+package com.example.server.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import com.example.server.testing.MutableClock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.session.MapSession;
+
+/**
+ * Store operations per request for the SPA's chatty GETs: 1,000 logged-in
+ * sessions, 2 requests per second each, 5 minutes of (simulated) time, on
+ * segment-file. Each request does what SessionRepositoryFilter does:
+ * findById, new last access time, save. Compares the bare store with
+ * WriteBehindSessionStore and prints the operations the store received.
+ * Run with ./gradlew loadTest (excluded from ./gradlew test).
+ */
+@Tag("load")
+class WriteBehindLoadTest {
+
+	private static final int SESSIONS = 1_000;
+
+	private static final int REQUESTS_PER_SECOND = 2;
+
+	private static final int SECONDS = 300;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void writeThrough() throws Exception {
+		Operations operations = run(false);
+
+		assertThat(operations.writesPerRequest()).isEqualTo(1.0);
+	}
+
+	@Test
+	void writeBehind() throws Exception {
+		Operations operations = run(true);
+
+		// A few bulk writes per min-interval, instead of one write per request
+		assertThat(operations.writesPerRequest()).isLessThan(0.02);
+	}
+
+	private Operations run(boolean writeBehind) throws Exception {
+		MutableClock clock = new MutableClock();
+		try (SegmentFileSessionStore segments = new SegmentFileSessionStore(this.directory, 64 * 1024 * 1024,
+				new JdkSessionCodec(), Duration.ofMinutes(30), event -> {
+				})) {
+			CountingStore counting = new CountingStore(segments);
+			WriteBehindSessionStore coalescing = new WriteBehindSessionStore(counting, Duration.ofSeconds(60),
+					Duration.ofMinutes(5), clock, new SimpleMeterRegistry());
+			SessionStore store = writeBehind ? coalescing : counting;
+			String[] ids = new String[SESSIONS];
+			for (int i = 0; i < SESSIONS; i++) {
+				MapSession session = store.createSession();
+				session.setAttribute("user", "user-" + i);
+				session.setLastAccessedTime(clock.instant());
+				store.save(session);
+				ids[i] = session.getId();
+			}
+			counting.reset();
+
+			long requests = 0;
+			for (int second = 0; second < SECONDS; second++) {
+				for (int r = 0; r < REQUESTS_PER_SECOND; r++) {
+					for (String id : ids) {
+						MapSession session = store.findById(id);
+						session.setLastAccessedTime(clock.instant());
+						store.save(session);
+						requests++;
+					}
+				}
+				clock.advance(Duration.ofSeconds(1));
+				coalescing.flush();
+			}
+
+			Operations operations = new Operations(requests, counting.reads, counting.writes, counting.bulkWrites,
+					counting.sessionsWritten);
+			System.out.printf("%s: %d requests; store reads/request=%.3f writes/request=%.4f (%d writes, "
+					+ "%d bulk writes, %d sessions written)%n", writeBehind ? "write-behind" : "write-through",
+					requests, operations.readsPerRequest(), operations.writesPerRequest(), counting.writes,
+					counting.bulkWrites, counting.sessionsWritten);
+			return operations;
+		}
+	}
+
+	private record Operations(long requests, long reads, long writes, long bulkWrites, long sessionsWritten) {
+
+		double readsPerRequest() {
+			return (double) this.reads / this.requests;
+		}
+
+		/** save() and saveAll() calls, i.e. appends under the store's write lock. */
+		double writesPerRequest() {
+			return (double) (this.writes + this.bulkWrites) / this.requests;
+		}
+	}
+
+	/**
+	 * Counts the calls that reach the wrapped store.
+	 */
+	private static final class CountingStore implements SessionStore {
+
+		private final SessionStore delegate;
+
+		long reads;
+
+		long writes;
+
+		long bulkWrites;
+
+		long sessionsWritten;
+
+		CountingStore(SessionStore delegate) {
+			this.delegate = delegate;
+		}
+
+		void reset() {
+			this.reads = 0;
+			this.writes = 0;
+			this.bulkWrites = 0;
+			this.sessionsWritten = 0;
+		}
+
+		@Override
+		public MapSession createSession() {
+			return this.delegate.createSession();
+		}
+
+		@Override
+		public void save(MapSession session) {
+			this.writes++;
+			this.sessionsWritten++;
+			this.delegate.save(session);
+		}
+
+		@Override
+		public void saveAll(List<MapSession> sessions) {
+			this.bulkWrites++;
+			this.sessionsWritten += sessions.size();
+			this.delegate.saveAll(sessions);
+		}
+
+		@Override
+		public MapSession findById(String id) {
+			this.reads++;
+			return this.delegate.findById(id);
+		}
+
+		@Override
+		public void deleteById(String id) {
+			this.writes++;
+			this.delegate.deleteById(id);
+		}
+
+		@Override
+		public String name() {
+			return this.delegate.name();
+		}
+
+		@Override
+		public int size() {
+			return this.delegate.size();
+		}
+
+		@Override
+		public boolean isAvailable() {
+			return this.delegate.isAvailable();
+		}
+
+		@Override
+		public void cleanUpExpiredSessions() {
+			this.delegate.cleanUpExpiredSessions();
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.example.server.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import com.example.server.testing.MutableClock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.session.MapSession;
+import org.springframework.session.events.AbstractSessionEvent;
+
+class WriteBehindSessionStoreTests extends SessionStoreContractTests {
+
+	private static final int SHARDS = 4;
+
+	private final MutableClock clock = new MutableClock();
+
+	private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+
+	private ShardedMapSessionStore delegate;
+
+	@Override
+	protected SessionStore createStore() {
+		this.delegate = new ShardedMapSessionStore(SHARDS, Duration.ofMinutes(30),
+				event -> this.events.add((AbstractSessionEvent) event));
+		return new WriteBehindSessionStore(this.delegate, Duration.ofSeconds(60), Duration.ofMinutes(5), this.clock,
+				this.meters);
+	}
+
+	@Test
+	void touchIsDeferredButVisibleToReads() {
+		MapSession session = savedSession(Duration.ofMinutes(30));
+		Instant persisted = session.getLastAccessedTime();
+
+		Instant touched = touch(session.getId(), Duration.ofSeconds(10));
+
+		assertThat(writeBehind().pendingTouches()).isEqualTo(1);
+		assertThat(this.delegate.findById(session.getId()).getLastAccessedTime()).isEqualTo(persisted);
+		assertThat(this.store.findById(session.getId()).getLastAccessedTime()).isEqualTo(touched);
+		assertThat(operations("write")).isEqualTo(1);
+	}
+
+	@Test
+	void attributeChangeIsWrittenThrough() {
+		MapSession session = savedSession(Duration.ofMinutes(30));
+
+		MapSession found = this.store.findById(session.getId());
+		found.setAttribute("user", "octocat");
+		this.store.save(found);
+
+		assertThat(writeBehind().pendingTouches()).isZero();
+		assertThat(this.delegate.findById(session.getId()).<String>getAttribute("user")).isEqualTo("octocat");
+		assertThat(operations("write")).isEqualTo(2);
+	}
+
+	@Test
+	void touchesAreFlushedInOneBulkWriteAfterMinInterval() {
+		MapSession first = savedSession(Duration.ofMinutes(30));
+		MapSession second = savedSession(Duration.ofMinutes(30));
+		touch(first.getId(), Duration.ofSeconds(1));
+		touch(second.getId(), Duration.ofSeconds(2));
+		Instant latest = touch(second.getId(), Duration.ofSeconds(3));
+
+		assertThat(writeBehind().flush()).isZero();
+		this.clock.advance(Duration.ofSeconds(60));
+
+		assertThat(writeBehind().flush()).isEqualTo(2);
+		assertThat(this.delegate.findById(second.getId()).getLastAccessedTime()).isEqualTo(latest);
+		assertThat(operations("bulk-write")).isEqualTo(1);
+		assertThat(writeBehind().pendingTouches()).isZero();
+	}
+
+	@Test
+	void touchIsFlushedEarlyWhenTheStoredCopyNearsExpiry() {
+		MapSession session = savedSession(Duration.ofMinutes(5).plusSeconds(10));
+		Instant touched = touch(session.getId(), Duration.ofSeconds(20));
+
+		// 20s after the stored access: well within min-interval, but under 5m left
+		this.clock.advance(Duration.ofSeconds(20));
+		assertThat(writeBehind().flush()).isEqualTo(1);
+		assertThat(this.delegate.findById(session.getId()).getLastAccessedTime()).isEqualTo(touched);
+	}
+
+	@Test
+	void flushKeepsAttributesSavedAfterTheTouch() {
+		MapSession session = savedSession(Duration.ofMinutes(30));
+		Instant touched = touch(session.getId(), Duration.ofSeconds(5));
+		// Written through by another request, without going through findById()
+		MapSession changed = this.delegate.findById(session.getId());
+		changed.setAttribute("user", "octocat");
+		this.delegate.save(changed);
+
+		this.clock.advance(Duration.ofSeconds(60));
+		writeBehind().flush();
+
+		MapSession stored = this.delegate.findById(session.getId());
+		assertThat(stored.<String>getAttribute("user")).isEqualTo("octocat");
+		assertThat(stored.getLastAccessedTime()).isEqualTo(touched);
+	}
+
+	@Test
+	void deleteDropsThePendingTouch() {
+		MapSession session = savedSession(Duration.ofMinutes(30));
+		touch(session.getId(), Duration.ofSeconds(5));
+
+		this.store.deleteById(session.getId());
+		this.clock.advance(Duration.ofSeconds(60));
+
+		assertThat(writeBehind().pendingTouches()).isZero();
+		assertThat(writeBehind().flush()).isZero();
+		assertThat(this.delegate.size()).isZero();
+	}
+
+	@Test
+	void closeFlushesEveryPendingTouch() throws Exception {
+		MapSession session = savedSession(Duration.ofMinutes(30));
+		Instant touched = touch(session.getId(), Duration.ofSeconds(5));
+
+		writeBehind().close();
+
+		assertThat(this.delegate.findById(session.getId()).getLastAccessedTime()).isEqualTo(touched);
+	}
+
+	private MapSession savedSession(Duration maxInactiveInterval) {
+		MapSession session = this.store.createSession();
+		session.setMaxInactiveInterval(maxInactiveInterval);
+		session.setLastAccessedTime(this.clock.instant());
+		this.store.save(session);
+		return session;
+	}
+
+	/**
+	 * What SessionRepositoryFilter does on a request that only reads.
+	 */
+	private Instant touch(String id, Duration after) {
+		MapSession session = this.store.findById(id);
+		Instant accessed = this.clock.instant().plus(after);
+		session.setLastAccessedTime(accessed);
+		this.store.save(session);
+		return accessed;
+	}
+
+	private WriteBehindSessionStore writeBehind() {
+		return (WriteBehindSessionStore) this.store;
+	}
+
+	private double operations(String operation) {
+		return this.meters.get("bff.session.store.operations").tag("operation", operation).counter().count();
+	}
+}
@@ -0,0 +1,355 @@
+package com.example.server.testing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Browser-like HTTP client for load tests of either BFF (servlet or
+ * reactive), so both run exactly the same scenario.
+ *
+ * - {@link #login()}: OAuth2 login against a {@link StubIdentityProvider},
+ *   returns the authenticated JSESSIONID cookie
+ * - {@link #journey()}: login, /dashboard and /api/user, each step timed
+ * - {@link #throughput(String, List)}: CONNECTIONS concurrent clients GET
+ *   a path with those sessions for WARMUP then MEASURE, and report
+ *   throughput and latency percentiles ({@link #userEndpoint(List)}: /api/user)
+ * - {@link #anonymous(String)}: the same without a session (bots, expired
+ *   tabs), expecting 401 and counting responses that create a session
+ */
+public final class BffLoadClient {
+
+	/** Logged-in sessions shared by the /api/user clients. */
+	public static final int SESSIONS = 100;
+
+	/** Concurrent /api/user clients (one in-flight request each). */
+	public static final int CONNECTIONS = 200;
+
+	public static final Duration WARMUP = Duration.ofSeconds(3);
+
+	public static final Duration MEASURE = Duration.ofSeconds(10);
+
+	private final HttpClient http = HttpClient.newBuilder()
+		.followRedirects(HttpClient.Redirect.NEVER)
+		.executor(Executors.newVirtualThreadPerTaskExecutor())
+		.build();
+
+	private final String baseUrl;
+
+	/**
+	 * @param baseUrl application under test, e.g. http://127.0.0.1:8080
+	 */
+	public BffLoadClient(String baseUrl) {
+		this.baseUrl = baseUrl;
+	}
+
+	/**
+	 * Starts the authorization request, then returns to the callback as
+	 * GitHub would after consent.
+	 * @return the authenticated session and the callback latency
+	 */
+	public Login login() throws IOException, InterruptedException {
+		Pending pending = authorize();
+		long start = System.nanoTime();
+		String session = callback(pending);
+		return new Login(session, System.nanoTime() - start);
+	}
+
+	/**
+	 * One complete visit, each step timed: /oauth2/authorization/github,
+	 * the callback (token and user-info calls to the IdP), the /dashboard
+	 * landing page and the SPA's first /api/user.
+	 *
+	 * /dashboard is served by the frontend in production, so the backend
+	 * answers 404; the step checks that the session is let through (no
+	 * redirect to login, no 401).
+	 * @return the session and the latency of each step
+	 * @throws JourneyException naming the step that failed
+	 */
+	public Journey journey() throws InterruptedException {
+		String step = "authorize";
+		try {
+			long start = System.nanoTime();
+			Pending pending = authorize();
+			long authorized = System.nanoTime();
+			step = "callback";
+			String session = callback(pending);
+			long loggedIn = System.nanoTime();
+			step = "dashboard";
+			HttpResponse<Void> dashboard = this.http.send(
+					HttpRequest.newBuilder(URI.create(this.baseUrl + "/dashboard")).header("Cookie", session).build(),
+					HttpResponse.BodyHandlers.discarding());
+			if (dashboard.statusCode() != 200 && dashboard.statusCode() != 404) {
+				throw new IllegalStateException("/dashboard: expected 200 or 404 but was " + dashboard.statusCode());
+			}
+			long landed = System.nanoTime();
+			step = "user";
+			HttpResponse<InputStream> user = this.http.send(
+					HttpRequest.newBuilder(URI.create(this.baseUrl + "/api/user")).header("Cookie", session).build(),
+					HttpResponse.BodyHandlers.ofInputStream());
+			try (InputStream body = user.body()) {
+				expect(user, 200);
+				body.transferTo(OutputStream.nullOutputStream());
+			}
+			long end = System.nanoTime();
+			return new Journey(session, authorized - start, loggedIn - authorized, landed - loggedIn, end - landed);
+		}
+		catch (IOException | RuntimeException ex) {
+			throw new JourneyException(step, ex);
+		}
+	}
+
+	private Pending authorize() throws IOException, InterruptedException {
+		HttpResponse<Void> authorize = this.http.send(
+				HttpRequest.newBuilder(URI.create(this.baseUrl + "/oauth2/authorization/github")).build(),
+				HttpResponse.BodyHandlers.discarding());
+		expect(authorize, 302);
+		// The pending login is in a session (JSESSIONID) or an encrypted
+		// cookie (OAUTH2_AUTH_REQUEST), depending on the server's repository
+		String cookies = authorize.headers()
+			.allValues("Set-Cookie")
+			.stream()
+			.map(cookie -> cookie.split(";", 2)[0])
+			.filter(cookie -> !cookie.endsWith("="))
+			.reduce((first, second) -> first + "; " + second)
+			.orElseThrow(() -> new IllegalStateException("No cookie for the pending login"));
+		URI idpRedirect = URI.create(authorize.headers().firstValue("Location").orElseThrow());
+		return new Pending(cookies, parameter(idpRedirect.getRawQuery(), "state"));
+	}
+
+	private String callback(Pending pending) throws IOException, InterruptedException {
+		HttpResponse<Void> callback = this.http.send(
+				HttpRequest.newBuilder(URI.create(this.baseUrl + "/login/oauth2/code/github?code=stub-code&state="
+						+ URLEncoder.encode(pending.state(), StandardCharsets.UTF_8)))
+					.header("Cookie", pending.cookies())
+					.build(),
+				HttpResponse.BodyHandlers.discarding());
+		expect(callback, 302);
+		String location = callback.headers().firstValue("Location").orElse("");
+		if (!location.endsWith("/dashboard")) {
+			throw new IllegalStateException("Login failed, redirected to " + location);
+		}
+		// Session fixation protection issues a new session ID at login
+		return sessionCookie(callback).orElseThrow(() -> new IllegalStateException("No session cookie at login"));
+	}
+
+	/**
+	 * @param count sessions to create
+	 * @return Cookie header values of {@code count} logged-in sessions
+	 */
+	public List<String> loginSessions(int count) throws Exception {
+		List<Future<Login>> logins = new ArrayList<>(count);
+		try (ExecutorService browsers = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < count; i++) {
+				logins.add(browsers.submit(this::login));
+			}
+		}
+		List<String> sessions = new ArrayList<>(count);
+		for (Future<Login> login : logins) {
+			sessions.add(login.get().session());
+		}
+		return sessions;
+	}
+
+	/**
+	 * Runs the /api/user scenario.
+	 * @param sessions Cookie header values, assigned round-robin to clients
+	 * @return results of the MEASURE window (warm-up excluded)
+	 */
+	public Result userEndpoint(List<String> sessions) throws Exception {
+		return throughput("/api/user", sessions);
+	}
+
+	/**
+	 * Runs {@code path} without cookies, expecting 401.
+	 * @param path request path and query
+	 * @return results of the MEASURE window (warm-up excluded)
+	 */
+	public Result anonymous(String path) throws Exception {
+		return throughput(path, List.of(""), 401);
+	}
+
+	/**
+	 * CONNECTIONS clients GET {@code path}, each sending its next request as
+	 * soon as the previous response body has been read.
+	 * @param path request path and query
+	 * @param sessions Cookie header values, assigned round-robin to clients
+	 * (an empty string sends no cookie)
+	 * @return results of the MEASURE window (warm-up excluded)
+	 */
+	public Result throughput(String path, List<String> sessions) throws Exception {
+		return throughput(path, sessions, 200);
+	}
+
+	private Result throughput(String path, List<String> sessions, int status) throws Exception {
+		long warmupEnd = System.nanoTime() + WARMUP.toNanos();
+		long measureEnd = warmupEnd + MEASURE.toNanos();
+		List<Future<Measured>> clients = new ArrayList<>(CONNECTIONS);
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < CONNECTIONS; i++) {
+				String session = sessions.get(i % sessions.size());
+				clients.add(executor.submit(() -> client(path, session, status, warmupEnd, measureEnd)));
+			}
+		}
+		long[] latencies = new long[0];
+		long bytes = 0;
+		long newSessions = 0;
+		for (Future<Measured> client : clients) {
+			Measured measured = client.get();
+			int offset = latencies.length;
+			latencies = Arrays.copyOf(latencies, offset + measured.latencies().length);
+			System.arraycopy(measured.latencies(), 0, latencies, offset, measured.latencies().length);
+			bytes += measured.bytes();
+			newSessions += measured.newSessions();
+		}
+		Arrays.sort(latencies);
+		double seconds = MEASURE.toNanos() / 1e9;
+		return new Result(path, latencies.length, latencies.length / seconds, bytes / seconds,
+				percentile(latencies, 0.50), percentile(latencies, 0.99), newSessions);
+	}
+
+	private Measured client(String path, String session, int status, long warmupEnd, long measureEnd)
+			throws Exception {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(this.baseUrl + path));
+		if (!session.isEmpty()) {
+			builder.header("Cookie", session);
+		}
+		HttpRequest request = builder.build();
+		long[] latencies = new long[1024];
+		int count = 0;
+		long bytes = 0;
+		long newSessions = 0;
+		long now;
+		while ((now = System.nanoTime()) < measureEnd) {
+			HttpResponse<InputStream> response = this.http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+			long read;
+			try (InputStream body = response.body()) {
+				expect(response, status);
+				read = body.transferTo(OutputStream.nullOutputStream());
+			}
+			long end = System.nanoTime();
+			if (now >= warmupEnd && end <= measureEnd) {
+				if (count == latencies.length) {
+					latencies = Arrays.copyOf(latencies, count * 2);
+				}
+				latencies[count++] = end - now;
+				bytes += read;
+				if (sessionCookie(response).isPresent()) {
+					newSessions++;
+				}
+			}
+		}
+		return new Measured(Arrays.copyOf(latencies, count), bytes, newSessions);
+	}
+
+	private static long percentile(long[] sorted, double percentile) {
+		return (sorted.length == 0) ? 0 : sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))];
+	}
+
+	private static void expect(HttpResponse<?> response, int status) {
+		if (response.statusCode() != status) {
+			throw new IllegalStateException(response.request().uri() + ": expected " + status + " but was "
+					+ response.statusCode());
+		}
+	}
+
+	private static Optional<String> sessionCookie(HttpResponse<?> response) {
+		return response.headers()
+			.allValues("Set-Cookie")
+			.stream()
+			.filter(cookie -> cookie.startsWith("JSESSIONID=") && !cookie.startsWith("JSESSIONID=;"))
+			.reduce((first, last) -> last)
+			.map(cookie -> cookie.split(";", 2)[0]);
+	}
+
+	private static String parameter(String query, String name) {
+		for (String pair : query.split("&")) {
+			if (pair.startsWith(name + "=")) {
+				return URLDecoder.decode(pair.substring(name.length() + 1), StandardCharsets.UTF_8);
+			}
+		}
+		throw new IllegalArgumentException("Missing " + name + " in " + query);
+	}
+
+	/**
+	 * @param session Cookie header value (JSESSIONID=...)
+	 * @param callbackNanos latency of the /login/oauth2/code callback
+	 */
+	public record Login(String session, long callbackNanos) {
+	}
+
+	/**
+	 * @param session Cookie header value (JSESSIONID=...)
+	 * @param authorizeNanos latency of /oauth2/authorization/github
+	 * @param callbackNanos latency of the /login/oauth2/code callback
+	 * @param dashboardNanos latency of /dashboard
+	 * @param userNanos latency of the first /api/user
+	 */
+	public record Journey(String session, long authorizeNanos, long callbackNanos, long dashboardNanos,
+			long userNanos) {
+
+		public long totalNanos() {
+			return this.authorizeNanos + this.callbackNanos + this.dashboardNanos + this.userNanos;
+		}
+	}
+
+	/**
+	 * A {@link #journey()} that did not complete.
+	 */
+	public static final class JourneyException extends RuntimeException {
+
+		private final String step;
+
+		JourneyException(String step, Exception cause) {
+			super(step + ": " + cause.getMessage(), cause);
+			this.step = step;
+		}
+
+		/**
+		 * @return authorize, callback, dashboard or user
+		 */
+		public String step() {
+			return this.step;
+		}
+	}
+
+	/**
+	 * @param path request path and query
+	 * @param requests requests completed in the MEASURE window
+	 * @param perSecond throughput in requests
+	 * @param bytesPerSecond throughput in response body bytes
+	 * @param p50Nanos median latency
+	 * @param p99Nanos 99th percentile latency
+	 * @param newSessions responses that set a new JSESSIONID cookie
+	 */
+	public record Result(String path, long requests, double perSecond, double bytesPerSecond, long p50Nanos,
+			long p99Nanos, long newSessions) {
+
+		public String format(String label) {
+			return "%s: GET %s, %d connections: %.0f req/s, %.1f MB/s, p50=%.2f ms, p99=%.2f ms, new sessions=%d"
+				.formatted(label, this.path, CONNECTIONS, this.perSecond, this.bytesPerSecond / 1e6,
+						this.p50Nanos / 1e6, this.p99Nanos / 1e6, this.newSessions);
+		}
+	}
+
+	private record Pending(String cookies, String state) {
+	}
+
+	private record Measured(long[] latencies, long bytes, long newSessions) {
+	}
+}
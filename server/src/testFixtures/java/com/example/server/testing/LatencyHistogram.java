@@ -0,0 +1,129 @@
+package com.example.server.testing;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Latency histogram for load tests: thread-safe, fixed size, about 6%
+ * precision from 1 microsecond to hours.
+ *
+ * Values are kept in microseconds, in 16 linear sub-buckets per power of
+ * two (the HdrHistogram layout, without the dependency). Percentiles are
+ * reported as the upper bound of their bucket, so they never understate.
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+
+	private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * @param nanos one observed latency
+	 */
+	public void record(long nanos) {
+		long micros = Math.max(0, nanos / 1_000);
+		this.counts.incrementAndGet(index(micros));
+		this.maxMicros.accumulate(micros);
+	}
+
+	public long count() {
+		long count = 0;
+		for (int i = 0; i < this.counts.length(); i++) {
+			count += this.counts.get(i);
+		}
+		return count;
+	}
+
+	/**
+	 * @param percentile 0 to 100
+	 * @return latency in nanoseconds at or below which that share of the
+	 * recorded values falls (0 if nothing was recorded)
+	 */
+	public long percentileNanos(double percentile) {
+		long count = count();
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < this.counts.length(); i++) {
+			seen += this.counts.get(i);
+			if (seen >= rank) {
+				return Math.min(upperBound(i), this.maxMicros.get()) * 1_000;
+			}
+		}
+		return this.maxMicros.get() * 1_000;
+	}
+
+	public long maxNanos() {
+		return this.maxMicros.get() * 1_000;
+	}
+
+	/**
+	 * @return one line: count and p50/p90/p99/p99.9/max in milliseconds
+	 */
+	public String summary() {
+		return "n=%d p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f ms".formatted(count(),
+				percentileNanos(50) / 1e6, percentileNanos(90) / 1e6, percentileNanos(99) / 1e6,
+				percentileNanos(99.9) / 1e6, maxNanos() / 1e6);
+	}
+
+	/**
+	 * @return the distribution per power-of-two range of milliseconds, one
+	 * line each, empty leading and trailing ranges left out
+	 */
+	public String distribution() {
+		long[] ranges = new long[65];
+		for (int i = 0; i < this.counts.length(); i++) {
+			long millis = lowerBound(i) / 1_000;
+			ranges[(millis == 0) ? 0 : 64 - Long.numberOfLeadingZeros(millis)] += this.counts.get(i);
+		}
+		int first = 0;
+		int last = ranges.length - 1;
+		while (first < last && ranges[first] == 0) {
+			first++;
+		}
+		while (last > first && ranges[last] == 0) {
+			last--;
+		}
+		long count = Math.max(1, count());
+		StringBuilder out = new StringBuilder();
+		for (int range = first; range <= last; range++) {
+			long from = (range == 0) ? 0 : 1L << (range - 1);
+			String label = "[%d, %d) ms".formatted(from, 1L << range);
+			out.append("  %-20s %10d  %s%n".formatted(label, ranges[range],
+					"#".repeat((int) (50 * ranges[range] / count))));
+		}
+		return out.toString();
+	}
+
+	private static int index(long micros) {
+		if (micros < SUB_BUCKETS) {
+			return (int) micros;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+		int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	private static long lowerBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long sub = index % SUB_BUCKETS;
+		return (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+	}
+
+	private static long upperBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		return lowerBound(index) + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+}
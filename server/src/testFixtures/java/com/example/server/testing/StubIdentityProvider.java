@@ -0,0 +1,287 @@
+package com.example.server.testing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+/**
+ * In-process OAuth2 provider standing in for GitHub in load and
+ * integration tests, with configurable latency (a slow IdP) and injected
+ * errors (a failing one).
+ *
+ * ENDPOINTS:
+ * - GET  /authorize: 302 back to redirect_uri with a code and the state
+ * - POST /token:     bearer access token and refresh token (JSON), for both
+ *                    authorization_code and refresh_token grants
+ * - GET  /user:      GitHub-shaped user; each call returns a new id
+ *
+ * With {@link #setErrorRate(double)}, that fraction of token and user-info
+ * calls answers 500 {"error":"server_error"} instead, after the latency.
+ *
+ * Requests are served on virtual threads so the stub itself never limits
+ * concurrency; {@link #maxConcurrentRequests()} reports how many requests
+ * the application had in flight at once.
+ */
+public final class StubIdentityProvider implements AutoCloseable {
+
+	private static final String GITHUB_CLIENT = "spring.security.oauth2.client.registration.github.";
+
+	private static final String GITHUB_PROVIDER = "spring.security.oauth2.client.provider.github.";
+
+	/**
+	 * The github registration's client ID, for {@code @SpringBootTest}
+	 * properties of tests that never reach the provider.
+	 * {@link #registerGithub} sets it too.
+	 */
+	public static final String CLIENT_ID = GITHUB_CLIENT + "client-id=load-test";
+
+	public static final String CLIENT_SECRET = GITHUB_CLIENT + "client-secret=secret";
+
+	private static final String SERVER_ERROR = """
+			{"error":"server_error"}
+			""";
+
+	private final HttpServer server;
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	private volatile Duration latency;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	private final AtomicLong tokenRequests = new AtomicLong();
+
+	private final AtomicLong refreshRequests = new AtomicLong();
+
+	private volatile Duration tokenLifetime = Duration.ofHours(8);
+
+	private volatile int tokenStatus = 200;
+
+	private volatile double errorRate;
+
+	private final AtomicLong injectedErrors = new AtomicLong();
+
+	private final AtomicLong userRequests = new AtomicLong();
+
+	private final AtomicLong nextUserId = new AtomicLong(1);
+
+	private final AtomicLong nextToken = new AtomicLong(1);
+
+	private StubIdentityProvider(Duration latency) throws IOException {
+		this.latency = latency;
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+		this.server.setExecutor(this.executor);
+		this.server.createContext("/authorize", this::authorize);
+		this.server.createContext("/token", exchange -> {
+			this.tokenRequests.incrementAndGet();
+			String form = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+			if (form.contains("grant_type=refresh_token")) {
+				this.refreshRequests.incrementAndGet();
+			}
+			if (injectError()) {
+				slowly(exchange, 500, SERVER_ERROR);
+				return;
+			}
+			long token = this.nextToken.getAndIncrement();
+			slowly(exchange, this.tokenStatus, (this.tokenStatus == 200) ? """
+					{"access_token":"gho_stub_%d","refresh_token":"ghr_stub_%d","token_type":"bearer",\
+					"expires_in":%d,"scope":"read:user"}
+					""".formatted(token, token, this.tokenLifetime.toSeconds()) : """
+					{"error":"invalid_grant"}
+					""");
+		});
+		this.server.createContext("/user", exchange -> {
+			this.userRequests.incrementAndGet();
+			if (injectError()) {
+				slowly(exchange, 500, SERVER_ERROR);
+				return;
+			}
+			long id = this.nextUserId.getAndIncrement();
+			slowly(exchange, 200, """
+					{"login":"user%d","id":%d,"name":"User %d","avatar_url":"https://avatars.example.com/u/%d",\
+					"html_url":"https://github.example.com/user%d","public_repos":1,"followers":0,"following":0}
+					""".formatted(id, id, id, id, id));
+		});
+		this.server.start();
+	}
+
+	/**
+	 * @param latency delay added to every token and user-info response
+	 * @return a started provider on a random local port
+	 */
+	public static StubIdentityProvider start(Duration latency) {
+		try {
+			return new StubIdentityProvider(latency);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Cannot start stub identity provider", ex);
+		}
+	}
+
+	public String baseUrl() {
+		return "http://127.0.0.1:" + this.server.getAddress().getPort();
+	}
+
+	public String authorizationUri() {
+		return baseUrl() + "/authorize";
+	}
+
+	public String tokenUri() {
+		return baseUrl() + "/token";
+	}
+
+	public String userInfoUri() {
+		return baseUrl() + "/user";
+	}
+
+	/**
+	 * Points the github registration at this provider, from a
+	 * {@code @DynamicPropertySource} method: endpoints, client credentials,
+	 * and Spring Security logging down to WARN so a load run does not log
+	 * every request.
+	 */
+	public void registerGithub(DynamicPropertyRegistry registry) {
+		registry.add(GITHUB_PROVIDER + "authorization-uri", this::authorizationUri);
+		registry.add(GITHUB_PROVIDER + "token-uri", this::tokenUri);
+		registry.add(GITHUB_PROVIDER + "user-info-uri", this::userInfoUri);
+		registry.add(GITHUB_PROVIDER + "user-name-attribute", () -> "id");
+		registry.add(GITHUB_CLIENT + "client-id", () -> "load-test");
+		registry.add(GITHUB_CLIENT + "client-secret", () -> "secret");
+		registry.add("logging.level.org.springframework.security", () -> "WARN");
+	}
+
+	public void setLatency(Duration latency) {
+		this.latency = latency;
+	}
+
+	/**
+	 * @param tokenLifetime expires_in of the access tokens issued from now on
+	 */
+	public void setTokenLifetime(Duration tokenLifetime) {
+		this.tokenLifetime = tokenLifetime;
+	}
+
+	/**
+	 * @param tokenStatus status of token responses from now on; anything but
+	 * 200 answers {"error":"invalid_grant"}
+	 */
+	public void setTokenStatus(int tokenStatus) {
+		this.tokenStatus = tokenStatus;
+	}
+
+	/**
+	 * @param errorRate fraction (0 to 1) of token and user-info calls to
+	 * fail with 500 from now on
+	 */
+	public void setErrorRate(double errorRate) {
+		this.errorRate = errorRate;
+	}
+
+	/**
+	 * @return calls answered 500 because of {@link #setErrorRate(double)}
+	 */
+	public long injectedErrors() {
+		return this.injectedErrors.get();
+	}
+
+	public int maxConcurrentRequests() {
+		return this.maxInFlight.get();
+	}
+
+	public long tokenRequests() {
+		return this.tokenRequests.get();
+	}
+
+	/**
+	 * @return token requests with grant_type=refresh_token
+	 */
+	public long refreshRequests() {
+		return this.refreshRequests.get();
+	}
+
+	public long userRequests() {
+		return this.userRequests.get();
+	}
+
+	/**
+	 * Resets the counters (not the latency) between test runs.
+	 */
+	public void reset() {
+		this.maxInFlight.set(0);
+		this.tokenRequests.set(0);
+		this.refreshRequests.set(0);
+		this.userRequests.set(0);
+		this.injectedErrors.set(0);
+	}
+
+	@Override
+	public void close() {
+		this.server.stop(0);
+		this.executor.close();
+	}
+
+	private void authorize(HttpExchange exchange) throws IOException {
+		String query = exchange.getRequestURI().getRawQuery();
+		String redirectUri = URLDecoder.decode(parameter(query, "redirect_uri"), StandardCharsets.UTF_8);
+		String location = redirectUri + "?code=stub-code&state=" + parameter(query, "state");
+		exchange.getResponseHeaders().add("Location", location);
+		exchange.sendResponseHeaders(302, -1);
+		exchange.close();
+	}
+
+	private boolean injectError() {
+		if (ThreadLocalRandom.current().nextDouble() >= this.errorRate) {
+			return false;
+		}
+		this.injectedErrors.incrementAndGet();
+		return true;
+	}
+
+	private void slowly(HttpExchange exchange, int status, String json) throws IOException {
+		int current = this.inFlight.incrementAndGet();
+		this.maxInFlight.accumulateAndGet(current, Math::max);
+		try (InputStream body = exchange.getRequestBody()) {
+			body.readAllBytes();
+			Thread.sleep(this.latency);
+			byte[] bytes = json.strip().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(status, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			exchange.sendResponseHeaders(503, -1);
+		}
+		finally {
+			this.inFlight.decrementAndGet();
+			exchange.close();
+		}
+	}
+
+	private static String parameter(String query, String name) {
+		for (String pair : query.split("&")) {
+			int eq = pair.indexOf('=');
+			if (eq > 0 && pair.substring(0, eq).equals(name)) {
+				return pair.substring(eq + 1);
+			}
+		}
+		throw new IllegalArgumentException("Missing " + name + " in " + query);
+	}
+}
@@ -0,0 +1,229 @@
+package com.example.server.testing;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process OpenID Connect issuer standing in for Keycloak: discovery
+ * document, JWK set and RS256-signed ID tokens.
+ *
+ * ENDPOINTS:
+ * - GET /.well-known/openid-configuration: issuer, endpoints, jwks_uri
+ * - GET /jwks: the current signing key plus keys retired by
+ *              {@link #rotateKey()} (as a real IdP publishes both during
+ *              rotation)
+ *
+ * {@link #setAvailable(boolean)} makes both endpoints answer 503, an IdP
+ * outage; {@link #setLatency(Duration)} a slow one.
+ */
+public final class StubIssuer implements AutoCloseable {
+
+	private final HttpServer server;
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	private final List<SigningKey> keys = new ArrayList<>();
+
+	private final AtomicInteger nextKeyId = new AtomicInteger(1);
+
+	private final AtomicLong discoveryRequests = new AtomicLong();
+
+	private final AtomicLong jwksRequests = new AtomicLong();
+
+	private volatile Duration latency = Duration.ZERO;
+
+	private volatile boolean available = true;
+
+	private StubIssuer() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+		this.server.setExecutor(this.executor);
+		this.server.createContext("/.well-known/openid-configuration", exchange -> {
+			this.discoveryRequests.incrementAndGet();
+			respond(exchange, """
+					{"issuer":"%1$s","authorization_endpoint":"%1$s/authorize","token_endpoint":"%1$s/token",\
+					"userinfo_endpoint":"%1$s/userinfo","jwks_uri":"%1$s/jwks","response_types_supported":["code"],\
+					"subject_types_supported":["public"],"id_token_signing_alg_values_supported":["RS256"]}
+					""".formatted(issuer()));
+		});
+		this.server.createContext("/jwks", exchange -> {
+			this.jwksRequests.incrementAndGet();
+			respond(exchange, jwks());
+		});
+		rotateKey();
+		this.server.start();
+	}
+
+	/**
+	 * @return a started issuer on a random local port
+	 */
+	public static StubIssuer start() {
+		try {
+			return new StubIssuer();
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Cannot start stub issuer", ex);
+		}
+	}
+
+	public String issuer() {
+		return "http://127.0.0.1:" + this.server.getAddress().getPort();
+	}
+
+	public String jwkSetUri() {
+		return issuer() + "/jwks";
+	}
+
+	/**
+	 * Signs tokens with a new key (new kid) from now on; the old key stays
+	 * published.
+	 *
+	 * @return the new kid
+	 */
+	public synchronized String rotateKey() {
+		try {
+			KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+			generator.initialize(2048);
+			SigningKey key = new SigningKey("key-" + this.nextKeyId.getAndIncrement(), generator.generateKeyPair());
+			this.keys.add(key);
+			return key.kid();
+		}
+		catch (GeneralSecurityException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * @return an ID token for the subject, signed with the current key
+	 */
+	public String idToken(String subject, String audience) {
+		return idToken(subject, audience, currentKey().kid());
+	}
+
+	/**
+	 * @param kid header kid; the current key signs regardless, so an
+	 * unpublished kid yields a token no JWK set can verify
+	 * @return an ID token for the subject, valid for five minutes
+	 */
+	public String idToken(String subject, String audience, String kid) {
+		Instant now = Instant.now();
+		String header = base64("""
+				{"alg":"RS256","typ":"JWT","kid":"%s"}""".formatted(kid));
+		String claims = base64("""
+				{"iss":"%s","sub":"%s","aud":"%s","iat":%d,"exp":%d}""".formatted(
+				issuer(), subject, audience, now.getEpochSecond(), now.plusSeconds(300).getEpochSecond()));
+		try {
+			Signature rsa = Signature.getInstance("SHA256withRSA");
+			rsa.initSign(currentKey().pair().getPrivate());
+			rsa.update((header + "." + claims).getBytes(StandardCharsets.US_ASCII));
+			return header + "." + claims + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(rsa.sign());
+		}
+		catch (GeneralSecurityException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	public void setLatency(Duration latency) {
+		this.latency = latency;
+	}
+
+	/**
+	 * @param available false answers every request with 503
+	 */
+	public void setAvailable(boolean available) {
+		this.available = available;
+	}
+
+	public long discoveryRequests() {
+		return this.discoveryRequests.get();
+	}
+
+	public long jwksRequests() {
+		return this.jwksRequests.get();
+	}
+
+	@Override
+	public void close() {
+		this.server.stop(0);
+		this.executor.close();
+	}
+
+	private synchronized SigningKey currentKey() {
+		return this.keys.getLast();
+	}
+
+	private synchronized String jwks() {
+		List<String> published = new ArrayList<>();
+		for (SigningKey key : this.keys) {
+			RSAPublicKey rsa = (RSAPublicKey) key.pair().getPublic();
+			published.add("""
+					{"kty":"RSA","use":"sig","alg":"RS256","kid":"%s","n":"%s","e":"%s"}""".formatted(
+					key.kid(), unsigned(rsa.getModulus()), unsigned(rsa.getPublicExponent())));
+		}
+		return "{\"keys\":[" + String.join(",", published) + "]}";
+	}
+
+	private void respond(HttpExchange exchange, String json) throws IOException {
+		try (exchange) {
+			exchange.getRequestBody().readAllBytes();
+			pause();
+			if (!this.available) {
+				exchange.sendResponseHeaders(503, -1);
+				return;
+			}
+			byte[] bytes = json.strip().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		}
+	}
+
+	private void pause() {
+		try {
+			Thread.sleep(this.latency);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static String base64(String json) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Base64url of the big-endian magnitude, without the sign byte (RFC 7518 §6.3.1).
+	 */
+	private static String unsigned(BigInteger value) {
+		byte[] bytes = value.toByteArray();
+		if (bytes.length > 1 && bytes[0] == 0) {
+			bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+
+	private record SigningKey(String kid, KeyPair pair) {
+	}
+}
@@ -0,0 +1,125 @@
+package com.example.server.testing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process resource server standing behind the token-relay proxy in
+ * tests and benchmarks.
+ *
+ * ENDPOINTS:
+ * - GET /bytes/{n}: n bytes of application/octet-stream, written in 8 KB chunks
+ * - anything else:  echoes the request body (and its Content-Type)
+ *
+ * Every response also carries "Set-Cookie: upstream=1", a public
+ * Cache-Control, a wildcard CORS header and X-Frame-Options (which the
+ * proxy must drop) and an ETag (which it must pass on). The last request's method, URI and headers are kept for
+ * assertions.
+ */
+public final class StubUpstream implements AutoCloseable {
+
+	private static final byte[] CHUNK = new byte[8192];
+
+	private final HttpServer server;
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	private final AtomicLong requests = new AtomicLong();
+
+	private volatile Recorded lastRequest;
+
+	private StubUpstream() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+		this.server.setExecutor(this.executor);
+		this.server.createContext("/", this::handle);
+		this.server.start();
+	}
+
+	/**
+	 * @return a started upstream on a random local port
+	 */
+	public static StubUpstream start() {
+		try {
+			return new StubUpstream();
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Cannot start stub upstream", ex);
+		}
+	}
+
+	public String baseUrl() {
+		return "http://127.0.0.1:" + this.server.getAddress().getPort();
+	}
+
+	public long requests() {
+		return this.requests.get();
+	}
+
+	public Recorded lastRequest() {
+		return this.lastRequest;
+	}
+
+	@Override
+	public void close() {
+		this.server.stop(0);
+		this.executor.close();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		this.requests.incrementAndGet();
+		this.lastRequest = new Recorded(exchange.getRequestMethod(), exchange.getRequestURI(),
+				Map.copyOf(exchange.getRequestHeaders()));
+		exchange.getResponseHeaders().add("Set-Cookie", "upstream=1");
+		exchange.getResponseHeaders().add("Cache-Control", "public, max-age=60");
+		exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+		exchange.getResponseHeaders().add("X-Frame-Options", "ALLOWALL");
+		exchange.getResponseHeaders().add("ETag", "\"stub\"");
+		String path = exchange.getRequestURI().getPath();
+		try (InputStream in = exchange.getRequestBody(); OutputStream out = exchange.getResponseBody()) {
+			if (path.startsWith("/bytes/")) {
+				in.readAllBytes();
+				long size = Long.parseLong(path.substring("/bytes/".length()));
+				exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+				exchange.sendResponseHeaders(200, (size == 0) ? -1 : size);
+				for (long remaining = size; remaining > 0; remaining -= CHUNK.length) {
+					out.write(CHUNK, 0, (int) Math.min(CHUNK.length, remaining));
+				}
+			}
+			else {
+				byte[] body = in.readAllBytes();
+				String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+				if (contentType != null) {
+					exchange.getResponseHeaders().add("Content-Type", contentType);
+				}
+				exchange.sendResponseHeaders(200, (body.length == 0) ? -1 : body.length);
+				out.write(body);
+			}
+		}
+		finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * A request as the upstream received it. Header names are as normalized
+	 * by com.sun.net.httpserver (first letter upper case, rest lower case).
+	 */
+	public record Recorded(String method, URI uri, Map<String, List<String>> headers) {
+
+		public String header(String name) {
+			List<String> values = this.headers.get(name);
+			return (values == null) ? null : values.get(0);
+		}
+	}
+}